@@ -192,6 +192,8 @@ private void addTranslations() {
         add(Metrics.WEBSOCKET_INCOMING, "Websocket incoming");
         add(Metrics.WEBSOCKET_OUTGOING, "Websocket outgoing");
         add(Metrics.TURTLE_OPS, "Turtle operations");
+        add(Metrics.INVENTORY_CACHE_HITS, "Inventory cache hits");
+        add(Metrics.INVENTORY_CACHE_MISSES, "Inventory cache misses");
 
         add(AggregatedMetric.TRANSLATION_PREFIX + Aggregate.MAX.id(), "%s (max)");
         add(AggregatedMetric.TRANSLATION_PREFIX + Aggregate.AVG.id(), "%s (avg)");
@@ -11,6 +11,7 @@
 import dan200.computercraft.shared.computer.core.ResourceMount;
 import dan200.computercraft.shared.computer.core.ServerContext;
 import dan200.computercraft.shared.computer.metrics.ComputerMBean;
+import dan200.computercraft.shared.peripheral.generic.InventorySnapshots;
 import dan200.computercraft.shared.peripheral.monitor.MonitorWatcher;
 import dan200.computercraft.shared.util.DropConsumer;
 import dan200.computercraft.shared.util.TickScheduler;
@@ -46,6 +47,7 @@ private CommonHooks() {
     }
 
     public static void onServerTickStart(MinecraftServer server) {
+        InventorySnapshots.reset();
         ServerContext.get(server).tick();
         TickScheduler.tick();
     }
@@ -71,6 +73,7 @@ public static void onServerStopped() {
     private static void resetState() {
         ServerContext.close();
         NetworkUtils.reset();
+        InventorySnapshots.reset();
     }
 
     public static void onServerChunkUnload(LevelChunk chunk) {
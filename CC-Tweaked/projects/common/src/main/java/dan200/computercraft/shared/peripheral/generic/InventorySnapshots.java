@@ -0,0 +1,145 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.shared.peripheral.generic;
+
+import dan200.computercraft.api.detail.VanillaDetailRegistries;
+import dan200.computercraft.api.peripheral.IComputerAccess;
+import dan200.computercraft.core.apis.ComputerAccess;
+import dan200.computercraft.core.metrics.Metrics;
+import dan200.computercraft.shared.CommonHooks;
+import net.minecraft.world.item.ItemStack;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * A cache of the item details of inventories, used by the generic inventory methods.
+ * <p>
+ * Programs often scan the same inventories many times within a single tick (for instance, a storage system calling
+ * {@code list()} on every chest, and then {@code getItemDetail()} on interesting slots). Computing an item's details is
+ * relatively expensive, so instead we keep a snapshot of each inventory accessed this tick, with the details of each
+ * slot computed on demand.
+ * <p>
+ * Inventories may be changed by other main-thread tasks (such as {@code pushItems}) within the same tick, so each slot
+ * remembers the stack its details were computed from, and is recomputed if the current stack no longer matches. All
+ * snapshots are discarded at the start of every tick.
+ * <p>
+ * Details are shared between all computers, and so are exposed as unmodifiable maps.
+ * <p>
+ * This class is not thread-safe, and should only be used from the main thread.
+ */
+public final class InventorySnapshots {
+    private static final Map<Object, Snapshot> snapshots = new HashMap<>();
+
+    private InventorySnapshots() {
+    }
+
+    /**
+     * Discard all snapshots. This should <em>NOT</em> be called outside of {@link CommonHooks}.
+     */
+    public static void reset() {
+        snapshots.clear();
+    }
+
+    /**
+     * List the basic details of every non-empty slot in an inventory.
+     *
+     * @param computer  The computer listing this inventory, used to report cache metrics.
+     * @param inventory The inventory to list. This is used as the key of the snapshot, and so should implement
+     *                  {@link Object#equals(Object)} if multiple instances may refer to the same inventory.
+     * @param size      The number of slots in this inventory.
+     * @param getStack  Get the stack in a (zero-indexed) slot.
+     * @return A map of one-indexed slots to their basic details.
+     */
+    public static Map<Integer, Map<String, ?>> list(IComputerAccess computer, Object inventory, int size, IntFunction<ItemStack> getStack) {
+        var snapshot = getSnapshot(inventory, size);
+
+        Map<Integer, Map<String, ?>> result = new HashMap<>();
+        int hits = 0, misses = 0;
+        for (var i = 0; i < size; i++) {
+            var stack = getStack.apply(i);
+            if (stack.isEmpty()) continue;
+
+            var slot = snapshot.getSlot(i, stack);
+            if (slot.basic == null) {
+                slot.basic = Collections.unmodifiableMap(VanillaDetailRegistries.ITEM_STACK.getBasicDetails(stack));
+                misses++;
+            } else {
+                hits++;
+            }
+
+            result.put(i + 1, slot.basic);
+        }
+
+        observe(computer, hits, misses);
+        return result;
+    }
+
+    /**
+     * Get the full details of a single slot in an inventory.
+     *
+     * @param computer  The computer querying this inventory, used to report cache metrics.
+     * @param inventory The inventory to query.
+     * @param size      The number of slots in this inventory.
+     * @param slot      The (zero-indexed) slot to get the details of.
+     * @param stack     The stack currently in this slot.
+     * @return The details of this stack, or {@code null} if the slot is empty.
+     * @see #list(IComputerAccess, Object, int, IntFunction)
+     */
+    public static @Nullable Map<String, ?> getDetail(IComputerAccess computer, Object inventory, int size, int slot, ItemStack stack) {
+        if (stack.isEmpty()) return null;
+
+        var cached = getSnapshot(inventory, size).getSlot(slot, stack);
+        if (cached.detail == null) {
+            cached.detail = Collections.unmodifiableMap(VanillaDetailRegistries.ITEM_STACK.getDetails(stack));
+            observe(computer, 0, 1);
+        } else {
+            observe(computer, 1, 0);
+        }
+
+        return cached.detail;
+    }
+
+    private static Snapshot getSnapshot(Object inventory, int size) {
+        var snapshot = snapshots.get(inventory);
+        if (snapshot == null || snapshot.slots.length != size) {
+            snapshots.put(inventory, snapshot = new Snapshot(size));
+        }
+        return snapshot;
+    }
+
+    private static void observe(IComputerAccess computer, int hits, int misses) {
+        var metrics = ComputerAccess.metrics(computer);
+        for (var i = 0; i < hits; i++) metrics.observe(Metrics.INVENTORY_CACHE_HITS);
+        for (var i = 0; i < misses; i++) metrics.observe(Metrics.INVENTORY_CACHE_MISSES);
+    }
+
+    private static final class Snapshot {
+        final Slot[] slots;
+
+        Snapshot(int size) {
+            slots = new Slot[size];
+        }
+
+        Slot getSlot(int index, ItemStack stack) {
+            var slot = slots[index];
+            if (slot == null || !ItemStack.matches(slot.stack, stack)) slots[index] = slot = new Slot(stack.copy());
+            return slot;
+        }
+    }
+
+    private static final class Slot {
+        final ItemStack stack;
+        @Nullable Map<String, ?> basic;
+        @Nullable Map<String, ?> detail;
+
+        Slot(ItemStack stack) {
+            this.stack = stack;
+        }
+    }
+}
@@ -56,6 +56,7 @@ public final String id() {
      * rather than [`ipairs`].
      *
      * @param inventory The current inventory.
+     * @param computer  The current computer.
      * @return All items in this inventory.
      * @cc.treturn { (table|nil)... } All items in this inventory.
      * @cc.usage Find an adjacent chest and print all items in it.
@@ -68,7 +69,7 @@ public final String id() {
      * }</pre>
      */
     @LuaFunction(mainThread = true)
-    public abstract Map<Integer, Map<String, ?>> list(T inventory);
+    public abstract Map<Integer, Map<String, ?>> list(T inventory, IComputerAccess computer);
 
     /**
      * Get detailed information about an item.
@@ -88,6 +89,7 @@ public final String id() {
      * > field in new code!
      *
      * @param inventory The current inventory.
+     * @param computer  The current computer.
      * @param slot      The slot to get information about.
      * @return Information about the item in this slot, or {@code nil} if not present.
      * @throws LuaException If the slot is out of range.
@@ -109,7 +111,7 @@ public final String id() {
      */
     @Nullable
     @LuaFunction(mainThread = true)
-    public abstract Map<String, ?> getItemDetail(T inventory, int slot) throws LuaException;
+    public abstract Map<String, ?> getItemDetail(T inventory, IComputerAccess computer, int slot) throws LuaException;
 
     /**
      * Get the maximum number of items which can be stored in this slot.
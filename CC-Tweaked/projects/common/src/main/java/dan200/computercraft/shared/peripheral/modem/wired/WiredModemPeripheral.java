@@ -14,8 +14,11 @@
 import dan200.computercraft.api.peripheral.IPeripheral;
 import dan200.computercraft.api.peripheral.NotAttachedException;
 import dan200.computercraft.api.peripheral.WorkMonitor;
+import dan200.computercraft.core.apis.ComputerAccess;
+import dan200.computercraft.core.apis.MetricsSource;
 import dan200.computercraft.core.apis.PeripheralAPI;
 import dan200.computercraft.core.computer.GuardedLuaContext;
+import dan200.computercraft.core.metrics.MetricsObserver;
 import dan200.computercraft.core.methods.PeripheralMethod;
 import dan200.computercraft.core.util.LuaUtil;
 import dan200.computercraft.shared.computer.core.ServerContext;
@@ -305,7 +308,7 @@ private void attachPeripheralImpl(IComputerAccess computer, ConcurrentMap<String
         return wrappers == null ? null : wrappers.get(remoteName);
     }
 
-    private static class RemotePeripheralWrapper implements IComputerAccess, GuardedLuaContext.Guard {
+    private static class RemotePeripheralWrapper implements IComputerAccess, MetricsSource, GuardedLuaContext.Guard {
         private final WiredModemElement element;
         private final IPeripheral peripheral;
         private final IComputerAccess computer;
@@ -441,6 +444,11 @@ public WorkMonitor getMainThreadMonitor() {
             return computer.getMainThreadMonitor();
         }
 
+        @Override
+        public MetricsObserver metrics() {
+            return ComputerAccess.metrics(computer);
+        }
+
         @Override
         public String getAttachmentName() {
             if (!attached) throw new NotAttachedException();
@@ -0,0 +1,241 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.shared.peripheral.generic;
+
+import dan200.computercraft.api.filesystem.Mount;
+import dan200.computercraft.api.filesystem.WritableMount;
+import dan200.computercraft.api.peripheral.IComputerAccess;
+import dan200.computercraft.api.peripheral.IPeripheral;
+import dan200.computercraft.api.peripheral.WorkMonitor;
+import dan200.computercraft.core.apis.ComputerAccess;
+import dan200.computercraft.core.apis.MetricsSource;
+import dan200.computercraft.core.metrics.Metric;
+import dan200.computercraft.core.metrics.Metrics;
+import dan200.computercraft.core.metrics.MetricsObserver;
+import dan200.computercraft.test.shared.WithMinecraft;
+import net.minecraft.world.SimpleContainer;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@WithMinecraft
+public class InventorySnapshotsTest {
+    private final Computer computer = new Computer();
+
+    @BeforeEach
+    public void reset() {
+        InventorySnapshots.reset();
+    }
+
+    @Test
+    public void testListIsCached() {
+        var container = container();
+
+        var first = list(computer, container);
+        assertEquals(2, first.size());
+        assertEquals(0, computer.hits());
+        assertEquals(2, computer.misses());
+
+        var second = list(computer, container);
+        assertSame(first.get(1), second.get(1));
+        assertSame(first.get(3), second.get(3));
+        assertEquals(2, computer.hits());
+        assertEquals(2, computer.misses());
+    }
+
+    @Test
+    public void testDetailIsCached() {
+        var container = container();
+
+        var first = getDetail(computer, container, 0);
+        assertNotNull(first);
+        assertEquals(0, computer.hits());
+        assertEquals(1, computer.misses());
+
+        assertSame(first, getDetail(computer, container, 0));
+        assertEquals(1, computer.hits());
+        assertEquals(1, computer.misses());
+
+        // Empty slots are not observed.
+        assertNull(getDetail(computer, container, 1));
+        assertEquals(1, computer.hits());
+        assertEquals(1, computer.misses());
+    }
+
+    @Test
+    public void testChangedStackIsRecomputed() {
+        var container = container();
+
+        var first = list(computer, container);
+        var detail = getDetail(computer, container, 0);
+
+        container.getItem(0).shrink(1);
+
+        var second = list(computer, container);
+        assertNotSame(first.get(1), second.get(1));
+        assertEquals(31, second.get(1).get("count"));
+        assertSame(first.get(3), second.get(3));
+
+        var newDetail = getDetail(computer, container, 0);
+        assertNotSame(detail, newDetail);
+        assertNotNull(newDetail);
+        assertEquals(31, newDetail.get("count"));
+
+        // list (2 misses), getDetail (1 miss), list (1 hit, 1 miss), getDetail (1 miss)
+        assertEquals(1, computer.hits());
+        assertEquals(5, computer.misses());
+    }
+
+    @Test
+    public void testResetDiscardsSnapshots() {
+        var container = container();
+
+        var first = list(computer, container);
+        InventorySnapshots.reset();
+        var second = list(computer, container);
+
+        assertNotSame(first.get(1), second.get(1));
+        assertEquals(first, second);
+        assertEquals(0, computer.hits());
+        assertEquals(4, computer.misses());
+    }
+
+    @Test
+    public void testMetricsThroughWrapper() {
+        var container = container();
+        var wrapper = new Wrapper(computer);
+
+        list(wrapper, container);
+        list(wrapper, container);
+        assertEquals(2, computer.hits());
+        assertEquals(2, computer.misses());
+    }
+
+    @Test
+    public void testMetricsWithoutSource() {
+        var container = container();
+        var access = new BasicComputer();
+
+        var first = list(access, container);
+        assertSame(first.get(1), list(access, container).get(1));
+    }
+
+    private static SimpleContainer container() {
+        var container = new SimpleContainer(4);
+        container.setItem(0, new ItemStack(Items.COBBLESTONE, 32));
+        container.setItem(2, new ItemStack(Items.DIRT));
+        return container;
+    }
+
+    private static Map<Integer, Map<String, ?>> list(IComputerAccess computer, SimpleContainer container) {
+        return InventorySnapshots.list(computer, container, container.getContainerSize(), container::getItem);
+    }
+
+    private static @Nullable Map<String, ?> getDetail(IComputerAccess computer, SimpleContainer container, int slot) {
+        return InventorySnapshots.getDetail(computer, container, container.getContainerSize(), slot, container.getItem(slot));
+    }
+
+    /**
+     * A computer which records the metrics reported to it.
+     */
+    private static class Computer extends BasicComputer implements MetricsSource, MetricsObserver {
+        private final Map<Metric.Counter, Integer> counters = new HashMap<>();
+
+        int hits() {
+            return counters.getOrDefault(Metrics.INVENTORY_CACHE_HITS, 0);
+        }
+
+        int misses() {
+            return counters.getOrDefault(Metrics.INVENTORY_CACHE_MISSES, 0);
+        }
+
+        @Override
+        public MetricsObserver metrics() {
+            return this;
+        }
+
+        @Override
+        public void observe(Metric.Counter counter) {
+            counters.merge(counter, 1, Integer::sum);
+        }
+
+        @Override
+        public void observe(Metric.Event event, long value) {
+        }
+    }
+
+    /**
+     * An {@link IComputerAccess} which delegates its metrics to another computer, in the same way as a wired modem's
+     * remote peripherals.
+     */
+    private static class Wrapper extends BasicComputer implements MetricsSource {
+        private final IComputerAccess computer;
+
+        Wrapper(IComputerAccess computer) {
+            this.computer = computer;
+        }
+
+        @Override
+        public MetricsObserver metrics() {
+            return ComputerAccess.metrics(computer);
+        }
+    }
+
+    /**
+     * An {@link IComputerAccess} which does not report any metrics.
+     */
+    private static class BasicComputer implements IComputerAccess {
+        @Override
+        public @Nullable String mount(String desiredLocation, Mount mount, String driveName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @Nullable String mountWritable(String desiredLocation, WritableMount mount, String driveName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void unmount(@Nullable String location) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getID() {
+            return 0;
+        }
+
+        @Override
+        public void queueEvent(String event, @Nullable Object... arguments) {
+        }
+
+        @Override
+        public String getAttachmentName() {
+            return "test";
+        }
+
+        @Override
+        public Map<String, IPeripheral> getAvailablePeripherals() {
+            return Map.of();
+        }
+
+        @Override
+        public @Nullable IPeripheral getAvailablePeripheral(String name) {
+            return null;
+        }
+
+        @Override
+        public WorkMonitor getMainThreadMonitor() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -30,6 +30,9 @@ public interface IArguments {
      *   <li>Lua values of type "number" will be represented by a {@link Number}.</li>
      *   <li>Lua values of type "boolean" will be represented by a {@link Boolean}.</li>
      *   <li>Lua values of type "table" will be represented by a {@link Map}.</li>
+     *   <li>Lua buffers will be represented by a {@link ByteBuffer}. This shares its contents with the Lua buffer, so
+     *   may be written to, but is only valid until the function returns. If the arguments {@linkplain #escapes()
+     *   escape}, this is a read-only copy instead.</li>
      *   <li>Lua values of any other type will be represented by a {@code null} value.</li>
      * </ul>
      *
@@ -185,26 +188,29 @@ default String getStringCoerced(int index) throws LuaException {
     }
 
     /**
-     * Get a string argument as a byte array.
+     * Get a string argument as a byte array. Lua buffers are also accepted, and are copied.
      *
      * @param index The argument number.
      * @return The argument's value. This is a <em>read only</em> buffer.
-     * @throws LuaException If the value is not a string.
+     * @throws LuaException If the value is not a string or buffer.
      */
     default ByteBuffer getBytes(int index) throws LuaException {
+        if (get(index) instanceof ByteBuffer buffer) return copyBytes(buffer);
         return LuaValues.encode(getString(index));
     }
 
     /**
      * Get the argument, converting it to the raw-byte representation of its string by following Lua conventions.
      * <p>
-     * This is equivalent to {@link #getStringCoerced(int)}, but then
+     * This is equivalent to {@link #getStringCoerced(int)}, but returns the string's bytes rather than a
+     * {@link String}. Lua buffers are converted to a copy of their contents.
      *
      * @param index The argument number.
      * @return The argument's value. This is a <em>read only</em> buffer.
      * @throws LuaException If the argument cannot be converted to Java.
      */
     default ByteBuffer getBytesCoerced(int index) throws LuaException {
+        if (get(index) instanceof ByteBuffer buffer) return copyBytes(buffer);
         return LuaValues.encode(getStringCoerced(index));
     }
 
@@ -331,13 +337,14 @@ default Optional<String> optString(int index) throws LuaException {
     }
 
     /**
-     * Get a string argument as a byte array.
+     * Get a string argument as a byte array. Lua buffers are also accepted, and are copied.
      *
      * @param index The argument number.
      * @return The argument's value, or {@link Optional#empty()} if not present. This is a <em>read only</em> buffer.
-     * @throws LuaException If the value is not a string.
+     * @throws LuaException If the value is not a string or buffer.
      */
     default Optional<ByteBuffer> optBytes(int index) throws LuaException {
+        if (get(index) instanceof ByteBuffer buffer) return Optional.of(copyBytes(buffer));
         return optString(index).map(LuaValues::encode);
     }
 
@@ -499,4 +506,8 @@ default IArguments escapes() throws LuaException {
         // TODO(1.21.0): Make this return void, require that it mutates this.
         return this;
     }
+
+    private static ByteBuffer copyBytes(ByteBuffer buffer) {
+        return ByteBuffer.allocate(buffer.remaining()).put(buffer.duplicate()).flip().asReadOnlyBuffer();
+    }
 }
@@ -35,6 +35,8 @@
 
     testImplementation(libs.asm)
     testImplementation(libs.bundles.test)
+    testImplementation(libs.jmh)
+    testAnnotationProcessor(libs.jmh.processor)
     testRuntimeOnly(libs.bundles.testRuntime)
     testRuntimeOnly(libs.slf4j.simple)
 }
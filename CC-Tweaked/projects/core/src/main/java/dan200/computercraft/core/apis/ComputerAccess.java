@@ -9,6 +9,7 @@
 import dan200.computercraft.api.peripheral.IComputerAccess;
 import dan200.computercraft.api.peripheral.WorkMonitor;
 import dan200.computercraft.core.filesystem.FileSystemException;
+import dan200.computercraft.core.metrics.MetricsObserver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,7 +18,7 @@
 import java.util.Objects;
 import java.util.Set;
 
-public abstract class ComputerAccess implements IComputerAccess {
+public abstract class ComputerAccess implements IComputerAccess, MetricsSource {
     private static final Logger LOG = LoggerFactory.getLogger(ComputerAccess.class);
 
     private final IAPIEnvironment environment;
@@ -116,6 +117,29 @@ public WorkMonitor getMainThreadMonitor() {
         return environment.getMainThreadMonitor();
     }
 
+    /**
+     * Get the metrics observer for this computer. This may be used by peripherals to report their own metrics.
+     *
+     * @return This computer's metrics observer.
+     */
+    @Override
+    public MetricsObserver metrics() {
+        return environment.metrics();
+    }
+
+    /**
+     * Get the metrics observer for a computer, if available.
+     * <p>
+     * Peripherals may be attached through a wrapper (such as a wired modem) rather than this class directly. Such
+     * wrappers should implement {@link MetricsSource}, delegating to the computer they wrap.
+     *
+     * @param computer The computer to get the metrics observer for.
+     * @return This computer's metrics observer, or {@link MetricsObserver#discard()} if it does not provide one.
+     */
+    public static MetricsObserver metrics(IComputerAccess computer) {
+        return computer instanceof MetricsSource source ? source.metrics() : MetricsObserver.discard();
+    }
+
     @Nullable
     private String findFreeLocation(String desiredLoc) {
         try {
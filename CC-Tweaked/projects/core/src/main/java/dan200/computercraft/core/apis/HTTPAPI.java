@@ -74,7 +74,7 @@ public final Object[] request(IArguments args) throws LuaException {
         String address, requestMethod;
         ByteBuffer postBody;
         Map<?, ?> headerTable;
-        boolean binary, redirect;
+        boolean binary, redirect, stream;
         Optional<Double> timeoutArg;
 
         if (args.get(0) instanceof Map) {
@@ -86,6 +86,7 @@ public final Object[] request(IArguments args) throws LuaException {
             binary = optBooleanField(options, "binary", false);
             requestMethod = optStringField(options, "method", null);
             redirect = optBooleanField(options, "redirect", true);
+            stream = optBooleanField(options, "stream", false);
             timeoutArg = optRealField(options, "timeout");
         } else {
             // Get URL and post information
@@ -95,6 +96,7 @@ public final Object[] request(IArguments args) throws LuaException {
             binary = args.optBoolean(3, false);
             requestMethod = null;
             redirect = true;
+            stream = false;
             timeoutArg = Optional.empty();
         }
 
@@ -113,7 +115,7 @@ public final Object[] request(IArguments args) throws LuaException {
 
         try {
             var uri = HttpRequest.checkUri(address);
-            var request = new HttpRequest(requests, apiEnvironment, address, postBody, headers, binary, redirect, timeout);
+            var request = new HttpRequest(requests, apiEnvironment, address, postBody, headers, binary, redirect, stream, timeout);
 
             // Make the request
             if (!request.queue(r -> r.request(uri, httpMethod))) {
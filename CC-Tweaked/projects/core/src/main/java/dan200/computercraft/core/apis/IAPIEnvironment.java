@@ -33,6 +33,15 @@ interface IPeripheralChangeListener {
 
     WorkMonitor getMainThreadMonitor();
 
+    /**
+     * Queue a task to run on the main thread. Unlike {@link dan200.computercraft.api.lua.ILuaContext#issueMainThreadTask},
+     * this does not queue an event once the task has finished.
+     *
+     * @param task The task to run.
+     * @return Whether the task was enqueued (namely, whether the computer's task limit has not been reached).
+     */
+    boolean queueMainThread(Runnable task);
+
     Terminal getTerminal();
 
     FileSystem getFileSystem();
@@ -0,0 +1,25 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.apis;
+
+import dan200.computercraft.api.peripheral.IComputerAccess;
+import dan200.computercraft.core.metrics.MetricsObserver;
+
+/**
+ * An {@link IComputerAccess} which can report metrics for its computer.
+ * <p>
+ * This is implemented by {@link ComputerAccess}, as well as any wrappers around it (such as a wired modem's remote
+ * peripherals).
+ *
+ * @see ComputerAccess#metrics(IComputerAccess)
+ */
+public interface MetricsSource {
+    /**
+     * Get the metrics observer for this computer.
+     *
+     * @return This computer's metrics observer.
+     */
+    MetricsObserver metrics();
+}
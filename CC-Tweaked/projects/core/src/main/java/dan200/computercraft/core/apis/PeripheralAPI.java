@@ -10,12 +10,15 @@
 import dan200.computercraft.api.peripheral.IPeripheral;
 import dan200.computercraft.api.peripheral.NotAttachedException;
 import dan200.computercraft.api.peripheral.WorkMonitor;
+import dan200.computercraft.core.Logging;
 import dan200.computercraft.core.computer.ComputerSide;
 import dan200.computercraft.core.computer.GuardedLuaContext;
 import dan200.computercraft.core.methods.MethodSupplier;
 import dan200.computercraft.core.methods.PeripheralMethod;
 import dan200.computercraft.core.metrics.Metrics;
 import dan200.computercraft.core.util.LuaUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.util.*;
@@ -27,6 +30,8 @@
  * @hidden
  */
 public class PeripheralAPI implements ILuaAPI, IAPIEnvironment.IPeripheralChangeListener {
+    private static final Logger LOG = LoggerFactory.getLogger(PeripheralAPI.class);
+
     private class PeripheralWrapper extends ComputerAccess implements GuardedLuaContext.Guard {
         private final String side;
         private final IPeripheral peripheral;
@@ -331,4 +336,193 @@ public final MethodResult call(ILuaContext context, IArguments args) throws LuaE
             throw e;
         }
     }
+
+    /**
+     * Call several peripheral methods, waiting for them all to finish.
+     * <p>
+     * Each call is a table containing the peripheral's side, the method name, and then any arguments (with an optional
+     * {@code n} field, as returned by {@code table.pack}). This returns a list with the results of each call, either
+     * {@code true} followed by the method's return values, or {@code false} and an error message.
+     * <p>
+     * Every method is first called on the computer thread. Methods which must run on the main thread instead queue a
+     * main-thread task, and each of these tasks is queued at once. Rather than waiting for a {@code task_complete}
+     * event after each task, the computer only waits for the last one. This means as many calls as the
+     * {@linkplain dan200.computercraft.core.computer.mainthread.MainThreadConfig main-thread budget} allows are run in
+     * a single tick, while still accounting for the time taken by each call.
+     * <p>
+     * As a result, methods which do not need the main thread run before those which do, rather than in the order
+     * given.
+     *
+     * @param context The current Lua context.
+     * @param calls   The calls to make.
+     * @return The result of each call.
+     * @throws LuaException If the calls are malformed, or could not be queued.
+     */
+    @LuaFunction
+    public final MethodResult batch(ILuaContext context, Map<?, ?> calls) throws LuaException {
+        var table = new ObjectLuaTable(calls);
+        var count = table.length();
+        if (count == 0) return MethodResult.of((Object) new Object[0]);
+
+        var batch = new Batch(context, count);
+        for (var i = 0; i < count; i++) {
+            var call = table.get((double) (i + 1));
+            if (!(call instanceof Map<?, ?> callTable)) throw LuaValues.badTableItem(i + 1, "table", LuaValues.getType(call));
+            batch.calls[i] = BatchCall.of(i + 1, new ObjectLuaTable(callTable));
+        }
+
+        return batch.start();
+    }
+
+    private record BatchCall(String side, String method, Object[] arguments) {
+        static BatchCall of(int index, LuaTable<?, ?> call) throws LuaException {
+            if (!(call.get(1.0) instanceof String side)) {
+                throw new LuaException("bad call #" + index + " (side expected, got " + LuaValues.getType(call.get(1.0)) + ")");
+            }
+            if (!(call.get(2.0) instanceof String method)) {
+                throw new LuaException("bad call #" + index + " (method expected, got " + LuaValues.getType(call.get(2.0)) + ")");
+            }
+
+            var count = call.get("n") instanceof Number n ? n.intValue() : call.length();
+            var arguments = new Object[Math.max(0, count - 2)];
+            for (var i = 0; i < arguments.length; i++) arguments[i] = call.get((double) (i + 3));
+            return new BatchCall(side, method, arguments);
+        }
+    }
+
+    /**
+     * The state of a {@link #batch(ILuaContext, Map)} call.
+     * <p>
+     * Calls are made using this as their context. While calling methods on the computer thread,
+     * {@linkplain ILuaContext#executeMainThreadTask(LuaTask) main-thread tasks} are deferred, to be queued once every
+     * method has been called. Once on the main thread, any further main-thread tasks are run immediately.
+     */
+    private final class Batch implements ILuaContext {
+        private final ILuaContext context;
+        final BatchCall[] calls;
+        private final Object[] results;
+        private final LuaTask[] tasks;
+
+        /**
+         * The call currently being made on the computer thread, or {@code -1} once the remaining tasks are being run on
+         * the main thread.
+         */
+        private int current;
+        private volatile boolean cancelled;
+
+        Batch(ILuaContext context, int count) {
+            this.context = context;
+            calls = new BatchCall[count];
+            results = new Object[count];
+            tasks = new LuaTask[count];
+        }
+
+        MethodResult start() throws LuaException {
+            var deferred = new ArrayList<Integer>();
+            for (var i = 0; i < calls.length; i++) {
+                current = i;
+                call(i);
+                if (tasks[i] != null) deferred.add(i);
+            }
+            current = -1;
+
+            if (deferred.isEmpty()) return MethodResult.of((Object) results);
+
+            // The main thread runs a computer's tasks in order, so we only need to wait for the last task to finish.
+            for (var i = 0; i < deferred.size() - 1; i++) {
+                var index = deferred.get(i);
+                if (!environment.queueMainThread(() -> runTask(index))) {
+                    cancelled = true;
+                    throw new LuaException("Task limit exceeded");
+                }
+            }
+
+            var last = deferred.get(deferred.size() - 1);
+            try {
+                return context.executeMainThreadTask(() -> {
+                    runTask(last);
+                    return new Object[]{ results };
+                });
+            } catch (LuaException e) {
+                cancelled = true;
+                throw e;
+            }
+        }
+
+        private void call(int index) {
+            var call = calls[index];
+            var side = ComputerSide.valueOfInsensitive(call.side());
+
+            PeripheralWrapper p = null;
+            if (side != null) {
+                synchronized (peripherals) {
+                    p = peripherals[side.ordinal()];
+                }
+            }
+
+            if (p == null) {
+                results[index] = new Object[]{ false, "No peripheral attached" };
+                return;
+            }
+
+            var peripheral = p;
+            run(index, () -> peripheral.call(this, call.method(), new ObjectArguments(call.arguments())));
+        }
+
+        private void runTask(int index) {
+            if (cancelled) return;
+
+            var task = Objects.requireNonNull(tasks[index]);
+            run(index, () -> MethodResult.of(task.execute()));
+        }
+
+        private void run(int index, BatchTask task) {
+            try {
+                var result = task.run();
+
+                // If this call deferred a main-thread task, its result is set once that task has run.
+                if (current >= 0 && tasks[index] != null) return;
+
+                if (result.getCallback() != null) {
+                    fail(index, "Method " + calls[index].method() + " cannot be batched");
+                } else {
+                    var values = result.getResult();
+                    results[index] = values == null ? new Object[]{ true } : LuaUtil.consArray(true, Arrays.asList(values));
+                }
+            } catch (LuaException e) {
+                fail(index, e.getMessage());
+            } catch (RuntimeException e) {
+                LOG.error(Logging.JAVA_ERROR, "Error running batched peripheral call", e);
+                fail(index, "Java Exception Thrown: " + e);
+            }
+        }
+
+        private void fail(int index, @Nullable String message) {
+            results[index] = new Object[]{ false, message };
+            if (current >= 0) tasks[index] = null;
+        }
+
+        @Override
+        public long issueMainThreadTask(LuaTask task) throws LuaException {
+            return context.issueMainThreadTask(task);
+        }
+
+        @Override
+        public MethodResult executeMainThreadTask(LuaTask task) throws LuaException {
+            var current = this.current;
+            if (current < 0) {
+                // We're already on the main thread, so just run the task.
+                return MethodResult.of(task.execute());
+            }
+
+            if (tasks[current] != null) throw new LuaException("Method " + calls[current].method() + " cannot be batched");
+            tasks[current] = task;
+            return MethodResult.of();
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchTask {
+        MethodResult run() throws LuaException;
+    }
 }
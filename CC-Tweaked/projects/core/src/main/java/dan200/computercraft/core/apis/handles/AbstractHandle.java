@@ -13,6 +13,7 @@
 
 import javax.annotation.Nullable;
 import java.io.ByteArrayOutputStream;
+import java.io.Flushable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
@@ -97,6 +98,49 @@ public Object[] seek(Optional<String> whence, Optional<Long> offset) throws LuaE
         }
     }
 
+    /**
+     * Read a number of bytes from this file, or read bytes into a buffer.
+     *
+     * @param arguments The number of bytes to read, or the buffer to read into.
+     * @return The read bytes, or the number of bytes read into the buffer.
+     * @throws LuaException When trying to read a negative number of bytes.
+     * @throws LuaException If the file has been closed.
+     * @cc.tparam [1] number|nil count The number of bytes to read. This may be 0 to determine we are at the end of the
+     * file. When absent, a single byte will be read.
+     * @cc.tparam [2] buffer target The buffer to read into. This reads until the buffer is full or the end of the file
+     * is reached, without allocating a string.
+     * @cc.treturn [1] nil If we are at the end of the file.
+     * @cc.treturn [2] number The value of the byte read. This is returned if the file is opened in binary mode and
+     * {@code count} is absent
+     * @cc.treturn [3] string The bytes read as a string. This is returned when the {@code count} is given.
+     * @cc.treturn [4] number The number of bytes read into {@code target}.
+     * @cc.changed 1.80pr1 Now accepts an integer argument to read multiple bytes, returning a string instead of a number.
+     */
+    @Nullable
+    public Object[] read(IArguments arguments) throws LuaException {
+        // Buffers are passed as a view of their contents, so we can read straight into them.
+        if (arguments.get(0) instanceof ByteBuffer target) return readInto(target.duplicate());
+        return read(arguments.optInt(0));
+    }
+
+    @Nullable
+    private Object[] readInto(ByteBuffer target) throws LuaException {
+        checkOpen();
+        try {
+            if (!target.hasRemaining()) return channel.position() >= channel.size() ? null : new Object[]{ 0 };
+
+            var total = 0;
+            while (target.hasRemaining()) {
+                var read = channel.read(target);
+                if (read <= 0) break;
+                total += read;
+            }
+            return total == 0 ? null : new Object[]{ total };
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     /**
      * Read a number of bytes from this file.
      *
@@ -186,6 +230,9 @@ public Object[] read(Optional<Integer> countArg) throws LuaException {
     public Object[] readAll() throws LuaException {
         checkOpen();
         try {
+            // Memory-mapped files can be passed straight to Lua, without copying them into an intermediate array.
+            if (channel instanceof ByteBufferChannel buffer) return new Object[]{ buffer.readRemaining() };
+
             var expected = 32;
             expected = Math.max(expected, (int) (channel.size() - channel.position()));
             var stream = new ByteArrayOutputStream(expected);
@@ -257,12 +304,13 @@ public Object[] readLine(Optional<Boolean> withTrailingArg) throws LuaException
     }
 
     /**
-     * Write a string or byte to the file.
+     * Write a string, buffer or byte to the file.
      *
      * @param arguments The value to write.
      * @throws LuaException If the file has been closed.
      * @cc.tparam [1] string contents The string to write.
      * @cc.tparam [2] number charcode The byte to write, if the file was opened in binary mode.
+     * @cc.tparam [3] buffer contents The buffer to write.
      * @cc.changed 1.80pr1 Now accepts a string to write multiple bytes.
      */
     public void write(IArguments arguments) throws LuaException {
@@ -272,6 +320,9 @@ public void write(IArguments arguments) throws LuaException {
             if (binary && arg instanceof Number) {
                 var number = ((Number) arg).intValue();
                 writeSingle((byte) number);
+            } else if (arg instanceof ByteBuffer buffer) {
+                // Write buffers directly from their contents, rather than copying them.
+                channel.write(buffer.duplicate());
             } else {
                 channel.write(arguments.getBytesCoerced(0));
             }
@@ -313,6 +364,9 @@ public void flush() throws LuaException {
         try {
             // Technically this is not needed
             if (channel instanceof FileChannel channel) channel.force(false);
+
+            // Buffered channels should start writing their data, though we don't wait for it to be written.
+            if (channel instanceof Flushable flushable) flushable.flush();
         } catch (IOException e) {
             throw new LuaException(e.getMessage());
         }
@@ -11,13 +11,18 @@
 import java.util.Objects;
 
 /**
- * A seekable, readable byte channel which is backed by a {@link ByteBuffer}.
+ * A seekable, readable byte channel which is backed by a {@link ByteBuffer}, such as a memory-mapped file.
+ * <p>
+ * Closing the channel releases its buffer. Mapped buffers are only unmapped once they are garbage collected, so this
+ * allows a closed file's mapping to be reclaimed as soon as no other views of it remain.
  */
 public class ByteBufferChannel implements SeekableByteChannel {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
     private boolean closed = false;
     private int position = 0;
 
-    private final ByteBuffer backing;
+    private ByteBuffer backing;
 
     public ByteBufferChannel(ByteBuffer backing) {
         this.backing = backing;
@@ -39,6 +44,20 @@ public int read(ByteBuffer destination) throws ClosedChannelException {
         return remaining;
     }
 
+    /**
+     * Read the remainder of this channel, returning a view of the backing buffer rather than copying it.
+     *
+     * @return The remaining contents of this channel.
+     * @throws ClosedChannelException If the channel is closed.
+     */
+    public ByteBuffer readRemaining() throws ClosedChannelException {
+        if (closed) throw new ClosedChannelException();
+
+        var start = Math.min(position, backing.limit());
+        position = Math.max(position, backing.limit());
+        return backing.slice(start, backing.limit() - start).asReadOnlyBuffer();
+    }
+
     @Override
     public int write(ByteBuffer src) throws ClosedChannelException {
         if (closed) throw new ClosedChannelException();
@@ -81,5 +100,6 @@ public boolean isOpen() {
     @Override
     public void close() {
         closed = true;
+        backing = EMPTY;
     }
 }
@@ -4,6 +4,7 @@
 
 package dan200.computercraft.core.apis.handles;
 
+import dan200.computercraft.api.lua.IArguments;
 import dan200.computercraft.api.lua.LuaException;
 import dan200.computercraft.api.lua.LuaFunction;
 import dan200.computercraft.core.filesystem.TrackingCloseable;
@@ -32,8 +33,8 @@ public ReadHandle(SeekableByteChannel channel, boolean binary) {
     @Nullable
     @Override
     @LuaFunction
-    public final Object[] read(Optional<Integer> countArg) throws LuaException {
-        return super.read(countArg);
+    public final Object[] read(IArguments arguments) throws LuaException {
+        return super.read(arguments);
     }
 
     /**
@@ -31,8 +31,8 @@ public ReadWriteHandle(SeekableByteChannel channel, TrackingCloseable closeable,
     @Nullable
     @Override
     @LuaFunction
-    public final Object[] read(Optional<Integer> countArg) throws LuaException {
-        return super.read(countArg);
+    public final Object[] read(IArguments arguments) throws LuaException {
+        return super.read(arguments);
     }
 
     /**
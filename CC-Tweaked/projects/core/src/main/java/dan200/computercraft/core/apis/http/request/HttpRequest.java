@@ -24,6 +24,7 @@
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.ByteBuffer;
@@ -45,6 +46,7 @@ public class HttpRequest extends Resource<HttpRequest> {
     private @Nullable Future<?> executorFuture;
     private @Nullable ChannelFuture connectFuture;
     private @Nullable HttpRequestHandler currentRequest;
+    private @Nullable WeakReference<HttpResponseHandle> streamedResponse;
 
     private final IAPIEnvironment environment;
 
@@ -52,13 +54,14 @@ public class HttpRequest extends Resource<HttpRequest> {
     private final ByteBuf postBuffer;
     private final HttpHeaders headers;
     private final boolean binary;
+    private final boolean stream;
     private final int timeout;
 
     final AtomicInteger redirects;
 
     public HttpRequest(
         ResourceGroup<HttpRequest> limiter, IAPIEnvironment environment, String address, @Nullable ByteBuffer postBody,
-        HttpHeaders headers, boolean binary, boolean followRedirects, int timeout
+        HttpHeaders headers, boolean binary, boolean followRedirects, boolean stream, int timeout
     ) {
         super(limiter);
         this.environment = environment;
@@ -68,6 +71,7 @@ public HttpRequest(
             : Unpooled.buffer(0);
         this.headers = headers;
         this.binary = binary;
+        this.stream = stream;
         redirects = new AtomicInteger(followRedirects ? MAX_REDIRECTS : 0);
         this.timeout = timeout;
 
@@ -186,6 +190,27 @@ void success(HttpResponseHandle object) {
         if (tryClose()) environment.queueEvent(SUCCESS_EVENT, address, object);
     }
 
+    /**
+     * Fire the success or failure event for a streamed response. Unlike {@link #success(HttpResponseHandle)}, this
+     * leaves the request open, as the body is still being downloaded. The request will be closed once the body has
+     * been read in full, or the response handle is closed or garbage collected.
+     *
+     * @param object  The response handle.
+     * @param failure The failure message, or {@code null} if this request was successful.
+     */
+    void streamStarted(HttpResponseHandle object, @Nullable String failure) {
+        if (isClosed()) return;
+
+        if (failure == null) {
+            environment.queueEvent(SUCCESS_EVENT, address, object);
+        } else {
+            environment.queueEvent(FAILURE_EVENT, address, failure, object);
+        }
+        streamedResponse = createOwnerReference(object);
+
+        checkClosed();
+    }
+
     @Override
     protected void dispose() {
         super.dispose();
@@ -193,6 +218,10 @@ protected void dispose() {
         executorFuture = closeFuture(executorFuture);
         connectFuture = closeChannel(connectFuture);
         currentRequest = closeCloseable(currentRequest);
+
+        var streamedResponse = this.streamedResponse;
+        if (streamedResponse != null) streamedResponse.clear();
+        this.streamedResponse = null;
     }
 
     public static long getHeaderSize(HttpHeaders headers) {
@@ -215,4 +244,12 @@ public HttpHeaders headers() {
     public boolean isBinary() {
         return binary;
     }
+
+    public boolean isStreaming() {
+        return stream;
+    }
+
+    String address() {
+        return address;
+    }
 }
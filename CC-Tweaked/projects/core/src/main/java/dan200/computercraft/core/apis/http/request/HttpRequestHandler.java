@@ -14,6 +14,7 @@
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.timeout.ReadTimeoutHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +52,9 @@ public final class HttpRequestHandler extends SimpleChannelInboundHandler<HttpOb
     private @Nullable HttpResponseStatus responseStatus;
     private @Nullable CompositeByteBuf responseBody;
 
+    private @Nullable HttpStreamHandle responseStream;
+    private long responseStreamSize;
+
     HttpRequestHandler(HttpRequest request, URI uri, HttpMethod method, Options options) {
         this.request = request;
 
@@ -87,7 +91,15 @@ public void channelActive(ChannelHandlerContext ctx) throws Exception {
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        if (!closed) request.failure("Could not connect");
+        if (!closed) {
+            if (responseStream != null) {
+                closed = true;
+                responseStream.fail("Connection closed");
+                request.close();
+            } else {
+                request.failure("Could not connect");
+            }
+        }
         super.channelInactive(ctx);
     }
 
@@ -123,9 +135,13 @@ public void channelRead0(ChannelHandlerContext ctx, HttpObject message) {
             responseCharset = HttpUtil.getCharset(response, StandardCharsets.UTF_8);
             responseStatus = response.status();
             responseHeaders.add(response.headers());
+
+            if (request.isStreaming()) startStream(ctx);
         }
 
-        if (message instanceof HttpContent content) {
+        if (message instanceof HttpContent content && responseStream != null) {
+            readStream(ctx, responseStream, content);
+        } else if (message instanceof HttpContent content) {
 
             if (responseBody == null) {
                 responseBody = ctx.alloc().compositeBuffer(DEFAULT_MAX_COMPOSITE_BUFFER_COMPONENTS);
@@ -162,7 +178,63 @@ public void channelRead0(ChannelHandlerContext ctx, HttpObject message) {
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         ctx.close();
-        request.failure(NetworkUtils.toFriendlyError(cause));
+        if (responseStream != null) {
+            closed = true;
+            responseStream.fail(NetworkUtils.toFriendlyError(cause));
+            request.close();
+        } else {
+            request.failure(NetworkUtils.toFriendlyError(cause));
+        }
+    }
+
+    /**
+     * Start streaming the response body, firing the success or failure event as soon as the headers are received.
+     * <p>
+     * We switch off auto-read from here on, instead only reading from the channel when the {@link HttpStreamHandle}
+     * has room in its buffer. This ensures a slow reader does not force us to buffer the whole response in memory.
+     *
+     * @param ctx The current channel context.
+     */
+    private void startStream(ChannelHandlerContext ctx) {
+        var status = Objects.requireNonNull(responseStatus, "Status has not been set");
+
+        // The read timeout only applies to establishing the connection. Once we're streaming, we may go arbitrarily
+        // long without reading, as we wait for the computer to consume the body.
+        var pipeline = ctx.pipeline();
+        if (pipeline.get(ReadTimeoutHandler.class) != null) pipeline.remove(ReadTimeoutHandler.class);
+
+        request.environment().observe(Metrics.HTTP_DOWNLOAD, getHeaderSize(responseHeaders));
+
+        var stream = responseStream = new HttpStreamHandle(request.environment(), request.address(), request, ctx.channel(), request.isBinary());
+        var response = new HttpResponseHandle(stream, status.code(), status.reasonPhrase(), getHeaders());
+        request.streamStarted(response, status.code() >= 200 && status.code() < 400 ? null : status.reasonPhrase());
+    }
+
+    private void readStream(ChannelHandlerContext ctx, HttpStreamHandle stream, HttpContent content) {
+        var partial = content.content();
+        var size = partial.readableBytes();
+        if (size > 0) {
+            responseStreamSize += size;
+            if (options.maxDownload() != 0 && responseStreamSize > options.maxDownload()) {
+                closed = true;
+                ctx.close();
+
+                stream.fail("Response is too large");
+                request.close();
+                return;
+            }
+
+            request.environment().observe(Metrics.HTTP_DOWNLOAD, size);
+            stream.offer(NetworkUtils.toBytes(partial));
+        }
+
+        if (content instanceof LastHttpContent) {
+            closed = true;
+            ctx.close();
+
+            stream.finish();
+            request.close();
+        }
     }
 
     private void sendResponse() {
@@ -175,11 +247,7 @@ private void sendResponse() {
 
         // Decode the headers
         var status = responseStatus;
-        Map<String, String> headers = new HashMap<>();
-        for (var header : responseHeaders) {
-            var existing = headers.get(header.getKey());
-            headers.put(header.getKey(), existing == null ? header.getValue() : existing + "," + header.getValue());
-        }
+        var headers = getHeaders();
 
         // Fire off a stats event
         request.environment().observe(Metrics.HTTP_DOWNLOAD, getHeaderSize(responseHeaders) + bytes.length);
@@ -196,6 +264,15 @@ private void sendResponse() {
         }
     }
 
+    private Map<String, String> getHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        for (var header : responseHeaders) {
+            var existing = headers.get(header.getKey());
+            headers.put(header.getKey(), existing == null ? header.getValue() : existing + "," + header.getValue());
+        }
+        return headers;
+    }
+
     /**
      * Determine the redirect from this response.
      *
@@ -17,6 +17,9 @@
 /**
  * A http response. This provides the same methods as a {@link ReadHandle file}, though provides several request
  * specific methods.
+ * <p>
+ * If the request was made with {@code stream = true}, the body is instead read with the methods of a
+ * {@link HttpStreamHandle streamed response}.
  *
  * @cc.module http.Response
  * @see HTTPAPI#request(IArguments)  On how to make a http request.
@@ -28,6 +31,14 @@ public class HttpResponseHandle implements ObjectSource {
     private final Map<String, String> responseHeaders;
 
     public HttpResponseHandle(AbstractHandle reader, int responseCode, String responseStatus, Map<String, String> responseHeaders) {
+        this((Object) reader, responseCode, responseStatus, responseHeaders);
+    }
+
+    public HttpResponseHandle(HttpStreamHandle reader, int responseCode, String responseStatus, Map<String, String> responseHeaders) {
+        this((Object) reader, responseCode, responseStatus, responseHeaders);
+    }
+
+    private HttpResponseHandle(Object reader, int responseCode, String responseStatus, Map<String, String> responseHeaders) {
         this.reader = reader;
         this.responseCode = responseCode;
         this.responseStatus = responseStatus;
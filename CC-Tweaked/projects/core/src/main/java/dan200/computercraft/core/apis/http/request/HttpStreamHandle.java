@@ -0,0 +1,293 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.apis.http.request;
+
+import dan200.computercraft.api.lua.ILuaCallback;
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.api.lua.LuaFunction;
+import dan200.computercraft.api.lua.MethodResult;
+import dan200.computercraft.core.apis.IAPIEnvironment;
+import dan200.computercraft.core.util.IoUtil;
+import io.netty.channel.Channel;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Optional;
+
+/**
+ * The body of a http response which is read as it is downloaded, rather than buffered in full before the response
+ * is returned. This is created when {@code stream = true} is passed to {@link dan200.computercraft.core.apis.HTTPAPI#request}.
+ * <p>
+ * Reading from a streamed response may need to wait for more data to arrive from the server, and so these methods
+ * will yield (in the same way as {@code os.pullEvent}) if there is not enough data available.
+ *
+ * @cc.module http.StreamedResponse
+ */
+public class HttpStreamHandle {
+    static final String STREAM_EVENT = "http_stream";
+
+    /**
+     * The number of bytes we buffer before we stop reading from the network. This is also the longest line that
+     * {@link #readLine(Optional)} will return in one piece.
+     */
+    static final int HIGH_WATER_MARK = 64 * 1024;
+
+    /**
+     * The number of bytes the buffer must drop to before we start reading from the network again.
+     */
+    private static final int LOW_WATER_MARK = 16 * 1024;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final IAPIEnvironment environment;
+    private final String address;
+    private final Closeable request;
+    private final Channel channel;
+    private final boolean binary;
+
+    private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+    private int chunkOffset;
+    private int buffered;
+
+    private boolean finished;
+    private @Nullable String error;
+    private boolean waiting;
+    private boolean readingAll;
+    private boolean closed;
+
+    HttpStreamHandle(IAPIEnvironment environment, String address, Closeable request, Channel channel, boolean binary) {
+        this.environment = environment;
+        this.address = address;
+        this.request = request;
+        this.channel = channel;
+        this.binary = binary;
+    }
+
+    /**
+     * Read a number of bytes from the response, waiting for them to be downloaded if needed.
+     *
+     * @param countArg The number of bytes to read. When absent, a single byte will be read.
+     * @return The read bytes.
+     * @throws LuaException When trying to read a negative number of bytes.
+     * @throws LuaException If the response has been closed.
+     * @cc.treturn [1] nil If we are at the end of the response.
+     * @cc.treturn string|nil If the download failed, the reason it failed.
+     * @cc.treturn [2] number The value of the byte read. This is returned if the response is opened in binary mode
+     * and {@code count} is absent.
+     * @cc.treturn [3] string The bytes read as a string. This is returned when the {@code count} is given. Unlike
+     * {@link dan200.computercraft.core.apis.handles.ReadHandle#read}, this returns as soon as any data is available,
+     * and so may return fewer than {@code count} bytes.
+     */
+    @LuaFunction
+    public final MethodResult read(Optional<Integer> countArg) throws LuaException {
+        int count = countArg.orElse(1);
+        if (count < 0) throw new LuaException("Cannot read a negative number of bytes");
+        var singleByte = binary && countArg.isEmpty();
+        return new ReadCallback(false, () -> {
+            if (buffered == 0 && !finished) return null;
+            if (buffered == 0) return endOfStream();
+            if (singleByte) return new Object[]{ take(1)[0] & 0xFF };
+            return new Object[]{ take(Math.min(count, buffered)) };
+        }).resume();
+    }
+
+    /**
+     * Read a line from the response, waiting for it to be downloaded if needed.
+     * <p>
+     * We only buffer a limited amount of the response, so very long lines (more than 64KiB) are returned in several
+     * parts. Only the last part will end with a newline.
+     *
+     * @param withTrailingArg Whether to include the newline characters with the returned string. Defaults to {@code false}.
+     * @return The read string.
+     * @throws LuaException If the response has been closed.
+     * @cc.treturn string|nil The read line or {@code nil} if at the end of the response.
+     */
+    @LuaFunction
+    public final MethodResult readLine(Optional<Boolean> withTrailingArg) throws LuaException {
+        var withTrailing = withTrailingArg.orElse(false);
+        return new ReadCallback(false, () -> {
+            var newline = indexOf('\n');
+            if (newline < 0 && !finished && buffered < HIGH_WATER_MARK) return null;
+            if (buffered == 0) return endOfStream();
+
+            // Either we're at the end of the stream, or the buffer is full. Return what we have.
+            if (newline < 0) return new Object[]{ take(buffered) };
+
+            var line = take(newline + 1);
+            if (withTrailing) return new Object[]{ line };
+
+            var length = line.length - 1;
+            if (length > 0 && line[length - 1] == '\r') length--;
+            var trimmed = new byte[length];
+            System.arraycopy(line, 0, trimmed, 0, length);
+            return new Object[]{ trimmed };
+        }).resume();
+    }
+
+    /**
+     * Read the remainder of the response, waiting for the download to finish.
+     * <p>
+     * Unlike the other methods, this must buffer the whole of the remaining response, and so is still limited by the
+     * maximum download size.
+     *
+     * @return The remaining contents of the response.
+     * @throws LuaException If the response has been closed.
+     * @cc.treturn string|nil The remaining contents of the response, or {@code nil} if the download failed.
+     * @cc.treturn string|nil If the download failed, the reason it failed.
+     */
+    @LuaFunction
+    public final MethodResult readAll() throws LuaException {
+        return new ReadCallback(true, () -> {
+            if (!finished) return null;
+            if (error != null) return new Object[]{ null, error };
+            return new Object[]{ take(buffered) };
+        }).resume();
+    }
+
+    /**
+     * Close this response, aborting the download if it has not yet finished.
+     *
+     * @throws LuaException If the response has already been closed.
+     */
+    @LuaFunction
+    public final void close() throws LuaException {
+        synchronized (this) {
+            checkOpen();
+            closed = true;
+            chunks.clear();
+            buffered = 0;
+        }
+
+        IoUtil.closeQuietly(request);
+    }
+
+    /**
+     * Append a chunk of the response body to this stream.
+     *
+     * @param bytes The downloaded bytes.
+     */
+    synchronized void offer(byte[] bytes) {
+        if (closed || finished) return;
+
+        chunks.addLast(bytes);
+        buffered += bytes.length;
+        if (buffered >= HIGH_WATER_MARK && !readingAll) channel.config().setAutoRead(false);
+        wakeReader();
+    }
+
+    /**
+     * Mark the body as having been fully downloaded.
+     */
+    synchronized void finish() {
+        if (finished) return;
+        finished = true;
+        wakeReader();
+    }
+
+    /**
+     * Mark the body as having failed to download. Any data which has already been received may still be read.
+     *
+     * @param message The reason the download failed.
+     */
+    synchronized void fail(String message) {
+        if (finished) return;
+        finished = true;
+        error = message;
+        wakeReader();
+    }
+
+    private void wakeReader() {
+        if (!waiting) return;
+        waiting = false;
+        environment.queueEvent(STREAM_EVENT, address);
+    }
+
+    private void checkOpen() throws LuaException {
+        if (closed) throw new LuaException("attempt to use a closed file");
+    }
+
+    private Object[] endOfStream() {
+        return error == null ? new Object[]{ null } : new Object[]{ null, error };
+    }
+
+    private int indexOf(char needle) {
+        var position = 0;
+        var offset = chunkOffset;
+        for (var chunk : chunks) {
+            for (var i = offset; i < chunk.length; i++) {
+                if (chunk[i] == needle) return position + i - offset;
+            }
+            position += chunk.length - offset;
+            offset = 0;
+        }
+
+        return -1;
+    }
+
+    private byte[] take(int count) {
+        if (count == 0) return EMPTY;
+
+        var result = new byte[count];
+        var position = 0;
+        while (position < count) {
+            var chunk = chunks.getFirst();
+            var length = Math.min(count - position, chunk.length - chunkOffset);
+            System.arraycopy(chunk, chunkOffset, result, position, length);
+            position += length;
+            chunkOffset += length;
+
+            if (chunkOffset == chunk.length) {
+                chunks.removeFirst();
+                chunkOffset = 0;
+            }
+        }
+
+        buffered -= count;
+        if (buffered <= LOW_WATER_MARK && !finished) channel.config().setAutoRead(true);
+        return result;
+    }
+
+    private interface Reader {
+        /**
+         * Attempt to read from the buffer.
+         *
+         * @return The values to return to Lua, or {@code null} if more data is required.
+         */
+        @Nullable
+        Object[] tryRead();
+    }
+
+    private final class ReadCallback implements ILuaCallback {
+        private final boolean unbounded;
+        private final Reader reader;
+
+        ReadCallback(boolean unbounded, Reader reader) {
+            this.unbounded = unbounded;
+            this.reader = reader;
+        }
+
+        MethodResult resume() throws LuaException {
+            synchronized (HttpStreamHandle.this) {
+                checkOpen();
+
+                var result = reader.tryRead();
+                if (result != null) return MethodResult.of(result);
+
+                // Otherwise wait for more data. Reads only wait while the buffer has room, except for readAll, which
+                // needs the whole body and so must keep reading past the high-water mark.
+                waiting = true;
+                if (unbounded) readingAll = true;
+                if (readingAll || buffered < HIGH_WATER_MARK) channel.config().setAutoRead(true);
+                return MethodResult.pullEvent(null, this);
+            }
+        }
+
+        @Override
+        public MethodResult resume(Object[] args) throws LuaException {
+            return resume();
+        }
+    }
+}
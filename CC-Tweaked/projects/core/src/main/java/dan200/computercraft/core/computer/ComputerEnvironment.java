@@ -7,6 +7,7 @@
 import dan200.computercraft.api.filesystem.WritableMount;
 import dan200.computercraft.core.filesystem.WritableFileMount;
 import dan200.computercraft.core.metrics.MetricsObserver;
+import org.squiddev.cobalt.debug.Coverage;
 
 import javax.annotation.Nullable;
 
@@ -41,4 +42,14 @@ public interface ComputerEnvironment {
      */
     @Nullable
     WritableMount createRootMount();
+
+    /**
+     * Get the recorder this computer's Lua code coverage should be written to. Like {@link #getMetrics()}, this should
+     * be constant for the duration of this {@link ComputerEnvironment}.
+     *
+     * @return This computer's coverage recorder, or {@code null} if coverage should not be recorded.
+     */
+    default @Nullable Coverage getCoverage() {
+        return null;
+    }
 }
@@ -20,19 +20,21 @@
 import dan200.computercraft.core.methods.LuaMethod;
 import dan200.computercraft.core.methods.MethodSupplier;
 import dan200.computercraft.core.metrics.MetricsObserver;
+import dan200.computercraft.core.util.AtomicHelpers;
 import dan200.computercraft.core.util.Colour;
 import dan200.computercraft.core.util.Nullability;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -47,10 +49,12 @@
  * {@link #command} which determines which state the computer should transition too. This is set by
  * {@link #queueStart()} and {@link #queueStop(boolean, boolean)}.
  * <p>
- * When a computer is on, we simply push any events onto to the {@link #eventQueue}.
+ * When a computer is on, we simply push any events onto to the {@link #eventQueue}. This queue is lock-free, as events
+ * may be queued from many threads at once (the main thread, peripherals, and Netty's event loop for HTTP requests).
  * <p>
  * Both queues are run from the {@link #work()} method, which tries to execute a command if one exists, or resumes the
- * machine with an event otherwise.
+ * machine with an event otherwise. If the machine finishes handling an event quickly, we continue with the next one
+ * (see {@link #MAX_BATCH_TIME}), rather than returning to the {@link ComputerThread} after each event.
  * <p>
  * One final responsibility for the executor is calling {@link ILuaAPI#update()} every tick, via the {@link #tick()}
  * method. This should only be called when the computer is actually on ({@link #isOn}).
@@ -59,6 +63,14 @@ final class ComputerExecutor implements ComputerScheduler.Worker {
     private static final Logger LOG = LoggerFactory.getLogger(ComputerExecutor.class);
     private static final int QUEUE_LIMIT = 256;
 
+    /**
+     * The maximum time we will spend handling consecutive events within a single call to {@link #work()}.
+     * <p>
+     * Each event is allowed to run for {@link TimeoutState#TIMEOUT}, measured from the start of the current task. We
+     * keep this value small, so later events in a batch still have (almost) their full time budget.
+     */
+    private static final long MAX_BATCH_TIME = TimeUnit.MILLISECONDS.toNanos(5);
+
     private final Computer computer;
     private final ComputerEnvironment computerEnvironment;
     private final MetricsObserver metrics;
@@ -91,8 +103,10 @@ final class ComputerExecutor implements ComputerScheduler.Worker {
     private final ReentrantLock isOnLock = new ReentrantLock();
 
     /**
-     * A lock used for any changes to {@link #eventQueue} or {@link #command}. This will be used on the main thread,
-     * so locks should be kept as brief as possible.
+     * A lock used for any changes to {@link #command} or {@link #closed}. This will be used on the main thread, so locks
+     * should be kept as brief as possible.
+     * <p>
+     * Both fields are volatile, and so may be read without holding the lock.
      */
     private final Object queueLock = new Object();
 
@@ -104,17 +118,30 @@ final class ComputerExecutor implements ComputerScheduler.Worker {
      * <p>
      * Note, if command is not {@code null}, then some command is scheduled to be executed. Otherwise it is not
      * currently in the queue (or is currently being executed).
+     *
+     * @see #queueLock
      */
-    @GuardedBy("queueLock")
     private volatile @Nullable StateCommand command;
 
     /**
      * The queue of events which should be executed when this computer is on.
      * <p>
+     * Events may be added from any thread, but are only removed by {@link #work()} (or when clearing the queue, which
+     * also happens on the computer thread).
+     * <p>
      * Note, this should be empty if this computer is off - it is cleared on shutdown and when turning on again.
+     *
+     * @see #eventCount
      */
-    @GuardedBy("queueLock")
-    private final Queue<Event> eventQueue = new ArrayDeque<>(4);
+    private final Queue<Event> eventQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of events in {@link #eventQueue}, used to limit the size of the queue to {@link #QUEUE_LIMIT}.
+     * <p>
+     * This is incremented before an event is added to the queue, and decremented after it is removed, and so may be
+     * slightly larger than the actual size of the queue.
+     */
+    private final AtomicInteger eventCount = new AtomicInteger();
 
     /**
      * Whether this computer was paused (and so should resume without pulling an event) or not.
@@ -135,9 +162,9 @@ final class ComputerExecutor implements ComputerScheduler.Worker {
      * Whether this executor has been closed, and will no longer accept any incoming commands or events.
      *
      * @see #queueStop(boolean, boolean)
+     * @see #queueLock
      */
-    @GuardedBy("queueLock")
-    private boolean closed;
+    private volatile boolean closed;
 
     private @Nullable WritableMount rootMount;
 
@@ -270,17 +297,29 @@ void queueEvent(String event, @Nullable Object[] args) {
         // Events should be skipped if we're not on.
         if (!isOn) return;
 
-        synchronized (queueLock) {
-            // And if we've got some command in the pipeline, then don't queue events - they'll
-            // probably be disposed of anyway.
-            // We also limit the number of events which can be queued.
-            if (closed || command != null || eventQueue.size() >= QUEUE_LIMIT) return;
+        // And if we've got some command in the pipeline, then don't queue events - they'll probably be disposed of
+        // anyway. This is checked without holding queueLock: if we race with a command being queued, the event is
+        // cleared when the computer is shutdown.
+        // We also limit the number of events which can be queued.
+        if (closed || command != null || !AtomicHelpers.incrementToLimit(eventCount, QUEUE_LIMIT)) return;
 
-            eventQueue.offer(new Event(event, args));
-        }
+        eventQueue.offer(new Event(event, args));
         enqueue();
     }
 
+    @Nullable
+    private Event pollEvent() {
+        var event = eventQueue.poll();
+        if (event != null) eventCount.decrementAndGet();
+        return event;
+    }
+
+    private void clearEvents() {
+        while (pollEvent() != null) {
+            // Discard any pending events. We poll rather than clear to keep eventCount consistent.
+        }
+    }
+
     /**
      * Add this executor to the {@link ComputerThread} if not already there.
      */
@@ -369,7 +408,8 @@ private ILuaMachine createLuaMachine() {
                 new LuaContext(computer), metrics, executor.timeoutState(),
                 () -> apis.stream().map(ApiWrapper::api).iterator(),
                 luaMethods,
-                computer.getGlobalEnvironment().getHostString()
+                computer.getGlobalEnvironment().getHostString(),
+                computerEnvironment.getCoverage()
             ), bios);
         } catch (IOException e) {
             LOG.error("Failed to read bios.lua", e);
@@ -386,9 +426,7 @@ private void turnOn() throws InterruptedException {
         try {
             // Reset the terminal and event queue
             computer.getTerminal().reset();
-            synchronized (queueLock) {
-                eventQueue.clear();
-            }
+            clearEvents();
 
             // Init filesystem
             if ((fileSystem = createFileSystem()) == null) {
@@ -421,9 +459,7 @@ private void shutdown() throws InterruptedException {
         isOnLock.lockInterruptibly();
         try {
             isOn = wasPaused = false;
-            synchronized (queueLock) {
-                eventQueue.clear();
-            }
+            clearEvents();
 
             // Shutdown Lua machine
             if (machine != null) {
@@ -458,9 +494,7 @@ private void shutdown() throws InterruptedException {
     @Override
     public void work() throws InterruptedException {
         workImpl();
-        synchronized (queueLock) {
-            if (wasPaused || command != null || !eventQueue.isEmpty()) enqueue();
-        }
+        if (wasPaused || command != null || !eventQueue.isEmpty()) enqueue();
     }
 
     private void workImpl() throws InterruptedException {
@@ -473,13 +507,13 @@ private void workImpl() throws InterruptedException {
             // If we've no command, pull something from the event queue instead.
             if (command == null && !wasPaused) {
                 if (!isOn) {
-                    // We're not on and had no command, but we had work queued. This should never happen, so clear
-                    // the event queue just in case.
-                    eventQueue.clear();
+                    // We're not on and had no command, but we had work queued. This can happen if an event was queued
+                    // just as the computer shut down, so clear the event queue just in case.
+                    clearEvents();
                     return;
                 }
 
-                event = eventQueue.poll();
+                event = pollEvent();
             }
         }
 
@@ -516,16 +550,41 @@ private void workImpl() throws InterruptedException {
             executor.setRemainingTime(timeRemaining);
             resumeMachine(null, null);
         } else if (event != null) {
+            runEvents(event);
+        }
+    }
+
+    /**
+     * Resume the machine with an event, and then any subsequent events in the queue.
+     * <p>
+     * We stop once there are no more events, the machine has paused or errored, a command has been queued, or we've
+     * been running for longer than {@link #MAX_BATCH_TIME} or {@linkplain TimeoutState#isPaused() should yield} to
+     * another computer.
+     *
+     * @param event The first event to run.
+     * @throws InterruptedException If various locks could not be acquired.
+     */
+    private void runEvents(Event event) throws InterruptedException {
+        var timeout = executor.timeoutState();
+        var batchDeadline = System.nanoTime() + MAX_BATCH_TIME;
+        while (true) {
             executor.setRemainingTime(TimeoutState.TIMEOUT);
             resumeMachine(event.name, event.args);
+            if (wasPaused || !isOn || command != null) return;
+
+            timeout.refresh();
+            if (timeout.isPaused() || timeout.isSoftAborted() || System.nanoTime() - batchDeadline >= 0) return;
+
+            var next = pollEvent();
+            if (next == null) return;
+            event = next;
         }
     }
 
     @Override
-    @SuppressWarnings("GuardedBy")
     public void writeState(StringBuilder out) {
         out.append("Enqueued command: ").append(command).append('\n');
-        out.append("Enqueued events: ").append(eventQueue.size()).append('\n');
+        out.append("Enqueued events: ").append(eventCount.get()).append('\n');
 
         var machine = this.machine;
         if (machine != null) machine.printExecutionState(out);
@@ -63,6 +63,11 @@ public WorkMonitor getMainThreadMonitor() {
         return computer.getMainThreadMonitor();
     }
 
+    @Override
+    public boolean queueMainThread(Runnable task) {
+        return computer.queueMainThread(task);
+    }
+
     @Override
     public Terminal getTerminal() {
         return computer.getTerminal();
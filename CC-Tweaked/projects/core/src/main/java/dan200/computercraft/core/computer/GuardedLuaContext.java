@@ -7,6 +7,7 @@
 import dan200.computercraft.api.lua.ILuaContext;
 import dan200.computercraft.api.lua.LuaException;
 import dan200.computercraft.api.lua.LuaTask;
+import dan200.computercraft.api.lua.MethodResult;
 
 /**
  * A {@link ILuaContext} which checks if context is valid when before executing
@@ -45,6 +46,11 @@ public long issueMainThreadTask(LuaTask task) throws LuaException {
         return original.issueMainThreadTask(() -> guard.checkValid() ? task.execute() : null);
     }
 
+    @Override
+    public MethodResult executeMainThreadTask(LuaTask task) throws LuaException {
+        return original.executeMainThreadTask(() -> guard.checkValid() ? task.execute() : null);
+    }
+
     /**
      * The function which checks if the context is still valid.
      */
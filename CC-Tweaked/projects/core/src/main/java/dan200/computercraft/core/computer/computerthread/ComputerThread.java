@@ -33,8 +33,9 @@
  * Runs all scheduled tasks for computers in a {@link ComputerContext}.
  * <p>
  * This acts as an over-complicated {@link ThreadPoolExecutor}: It creates several {@linkplain WorkerThread worker
- * threads} which pull tasks from a shared queue, executing them. It also creates a single {@link Monitor} thread, which
- * updates computer timeouts, killing workers if they have not been terminated by {@link TimeoutState#isSoftAborted()}.
+ * threads} which pull tasks from their own {@linkplain RunQueue run queue}, executing them. It also creates a single
+ * {@link Monitor} thread, which updates computer timeouts, killing workers if they have not been terminated by
+ * {@link TimeoutState#isSoftAborted()}.
  * <p>
  * Computers are executed using a priority system, with those who have spent less time executing having a higher
  * priority than those hogging the thread. This, combined with {@link TimeoutState#isPaused()} means we can reduce the
@@ -48,6 +49,13 @@
  * This means that adding computers which have slept a lot do not then have massive priority over everyone else. See
  * {@link #queue(ExecutorImpl)} for how this is implemented.
  * <p>
+ * Like Linux, each worker has its own run queue rather than sharing one between all threads, so submitting and picking
+ * tasks does not contend on a single lock. New computers are added to the least loaded queue, and computers which have
+ * more work stay on the queue of the worker which last ran them. Each worker picks the computer with the smallest
+ * virtual runtime from its own queue, and idle workers steal from the queue with the smallest virtual runtime. The
+ * {@link Monitor} periodically {@linkplain #rebalance() rebalances} the queues, so one worker cannot fall far behind
+ * the others.
+ * <p>
  * In reality, it's unlikely that more than a few computers are waiting to execute at once, so this will not have much
  * effect unless you have a computer hogging execution time. However, it is pretty effective in those situations.
  */
@@ -116,7 +124,7 @@ public final class ComputerThread implements ComputerScheduler {
     /**
      * The current task manager.
      */
-    private @Nullable Thread monitor;
+    private volatile @Nullable Thread monitor;
 
     /**
      * The array of current workers, and their owning threads.
@@ -135,17 +143,22 @@ public final class ComputerThread implements ComputerScheduler {
     private final long latency;
     private final long minPeriod;
 
-    private final ReentrantLock computerLock = new ReentrantLock();
-    private final @GuardedBy("computerLock") Condition workerWakeup = computerLock.newCondition();
-    private final @GuardedBy("computerLock") Condition monitorWakeup = computerLock.newCondition();
-
     private final AtomicInteger idleWorkers = new AtomicInteger(0);
 
     /**
-     * Active queues to execute.
+     * The run queue for each worker, indexed the same as {@link #workers}. These are kept when a worker is replaced, so
+     * any queued computers are picked up by the new worker.
+     */
+    private final RunQueue[] queues;
+
+    /**
+     * The number of executors which are about to be added to a queue by a thread other than its worker, or are being
+     * moved between queues.
+     * <p>
+     * Workers only shut down once there is no more work, so this ensures they do not miss an executor which is being
+     * queued while we stop. This is not touched when workers requeue their own executors, so is rarely contended.
      */
-    @GuardedBy("computerLock")
-    private final TreeSet<ExecutorImpl> computerQueue = new TreeSet<>(ComputerThread::compareExecutors);
+    private final AtomicInteger pendingQueue = new AtomicInteger(0);
 
     @SuppressWarnings("GuardedBy")
     private static int compareExecutors(ExecutorImpl a, ExecutorImpl b) {
@@ -157,12 +170,16 @@ private static int compareExecutors(ExecutorImpl a, ExecutorImpl b) {
     }
 
     /**
-     * The minimum {@link ExecutorImpl#virtualRuntime} time on the tree.
+     * The minimum {@link ExecutorImpl#virtualRuntime} of all queued and running computers. This only ever increases.
+     *
+     * @see #updateRuntimes()
      */
-    private long minimumVirtualRuntime = 0;
+    private final AtomicLong minimumVirtualRuntime = new AtomicLong(0);
 
     public ComputerThread(int threadCount) {
         workers = new WorkerThread[threadCount];
+        queues = new RunQueue[threadCount];
+        for (var i = 0; i < threadCount; i++) queues[i] = new RunQueue();
 
         // latency and minPeriod are scaled by 1 + floor(log2(threads)). We can afford to execute tasks for
         // longer when executing on more than one thread.
@@ -196,10 +213,10 @@ private WorkerThread[] workersReadOnly() {
     /**
      * Ensure sufficient workers are running.
      */
-    @GuardedBy("computerLock")
     private void ensureRunning() {
         // Don't even enter the lock if we've a monitor and don't need to/can't spawn an additional worker.
-        // We'll be holding the computer lock at this point, so there's no problems with idleWorkers being wrong.
+        // idleWorkers may be out-of-date by the time we've checked it. In the worst case, we spawn a worker too many or
+        // too few, and the monitor will spawn any missing ones when it next rebalances the queues.
         if (monitor != null && (idleWorkers.get() > 0 || workerCount() == workersReadOnly().length)) return;
 
         threadLock.lock();
@@ -253,11 +270,8 @@ public boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
         }
 
         // Wake all workers
-        computerLock.lock();
-        try {
-            workerWakeup.signalAll();
-        } finally {
-            computerLock.unlock();
+        for (@Nullable var worker : workersReadOnly()) {
+            if (worker != null) LockSupport.unpark(worker.owner);
         }
 
         // Wait for all workers to signal they have finished.
@@ -275,12 +289,7 @@ public boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
         advanceState(CLOSED);
 
         // Signal the monitor to finish, but don't wait for it to stop.
-        computerLock.lock();
-        try {
-            monitorWakeup.signal();
-        } finally {
-            computerLock.unlock();
-        }
+        wakeMonitor();
 
         return true;
     }
@@ -294,109 +303,287 @@ public boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
      * @param executor The computer to execute work on.
      */
     void queue(ExecutorImpl executor) {
-        computerLock.lock();
-        try {
-            if (state.get() != RUNNING) throw new IllegalStateException("ComputerThread is no longer running");
-
-            // Ensure we've got a worker running.
-            ensureRunning();
-
-            updateRuntimes(null);
-
-            // We're not currently on the queue, so update its current execution time to
-            // ensure its at least as high as the minimum.
-            var newRuntime = minimumVirtualRuntime;
+        if (state.get() != RUNNING) throw new IllegalStateException("ComputerThread is no longer running");
+
+        // We're not currently on the queue, so update its current execution time to
+        // ensure its at least as high as the minimum.
+        var newRuntime = updateRuntimes();
+
+        if (executor.virtualRuntime == 0) {
+            // Slow down new computers a little bit.
+            newRuntime += scaledPeriod();
+        } else {
+            // Give a small boost to computers which have slept a little.
+            newRuntime -= latency / 2;
+        }
 
-            if (executor.virtualRuntime == 0) {
-                // Slow down new computers a little bit.
-                newRuntime += scaledPeriod();
-            } else {
-                // Give a small boost to computers which have slept a little.
-                newRuntime -= latency / 2;
-            }
+        executor.virtualRuntime = Math.max(newRuntime, executor.virtualRuntime);
 
-            executor.virtualRuntime = Math.max(newRuntime, executor.virtualRuntime);
+        var wasBusy = isBusy();
 
-            var wasBusy = isBusy();
-            // Add to the queue, and signal the workers.
-            computerQueue.add(executor);
-            workerWakeup.signal();
+        // Mark the executor as pending and then check the state again. This ensures workers either see this executor,
+        // or we see that we're stopping.
+        pendingQueue.getAndIncrement();
+        int index;
+        try {
+            if (state.get() != RUNNING) throw new IllegalStateException("ComputerThread is no longer running");
 
-            // If we've transitioned into a busy state, notify the monitor. This will cause it to sleep for scaledPeriod
-            // instead of the longer wakeup duration.
-            if (!wasBusy && isBusy()) monitorWakeup.signal();
+            // Add to the least loaded queue, and wake up its worker.
+            index = leastLoadedQueue();
+            queues[index].add(executor);
         } finally {
-            computerLock.unlock();
+            finishPending();
         }
-    }
+        wakeWorker(index);
+
+        // Ensure we've got a worker running.
+        ensureRunning();
 
+        // If we've transitioned into a busy state, notify the monitor. This will cause it to sleep for scaledPeriod
+        // instead of the longer wakeup duration.
+        if (!wasBusy && isBusy()) wakeMonitor();
+    }
 
     /**
-     * Update the {@link ExecutorImpl#virtualRuntime}s of all running tasks, and then update the
-     * {@link #minimumVirtualRuntime} based on the current tasks.
+     * Update the {@link #minimumVirtualRuntime} based on the current tasks.
      * <p>
-     * This is called before queueing tasks, to ensure that {@link #minimumVirtualRuntime} is up-to-date.
+     * This is called before queueing tasks, to ensure that {@link #minimumVirtualRuntime} is up-to-date. Only the
+     * worker running a computer updates its {@link ExecutorImpl#virtualRuntime}, so we estimate the runtime of each
+     * running computer instead.
      *
-     * @param current The machine which we updating runtimes from.
+     * @return The new minimum virtual runtime.
      */
-    @GuardedBy("computerLock")
-    private void updateRuntimes(@Nullable ExecutorImpl current) {
+    private long updateRuntimes() {
         var minRuntime = Long.MAX_VALUE;
 
-        // If we've a task on the queue, use that as our base time.
-        if (!computerQueue.isEmpty()) minRuntime = computerQueue.first().virtualRuntime;
+        // If we've tasks on the queues, use the smallest one as our base time.
+        for (var queue : queues) minRuntime = Math.min(minRuntime, queue.firstRuntime);
 
-        // Update all the currently executing tasks
+        // Then check all the currently executing tasks.
         var now = System.nanoTime();
-        var tasks = 1 + computerQueue.size();
+        var tasks = 1 + computerQueueSize();
         for (@Nullable var runner : workersReadOnly()) {
             if (runner == null) continue;
             var executor = runner.currentExecutor.get();
             if (executor == null) continue;
 
-            // We do two things here: first we update the task's virtual runtime based on when we
-            // last checked, and then we check the minimum.
-            minRuntime = Math.min(minRuntime, executor.virtualRuntime += (now - executor.vRuntimeStart) / tasks);
-            executor.vRuntimeStart = now;
-        }
-
-        // And update the most recently executed one (if set).
-        if (current != null) {
-            minRuntime = Math.min(minRuntime, current.virtualRuntime += (now - current.vRuntimeStart) / tasks);
+            minRuntime = Math.min(minRuntime, executor.virtualRuntime + (now - executor.vRuntimeStart) / tasks);
         }
 
-        if (minRuntime > minimumVirtualRuntime && minRuntime < Long.MAX_VALUE) {
-            minimumVirtualRuntime = minRuntime;
-        }
+        return minRuntime < Long.MAX_VALUE
+            ? minimumVirtualRuntime.accumulateAndGet(minRuntime, Math::max)
+            : minimumVirtualRuntime.get();
     }
 
     /**
      * Ensure the "currently working" state of the executor is reset, the timings are updated, and then requeue the
      * executor if needed.
+     * <p>
+     * The executor is requeued on the worker's own queue, so it will likely run on the same thread next time.
      *
+     * @param worker   The worker which ran this executor.
      * @param executor The executor to requeue
      */
-    private void afterWork(ExecutorImpl executor) {
-        computerLock.lock();
-        try {
-            updateRuntimes(executor);
+    private void afterWork(WorkerThread worker, ExecutorImpl executor) {
+        var now = System.nanoTime();
+        executor.virtualRuntime += (now - executor.vRuntimeStart) / (1 + computerQueueSize());
 
-            // If we've no more tasks, just return.
-            if (!executor.afterWork() || state.get() != RUNNING) return;
+        // If we've no more tasks, just return.
+        if (!executor.afterWork() || state.get() != RUNNING) return;
 
-            // Otherwise, add to the queue, and signal any waiting workers.
-            computerQueue.add(executor);
-            workerWakeup.signal();
+        // Otherwise, add to our queue. We'll pick up the next executor ourselves, so only wake another worker if
+        // there's something else to run too.
+        var queue = queues[worker.index];
+        queue.add(executor);
+        if (queue.size > 1) wakeWorker(-1);
+    }
+
+    /**
+     * Find the queue which a new executor should be added to. We prefer idle workers, and then the worker with the
+     * fewest queued executors.
+     *
+     * @return The index of the least loaded queue.
+     */
+    private int leastLoadedQueue() {
+        var workers = workersReadOnly();
+        var best = 0;
+        var bestLoad = Integer.MAX_VALUE;
+        for (var i = 0; i < queues.length; i++) {
+            // Treat a queue as one longer if its worker is busy (or doesn't exist yet).
+            var worker = workers[i];
+            var load = queues[i].size + (worker != null && worker.idle ? 0 : 1);
+            if (load < bestLoad) {
+                best = i;
+                bestLoad = load;
+                if (load == 0) break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Wake up an idle worker, if there is one.
+     *
+     * @param preferred The worker to wake if it is idle, or {@code -1} to wake any idle worker.
+     */
+    private void wakeWorker(int preferred) {
+        if (idleWorkers.get() == 0) return;
+
+        var workers = workersReadOnly();
+        var worker = preferred >= 0 ? workers[preferred] : null;
+        if (worker == null || !worker.idle) {
+            worker = null;
+            for (@Nullable var other : workers) {
+                if (other != null && other.idle) {
+                    worker = other;
+                    break;
+                }
+            }
+            if (worker == null) return;
+        }
+
+        LockSupport.unpark(worker.owner);
+    }
+
+    private void wakeMonitor() {
+        var monitor = this.monitor;
+        if (monitor != null) LockSupport.unpark(monitor);
+    }
+
+    /**
+     * Take the next executor for a worker to run: either the first executor on its own queue, or one stolen from
+     * another queue.
+     *
+     * @param index The index of the worker's queue.
+     * @return The executor to run, or {@code null} if there is no work.
+     */
+    private @Nullable ExecutorImpl poll(int index) {
+        var executor = queues[index].pollFirst();
+        return executor != null ? executor : steal(index);
+    }
+
+    /**
+     * Steal an executor from another worker's queue. We take the first executor from the queue with the smallest
+     * virtual runtime, as that is the computer which has waited the longest.
+     *
+     * @param thief The index of the worker's own queue.
+     * @return The stolen executor, or {@code null} if all other queues are empty.
+     */
+    private @Nullable ExecutorImpl steal(int thief) {
+        while (true) {
+            RunQueue victim = null;
+            var victimRuntime = Long.MAX_VALUE;
+            for (var i = 0; i < queues.length; i++) {
+                var runtime = queues[i].firstRuntime;
+                if (i != thief && runtime < victimRuntime) {
+                    victim = queues[i];
+                    victimRuntime = runtime;
+                }
+            }
+            if (victim == null) return null;
+
+            // Another worker may have emptied this queue since we looked at it, in which case try again.
+            var executor = victim.pollFirst();
+            if (executor != null) return executor;
+        }
+    }
+
+    /**
+     * Move executors between queues, so that work is shared fairly between workers. This is called periodically by the
+     * {@link Monitor}.
+     * <p>
+     * Workers only steal work when they are idle, so a busy worker with a long queue (or a worker stuck running one
+     * computer) may leave its queue waiting while other workers run computers with far more virtual runtime. To
+     * counter this, we first move the computer with the smallest virtual runtime to the queue whose next computer has
+     * the largest, if they are more than a {@linkplain #latency scheduling period} apart. We then even out the length
+     * of each queue, moving the computers which would run last.
+     */
+    private void rebalance() {
+        if (computerQueueSize() == 0) return;
+
+        // Spawn any missing workers, in case we lost a race in ensureRunning, and make sure idle workers are stealing.
+        if (isBusy()) ensureRunning();
+        wakeWorker(-1);
+
+        var workers = workersReadOnly();
+
+        int lowest = -1, highest = -1;
+        long lowestRuntime = Long.MAX_VALUE, highestRuntime = Long.MIN_VALUE;
+        for (var i = 0; i < queues.length; i++) {
+            var runtime = queues[i].firstRuntime;
+            if (runtime == Long.MAX_VALUE) continue;
+            if (runtime < lowestRuntime) {
+                lowest = i;
+                lowestRuntime = runtime;
+            }
+            if (runtime > highestRuntime && workers[i] != null) {
+                highest = i;
+                highestRuntime = runtime;
+            }
+        }
+
+        if (lowest >= 0 && highest >= 0 && lowest != highest && highestRuntime - lowestRuntime > latency) {
+            move(queues[lowest], true, highest);
+        }
+
+        // Then balance the length of the queues. We only move to queues which have a worker, and bound the number of
+        // moves, as workers may be changing the queues underneath us.
+        for (var moves = 0; moves < queues.length; moves++) {
+            int longest = 0, shortest = -1;
+            for (var i = 0; i < queues.length; i++) {
+                var size = queues[i].size;
+                if (size > queues[longest].size) longest = i;
+                if (workers[i] != null && (shortest < 0 || size < queues[shortest].size)) shortest = i;
+            }
+
+            if (shortest < 0 || queues[longest].size - queues[shortest].size <= 1) break;
+            move(queues[longest], false, shortest);
+        }
+    }
+
+    /**
+     * Move an executor from one queue to another.
+     *
+     * @param from  The queue to take the executor from.
+     * @param first Whether to move the first (rather than the last) executor on the queue.
+     * @param to    The index of the queue to move the executor to.
+     */
+    private void move(RunQueue from, boolean first, int to) {
+        // The executor isn't on any queue while we move it, so mark it as pending. See queue(ExecutorImpl).
+        pendingQueue.getAndIncrement();
+        try {
+            if (state.get() != RUNNING) return;
+
+            var executor = first ? from.pollFirst() : from.pollLast();
+            if (executor == null) return;
+            queues[to].add(executor);
         } finally {
-            computerLock.unlock();
+            finishPending();
+        }
+
+        wakeWorker(to);
+    }
+
+    /**
+     * Finish queueing or moving an executor, after incrementing {@link #pendingQueue}.
+     * <p>
+     * When stopping, idle workers wait for {@link #pendingQueue} to reach zero before shutting down. The executor may
+     * not have been queued (or may have been taken by another worker), so wake all idle workers to check again.
+     */
+    private void finishPending() {
+        if (pendingQueue.decrementAndGet() != 0 || state.get() == RUNNING) return;
+
+        for (@Nullable var worker : workersReadOnly()) {
+            if (worker != null && worker.idle) LockSupport.unpark(worker.owner);
         }
     }
 
-    @SuppressWarnings("GuardedBy")
     private int computerQueueSize() {
-        // FIXME: We access this on other threads (in TimeoutState), so their reads won't be consistent. This isn't
-        //  "critical" behaviour, so not clear if it matters too much.
-        return computerQueue.size();
+        // This may be inconsistent if queues are changed while we're counting. This isn't "critical" behaviour, so
+        // it's not worth locking each queue.
+        var size = 0;
+        for (var queue : queues) size += queue.size;
+        return size;
     }
 
     /**
@@ -483,20 +670,17 @@ private void runImpl() {
             Arrays.fill(workerThreadIds, Thread.currentThread().getId());
 
             while (state.get() < CLOSED) {
-                computerLock.lock();
-                try {
-                    // If we've got more work than we have capacity for it, then we'll need to pause a task soon, so
-                    // sleep for a single pause duration. Otherwise we only need to wake up to set the soft/hard abort
-                    // flags, which are far less granular.
-                    monitorWakeup.awaitNanos(isBusy() ? scaledPeriod() : MONITOR_WAKEUP);
-                } catch (InterruptedException e) {
-                    LOG.error("Monitor thread interrupted. Computers may behave very badly!", e);
+                // If we've got more work than we have capacity for it, then we'll need to pause a task soon, so
+                // sleep for a single pause duration. Otherwise we only need to wake up to set the soft/hard abort
+                // flags, which are far less granular.
+                LockSupport.parkNanos(this, isBusy() ? scaledPeriod() : MONITOR_WAKEUP);
+                if (Thread.interrupted()) {
+                    LOG.error("Monitor thread interrupted. Computers may behave very badly!");
                     break;
-                } finally {
-                    computerLock.unlock();
                 }
 
                 checkRunners(workerThreadIds);
+                rebalance();
             }
         }
 
@@ -568,7 +752,7 @@ private void checkRunners(long[] workerThreadIds) {
     }
 
     /**
-     * Pulls tasks from the {@link #computerQueue} queue and runs them.
+     * Pulls tasks from its {@linkplain RunQueue run queue} (or steals them from other queues) and runs them.
      * <p>
      * This is responsible for running the {@link ComputerScheduler.Worker#work()}, {@link ExecutorImpl#beforeWork()}
      * and {@link ExecutorImpl#afterWork()} functions. Everything else is either handled by the executor,
@@ -593,6 +777,11 @@ private final class WorkerThread implements Runnable {
          */
         final AtomicBoolean running = new AtomicBoolean(true);
 
+        /**
+         * Whether this worker has run out of work, and is waiting to be {@linkplain LockSupport#unpark(Thread) woken}.
+         */
+        volatile boolean idle = false;
+
         /**
          * The computer we're currently running.
          */
@@ -620,20 +809,8 @@ public void run() {
         private void runImpl() {
             while (running.get()) {
                 // Wait for an active queue to execute
-                ExecutorImpl executor;
-                computerLock.lock();
-                try {
-                    idleWorkers.getAndIncrement();
-                    while ((executor = computerQueue.pollFirst()) == null) {
-                        if (state.get() >= STOPPING) return;
-
-                        // We should never interrupt() the worker, so this should be fine.
-                        workerWakeup.awaitUninterruptibly();
-                    }
-                } finally {
-                    idleWorkers.getAndDecrement();
-                    computerLock.unlock();
-                }
+                var executor = take();
+                if (executor == null) return;
 
                 // Mark this computer as executing.
                 if (!ExecutorImpl.STATE.compareAndSet(executor, ExecutorState.ON_QUEUE, ExecutorState.RUNNING)) {
@@ -664,9 +841,41 @@ private void runImpl() {
                     executor.worker.abortWithError();
                 } finally {
                     var thisExecutor = currentExecutor.getAndSet(null);
-                    if (thisExecutor != null) afterWork(executor);
+                    if (thisExecutor != null) afterWork(this, executor);
+                }
+            }
+        }
+
+        /**
+         * Wait for an executor to run.
+         *
+         * @return The executor to run, or {@code null} if we are shutting down and there is no more work.
+         */
+        private @Nullable ExecutorImpl take() {
+            var executor = poll(index);
+            if (executor != null) return executor;
+
+            idle = true;
+            idleWorkers.getAndIncrement();
+            try {
+                while (true) {
+                    // We've marked ourselves as idle before checking the queues, so anyone adding work after this
+                    // will wake us up.
+                    executor = poll(index);
+                    if (executor != null) break;
+
+                    if (state.get() >= STOPPING && pendingQueue.get() == 0 && computerQueueSize() == 0) return null;
+
+                    // We should never interrupt() the worker, but if we are, clear the flag so we don't spin.
+                    Thread.interrupted();
+                    LockSupport.park(ComputerThread.this);
                 }
+            } finally {
+                idle = false;
+                idleWorkers.getAndDecrement();
             }
+
+            return executor;
         }
 
         private void reportTimeout(ExecutorImpl executor, long time) {
@@ -703,6 +912,75 @@ private void reportTimeout(ExecutorImpl executor, long time) {
         }
     }
 
+    /**
+     * A queue of computers waiting to run on a single {@link WorkerThread}, ordered by their
+     * {@linkplain ExecutorImpl#virtualRuntime virtual runtime}.
+     * <p>
+     * Each queue has its own lock, so workers only contend with each other when stealing work. The size and first
+     * runtime are also published as volatile fields, so other threads can inspect the queue without taking the lock.
+     */
+    private static final class RunQueue {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        @GuardedBy("lock")
+        private final TreeSet<ExecutorImpl> queue = new TreeSet<>(ComputerThread::compareExecutors);
+
+        /**
+         * The number of executors on this queue.
+         */
+        volatile int size = 0;
+
+        /**
+         * The {@link ExecutorImpl#virtualRuntime} of the first executor, or {@link Long#MAX_VALUE} if the queue is
+         * empty.
+         */
+        volatile long firstRuntime = Long.MAX_VALUE;
+
+        void add(ExecutorImpl executor) {
+            lock.lock();
+            try {
+                queue.add(executor);
+                updateStats();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Nullable
+        ExecutorImpl pollFirst() {
+            if (size == 0) return null;
+
+            lock.lock();
+            try {
+                var executor = queue.pollFirst();
+                updateStats();
+                return executor;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Nullable
+        ExecutorImpl pollLast() {
+            if (size == 0) return null;
+
+            lock.lock();
+            try {
+                var executor = queue.pollLast();
+                updateStats();
+                return executor;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @GuardedBy("lock")
+        private void updateStats() {
+            size = queue.size();
+            firstRuntime = queue.isEmpty() ? Long.MAX_VALUE : queue.first().virtualRuntime;
+        }
+    }
+
     /**
      * The current state of a {@link ExecutorState}.
      * <p>
@@ -794,7 +1072,7 @@ private final class ExecutorImpl implements Executor {
          *
          * @see ComputerThread
          */
-        long virtualRuntime = 0;
+        volatile long virtualRuntime = 0;
 
         /**
          * The last time at which we updated {@link #virtualRuntime}.
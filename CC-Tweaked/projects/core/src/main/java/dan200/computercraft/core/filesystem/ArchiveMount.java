@@ -7,9 +7,11 @@
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import dan200.computercraft.core.apis.handles.ArrayByteChannel;
+import dan200.computercraft.core.apis.handles.ByteBufferChannel;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SeekableByteChannel;
 import java.util.concurrent.TimeUnit;
 
@@ -17,7 +19,8 @@
  * An abstract mount based on some archive of files, such as a Zip or Minecraft's resources.
  * <p>
  * We assume that we cannot create {@link SeekableByteChannel}s directly from the archive, and so maintain a (shared)
- * cache of recently read files and their contents.
+ * cache of recently read files and their contents. Archives which can provide a direct view of a file's contents may
+ * instead override {@link #getMappedContents(String, FileEntry)}.
  *
  * @param <T> The type of file.
  */
@@ -62,9 +65,25 @@ protected long getFileSize(String path, T file) throws IOException {
 
     @Override
     protected final SeekableByteChannel openForRead(String path, T file) throws IOException {
+        var mapped = getMappedContents(path, file);
+        if (mapped != null) return new ByteBufferChannel(mapped);
+
         return new ArrayByteChannel(getContents(path, file));
     }
 
+    /**
+     * Get the contents of a file as a view of the underlying archive (for instance, a memory-mapped file), rather than
+     * reading it into the contents cache.
+     *
+     * @param path The file path, for error messages.
+     * @param file The file to read. This will not be a directory.
+     * @return The contents of the file, or {@code null} if it should be read with {@link #getFileContents(String, FileEntry)}.
+     * @throws IOException If the file could not be read.
+     */
+    protected @Nullable ByteBuffer getMappedContents(String path, T file) throws IOException {
+        return null;
+    }
+
     private byte[] getContents(String path, T file) throws IOException {
         var cachedContents = CONTENTS_CACHE.getIfPresent(file);
         if (cachedContents != null) return cachedContents;
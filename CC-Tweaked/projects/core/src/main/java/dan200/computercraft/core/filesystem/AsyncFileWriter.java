@@ -0,0 +1,144 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.filesystem;
+
+import dan200.computercraft.core.util.ThreadUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes files in the background, rather than on the computer thread.
+ * <p>
+ * Files opened by a {@link WritableFileMount} using this writer buffer their writes in memory. Each buffer is handed
+ * to a dedicated I/O thread once it is full, once it has been waiting for longer than the flush delay, or when its
+ * file is flushed. Consecutive writes to the same file are coalesced into a single buffer.
+ * <p>
+ * Writes remain consistent with the rest of the mount: reading from a file, or querying its size or attributes, first
+ * waits for any buffered writes to that file. Closing a file waits for all its writes to finish, and reports any errors
+ * which occurred.
+ * <p>
+ * This should be {@linkplain #close() closed} when the writer is no longer needed, to ensure any files which are still
+ * open are written.
+ */
+public final class AsyncFileWriter implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncFileWriter.class);
+
+    /**
+     * The default size of each file's buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The default time to wait before writing a partially full buffer, in milliseconds.
+     */
+    public static final long DEFAULT_FLUSH_DELAY = 500;
+
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, ThreadUtils.factory("FileWriter"));
+    private final Set<WriteBehindChannel> channels = ConcurrentHashMap.newKeySet();
+    private final int bufferSize;
+    private final long flushDelay;
+
+    public AsyncFileWriter() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create a new file writer.
+     *
+     * @param bufferSize The size of each file's buffer, in bytes.
+     * @param flushDelay The maximum time a write may be buffered before it is written.
+     * @param unit       The unit of {@code flushDelay}.
+     */
+    public AsyncFileWriter(int bufferSize, long flushDelay, TimeUnit unit) {
+        if (bufferSize <= 0) throw new IllegalArgumentException("bufferSize must be positive");
+        this.bufferSize = bufferSize;
+        this.flushDelay = unit.toNanos(flushDelay);
+
+        // Closing the writer flushes every file, so there's no need to wait for any delayed flushes.
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    ScheduledExecutorService executor() {
+        return executor;
+    }
+
+    int bufferSize() {
+        return bufferSize;
+    }
+
+    long flushDelay() {
+        return flushDelay;
+    }
+
+    /**
+     * Open a file for writing.
+     *
+     * @param file    The file to open.
+     * @param options The options to open the file with. This must include {@link java.nio.file.StandardOpenOption#WRITE}
+     *                or {@link java.nio.file.StandardOpenOption#APPEND}.
+     * @param append  Whether this file was opened for appending.
+     * @return The opened channel.
+     * @throws IOException If the file could not be opened.
+     */
+    WriteBehindChannel open(Path file, Set<OpenOption> options, boolean append) throws IOException {
+        var channel = new WriteBehindChannel(this, file, FileChannel.open(file, options), append);
+        channels.add(channel);
+        return channel;
+    }
+
+    void onClosed(WriteBehindChannel channel) {
+        channels.remove(channel);
+    }
+
+    /**
+     * Wait for all buffered writes to a file, or any file within a directory, to finish.
+     *
+     * @param path The file or directory to wait for.
+     * @throws IOException If interrupted while waiting.
+     */
+    void sync(Path path) throws IOException {
+        for (var channel : channels) {
+            if (channel.file().startsWith(path)) channel.sync();
+        }
+    }
+
+    /**
+     * Wait for all buffered writes to finish. Files may continue to be written to afterwards.
+     */
+    public void flush() {
+        for (var channel : channels) {
+            try {
+                channel.sync();
+            } catch (IOException e) {
+                LOG.error("Failed to write {}", channel.file(), e);
+            }
+        }
+    }
+
+    /**
+     * Write any buffered data and stop the I/O thread. Any files which are still open will be written synchronously
+     * from now on.
+     */
+    @Override
+    public void close() {
+        flush();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) LOG.warn("Timed out waiting for files to be written");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
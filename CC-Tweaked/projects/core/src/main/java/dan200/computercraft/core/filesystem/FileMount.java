@@ -8,11 +8,14 @@
 import dan200.computercraft.api.filesystem.FileAttributes;
 import dan200.computercraft.api.filesystem.FileOperationException;
 import dan200.computercraft.api.filesystem.Mount;
+import dan200.computercraft.core.apis.handles.ByteBufferChannel;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.FileSystemException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
@@ -23,10 +26,32 @@
  * A {@link Mount} implementation which provides read-only access to a directory.
  */
 public class FileMount implements Mount {
+    /**
+     * The minimum size of a file before it is mapped into memory. Smaller files are cheaper to read directly.
+     */
+    private static final long MAP_THRESHOLD = 128 * 1024;
+
     protected final Path root;
+    private final boolean mapFiles;
 
     public FileMount(Path root) {
+        this(root, false);
+    }
+
+    /**
+     * Create a new file mount.
+     * <p>
+     * Large files may optionally be {@linkplain FileChannel#map(FileChannel.MapMode, long, long) memory-mapped} when
+     * opened for reading. Accessing a mapped file after it has been truncated will crash with an {@link InternalError},
+     * so this should only be enabled for directories which are not modified while the game is running, such as
+     * extracted resources.
+     *
+     * @param root     The directory to mount.
+     * @param mapFiles Whether to map large files into memory.
+     */
+    public FileMount(Path root, boolean mapFiles) {
         this.root = root;
+        this.mapFiles = mapFiles;
     }
 
     /**
@@ -35,7 +60,7 @@ public FileMount(Path root) {
      * @param path The path to resolve.
      * @return The resolved path.
      */
-    protected Path resolvePath(String path) {
+    public Path resolvePath(String path) {
         return root.resolve(path);
     }
 
@@ -84,11 +109,25 @@ public BasicFileAttributes getAttributes(String path) throws FileOperationExcept
     @Override
     public SeekableByteChannel openForRead(String path) throws FileOperationException {
         var file = resolvePath(path);
-        if (!Files.isRegularFile(file)) {
-            throw new FileOperationException(path, Files.exists(file) ? NOT_A_FILE : NO_SUCH_FILE);
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new FileOperationException(path, NO_SUCH_FILE);
+        } catch (IOException e) {
+            throw remapException(path, e);
         }
+        if (!attributes.isRegularFile()) throw new FileOperationException(path, NOT_A_FILE);
 
         try {
+            var size = attributes.size();
+            if (mapFiles && size >= MAP_THRESHOLD && size <= Integer.MAX_VALUE) {
+                try (var channel = FileChannel.open(file, READ_OPTIONS)) {
+                    return new ByteBufferChannel(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+                }
+            }
+
             return Files.newByteChannel(file, READ_OPTIONS);
         } catch (IOException e) {
             throw remapException(path, e);
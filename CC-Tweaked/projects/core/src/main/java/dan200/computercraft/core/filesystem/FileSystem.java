@@ -25,6 +25,14 @@
 
 import static dan200.computercraft.api.filesystem.MountConstants.*;
 
+/**
+ * The filesystem for a computer, combining several {@link Mount}s into a single tree.
+ * <p>
+ * Operations which only read from the filesystem (such as {@link #exists(String)}, {@link #list(String)} and
+ * {@link #openForRead(String)}) do not acquire any locks, instead reading from an immutable {@link MountTable}.
+ * Mounting, unmounting and operations which modify the filesystem are synchronized on this object, so that, for
+ * instance, a drive cannot be ejected half-way through a {@link #copy(String, String)}.
+ */
 public class FileSystem {
     /**
      * Maximum depth that {@link #copyRecursive(String, MountWrapper, String, MountWrapper, int)} will descend into.
@@ -34,7 +42,11 @@ public class FileSystem {
      */
     private static final int MAX_COPY_DEPTH = 128;
 
-    private final Map<String, MountWrapper> mounts = new HashMap<>();
+    /**
+     * The current mount table. This is replaced (while holding the {@link FileSystem} lock) whenever a mount is added
+     * or removed, and so can be read without any synchronisation.
+     */
+    private volatile MountTable mounts = MountTable.EMPTY;
 
     private final HashMap<WeakReference<FileSystemWrapper<?>>, SeekableByteChannel> openFiles = new HashMap<>();
     private final ReferenceQueue<FileSystemWrapper<?>> openFileQueue = new ReferenceQueue<>();
@@ -74,14 +86,14 @@ public synchronized void mountWritable(String label, String location, WritableMo
     }
 
     private synchronized void mount(MountWrapper wrapper) {
-        var location = wrapper.getLocation();
-        mounts.remove(location);
-        mounts.put(location, wrapper);
+        mounts = mounts.with(wrapper);
     }
 
     public synchronized void unmount(String path) {
-        var mount = mounts.remove(sanitizePath(path));
+        path = sanitizePath(path);
+        var mount = mounts.get(path);
         if (mount == null) return;
+        mounts = mounts.without(path);
 
         cleanup();
 
@@ -141,53 +153,50 @@ public static String getName(String path) {
         return lastSlash >= 0 ? path.substring(lastSlash + 1) : path;
     }
 
-    public synchronized long getSize(String path) throws FileSystemException {
+    public long getSize(String path) throws FileSystemException {
         return getMount(sanitizePath(path)).getSize(sanitizePath(path));
     }
 
-    public synchronized BasicFileAttributes getAttributes(String path) throws FileSystemException {
+    public BasicFileAttributes getAttributes(String path) throws FileSystemException {
         return getMount(sanitizePath(path)).getAttributes(sanitizePath(path));
     }
 
-    public synchronized List<String> list(String path) throws FileSystemException {
+    public List<String> list(String path) throws FileSystemException {
         path = sanitizePath(path);
-        var mount = getMount(path);
+        var mounts = this.mounts;
+        var mount = getMount(mounts, path);
 
         // Gets a list of the files in the mount
         List<String> list = new ArrayList<>();
         mount.list(path, list);
 
         // Add any mounts that are mounted at this location
-        for (var otherMount : mounts.values()) {
-            if (getDirectory(otherMount.getLocation()).equals(path)) {
-                list.add(getName(otherMount.getLocation()));
-            }
-        }
+        mounts.listChildren(path, list);
 
         // Return list
         list.sort(Comparator.naturalOrder());
         return list;
     }
 
-    public synchronized boolean exists(String path) throws FileSystemException {
+    public boolean exists(String path) throws FileSystemException {
         path = sanitizePath(path);
         var mount = getMount(path);
         return mount.exists(path);
     }
 
-    public synchronized boolean isDir(String path) throws FileSystemException {
+    public boolean isDir(String path) throws FileSystemException {
         path = sanitizePath(path);
         var mount = getMount(path);
         return mount.isDirectory(path);
     }
 
-    public synchronized boolean isReadOnly(String path) throws FileSystemException {
+    public boolean isReadOnly(String path) throws FileSystemException {
         path = sanitizePath(path);
         var mount = getMount(path);
         return mount.isReadOnly(path);
     }
 
-    public synchronized String getMountLabel(String path) throws FileSystemException {
+    public String getMountLabel(String path) throws FileSystemException {
         path = sanitizePath(path);
         var mount = getMount(path);
         return mount.getLabel();
@@ -277,7 +286,7 @@ private void cleanup() {
         }
     }
 
-    private synchronized FileSystemWrapper<SeekableByteChannel> openFile(MountWrapper mount, SeekableByteChannel channel) throws FileSystemException {
+    private FileSystemWrapper<SeekableByteChannel> openFile(MountWrapper mount, SeekableByteChannel channel) throws FileSystemException {
         synchronized (openFiles) {
             if (CoreConfig.maximumFilesOpen > 0 &&
                 openFiles.size() >= CoreConfig.maximumFilesOpen) {
@@ -297,7 +306,7 @@ void removeFile(FileSystemWrapper<?> handle) {
         }
     }
 
-    public synchronized FileSystemWrapper<SeekableByteChannel> openForRead(String path) throws FileSystemException {
+    public FileSystemWrapper<SeekableByteChannel> openForRead(String path) throws FileSystemException {
         cleanup();
 
         path = sanitizePath(path);
@@ -315,36 +324,26 @@ public synchronized FileSystemWrapper<SeekableByteChannel> openForWrite(String p
         return openFile(mount, channel);
     }
 
-    public synchronized long getFreeSpace(String path) throws FileSystemException {
+    public long getFreeSpace(String path) throws FileSystemException {
         path = sanitizePath(path);
         var mount = getMount(path);
         return mount.getFreeSpace();
     }
 
-    public synchronized OptionalLong getCapacity(String path) throws FileSystemException {
+    public OptionalLong getCapacity(String path) throws FileSystemException {
         path = sanitizePath(path);
         var mount = getMount(path);
         return mount.getCapacity();
     }
 
-    private synchronized MountWrapper getMount(String path) throws FileSystemException {
+    private MountWrapper getMount(String path) throws FileSystemException {
+        return getMount(mounts, path);
+    }
+
+    private static MountWrapper getMount(MountTable mounts, String path) throws FileSystemException {
         // Return the deepest mount that contains a given path
-        var it = mounts.values().iterator();
-        MountWrapper match = null;
-        var matchLength = 999;
-        while (it.hasNext()) {
-            var mount = it.next();
-            if (contains(mount.getLocation(), path)) {
-                var len = toLocal(path, mount.getLocation()).length();
-                if (match == null || len < matchLength) {
-                    match = mount;
-                    matchLength = len;
-                }
-            }
-        }
-        if (match == null) {
-            throw new FileSystemException(path, "Invalid Path");
-        }
+        var match = mounts.find(path);
+        if (match == null) throw new FileSystemException(path, "Invalid Path");
         return match;
     }
 
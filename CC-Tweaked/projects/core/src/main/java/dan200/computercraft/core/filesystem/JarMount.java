@@ -6,15 +6,23 @@
 
 import dan200.computercraft.api.filesystem.FileAttributes;
 import dan200.computercraft.api.filesystem.FileOperationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -23,12 +31,31 @@
 
 /**
  * A mount which reads zip/jar files.
+ * <p>
+ * Large uncompressed entries are read from a memory-mapped copy of the zip file, rather than being copied into the
+ * {@linkplain ArchiveMount contents cache}.
  */
 public final class JarMount extends ArchiveMount<JarMount.FileEntry> implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(JarMount.class);
+
+    /**
+     * The minimum size of an uncompressed entry before it is read directly from a memory-mapped copy of the jar.
+     */
+    private static final long MAP_THRESHOLD = 128 * 1024;
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    private final File jarFile;
     private final ZipFile zip;
 
+    private boolean mapAttempted;
+    private @Nullable MappedArchive mapped;
+
     public JarMount(File jarFile, String subPath) throws IOException {
         if (!jarFile.exists() || jarFile.isDirectory()) throw new FileNotFoundException("Cannot find " + jarFile);
+        this.jarFile = jarFile;
 
         // Open the zip file
         try {
@@ -74,6 +101,90 @@ protected byte[] getFileContents(String path, FileEntry file) throws FileOperati
         }
     }
 
+    @Override
+    protected @Nullable ByteBuffer getMappedContents(String path, FileEntry file) {
+        var entry = file.zipEntry;
+        if (entry == null || entry.getMethod() != ZipEntry.STORED || entry.getSize() < MAP_THRESHOLD) return null;
+
+        var archive = getMappedArchive();
+        if (archive == null) return null;
+
+        var offset = archive.storedEntries().get(entry.getName());
+        if (offset == null) return null;
+
+        // Skip past the local file header to find the entry's contents.
+        var buffer = archive.buffer();
+        if (offset + 30 > buffer.limit() || buffer.getInt(offset) != LOCAL_HEADER) return null;
+        var start = (long) offset + 30 + Short.toUnsignedInt(buffer.getShort(offset + 26)) + Short.toUnsignedInt(buffer.getShort(offset + 28));
+        if (start + entry.getSize() > buffer.limit()) return null;
+
+        return buffer.slice((int) start, (int) entry.getSize());
+    }
+
+    /**
+     * Map the jar file into memory, and find the offsets of all uncompressed entries.
+     *
+     * @return The mapped archive, or {@code null} if the jar could not be mapped.
+     */
+    private synchronized @Nullable MappedArchive getMappedArchive() {
+        if (mapAttempted) return mapped;
+        mapAttempted = true;
+
+        try (var channel = FileChannel.open(jarFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) return null;
+
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            return mapped = new MappedArchive(buffer, findStoredEntries(buffer));
+        } catch (IOException e) {
+            LOG.warn("Failed to map {} into memory", jarFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Read the zip's central directory, finding the offset of the local header for each uncompressed entry.
+     * <p>
+     * We don't support Zip64 archives, and so just return an empty map for those.
+     *
+     * @param buffer The contents of the zip file.
+     * @return A map of entry names to the offset of their local header.
+     */
+    private static Map<String, Integer> findStoredEntries(ByteBuffer buffer) {
+        var end = -1;
+        for (var i = buffer.limit() - 22; i >= Math.max(0, buffer.limit() - 22 - 0xFFFF); i--) {
+            if (buffer.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) return Map.of();
+
+        var count = Short.toUnsignedInt(buffer.getShort(end + 10));
+        var position = Integer.toUnsignedLong(buffer.getInt(end + 16));
+
+        Map<String, Integer> entries = new HashMap<>();
+        for (var i = 0; i < count; i++) {
+            if (position + 46 > buffer.limit() || buffer.getInt((int) position) != CENTRAL_HEADER) break;
+
+            var header = (int) position;
+            var method = Short.toUnsignedInt(buffer.getShort(header + 10));
+            var nameLength = Short.toUnsignedInt(buffer.getShort(header + 28));
+            var extraLength = Short.toUnsignedInt(buffer.getShort(header + 30));
+            var commentLength = Short.toUnsignedInt(buffer.getShort(header + 32));
+            var localOffset = Integer.toUnsignedLong(buffer.getInt(header + 42));
+            if (header + 46 + nameLength > buffer.limit()) break;
+
+            if (method == ZipEntry.STORED && localOffset < buffer.limit()) {
+                var name = StandardCharsets.UTF_8.decode(buffer.slice(header + 46, nameLength)).toString();
+                entries.put(name, (int) localOffset);
+            }
+
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+
+        return entries;
+    }
+
     @Override
     protected BasicFileAttributes getAttributes(String path, FileEntry file) throws IOException {
         return file.zipEntry == null ? super.getAttributes(path, file) : new FileAttributes(
@@ -96,6 +207,9 @@ void setup(ZipEntry entry) {
         }
     }
 
+    private record MappedArchive(ByteBuffer buffer, Map<String, Integer> storedEntries) {
+    }
+
     private static FileTime orEpoch(@Nullable FileTime time) {
         return time == null ? EPOCH : time;
     }
@@ -0,0 +1,145 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.filesystem;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * An immutable table of the mounts in a {@link FileSystem}.
+ * <p>
+ * Mounts are stored in a trie, keyed by each (lower-cased) segment of their location. This allows finding the mount
+ * for a path by walking down the trie, rather than checking every mount.
+ * <p>
+ * As the table is immutable, it may be safely read from any thread. Mounting or unmounting a drive instead creates a
+ * new table, which {@link FileSystem} then publishes.
+ */
+final class MountTable {
+    static final MountTable EMPTY = new MountTable(Map.of(), new Node(null, Map.of()));
+
+    private final Map<String, MountWrapper> mounts;
+    private final Node root;
+
+    private MountTable(Map<String, MountWrapper> mounts, Node root) {
+        this.mounts = mounts;
+        this.root = root;
+    }
+
+    /**
+     * Create a new table with an additional mount, replacing any existing mount at the same location.
+     *
+     * @param mount The mount to add.
+     * @return The new mount table.
+     */
+    MountTable with(MountWrapper mount) {
+        var mounts = new HashMap<>(this.mounts);
+        mounts.put(mount.getLocation(), mount);
+        return create(mounts);
+    }
+
+    /**
+     * Create a new table with the mount at the given location removed.
+     *
+     * @param location The location to remove.
+     * @return The new mount table, or {@code this} if nothing was mounted at this location.
+     */
+    MountTable without(String location) {
+        if (!mounts.containsKey(location)) return this;
+
+        var mounts = new HashMap<>(this.mounts);
+        mounts.remove(location);
+        return create(mounts);
+    }
+
+    /**
+     * Get the mount at the exact location.
+     *
+     * @param location The location of the mount.
+     * @return The mount at this location, or {@code null} if none exists.
+     */
+    @Nullable
+    MountWrapper get(String location) {
+        return mounts.get(location);
+    }
+
+    /**
+     * Find the deepest mount which contains the given path.
+     *
+     * @param path The sanitised path to look up.
+     * @return The mount containing this path, or {@code null} if no mount contains it.
+     */
+    @Nullable
+    MountWrapper find(String path) {
+        if (path.equals("..") || path.startsWith("../")) return null;
+
+        var node = root;
+        var match = node.mount;
+        if (!path.isEmpty()) {
+            for (var segment : splitLower(path)) {
+                node = node.children.get(segment);
+                if (node == null) break;
+                if (node.mount != null) match = node.mount;
+            }
+        }
+
+        return match;
+    }
+
+    /**
+     * Find the mounts whose location is immediately inside the given directory.
+     *
+     * @param path The sanitised directory path.
+     * @param out  The list to add the names of the mounts to.
+     */
+    void listChildren(String path, List<String> out) {
+        var node = root;
+        if (!path.isEmpty()) {
+            for (var segment : splitLower(path)) {
+                node = node.children.get(segment);
+                if (node == null) return;
+            }
+        }
+
+        for (var child : node.children.values()) {
+            var mount = child.mount;
+            if (mount != null && FileSystem.getDirectory(mount.getLocation()).equals(path)) {
+                out.add(FileSystem.getName(mount.getLocation()));
+            }
+        }
+    }
+
+    private static MountTable create(Map<String, MountWrapper> mounts) {
+        var root = new MutableNode();
+        for (var mount : mounts.values()) {
+            var location = mount.getLocation();
+            var node = root;
+            if (!location.isEmpty()) {
+                for (var segment : splitLower(location)) node = node.children.computeIfAbsent(segment, x -> new MutableNode());
+            }
+            node.mount = mount;
+        }
+
+        return new MountTable(Map.copyOf(mounts), root.freeze());
+    }
+
+    private static String[] splitLower(String path) {
+        return path.toLowerCase(Locale.ROOT).split("/");
+    }
+
+    private record Node(@Nullable MountWrapper mount, Map<String, Node> children) {
+    }
+
+    private static final class MutableNode {
+        @Nullable
+        MountWrapper mount;
+        final Map<String, MutableNode> children = new HashMap<>();
+
+        Node freeze() {
+            Map<String, Node> frozen = new HashMap<>(children.size());
+            for (var child : children.entrySet()) frozen.put(child.getKey(), child.getValue().freeze());
+            return new Node(mount, Map.copyOf(frozen));
+        }
+    }
+}
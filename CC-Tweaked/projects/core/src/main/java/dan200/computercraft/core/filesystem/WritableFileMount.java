@@ -11,6 +11,7 @@
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.io.Flushable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
@@ -31,11 +32,25 @@ public class WritableFileMount extends FileMount implements WritableMount {
     protected final File rootFile;
     private final long capacity;
     private long usedSpace;
+    private final @Nullable AsyncFileWriter writer;
 
     public WritableFileMount(File rootFile, long capacity) {
+        this(rootFile, capacity, null);
+    }
+
+    /**
+     * Create a new writable mount.
+     *
+     * @param rootFile The directory to mount.
+     * @param capacity The maximum size of this mount, in bytes.
+     * @param writer   The writer to write files in the background with, or {@code null} to write them on the calling
+     *                 thread.
+     */
+    public WritableFileMount(File rootFile, long capacity, @Nullable AsyncFileWriter writer) {
         super(rootFile.toPath());
         this.rootFile = rootFile;
         this.capacity = capacity + MINIMUM_FILE_SIZE;
+        this.writer = writer;
         usedSpace = created() ? measureUsedSpace(root) : MINIMUM_FILE_SIZE;
     }
 
@@ -98,10 +113,44 @@ public void makeDirectory(String path) throws IOException {
         }
     }
 
+    /**
+     * Wait for any buffered writes to a file, or files within a directory, so it can be read or modified directly.
+     *
+     * @param path The mount-relative path of the file or directory.
+     * @throws FileOperationException If a buffered write failed.
+     */
+    private void sync(String path) throws FileOperationException {
+        if (writer == null) return;
+        try {
+            writer.sync(resolvePath(path));
+        } catch (IOException e) {
+            throw remapException(path, e);
+        }
+    }
+
+    @Override
+    public long getSize(String path) throws FileOperationException {
+        sync(path);
+        return super.getSize(path);
+    }
+
+    @Override
+    public BasicFileAttributes getAttributes(String path) throws FileOperationException {
+        sync(path);
+        return super.getAttributes(path);
+    }
+
+    @Override
+    public SeekableByteChannel openForRead(String path) throws FileOperationException {
+        sync(path);
+        return super.openForRead(path);
+    }
+
     @Override
     public void delete(String path) throws IOException {
         if (path.isEmpty()) throw new FileOperationException(path, ACCESS_DENIED);
 
+        sync(path);
         if (created()) {
             var file = resolveFile(path);
             if (file.exists()) deleteRecursively(file);
@@ -138,6 +187,7 @@ public void rename(String source, String dest) throws FileOperationException {
             throw new FileOperationException(source, "Cannot move a directory inside itself");
         }
 
+        sync(source);
         try {
             Files.move(sourceFile, destFile);
         } catch (IOException e) {
@@ -178,6 +228,7 @@ public SeekableByteChannel openFile(String path, Set<OpenOption> options) throws
         create();
 
         var file = resolvePath(path);
+        sync(path);
         var attributes = tryGetAttributes(path, file);
         if (attributes != null && attributes.isDirectory()) {
             throw new FileOperationException(path, flags.create() ? CANNOT_WRITE_TO_DIRECTORY : NOT_A_FILE);
@@ -195,13 +246,15 @@ public SeekableByteChannel openFile(String path, Set<OpenOption> options) throws
 
         // Allowing seeking when appending is not recommended, so we use a separate channel.
         try {
-            return new CountingChannel(Files.newByteChannel(file, options));
+            return new CountingChannel(writer != null && flags.write()
+                ? writer.open(file, options, flags.append())
+                : Files.newByteChannel(file, options));
         } catch (IOException e) {
             throw remapException(path, e);
         }
     }
 
-    private class CountingChannel implements SeekableByteChannel {
+    private class CountingChannel implements SeekableByteChannel, Flushable {
         private final SeekableByteChannel channel;
 
         CountingChannel(SeekableByteChannel channel) {
@@ -235,6 +288,11 @@ public boolean isOpen() {
             return channel.isOpen();
         }
 
+        @Override
+        public void flush() throws IOException {
+            if (channel instanceof Flushable flushable) flushable.flush();
+        }
+
         @Override
         public void close() throws IOException {
             channel.close();
@@ -0,0 +1,403 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.filesystem;
+
+import javax.annotation.Nullable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A channel which buffers writes in memory, and writes them on an {@link AsyncFileWriter}'s I/O thread.
+ * <p>
+ * The channel tracks its own position, and the furthest extent of any buffered writes, so its position and size
+ * reflect buffered writes without waiting for them. Reads wait for all buffered writes to finish first.
+ * <p>
+ * All buffers are written on a single thread, in the order they were submitted. This means waiting for the most
+ * recently submitted buffer is enough to know all previous writes have finished.
+ * <p>
+ * The number of buffers waiting to be written is limited (see {@link #MAX_PENDING_BUFFERS} and
+ * {@link #MAX_PENDING_WRITES}). Once this limit is reached, writes wait for the oldest buffer to be written, so a
+ * computer writing faster than the disk can keep up cannot fill the heap.
+ */
+final class WriteBehindChannel implements SeekableByteChannel, Flushable {
+    /**
+     * The maximum number of bytes waiting to be written, as a multiple of the writer's buffer size.
+     */
+    private static final int MAX_PENDING_BUFFERS = 4;
+
+    /**
+     * The maximum number of writes waiting to be written. This limits the overhead of many small writes, such as when
+     * seeking before every write.
+     */
+    static final int MAX_PENDING_WRITES = 64;
+
+    private final AsyncFileWriter writer;
+    private final Path file;
+    private final FileChannel channel;
+    private final boolean append;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // The following fields are guarded by the lock.
+    private boolean closed = false;
+    private long position;
+
+    /**
+     * The end of the furthest write which may not have reached the file yet, or {@code 0} if all writes have finished.
+     * The file may be truncated by other channels once our writes have finished, so we only track this while writes
+     * are outstanding, and otherwise use the file's real size.
+     */
+    private long pendingEnd;
+
+    /**
+     * The pending write, which starts at {@link #bufferStart} in the file.
+     */
+    private @Nullable ByteBuffer buffer;
+    private long bufferStart;
+    private boolean flushScheduled = false;
+
+    /**
+     * Writes which have been submitted to the I/O thread, but may not have finished, in the order they were submitted.
+     */
+    private final ArrayDeque<PendingWrite> pending = new ArrayDeque<>();
+    private int pendingBytes;
+
+    /**
+     * The first error which occurred while writing in the background. This is written from the I/O thread.
+     */
+    private volatile @Nullable IOException error;
+
+    WriteBehindChannel(AsyncFileWriter writer, Path file, FileChannel channel, boolean append) throws IOException {
+        this.writer = writer;
+        this.file = file;
+        this.channel = channel;
+        this.append = append;
+        position = append ? channel.size() : channel.position();
+    }
+
+    Path file() {
+        return file;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+
+            var length = src.remaining();
+            if (append) position = currentSize();
+
+            // Start a new buffer if this write isn't directly after the buffered data.
+            var buffer = this.buffer;
+            if (buffer != null && bufferStart + buffer.position() != position) {
+                submit();
+                buffer = null;
+            }
+
+            var bufferSize = writer.bufferSize();
+            var offset = position;
+            while (src.hasRemaining()) {
+                if (buffer == null) {
+                    buffer = this.buffer = ByteBuffer.allocate(Math.min(bufferSize, src.remaining()));
+                    bufferStart = offset;
+                } else if (buffer.remaining() < src.remaining() && buffer.capacity() < bufferSize) {
+                    // Small writes only allocate what they need, so grow the buffer before filling it.
+                    var capacity = Math.min(bufferSize, Math.max(buffer.capacity() * 2, buffer.position() + src.remaining()));
+                    buffer = this.buffer = ByteBuffer.allocate(capacity).put(buffer.flip());
+                }
+
+                var count = Math.min(src.remaining(), buffer.remaining());
+                buffer.put(buffer.position(), src, src.position(), count);
+                buffer.position(buffer.position() + count);
+                src.position(src.position() + count);
+                offset += count;
+
+                if (!buffer.hasRemaining() && buffer.capacity() == bufferSize) {
+                    submit();
+                    buffer = null;
+                }
+            }
+
+            position += length;
+            pendingEnd = Math.max(pendingEnd, position);
+
+            if (this.buffer != null && !flushScheduled) scheduleFlush();
+            return length;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            drain();
+
+            var read = channel.read(dst, position);
+            if (read > 0) position += read;
+            return read;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long position() throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            return position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            if (newPosition < 0) throw new IllegalArgumentException("Cannot seek before the beginning of the stream");
+            position = newPosition;
+            return this;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long size() throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            return currentSize();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long newSize) throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            drain();
+            channel.truncate(newSize);
+            position = Math.min(position, newSize);
+            return this;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start writing any buffered data, without waiting for it to finish.
+     *
+     * @throws IOException If a previous write failed.
+     */
+    @Override
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            submit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait for all buffered data to be written.
+     *
+     * @throws IOException If a write failed, or we were interrupted while waiting.
+     */
+    void sync() throws IOException {
+        lock.lock();
+        try {
+            if (!closed) drain();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        lock.lock();
+        try {
+            return !closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+
+            try {
+                drain();
+            } finally {
+                writer.onClosed(this);
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long currentSize() throws IOException {
+        return Math.max(channel.size(), pendingEnd);
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) throw new ClosedChannelException();
+
+        var error = this.error;
+        if (error != null) throw error;
+    }
+
+    private void scheduleFlush() throws IOException {
+        try {
+            writer.executor().schedule(this::scheduledFlush, writer.flushDelay(), TimeUnit.NANOSECONDS);
+            flushScheduled = true;
+        } catch (RejectedExecutionException e) {
+            // The writer has been shut down, so write immediately instead.
+            submit();
+        }
+    }
+
+    /**
+     * Submit the buffer after the flush delay. This runs on the I/O thread, so cannot block on the lock: whoever holds
+     * it may be waiting for this thread to finish writing. Instead, try again later.
+     */
+    private void scheduledFlush() {
+        if (!lock.tryLock()) {
+            try {
+                writer.executor().schedule(this::scheduledFlush, writer.flushDelay(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException ignored) {
+                // The writer was closed, which will have written everything already.
+            }
+            return;
+        }
+
+        try {
+            flushScheduled = false;
+            // We're on the I/O thread, so cannot wait for earlier writes. This adds at most one buffer to the queue.
+            if (!closed) enqueue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand the current buffer to the I/O thread, first waiting for earlier writes if too many are outstanding.
+     *
+     * @throws IOException If interrupted while waiting.
+     */
+    private void submit() throws IOException {
+        var buffer = this.buffer;
+        if (buffer == null) return;
+
+        var size = buffer.position();
+        var maxBytes = writer.bufferSize() * MAX_PENDING_BUFFERS;
+        while (true) {
+            // Remove any writes which have finished.
+            PendingWrite oldest;
+            while ((oldest = pending.peekFirst()) != null && oldest.future().isDone()) removeOldest();
+
+            if (oldest == null || (pending.size() < MAX_PENDING_WRITES && pendingBytes + size <= maxBytes)) break;
+            await(oldest.future());
+        }
+
+        enqueue();
+    }
+
+    /**
+     * Hand the current buffer to the I/O thread, or write it immediately if the writer has been shut down.
+     */
+    private void enqueue() {
+        var buffer = this.buffer;
+        if (buffer == null) return;
+        this.buffer = null;
+
+        var start = bufferStart;
+        var size = buffer.position();
+        buffer.flip();
+        try {
+            pending.addLast(new PendingWrite(writer.executor().submit(() -> writeBuffer(buffer, start)), size));
+            pendingBytes += size;
+        } catch (RejectedExecutionException e) {
+            writeBuffer(buffer, start);
+        }
+    }
+
+    private void removeOldest() {
+        pendingBytes -= pending.removeFirst().size();
+    }
+
+    private void writeBuffer(ByteBuffer buffer, long start) {
+        if (error != null) return;
+        try {
+            if (append) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            } else {
+                var offset = start;
+                while (buffer.hasRemaining()) offset += channel.write(buffer, offset);
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    /**
+     * Submit any buffered data, and wait for all writes to finish.
+     */
+    private void drain() throws IOException {
+        enqueue();
+
+        var lastWrite = pending.peekLast();
+        if (lastWrite != null) {
+            await(lastWrite.future());
+            pending.clear();
+            pendingBytes = 0;
+        }
+        pendingEnd = 0;
+
+        var error = this.error;
+        if (error != null) throw error;
+    }
+
+    private void await(Future<?> write) throws IOException {
+        try {
+            write.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing " + file);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to write " + file, e.getCause());
+        }
+    }
+
+    private record PendingWrite(Future<?> future, int size) {
+    }
+}
@@ -23,6 +23,7 @@
 import org.squiddev.cobalt.compiler.LoadState;
 import org.squiddev.cobalt.interrupt.InterruptAction;
 import org.squiddev.cobalt.lib.Bit32Lib;
+import org.squiddev.cobalt.lib.BufferLib;
 import org.squiddev.cobalt.lib.CoreLibraries;
 
 import javax.annotation.Nullable;
@@ -55,7 +56,7 @@ public CobaltLuaMachine(MachineEnvironment environment, InputStream bios) throws
         luaMethods = environment.luaMethods();
 
         // Create an environment to run in
-        var state = this.state = LuaState.builder()
+        var builder = LuaState.builder()
             .interruptHandler(() -> {
                 if (timeout.isHardAborted() || isDisposed) throw new HardAbortError();
                 if (timeout.isSoftAborted() && !thrownSoftAbort) {
@@ -67,16 +68,23 @@ public CobaltLuaMachine(MachineEnvironment environment, InputStream bios) throws
             })
             .errorReporter((e, msg) -> {
                 if (LOG.isErrorEnabled(Logging.VM_ERROR)) {
+                    // Lua errors don't capture a Java stack trace when thrown, so record where they were reported.
+                    if (e instanceof LuaError luaError) luaError.captureStackTrace();
                     LOG.error(Logging.VM_ERROR, "Error occurred in the Lua runtime. Computer will continue to execute:\n{}", msg.get(), e);
                 }
-            })
-            .build();
+            });
+        var coverage = environment.coverage();
+        if (coverage != null) builder.coverage(coverage);
+        var state = this.state = builder.build();
 
         // Set up our global table.
         try {
             var globals = state.globals();
             CoreLibraries.debugGlobals(state);
             Bit32Lib.add(state, globals);
+            BufferLib.add(state, globals);
+            JsonLib.add(state);
+            DfpwmLib.add(state);
             globals.rawset("_HOST", ValueFactory.valueOf(environment.hostString()));
             globals.rawset("_CC_DEFAULT_SETTINGS", ValueFactory.valueOf(CoreConfig.defaultComputerSettings));
 
@@ -144,7 +152,7 @@ public MachineResult handleEvent(@Nullable String eventName, @Nullable Object[]
             return MachineResult.TIMEOUT;
         } catch (LuaError e) {
             close();
-            LOG.warn("Top level coroutine errored: {}", new SanitisedError(e));
+            LOG.warn("Top level coroutine errored: {}", new SanitisedError(e.captureStackTrace()));
             return MachineResult.error(e);
         }
     }
@@ -306,10 +314,16 @@ static Object toObject(LuaValue value, @Nullable IdentityHashMap<LuaValue, Objec
                 }
                 yield table;
             }
+            // Buffers are mutable, so take a copy: the converted value may outlive the function call.
+            case Constants.TUSERDATA -> value instanceof LuaBuffer buffer ? copyBuffer(buffer) : null;
             default -> null;
         };
     }
 
+    static ByteBuffer copyBuffer(LuaBuffer buffer) {
+        return ByteBuffer.allocate(buffer.length()).put(buffer.toBuffer()).flip().asReadOnlyBuffer();
+    }
+
     static Object[] toObjects(Varargs values) {
         var count = values.count();
         var objects = new Object[count];
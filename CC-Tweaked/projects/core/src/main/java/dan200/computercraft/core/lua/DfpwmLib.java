@@ -0,0 +1,156 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.lua;
+
+import org.squiddev.cobalt.*;
+import org.squiddev.cobalt.function.RegisteredFunction;
+
+import static org.squiddev.cobalt.Constants.LOADED;
+import static org.squiddev.cobalt.ValueFactory.valueOf;
+
+/**
+ * A native implementation of the DFPWM encoder and decoder used by {@code cc.audio.dfpwm}, exposed to Lua as the
+ * internal {@code cc.internal.dfpwm} module.
+ * <p>
+ * This behaves identically to the Lua implementation, but encodes or decodes a whole chunk of audio in one call. Like
+ * {@code speaker.playAudio}, amplitude tables are read with raw accesses, and so ignore any metatables.
+ */
+final class DfpwmLib {
+    static final String MODULE_NAME = "cc.internal.dfpwm";
+
+    private static final int PREC = 10;
+
+    /**
+     * The number of bytes to process between checks of the timeout.
+     */
+    private static final int INTERRUPT_INTERVAL = 4096;
+
+    private DfpwmLib() {
+    }
+
+    static void add(LuaState state) throws LuaError {
+        var module = RegisteredFunction.bind(new RegisteredFunction[]{
+            RegisteredFunction.of("make_encoder", DfpwmLib::makeEncoder),
+            RegisteredFunction.of("make_decoder", DfpwmLib::makeDecoder),
+        });
+        state.registry().getSubTable(LOADED).rawset(MODULE_NAME, module);
+    }
+
+    private static LuaValue makeEncoder(LuaState state) {
+        return RegisteredFunction.of("encoder", new Encoder()::encode).create();
+    }
+
+    private static LuaValue makeDecoder(LuaState state) {
+        return RegisteredFunction.of("decoder", new Decoder()::decode).create();
+    }
+
+    private static void checkInterrupt(LuaState state, int position) throws LuaError {
+        if (position % INTERRUPT_INTERVAL == 0 && state.isInterrupted()) state.handleInterruptWithoutYield();
+    }
+
+    /**
+     * The predictor shared by the encoder and decoder, which models the charge of the "capacitor" the signal drives.
+     */
+    private static class Predictor {
+        private int charge;
+        private int strength;
+        private boolean previousBit;
+
+        final int predict(boolean currentBit) {
+            var target = currentBit ? 127 : -128;
+
+            // q' <- q + (s * (t - q) + 128)/256
+            var nextCharge = charge + ((strength * (target - charge) + (1 << (PREC - 1))) >> PREC);
+            if (nextCharge == charge && nextCharge != target) nextCharge += currentBit ? 1 : -1;
+
+            var z = currentBit == previousBit ? (1 << PREC) - 1 : 0;
+
+            var nextStrength = strength;
+            if (strength != z) nextStrength += currentBit == previousBit ? 1 : -1;
+            if (nextStrength < 2 << (PREC - 8)) nextStrength = 2 << (PREC - 8);
+
+            charge = nextCharge;
+            strength = nextStrength;
+            previousBit = currentBit;
+            return nextCharge;
+        }
+    }
+
+    private static final class Encoder extends Predictor {
+        private int previousCharge;
+
+        LuaValue encode(LuaState state, LuaValue arg) throws LuaError {
+            if (!(arg instanceof LuaTable input)) throw ErrorFactory.argError(1, "table expected, got " + arg.typeName());
+
+            var length = input.length();
+            var output = new byte[(length + 7) / 8];
+            for (var i = 0; i < output.length; i++) {
+                checkInterrupt(state, i);
+
+                var thisByte = 0;
+                for (var j = 1; j <= 8; j++) {
+                    var position = i * 8 + j;
+                    var level = getLevel(input, position);
+
+                    var currentBit = level > previousCharge || (level == previousCharge && level == 127);
+                    thisByte = (thisByte >> 1) + (currentBit ? 128 : 0);
+
+                    previousCharge = predict(currentBit);
+                }
+
+                output[i] = (byte) thisByte;
+            }
+
+            return valueOf(output);
+        }
+
+        private static int getLevel(LuaTable input, int position) throws LuaError {
+            var value = input.rawget(position);
+            if (value.isNil()) return 0;
+
+            var level = Math.floor(value.checkDouble());
+            if (level > 127 || level < -128) {
+                throw new LuaError("Amplitude at position " + position + " was " + (long) level + ", but should be between -128 and 127");
+            }
+            return (int) level;
+        }
+    }
+
+    private static final class Decoder extends Predictor {
+        private int lowPassCharge;
+        private int lastCharge;
+        private boolean lastBit;
+
+        LuaValue decode(LuaState state, LuaValue arg) throws LuaError {
+            if (!(arg instanceof LuaString input)) throw ErrorFactory.argError(1, "string expected, got " + arg.typeName());
+
+            var length = input.length();
+            var output = new LuaTable(length * 8, 0);
+            var outputIndex = 0;
+            for (var i = 0; i < length; i++) {
+                checkInterrupt(state, i);
+
+                var inputByte = input.charAt(i);
+                for (var j = 0; j < 8; j++) {
+                    var currentBit = (inputByte & 1) != 0;
+                    var charge = predict(currentBit);
+
+                    var antiJerk = charge;
+                    if (currentBit != lastBit) antiJerk = (charge + lastCharge + 1) >> 1;
+
+                    lastCharge = charge;
+                    lastBit = currentBit;
+
+                    lowPassCharge += ((antiJerk - lowPassCharge) * 140 + 0x80) >> 8;
+                    output.rawset(++outputIndex, valueOf(lowPassCharge));
+
+                    inputByte >>= 1;
+                }
+            }
+
+            return output;
+        }
+    }
+}
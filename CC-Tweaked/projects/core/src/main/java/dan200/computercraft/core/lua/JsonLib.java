@@ -0,0 +1,745 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.lua;
+
+import org.squiddev.cobalt.*;
+import org.squiddev.cobalt.function.RegisteredFunction;
+
+import javax.annotation.Nullable;
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import static org.squiddev.cobalt.Constants.*;
+import static org.squiddev.cobalt.ValueFactory.valueOf;
+import static org.squiddev.cobalt.ValueFactory.varargsOf;
+
+/**
+ * A native implementation of the JSON serialiser and deserialiser used by {@code textutils}, exposed to Lua as the
+ * internal {@code cc.internal.json} module.
+ * <p>
+ * This mirrors the Lua implementation in {@code textutils.lua} (including its error messages), but reads from and
+ * writes to {@link LuaTable}s and {@link LuaString}s directly, rather than building up strings with Lua patterns.
+ * The {@code textutils.empty_json_array} and {@code textutils.json_null} sentinels are passed in by the caller.
+ * <p>
+ * Both functions periodically check whether the computer has been interrupted, so long-running calls still respect
+ * the computer's timeout.
+ */
+final class JsonLib {
+    static final String MODULE_NAME = "cc.internal.json";
+
+    /**
+     * The amount of work (roughly, the number of bytes read or written) between checks of the timeout.
+     */
+    private static final int INTERRUPT_INTERVAL = 4096;
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private JsonLib() {
+    }
+
+    static void add(LuaState state) throws LuaError {
+        var module = RegisteredFunction.bind(new RegisteredFunction[]{
+            RegisteredFunction.ofV("serialise", JsonLib::serialise),
+            RegisteredFunction.ofV("unserialise", JsonLib::unserialise),
+        });
+        state.registry().getSubTable(LOADED).rawset(MODULE_NAME, module);
+    }
+
+    /**
+     * Serialise a value to JSON.
+     * <p>
+     * Arguments are the value, the {@code empty_json_array} and {@code json_null} sentinels, and then the
+     * {@code nbt_style}, {@code unicode_strings} and {@code allow_repetitions} options.
+     *
+     * @param state The current Lua state.
+     * @param args  The arguments to this function.
+     * @return The serialised string, or {@code nil} if this value must be serialised with the Lua implementation
+     * instead (such as when it contains tables with metatables).
+     * @throws LuaError If the value cannot be serialised.
+     */
+    private static Varargs serialise(LuaState state, Varargs args) throws LuaError {
+        var serialiser = new Serialiser(
+            state, args.arg(2), args.arg(3), args.arg(4).toBoolean(), args.arg(5).toBoolean(), args.arg(6).toBoolean()
+        );
+        try {
+            serialiser.write(args.arg(1));
+        } catch (Unsupported e) {
+            return NIL;
+        }
+        return valueOf(serialiser.output, 0, serialiser.length);
+    }
+
+    /**
+     * Deserialise a JSON string.
+     * <p>
+     * Arguments are the string to parse, the {@code empty_json_array} and {@code json_null} sentinels, and then the
+     * {@code nbt_style}, {@code parse_null} and {@code parse_empty_array} options.
+     *
+     * @param state The current Lua state.
+     * @param args  The arguments to this function.
+     * @return The parsed value, or {@code nil} and an error message if the string is not valid JSON.
+     * @throws LuaError If the computer was interrupted while parsing.
+     */
+    private static Varargs unserialise(LuaState state, Varargs args) throws LuaError {
+        var contents = args.arg(1).checkLuaString();
+        var bytes = new byte[contents.length()];
+        contents.copyTo(bytes, 0);
+
+        var parser = new Parser(
+            state, bytes, args.arg(2), args.arg(3), args.arg(4).toBoolean(), args.arg(5).toBoolean(), args.arg(6).toBoolean()
+        );
+        try {
+            return parser.parse();
+        } catch (MalformedJson e) {
+            return varargsOf(NIL, e.message);
+        }
+    }
+
+    private abstract static class Codec {
+        final LuaState state;
+        final LuaValue emptyArray;
+        final LuaValue jsonNull;
+        private int work;
+
+        Codec(LuaState state, LuaValue emptyArray, LuaValue jsonNull) {
+            this.state = state;
+            this.emptyArray = emptyArray;
+            this.jsonNull = jsonNull;
+        }
+
+        /**
+         * Record that some work has been done, checking for interrupts if we've done enough work since the last check.
+         *
+         * @param amount The amount of work done.
+         * @throws LuaError If the computer has timed out.
+         */
+        final void tick(int amount) throws LuaError {
+            work += amount;
+            if (work < INTERRUPT_INTERVAL) return;
+
+            work = 0;
+            if (state.isInterrupted()) state.handleInterruptWithoutYield();
+        }
+    }
+
+    private static final class Serialiser extends Codec {
+        private final boolean nbtStyle;
+        private final boolean unicodeStrings;
+        private final boolean allowRepetitions;
+
+        /**
+         * The tables we are currently serialising ({@code true}) or have already serialised ({@code false}).
+         */
+        private final IdentityHashMap<LuaTable, Boolean> tracking = new IdentityHashMap<>();
+
+        byte[] output = new byte[64];
+        int length;
+
+        Serialiser(LuaState state, LuaValue emptyArray, LuaValue jsonNull, boolean nbtStyle, boolean unicodeStrings, boolean allowRepetitions) {
+            super(state, emptyArray, jsonNull);
+            this.nbtStyle = nbtStyle;
+            this.unicodeStrings = unicodeStrings;
+            this.allowRepetitions = allowRepetitions;
+        }
+
+        void write(LuaValue value) throws LuaError, Unsupported {
+            if (value == emptyArray) {
+                append("[]");
+                return;
+            } else if (value == jsonNull) {
+                append("null");
+                return;
+            }
+
+            tick(1);
+            switch (value.type()) {
+                case TTABLE -> writeTable((LuaTable) value);
+                case TSTRING -> writeString((LuaString) value);
+                case TNUMBER, TBOOLEAN -> {
+                    // tostring would observe __tostring, so let the Lua implementation handle any custom metatables.
+                    if (value.getMetatable(state) != null) throw Unsupported.INSTANCE;
+                    append(OperationHelper.toStringDirect(value));
+                }
+                default -> throw new LuaError("Cannot serialize type " + value.typeName(), 0);
+            }
+        }
+
+        private void writeTable(LuaTable table) throws LuaError, Unsupported {
+            // Metatables may change how the table is iterated or indexed (or compared to our sentinels), so these are
+            // left to the Lua implementation.
+            if (table.getMetatable(state) != null) throw Unsupported.INSTANCE;
+
+            var tracked = tracking.get(table);
+            if (tracked != null) {
+                throw new LuaError(tracked ? "Cannot serialize table with recursive entries" : "Cannot serialize table with repeated entries", 0);
+            }
+            tracking.put(table, true);
+
+            // Find whether we have any string keys, and the largest numeric index. We keep the largest index rather
+            // than the length, so that we don't drop half the array if it contains a nil.
+            var objectSize = 0;
+            var largestIndex = 0.0;
+            for (var k = table.next(NIL).first(); !k.isNil(); k = table.next(k).first()) {
+                tick(1);
+                if (k.type() == TSTRING) {
+                    objectSize++;
+                } else if (k.type() == TNUMBER && k.toDouble() > largestIndex) {
+                    largestIndex = k.toDouble();
+                }
+            }
+
+            if (objectSize > 0) {
+                append((byte) '{');
+                var first = true;
+                for (var entry = table.next(NIL); !entry.first().isNil(); entry = table.next(entry.first())) {
+                    var key = entry.first();
+                    if (key.type() != TSTRING) continue;
+
+                    if (!first) append((byte) ',');
+                    first = false;
+
+                    if (nbtStyle) {
+                        append((LuaString) key);
+                    } else {
+                        writeString((LuaString) key);
+                    }
+                    append((byte) ':');
+                    write(entry.arg(2));
+                }
+                append((byte) '}');
+
+                // The array part is not emitted, but textutils still serialises it, and so may throw errors or mark
+                // tables as seen. Write it, and then discard it again.
+                if (largestIndex >= 1) {
+                    var mark = length;
+                    writeArray(table, largestIndex);
+                    length = mark;
+                }
+            } else if (largestIndex >= 1) {
+                writeArray(table, largestIndex);
+            } else {
+                append("{}");
+            }
+
+            if (allowRepetitions) {
+                tracking.remove(table);
+            } else {
+                tracking.put(table, false);
+            }
+        }
+
+        private void writeArray(LuaTable table, double largestIndex) throws LuaError, Unsupported {
+            append((byte) '[');
+            for (long i = 1; i <= largestIndex; i++) {
+                if (i > 1) append((byte) ',');
+
+                var value = i <= Integer.MAX_VALUE ? table.rawget((int) i) : table.rawget(valueOf((double) i));
+                if (value.isNil()) {
+                    tick(1);
+                    append("null");
+                } else {
+                    write(value);
+                }
+            }
+            append((byte) ']');
+        }
+
+        private void writeString(LuaString string) throws LuaError, Unsupported {
+            var length = string.length();
+            tick(length);
+
+            append((byte) '"');
+            if (unicodeStrings && hasNonAscii(string)) {
+                var i = 0;
+                while (i < length) {
+                    // Decode the next codepoint in the same way as utf8.codes. If the string is not valid UTF-8, then we
+                    // defer to the Lua implementation to throw the appropriate error.
+                    var codepoint = decodeUtf8(string, i);
+                    if (codepoint < 0) throw Unsupported.INSTANCE;
+                    i += codepoint < 0x80 ? 1 : codepoint < 0x800 ? 2 : codepoint < 0x10000 ? 3 : 4;
+
+                    // utf8.codes also rejects codepoints followed by a stray continuation byte.
+                    if (i < length && (string.charAt(i) & 0xC0) == 0x80) throw Unsupported.INSTANCE;
+
+                    writeCodepoint(codepoint);
+                }
+            } else {
+                for (var i = 0; i < length; i++) writeCodepoint(string.charAt(i));
+            }
+            append((byte) '"');
+        }
+
+        private void writeCodepoint(int codepoint) {
+            switch (codepoint) {
+                case '"' -> append("\\\"");
+                case '\\' -> append("\\\\");
+                case '\b' -> append("\\b");
+                case '\f' -> append("\\f");
+                case '\n' -> append("\\n");
+                case '\r' -> append("\\r");
+                case '\t' -> append("\\t");
+                default -> {
+                    if (codepoint > 0xFFFF) {
+                        // Encode the codepoint as a UTF-16 surrogate pair
+                        var offset = codepoint - 0x10000;
+                        appendEscape(0xD800 + (offset >> 10));
+                        appendEscape(0xDC00 + (offset & 0x3FF));
+                    } else if (codepoint < 0x20 || codepoint >= 0x7F) {
+                        appendEscape(codepoint);
+                    } else {
+                        append((byte) codepoint);
+                    }
+                }
+            }
+        }
+
+        private static boolean hasNonAscii(LuaString string) {
+            for (int i = 0, length = string.length(); i < length; i++) {
+                if (string.charAt(i) >= 0x80) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Decode a UTF-8 codepoint, using the same rules as Cobalt's {@code utf8} library.
+         *
+         * @param string The string to decode.
+         * @param index  The index of the codepoint's first byte.
+         * @return The decoded codepoint, or {@code -1} if this is not valid UTF-8.
+         */
+        private static int decodeUtf8(LuaString string, int index) {
+            var first = string.charAt(index);
+            if (first < 0x80) return first;
+
+            var count = 0;
+            var result = 0;
+            var length = string.length();
+            while ((first & 0x40) != 0) {
+                index++;
+                if (index >= length || count >= 3) return -1;
+
+                var next = string.charAt(index);
+                if ((next & 0xC0) != 0x80) return -1;
+
+                count++;
+                result = (result << 6) | (next & 0x3F);
+                first <<= 1;
+            }
+
+            result |= (first & 0x7F) << (count * 5);
+            return result > 0x10FFFF || result <= UTF8_LIMITS[count] ? -1 : result;
+        }
+
+        private static final int[] UTF8_LIMITS = { 0xFF, 0x7F, 0x7FF, 0xFFFF };
+
+        private void appendEscape(int codepoint) {
+            ensure(6);
+            output[length++] = '\\';
+            output[length++] = 'u';
+            output[length++] = HEX[(codepoint >> 12) & 0xF];
+            output[length++] = HEX[(codepoint >> 8) & 0xF];
+            output[length++] = HEX[(codepoint >> 4) & 0xF];
+            output[length++] = HEX[codepoint & 0xF];
+        }
+
+        private void append(byte value) {
+            ensure(1);
+            output[length++] = value;
+        }
+
+        private void append(String value) {
+            ensure(value.length());
+            for (var i = 0; i < value.length(); i++) output[length++] = (byte) value.charAt(i);
+        }
+
+        private void append(LuaString value) {
+            ensure(value.length());
+            length = value.copyTo(output, length);
+        }
+
+        private void ensure(int space) {
+            if (length + space <= output.length) return;
+
+            var newOutput = new byte[Math.max(length + space, output.length * 2)];
+            System.arraycopy(output, 0, newOutput, 0, length);
+            output = newOutput;
+        }
+    }
+
+    private static final class Parser extends Codec {
+        private static final int END = -1;
+
+        private final byte[] input;
+        private final boolean nbtStyle;
+        private final boolean parseNull;
+        private final boolean parseEmptyArray;
+
+        private int pos;
+
+        Parser(LuaState state, byte[] input, LuaValue emptyArray, LuaValue jsonNull, boolean nbtStyle, boolean parseNull, boolean parseEmptyArray) {
+            super(state, emptyArray, jsonNull);
+            this.input = input;
+            this.nbtStyle = nbtStyle;
+            this.parseNull = parseNull;
+            this.parseEmptyArray = parseEmptyArray;
+        }
+
+        LuaValue parse() throws LuaError, MalformedJson {
+            pos = skip(0);
+            var value = parseValue();
+
+            pos = skip(pos);
+            if (pos < input.length) throw error(pos, "Unexpected trailing character ", pos, pos + 1, ".");
+            return value;
+        }
+
+        /**
+         * Parse a value. Rather than recursing into objects and arrays (and so overflowing the stack on deeply nested
+         * input), we keep track of the containers we are currently inside.
+         *
+         * @return The parsed value.
+         * @throws LuaError     If the computer was interrupted.
+         * @throws MalformedJson If the input is not valid JSON.
+         */
+        private LuaValue parseValue() throws LuaError, MalformedJson {
+            var stack = new ArrayList<Container>();
+
+            while (true) {
+                tick(1);
+
+                LuaValue value;
+                var c = peek(pos);
+                switch (c) {
+                    case '"' -> value = parseString(pos + 1, '"');
+                    case '\'' -> {
+                        if (!nbtStyle) throw error(pos, "Unexpected character ", pos, pos + 1, ".");
+                        value = parseString(pos + 1, '\'');
+                    }
+                    case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> value = parseNumber();
+                    case 't' -> value = parseLiteral("true", TRUE);
+                    case 'f' -> value = parseLiteral("false", FALSE);
+                    case 'n' -> value = parseLiteral("null", parseNull ? jsonNull : NIL);
+                    case '{' -> {
+                        pos = skip(pos + 1);
+                        c = peek(pos);
+                        if (c == END) throw error(pos, "Unexpected end of input, expected '}'.");
+                        if (c == '}') {
+                            pos++;
+                            value = new LuaTable();
+                        } else {
+                            var container = new Container(new LuaTable(), true);
+                            container.key = parseKey();
+                            stack.add(container);
+                            continue;
+                        }
+                    }
+                    case '[' -> {
+                        pos = skip(pos + 1);
+                        c = peek(pos);
+                        if (nbtStyle && (c == 'I' || c == 'L' || c == 'B') && peek(pos + 1) == ';') {
+                            pos = skip(pos + 2);
+                            c = peek(pos);
+                        }
+
+                        if (c == END) throw expected(pos, "']'");
+                        if (c == ']') {
+                            pos++;
+                            value = parseEmptyArray ? emptyArray : new LuaTable();
+                        } else {
+                            stack.add(new Container(new LuaTable(), false));
+                            continue;
+                        }
+                    }
+                    case END -> throw error(pos, "Unexpected end of input.");
+                    default -> throw error(pos, "Unexpected character ", pos, pos + 1, ".");
+                }
+
+                // Add this value to its parent container, and then consume the next delimiter. If this closes the
+                // container, then add the container to its parent in turn.
+                while (true) {
+                    if (stack.isEmpty()) return value;
+
+                    var container = stack.get(stack.size() - 1);
+                    if (container.object) {
+                        container.table.rawset(container.key, value);
+                    } else {
+                        container.table.rawset(container.index++, value);
+                    }
+
+                    pos = skip(pos);
+                    c = peek(pos);
+                    if (c == (container.object ? '}' : ']')) {
+                        pos++;
+                        stack.remove(stack.size() - 1);
+                        value = container.table;
+                    } else if (c == ',') {
+                        pos = skip(pos + 1);
+                        if (container.object) container.key = parseKey();
+                        break;
+                    } else {
+                        throw expected(pos, container.object ? "',' or '}'" : "',' or ']'");
+                    }
+                }
+            }
+        }
+
+        /**
+         * Parse an object key and the following {@code :}.
+         *
+         * @return The parsed key.
+         * @throws MalformedJson If the input is not valid JSON.
+         */
+        private LuaString parseKey() throws LuaError, MalformedJson {
+            var c = peek(pos);
+            LuaString key;
+            if (c == '"') {
+                key = parseString(pos + 1, '"');
+            } else if (nbtStyle && isAlpha(c)) {
+                var start = pos;
+                do pos++; while (isAlpha(peek(pos)) || isDigit(peek(pos)) || peek(pos) == '_');
+                key = valueOf(input, start, pos - start);
+            } else {
+                throw expected(pos, "object key");
+            }
+
+            pos = skip(pos);
+            if (peek(pos) != ':') throw expected(pos, "':'");
+            pos = skip(pos + 1);
+            return key;
+        }
+
+        private LuaValue parseLiteral(String literal, LuaValue value) throws MalformedJson {
+            var length = literal.length();
+            for (var i = 1; i < length; i++) {
+                if (peek(pos + i) != literal.charAt(i)) throw error(pos, "Unexpected character ", pos, pos + 1, ".");
+            }
+
+            pos += length;
+            return value;
+        }
+
+        private LuaValue parseNumber() throws MalformedJson {
+            // Match the same characters as the Lua pattern "^-?%d+%.?%d*[eE]?[+-]?%d*", and then let Lua's number
+            // parser decide if it is valid.
+            var start = pos;
+            var end = start;
+            if (peek(end) == '-') end++;
+            var digitsStart = end;
+            while (isDigit(peek(end))) end++;
+            // textutils quotes the (missing) match with %q, and so includes "nil" in the message.
+            if (end == digitsStart) throw error(start, "Malformed number nil.");
+
+            if (peek(end) == '.') end++;
+            while (isDigit(peek(end))) end++;
+            if (peek(end) == 'e' || peek(end) == 'E') end++;
+            if (peek(end) == '+' || peek(end) == '-') end++;
+            while (isDigit(peek(end))) end++;
+
+            var value = valueOf(input, start, end - start).toNumber();
+            if (value.isNil()) throw error(start, "Malformed number ", start, end, ".");
+
+            pos = end;
+            if (nbtStyle) {
+                switch (peek(pos)) {
+                    case 'b', 'B', 's', 'S', 'l', 'L', 'f', 'F', 'd', 'D' -> pos++;
+                    default -> {
+                    }
+                }
+            }
+
+            return value;
+        }
+
+        /**
+         * Parse a string, leaving {@link #pos} after the closing quote.
+         *
+         * @param start     The position after the opening quote.
+         * @param terminate The character which terminates this string.
+         * @return The parsed string.
+         * @throws MalformedJson If the string is malformed.
+         */
+        private LuaString parseString(int start, char terminate) throws LuaError, MalformedJson {
+            // Find the end of the string. If it contains no escapes, we can just copy it directly.
+            var end = start;
+            while (true) {
+                var c = peek(end);
+                if (c == terminate || c == '\\' || c < ' ') break;
+                end++;
+            }
+
+            tick(end - start);
+            if (peek(end) == terminate) {
+                pos = end + 1;
+                return valueOf(input, start, end - start);
+            }
+
+            var buffer = new Buffer(end - start + 16);
+            buffer.append(input, start, end - start);
+            var position = end;
+            while (true) {
+                var c = peek(position);
+                if (c == END) throw error(position, "Unexpected end of input, expected '\"'.");
+                if (c == terminate) break;
+
+                if (c == '\\') {
+                    c = peek(position + 1);
+                    if (c == END) throw error(position, "Unexpected end of input, expected escape sequence.");
+
+                    switch (c) {
+                        case 'b' -> buffer.append((byte) '\b');
+                        case 'f' -> buffer.append((byte) '\f');
+                        case 'n' -> buffer.append((byte) '\n');
+                        case 'r' -> buffer.append((byte) '\r');
+                        case 't' -> buffer.append((byte) '\t');
+                        case '"', '/', '\\' -> buffer.append((byte) c);
+                        case 'u' -> {
+                            var codepoint = 0;
+                            for (var i = 0; i < 4; i++) {
+                                var digit = Character.digit(peek(position + 2 + i), 16);
+                                if (digit < 0) {
+                                    throw error(position, "Malformed unicode escape ", position + 2, Math.min(position + 6, input.length), ".");
+                                }
+                                codepoint = codepoint << 4 | digit;
+                            }
+
+                            appendUtf8(buffer, codepoint);
+                            position += 4;
+                        }
+                        default -> throw error(position + 1, "Unknown escape character ", position + 1, position + 2, ".");
+                    }
+                    position += 2;
+                } else if (c >= ' ') {
+                    buffer.append((byte) c);
+                    position++;
+                } else {
+                    throw error(position + 1, "Unescaped whitespace ", position, position + 1, ".");
+                }
+            }
+
+            tick(position - end);
+            pos = position + 1;
+            return buffer.toLuaString();
+        }
+
+        private static void appendUtf8(Buffer buffer, int codepoint) {
+            if (codepoint < 0x80) {
+                buffer.append((byte) codepoint);
+            } else if (codepoint < 0x800) {
+                buffer.append((byte) (0xC0 | (codepoint >> 6)));
+                buffer.append((byte) (0x80 | (codepoint & 0x3F)));
+            } else {
+                buffer.append((byte) (0xE0 | (codepoint >> 12)));
+                buffer.append((byte) (0x80 | ((codepoint >> 6) & 0x3F)));
+                buffer.append((byte) (0x80 | (codepoint & 0x3F)));
+            }
+        }
+
+        private int skip(int position) {
+            while (position < input.length) {
+                var c = input[position];
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') break;
+                position++;
+            }
+            return position;
+        }
+
+        private int peek(int position) {
+            return position < input.length ? input[position] & 0xFF : END;
+        }
+
+        private static boolean isAlpha(int c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+
+        private static boolean isDigit(int c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private MalformedJson expected(int position, String expected) {
+            return peek(position) == END
+                ? error(position, "Unexpected end of input, expected " + expected + ".")
+                : error(position, "Unexpected ", position, position + 1, ", expected " + expected + ".");
+        }
+
+        private MalformedJson error(int position, String message) {
+            return error(position, message, 0, 0, null);
+        }
+
+        /**
+         * Create an error at the given position, optionally including a quoted section of the input.
+         *
+         * @param position   The (zero-indexed) position of the error.
+         * @param prefix     The message before the quoted section.
+         * @param quoteStart The start of the quoted section.
+         * @param quoteEnd   The end of the quoted section.
+         * @param suffix     The message after the quoted section, or {@code null} if no section should be quoted.
+         * @return The error to throw.
+         */
+        private MalformedJson error(int position, String prefix, int quoteStart, int quoteEnd, @Nullable String suffix) {
+            var buffer = new Buffer();
+            buffer.append("Malformed JSON at position ").append(Integer.toString(position + 1)).append(": ").append(prefix);
+            if (suffix != null) {
+                // Quote the input in the same way as string.format's %q.
+                buffer.append((byte) '"');
+                for (var i = quoteStart; i < quoteEnd; i++) {
+                    var c = input[i];
+                    switch (c) {
+                        case '"', '\\', '\n' -> buffer.append((byte) '\\').append(c);
+                        case '\r' -> buffer.append("\\r");
+                        case '\0' -> buffer.append("\\000");
+                        default -> buffer.append(c);
+                    }
+                }
+                buffer.append((byte) '"').append(suffix);
+            }
+
+            return new MalformedJson(buffer.toLuaString());
+        }
+    }
+
+    private static final class Container {
+        final LuaTable table;
+        final boolean object;
+        LuaString key = EMPTYSTRING;
+        int index = 1;
+
+        Container(LuaTable table, boolean object) {
+            this.table = table;
+            this.object = object;
+        }
+    }
+
+    /**
+     * Thrown when the input is not valid JSON.
+     */
+    private static final class MalformedJson extends Exception {
+        @Serial
+        private static final long serialVersionUID = -4358306577474384185L;
+
+        final LuaString message;
+
+        MalformedJson(LuaString message) {
+            super(null, null, false, false);
+            this.message = message;
+        }
+    }
+
+    /**
+     * Thrown when a value cannot be serialised by the native implementation, and so should be serialised by the Lua
+     * implementation instead.
+     */
+    private static final class Unsupported extends Exception {
+        @Serial
+        private static final long serialVersionUID = 2730563585436431734L;
+
+        static final Unsupported INSTANCE = new Unsupported();
+
+        private Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+}
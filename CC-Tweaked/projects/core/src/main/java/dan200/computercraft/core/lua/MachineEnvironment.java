@@ -11,6 +11,9 @@
 import dan200.computercraft.core.methods.LuaMethod;
 import dan200.computercraft.core.methods.MethodSupplier;
 import dan200.computercraft.core.metrics.MetricsObserver;
+import org.squiddev.cobalt.debug.Coverage;
+
+import javax.annotation.Nullable;
 
 /**
  * Arguments used to construct a {@link ILuaMachine}.
@@ -22,6 +25,7 @@
  *                   (following the same rules as any other value), and then set to all names in {@link ILuaAPI#getNames()}.
  * @param luaMethods A {@link MethodSupplier} to find methods on returned values.
  * @param hostString A {@linkplain GlobalEnvironment#getHostString() host string} to identify the current environment.
+ * @param coverage   The recorder to record line and branch coverage to, or {@code null} to disable coverage.
  * @see ILuaMachine.Factory
  */
 public record MachineEnvironment(
@@ -30,6 +34,7 @@ public record MachineEnvironment(
     TimeoutState timeout,
     Iterable<ILuaAPI> apis,
     MethodSupplier<LuaMethod> luaMethods,
-    String hostString
+    String hostString,
+    @Nullable Coverage coverage
 ) {
 }
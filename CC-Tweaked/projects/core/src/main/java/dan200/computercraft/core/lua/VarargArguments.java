@@ -13,6 +13,7 @@
 
 import javax.annotation.Nullable;
 import java.nio.ByteBuffer;
+import java.util.Objects;
 import java.util.Optional;
 
 import static org.squiddev.cobalt.Constants.NAME;
@@ -101,7 +102,9 @@ public Object get(int index) {
         // tables should have been converted already.
         assert !isClosed() || !(arg instanceof LuaTable) : "Converting a LuaTable after arguments were closed.";
 
-        var converted = CobaltLuaMachine.toObject(arg, null);
+        // Buffers are passed as a view rather than copied, so they can be read from or written to directly. This is
+        // only safe while the arguments are still in scope: escapes() replaces the view with a copy.
+        var converted = arg instanceof LuaBuffer buffer ? buffer.toBuffer() : CobaltLuaMachine.toObject(arg, null);
         cache.set(index, converted);
         return converted;
     }
@@ -117,6 +120,7 @@ public String getStringCoerced(int index) {
     public ByteBuffer getBytesCoerced(int index) {
         checkAccessible();
         var arg = varargs.arg(index + 1);
+        if (arg instanceof LuaBuffer buffer) return copyBuffer(index, buffer);
         return arg instanceof LuaString s ? s.toBuffer() : LuaValues.encode(arg.toString());
     }
 
@@ -159,10 +163,63 @@ public long getLong(int index) throws LuaException {
         return value instanceof LuaInteger ? value.toInteger() : (long) LuaValues.checkFinite(index, value.toDouble());
     }
 
+    @Override
+    public boolean getBoolean(int index) throws LuaException {
+        checkAccessible();
+        var value = varargs.arg(index + 1);
+        if (!(value instanceof LuaBoolean)) throw LuaValues.badArgumentOf(this, index, "boolean");
+        return value.toBoolean();
+    }
+
+    @Override
+    public String getString(int index) throws LuaException {
+        checkAccessible();
+        var value = varargs.arg(index + 1);
+        if (!(value instanceof LuaString str)) throw LuaValues.badArgumentOf(this, index, "string");
+        return str.toString();
+    }
+
+    @Override
+    public Optional<Double> optDouble(int index) throws LuaException {
+        checkAccessible();
+        var value = varargs.arg(index + 1);
+        if (value.isNil()) return Optional.empty();
+        if (!(value instanceof LuaNumber)) throw LuaValues.badArgumentOf(this, index, "number");
+        return Optional.of(value.toDouble());
+    }
+
+    @Override
+    public Optional<Long> optLong(int index) throws LuaException {
+        checkAccessible();
+        var value = varargs.arg(index + 1);
+        if (value.isNil()) return Optional.empty();
+        if (!(value instanceof LuaNumber)) throw LuaValues.badArgumentOf(this, index, "number");
+        return Optional.of(value instanceof LuaInteger ? value.toInteger() : (long) LuaValues.checkFinite(index, value.toDouble()));
+    }
+
+    @Override
+    public Optional<Boolean> optBoolean(int index) throws LuaException {
+        checkAccessible();
+        var value = varargs.arg(index + 1);
+        if (value.isNil()) return Optional.empty();
+        if (!(value instanceof LuaBoolean)) throw LuaValues.badArgumentOf(this, index, "boolean");
+        return Optional.of(value.toBoolean());
+    }
+
+    @Override
+    public Optional<String> optString(int index) throws LuaException {
+        checkAccessible();
+        var value = varargs.arg(index + 1);
+        if (value.isNil()) return Optional.empty();
+        if (!(value instanceof LuaString str)) throw LuaValues.badArgumentOf(this, index, "string");
+        return Optional.of(str.toString());
+    }
+
     @Override
     public ByteBuffer getBytes(int index) throws LuaException {
         checkAccessible();
         var value = varargs.arg(index + 1);
+        if (value instanceof LuaBuffer buffer) return copyBuffer(index, buffer);
         if (!(value instanceof LuaString str)) throw LuaValues.badArgument(index, "string", value.typeName());
         return str.toBuffer();
     }
@@ -172,6 +229,7 @@ public Optional<ByteBuffer> optBytes(int index) throws LuaException {
         checkAccessible();
         var value = varargs.arg(index + 1);
         if (value.isNil()) return Optional.empty();
+        if (value instanceof LuaBuffer buffer) return Optional.of(copyBuffer(index, buffer));
         if (!(value instanceof LuaString str)) throw LuaValues.badArgument(index, "string", value.typeName());
         return Optional.of(str.toBuffer());
     }
@@ -206,8 +264,8 @@ public IArguments escapes() {
         for (int i = 0, count = varargs.count(); i < count; i++) {
             var arg = varargs.arg(i + 1);
 
-            // Convert tables.
-            if (arg instanceof LuaTable) {
+            // Convert tables, and copy buffers.
+            if (arg instanceof LuaTable || arg instanceof LuaBuffer) {
                 if (cache == null) cache = new ArraySlice<>(new Object[count], 0);
                 cache.set(i, CobaltLuaMachine.toObject(arg, null));
             }
@@ -230,6 +288,11 @@ void close() {
         closed = true;
     }
 
+    private ByteBuffer copyBuffer(int index, LuaBuffer buffer) {
+        // Once escaped, use the copy taken by escapes(), as the buffer may have been changed since.
+        return escapes ? ((ByteBuffer) Objects.requireNonNull(get(index))).duplicate() : CobaltLuaMachine.copyBuffer(buffer);
+    }
+
     private static @Nullable String getCustomType(LuaValue arg) {
         if (!(arg instanceof LuaTable) && !(arg instanceof LuaUserdata)) return null;
 
@@ -28,6 +28,9 @@ private Metrics() {
 
     public static final Metric.Counter TURTLE_OPS = new Metric.Counter("turtle_ops");
 
+    public static final Metric.Counter INVENTORY_CACHE_HITS = new Metric.Counter("inventory_cache_hits");
+    public static final Metric.Counter INVENTORY_CACHE_MISSES = new Metric.Counter("inventory_cache_misses");
+
     /**
      * Ensures metrics are registered.
      */
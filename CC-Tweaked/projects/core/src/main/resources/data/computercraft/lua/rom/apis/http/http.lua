@@ -39,6 +39,7 @@ local function check_request_options(options, body)
     check_key(options, "headers", "table", true)
     check_key(options, "method", "string", true)
     check_key(options, "redirect", "boolean", true)
+    check_key(options, "stream", "boolean", true)
     check_key(options, "timeout", "number", true)
 
     if options.method and not methods[options.method] then
@@ -174,7 +175,7 @@ should be opened in binary mode.
 @tparam[2] {
   url = string, body? = string, headers? = { [string] = string },
   binary? = boolean, method? = string, redirect? = boolean,
-  timeout? = number,
+  stream? = boolean, timeout? = number,
 } request Options for the request.
 
 This table form is an expanded version of the previous syntax. All arguments
@@ -186,6 +187,10 @@ from above are passed in as fields instead (for instance,
  - `method`: Which HTTP method to use, for instance `"PATCH"` or `"DELETE"`.
  - `redirect`: Whether to follow HTTP redirects. Defaults to true.
  - `timeout`: The connection timeout, in seconds.
+ - `stream`: Whether to stream the response body. When true, [`http_success`]
+   is fired as soon as the response headers are received, and the body is read
+   from the [response][`http.StreamedResponse`] as it is downloaded. Defaults
+   to false.
 
 @see http.get  For a synchronous way to make GET requests.
 @see http.post For a synchronous way to make POST requests.
@@ -268,6 +268,64 @@ function call(name, method, ...)
     return nil
 end
 
+--[[- Call several peripheral methods at once, waiting for them all to finish.
+
+Methods which must run on the main thread (such as most [inventory][`inventory`]
+methods) normally take at least one game tick each. This function instead runs
+as many calls as possible each tick, which makes scanning large storage systems
+much faster.
+
+Methods which do not need the main thread are run straight away, so may run
+before methods earlier in the list which do.
+
+@tparam { table... } calls A list of calls to make. Each
+call is a table containing the name of the peripheral, the name of the method,
+and then any arguments.
+@treturn { table... } The result of each call. This is a table containing
+`true` followed by the method's return values if the call succeeded, or `false`
+and an error message if it failed.
+@since 1.114.3
+@usage Get the details of every item in a chest.
+
+    local chest = "left"
+    local calls = {}
+    for slot in pairs(peripheral.call(chest, "list")) do
+      calls[#calls + 1] = { chest, "getItemDetail", slot }
+    end
+
+    for i, result in ipairs(peripheral.batch(calls)) do
+      if result[1] then print(calls[i][3], result[2].displayName) end
+    end
+]]
+function batch(calls)
+    expect(1, calls, "table")
+
+    -- Calls to remote peripherals are made through the modem they're attached to.
+    local native_calls = {}
+    for i = 1, #calls do
+        local call = calls[i]
+        if type(call) ~= "table" then
+            error(("bad argument #1 (call #%d is a %s, not a table)"):format(i, type(call)), 2)
+        end
+
+        local name = call[1]
+        if type(name) == "string" and not native.isPresent(name) then
+            for n = 1, #sides do
+                local side = sides[n]
+                if native.hasType(side, "peripheral_hub") and native.call(side, "isPresentRemote", name) then
+                    local n_args = call.n or #call
+                    call = table.pack(side, "callRemote", name, table.unpack(call, 2, n_args))
+                    break
+                end
+            end
+        end
+
+        native_calls[i] = call
+    end
+
+    return native.batch(native_calls)
+end
+
 --- Get a table containing all functions available on a peripheral. These can
 -- then be called instead of using [`peripheral.call`] every time.
 --
@@ -15,6 +15,14 @@ local expect = require("cc.expect")
 local expect, field = expect.expect, expect.field
 local wrap = require("cc.strings").wrap
 
+-- A native implementation of the JSON functions. This is not available on all platforms, in which case we fall back to
+-- the Lua implementations below.
+local native_json
+do
+    local ok, json = pcall(require, "cc.internal.json")
+    if ok then native_json = json end
+end
+
 --- Slowly writes string text at current cursor position,
 -- character-by-character.
 --
@@ -766,6 +774,15 @@ do
             options = {}
         end
 
+        if native_json then
+            local res, err = native_json.unserialise(
+                s, empty_json_array, json_null,
+                options.nbt_style, options.parse_null, options.parse_empty_array ~= false
+            )
+            if err then return nil, err end
+            return res
+        end
+
         local ok, res, pos = pcall(decode_impl, s, skip(s, 1), options)
         if not ok then
             if type(res) == "table" and getmetatable(res) == mt then
@@ -927,6 +944,15 @@ function serializeJSON(t, options)
         options = {}
     end
 
+    if native_json then
+        -- The native implementation returns nil for values it cannot handle (such as tables with metatables).
+        local result = native_json.serialise(
+            t, empty_json_array, json_null,
+            options.nbt_style, options.unicode_strings, options.allow_repetitions
+        )
+        if result then return result end
+    end
+
     local tTracking = {}
     return serializeJSONImpl(t, tTracking, options)
 end
@@ -63,6 +63,14 @@ local expect = require "cc.expect".expect
 
 local char, byte, floor, band, rshift = string.char, string.byte, math.floor, bit32.band, bit32.arshift
 
+-- A native implementation of the encoder and decoder. This is not available on all platforms, in which case we fall
+-- back to the Lua implementations below.
+local native_dfpwm
+do
+    local ok, native = pcall(require, "cc.internal.dfpwm")
+    if ok then native_dfpwm = native end
+end
+
 local PREC = 10
 local PREC_POW = 2 ^ PREC
 local PREC_POW_HALF = 2 ^ (PREC - 1)
@@ -102,6 +110,8 @@ returns the encoded DFPWM data.
 @see encode A helper function for encoding an entire file of audio at once.
 ]]
 local function make_encoder()
+    if native_dfpwm then return native_dfpwm.make_encoder() end
+
     local predictor = make_predictor()
     local previous_charge = 0
 
@@ -160,6 +170,8 @@ end
 ```
 ]]
 local function make_decoder()
+    if native_dfpwm then return native_dfpwm.make_decoder() end
+
     local predictor = make_predictor()
     local low_pass_charge = 0
     local previous_charge, previous_bit = 0, false
@@ -0,0 +1,50 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.api.lua;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectArgumentsTest {
+    @Test
+    public void testGetBytesFromString() throws LuaException {
+        var args = new ObjectArguments("abc");
+        assertEquals(bytes("abc"), args.getBytes(0));
+        assertEquals(Optional.of(bytes("abc")), args.optBytes(0));
+        assertEquals(Optional.empty(), args.optBytes(1));
+    }
+
+    @Test
+    public void testGetBytesFromBuffer() throws LuaException {
+        var buffer = bytes("abc");
+        var args = new ObjectArguments(buffer);
+
+        var copy = args.getBytes(0);
+        assertEquals(bytes("abc"), copy);
+        assertTrue(copy.isReadOnly());
+        assertEquals(Optional.of(bytes("abc")), args.optBytes(0));
+        assertEquals(bytes("abc"), args.getBytesCoerced(0));
+
+        // The result is a copy, so changes to the original are not visible.
+        buffer.put(0, (byte) 'z');
+        assertEquals(bytes("abc"), copy);
+    }
+
+    @Test
+    public void testGetBytesFromOther() {
+        var args = new ObjectArguments(1);
+        assertThrows(LuaException.class, () -> args.getBytes(0));
+        assertThrows(LuaException.class, () -> args.optBytes(0));
+    }
+
+    private static ByteBuffer bytes(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
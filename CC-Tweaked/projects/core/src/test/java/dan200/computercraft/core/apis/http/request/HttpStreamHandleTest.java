@@ -0,0 +1,119 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.apis.http.request;
+
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.api.lua.MethodResult;
+import dan200.computercraft.test.core.apis.BasicApiEnvironment;
+import dan200.computercraft.test.core.computer.BasicEnvironment;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static dan200.computercraft.core.apis.http.request.HttpStreamHandle.HIGH_WATER_MARK;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpStreamHandleTest {
+    private static final int CHUNK = 16 * 1024;
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+    private int events;
+    private final HttpStreamHandle handle = new HttpStreamHandle(new BasicApiEnvironment(new BasicEnvironment()) {
+        @Override
+        public void queueEvent(String event, @Nullable Object... args) {
+            assertEquals(HttpStreamHandle.STREAM_EVENT, event);
+            events++;
+        }
+    }, "http://example.com", () -> {
+    }, channel, false);
+
+    @Test
+    public void testLongLineStopsReading() throws LuaException {
+        var result = handle.readLine(Optional.empty());
+        assertNotNull(result.getCallback(), "Waits for a line");
+        assertTrue(isAutoRead());
+
+        for (var i = 0; i < HIGH_WATER_MARK / CHUNK - 1; i++) handle.offer(chunk('a'));
+        assertTrue(isAutoRead(), "Reads until the buffer is full");
+
+        handle.offer(chunk('a'));
+        assertFalse(isAutoRead(), "Stops reading once the buffer is full");
+        assertEquals(1, events);
+
+        // Resuming returns the partial line, and so frees up the buffer.
+        result = resume(result);
+        assertNull(result.getCallback());
+        assertArrayEquals(bytes('a', HIGH_WATER_MARK), (byte[]) result.getResult()[0]);
+        assertTrue(isAutoRead());
+
+        // The remainder of the line is returned by the next call.
+        handle.offer("bc\nd".getBytes(StandardCharsets.US_ASCII));
+        assertArrayEquals("bc".getBytes(StandardCharsets.US_ASCII), (byte[]) handle.readLine(Optional.empty()).getResult()[0]);
+    }
+
+    @Test
+    public void testFullBufferReturnsPartialLine() throws LuaException {
+        for (var i = 0; i < HIGH_WATER_MARK / CHUNK + 1; i++) handle.offer(chunk('a'));
+        assertFalse(isAutoRead());
+
+        var result = handle.readLine(Optional.empty());
+        assertNull(result.getCallback(), "Does not wait when the buffer is full");
+        assertEquals(HIGH_WATER_MARK + CHUNK, ((byte[]) result.getResult()[0]).length);
+        assertTrue(isAutoRead());
+    }
+
+    @Test
+    public void testReadResumesAtLowWaterMark() throws LuaException {
+        for (var i = 0; i < HIGH_WATER_MARK / CHUNK; i++) handle.offer(chunk('a'));
+        assertFalse(isAutoRead());
+
+        // Reading a little does not resume reading from the network.
+        assertEquals(CHUNK, ((byte[]) handle.read(Optional.of(CHUNK)).getResult()[0]).length);
+        assertFalse(isAutoRead());
+
+        handle.read(Optional.of(CHUNK * 2));
+        assertTrue(isAutoRead());
+    }
+
+    @Test
+    public void testReadAllKeepsReading() throws LuaException {
+        var result = handle.readAll();
+        assertNotNull(result.getCallback());
+
+        for (var i = 0; i < HIGH_WATER_MARK / CHUNK + 2; i++) {
+            handle.offer(chunk('a'));
+            assertTrue(isAutoRead(), "readAll needs the whole body, so does not stop reading");
+
+            result = resume(result);
+            assertNotNull(result.getCallback());
+        }
+
+        handle.finish();
+        result = resume(result);
+        assertEquals(HIGH_WATER_MARK + CHUNK * 2, ((byte[]) result.getResult()[0]).length);
+    }
+
+    private boolean isAutoRead() {
+        return channel.config().isAutoRead();
+    }
+
+    private static MethodResult resume(MethodResult result) throws LuaException {
+        return result.getCallback().resume(new Object[]{ HttpStreamHandle.STREAM_EVENT, "http://example.com" });
+    }
+
+    private static byte[] chunk(char contents) {
+        return bytes(contents, CHUNK);
+    }
+
+    private static byte[] bytes(char contents, int length) {
+        var bytes = new byte[length];
+        Arrays.fill(bytes, (byte) contents);
+        return bytes;
+    }
+}
@@ -6,17 +6,20 @@
 
 import com.google.common.io.CharStreams;
 import dan200.computercraft.api.lua.ILuaAPI;
+import dan200.computercraft.api.lua.LuaException;
 import dan200.computercraft.api.lua.LuaFunction;
+import dan200.computercraft.api.peripheral.IPeripheral;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import javax.annotation.Nullable;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
 
 import static java.time.Duration.ofSeconds;
-import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class ComputerTest {
     @Test
@@ -53,6 +56,95 @@ public final Object[] getObjects() {
             """, i -> i.addApi(new CustomApi()), 50);
     }
 
+    @Test
+    public void testEventQueueOverflow() {
+        ComputerBootstrap.run("""
+            for i = 1, 300 do os.queueEvent("test", i) end
+            for i = 1, 256 do
+              local _, x = os.pullEvent("test")
+              assert(x == i, ("Expected event %d, got %d"):format(i, x))
+            end
+
+            os.queueEvent("done")
+            assert(os.pullEvent() == "done", "Expected excess events to be dropped")
+            """, 50);
+    }
+
+    @Test
+    public void testPeripheralBatch() {
+        class CounterPeripheral implements IPeripheral {
+            private int count;
+            private @Nullable Thread addThread;
+            private @Nullable Thread peekThread;
+
+            @Override
+            public String getType() {
+                return "counter";
+            }
+
+            @Override
+            public boolean equals(@Nullable IPeripheral other) {
+                return this == other;
+            }
+
+            @LuaFunction(mainThread = true)
+            public final int add(int amount) throws LuaException {
+                addThread = Thread.currentThread();
+                if (amount < 0) throw new LuaException("Cannot add a negative amount");
+                return count += amount;
+            }
+
+            @LuaFunction
+            public final int peek() {
+                peekThread = Thread.currentThread();
+                return count;
+            }
+        }
+
+        var counter = new CounterPeripheral();
+        ComputerBootstrap.run("""
+            -- Run a batch, counting how many times it waits for the main thread.
+            local function batch(calls)
+              local co = coroutine.create(peripheral.batch)
+              local waits, result = 0, table.pack(coroutine.resume(co, calls))
+              while coroutine.status(co) ~= "dead" do
+                waits = waits + 1
+                result = table.pack(coroutine.resume(co, os.pullEventRaw(result[2])))
+              end
+              assertion.assert(result[1], result[2])
+              return result[2], waits
+            end
+
+            local calls = {}
+            for i = 1, 100 do calls[i] = { "top", "add", 1 } end
+            calls[101] = { "top", "add", -1 }
+            calls[102] = { "left", "add", 1 }
+            calls[103] = { "top", "peek" }
+
+            local results, waits = batch(calls)
+            assertion.assert(waits == 1, ("Expected to wait once, waited %d times"):format(waits))
+
+            assertion.assert(#results == 103)
+            for i = 1, 100 do
+              assertion.assert(results[i][1] == true and results[i][2] == i, ("Unexpected result for call %d"):format(i))
+            end
+            assertion.assert(results[101][1] == false and results[101][2] == "Cannot add a negative amount")
+            assertion.assert(results[102][1] == false and results[102][2] == "No peripheral attached")
+            -- Methods which do not need the main thread run before those which do.
+            assertion.assert(results[103][1] == true and results[103][2] == 0)
+
+            -- Batches which do not need the main thread do not wait at all.
+            local results, waits = batch({ { "top", "peek" } })
+            assertion.assert(waits == 0, ("Expected not to wait, waited %d times"):format(waits))
+            assertion.assert(results[1][1] == true and results[1][2] == 100)
+            """, computer -> computer.getEnvironment().setPeripheral(ComputerSide.TOP, counter), 50);
+
+        // Main-thread tasks are run by ComputerBootstrap on this thread, and everything else on the computer thread.
+        assertEquals(Thread.currentThread(), counter.addThread);
+        assertNotNull(counter.peekThread);
+        assertNotEquals(Thread.currentThread(), counter.peekThread);
+    }
+
     public static void main(String[] args) throws Exception {
         var stream = ComputerTest.class.getClassLoader().getResourceAsStream("benchmark.lua");
         try (var reader = new InputStreamReader(Objects.requireNonNull(stream), StandardCharsets.UTF_8)) {
@@ -0,0 +1,77 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.computer;
+
+import dan200.computercraft.core.ComputerContext;
+import dan200.computercraft.core.filesystem.MemoryMount;
+import dan200.computercraft.core.terminal.Terminal;
+import dan200.computercraft.test.core.computer.BasicEnvironment;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of {@linkplain Computer#queueEvent(String, Object[]) queuing events} on a running computer, with
+ * several threads queuing events at once while the computer thread drains them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class EventQueueBenchmark {
+    public static void main(String[] args) throws RunnerException {
+        var opts = new OptionsBuilder()
+            .include(EventQueueBenchmark.class.getName() + "\\..*")
+            .forks(1)
+            .build();
+        new Runner(opts).run();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void queueEventUncontended(RunningComputer computer) {
+        computer.computer.queueEvent("benchmark", null);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void queueEventContended(RunningComputer computer) {
+        computer.computer.queueEvent("benchmark", null);
+    }
+
+    /**
+     * A computer which pulls events in a loop.
+     */
+    @State(Scope.Benchmark)
+    public static class RunningComputer {
+        ComputerContext context;
+        Computer computer;
+
+        @Setup(Level.Trial)
+        public void setup() throws InterruptedException {
+            var mount = new MemoryMount().addFile("startup.lua", "while true do os.pullEventRaw() end");
+            var environment = new BasicEnvironment(mount);
+            context = ComputerContext.builder(environment).build();
+            computer = new Computer(context, environment, new Terminal(51, 19, true), 0);
+            computer.turnOn();
+
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!computer.isOn()) {
+                if (System.nanoTime() - deadline >= 0) throw new IllegalStateException("Computer did not turn on");
+                computer.tick();
+                Thread.sleep(10);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            computer.unload();
+            context.ensureClosed(1, TimeUnit.SECONDS);
+        }
+    }
+}
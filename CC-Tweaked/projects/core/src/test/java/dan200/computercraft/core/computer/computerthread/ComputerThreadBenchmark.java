@@ -0,0 +1,131 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.computer.computerthread;
+
+import dan200.computercraft.core.metrics.Metric;
+import dan200.computercraft.core.metrics.MetricsObserver;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the throughput of the {@link ComputerThread} scheduler with many computers running short tasks.
+ * <p>
+ * Each operation submits every computer, and then waits for each of them to run {@link #TASKS} tasks. Computers
+ * resubmit themselves from within their task, so this covers both submitting work from other threads and requeueing
+ * work on the worker thread.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class ComputerThreadBenchmark {
+    private static final int TASKS = 50;
+
+    public static void main(String[] args) throws RunnerException {
+        var opts = new OptionsBuilder()
+            .include(ComputerThreadBenchmark.class.getName() + "\\..*")
+            .forks(1)
+            .build();
+        new Runner(opts).run();
+    }
+
+    @Benchmark
+    public void schedule(Scheduler scheduler) throws InterruptedException {
+        var latch = new CountDownLatch(scheduler.computers.length);
+        for (var computer : scheduler.computers) computer.start(latch);
+        latch.await();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Scheduler {
+        @Param({ "1", "4", "16" })
+        int threads;
+
+        @Param({ "256" })
+        int computerCount;
+
+        @Param({ "100" })
+        int work;
+
+        ComputerThread thread;
+        Computer[] computers;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            thread = new ComputerThread(threads);
+            computers = new Computer[computerCount];
+            for (var i = 0; i < computers.length; i++) computers[i] = new Computer(thread, work);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            if (!thread.stop(10, TimeUnit.SECONDS)) throw new IllegalStateException("Failed to stop ComputerThread");
+        }
+    }
+
+    private static final class Computer implements ComputerScheduler.Worker, MetricsObserver {
+        private final ComputerScheduler.Executor executor;
+        private final int work;
+        private final AtomicInteger remaining = new AtomicInteger();
+        private volatile CountDownLatch finished = new CountDownLatch(0);
+
+        Computer(ComputerScheduler scheduler, int work) {
+            this.work = work;
+            executor = scheduler.createExecutor(this, this);
+        }
+
+        void start(CountDownLatch latch) {
+            finished = latch;
+            remaining.set(TASKS);
+            executor.submit();
+        }
+
+        @Override
+        public void work() {
+            Blackhole.consumeCPU(work);
+            if (remaining.decrementAndGet() > 0) {
+                executor.submit();
+            } else {
+                finished.countDown();
+            }
+        }
+
+        @Override
+        public int getComputerID() {
+            return 0;
+        }
+
+        @Override
+        public void writeState(StringBuilder output) {
+        }
+
+        @Override
+        public void abortWithTimeout() {
+        }
+
+        @Override
+        public void unload() {
+        }
+
+        @Override
+        public void abortWithError() {
+        }
+
+        @Override
+        public void observe(Metric.Counter counter) {
+        }
+
+        @Override
+        public void observe(Metric.Event event, long value) {
+        }
+    }
+}
@@ -26,7 +26,11 @@ public class ComputerThreadRunner implements AutoCloseable {
     private @MonotonicNonNull Throwable error = null;
 
     public ComputerThreadRunner() {
-        this.thread = new ComputerThread(1);
+        this(1);
+    }
+
+    public ComputerThreadRunner(int threads) {
+        this.thread = new ComputerThread(threads);
     }
 
     public ComputerThread thread() {
@@ -57,6 +61,10 @@ public void createLoopingComputer() {
 
     public void startAndWait(Worker worker) throws Exception {
         worker.executor().submit();
+        waitFor(worker);
+    }
+
+    public void waitFor(Worker worker) throws Exception {
         do {
             errorLock.lock();
             try {
@@ -16,6 +16,7 @@
 
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -92,6 +93,29 @@ public void testPauseIfSomeOtherMachine() throws Exception {
         manager.startAndWait(computer);
     }
 
+    @Test
+    public void testRunsQueuedWorkWhileBusy() throws Exception {
+        manager.close();
+        manager = new ComputerThreadRunner(2);
+
+        var started = new CountDownLatch(1);
+        var otherRan = new CountDownLatch(1);
+        var busy = manager.createWorker((executor, timeout) -> {
+            started.countDown();
+            var ran = ConcurrentHelpers.waitUntil(() -> otherRan.getCount() == 0, 5, TimeUnit.SECONDS);
+            assertTrue(ran, "Other computer should run while this one is busy");
+        });
+        busy.executor().submit();
+        assertTrue(started.await(5, TimeUnit.SECONDS), "Busy computer should start");
+
+        // The second worker has not been started yet, so this computer is queued behind the busy one, and must be
+        // stolen by the new worker.
+        var other = manager.createWorker((executor, timeout) -> otherRan.countDown());
+        manager.startAndWait(other);
+
+        manager.waitFor(busy);
+    }
+
     @Test
     public void testAllocationTracking() throws Exception {
         Assumptions.assumeTrue(ThreadAllocations.isSupported(), "Allocation tracking is supported");
@@ -0,0 +1,241 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.filesystem;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import dan200.computercraft.api.filesystem.MountConstants;
+import dan200.computercraft.api.filesystem.WritableMount;
+import dan200.computercraft.api.lua.LuaValues;
+import dan200.computercraft.test.core.filesystem.WritableMountContract;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the {@link WritableMountContract} against a {@link WritableFileMount} using an {@link AsyncFileWriter}.
+ */
+public class AsyncWritableFileMountTest implements WritableMountContract {
+    private final List<Path> cleanup = new ArrayList<>();
+
+    // Use a tiny buffer, so writes are split across several buffers.
+    private final AsyncFileWriter writer = new AsyncFileWriter(16, 1, TimeUnit.HOURS);
+
+    @Override
+    public MountAccess createMount(long capacity) throws IOException {
+        var path = Files.createTempDirectory("cctweaked-test");
+        cleanup.add(path);
+        return new MountAccessImpl(path.resolve("mount"), capacity, writer);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        writer.close();
+        for (var mount : cleanup) MoreFiles.deleteRecursively(mount, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    @Override
+    @Test
+    @DisabledOnOs(OS.WINDOWS) // See WritableFileMountTest.
+    public void Writing_uses_latest_file_size() throws IOException {
+        WritableMountContract.super.Writing_uses_latest_file_size();
+    }
+
+    @Test
+    public void Reads_see_buffered_writes() throws IOException {
+        var access = createAccess();
+        var mount = access.mount();
+
+        try (var handle = mount.openFile("file.txt", MountConstants.WRITE_OPTIONS)) {
+            handle.write(LuaValues.encode("hello"));
+            assertEquals(0, Files.size(access.root().resolve("file.txt")), "Write should be buffered");
+
+            assertEquals(5, mount.getSize("file.txt"));
+            try (var reader = mount.openForRead("file.txt")) {
+                var contents = ByteBuffer.allocate(5);
+                reader.read(contents);
+                assertEquals("hello", new String(contents.array(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void Close_writes_file() throws IOException {
+        var access = createAccess();
+
+        var handle = access.mount().openFile("file.txt", MountConstants.WRITE_OPTIONS);
+        handle.write(LuaValues.encode(LONG_CONTENTS));
+        handle.write(LuaValues.encode("!"));
+        handle.close();
+
+        assertEquals(LONG_CONTENTS + "!", Files.readString(access.root().resolve("file.txt")));
+    }
+
+    @Test
+    public void Seek_and_overwrite() throws IOException {
+        var access = createAccess();
+
+        try (var handle = access.mount().openFile("file.txt", MountConstants.WRITE_OPTIONS)) {
+            handle.write(LuaValues.encode("hello world"));
+            handle.position(0);
+            handle.write(LuaValues.encode("J"));
+            handle.position(11);
+            handle.write(LuaValues.encode("!"));
+            assertEquals(12, handle.size());
+        }
+
+        assertEquals("Jello world!", Files.readString(access.root().resolve("file.txt")));
+    }
+
+    @Test
+    public void Flush_delay_writes_file() throws Exception {
+        var access = createAccess();
+        try (var writer = new AsyncFileWriter(AsyncFileWriter.DEFAULT_BUFFER_SIZE, 1, TimeUnit.MILLISECONDS)) {
+            var mount = new WritableFileMount(access.root().toFile(), CAPACITY, writer);
+            var file = access.root().resolve("file.txt");
+
+            try (var handle = mount.openFile("file.txt", MountConstants.WRITE_OPTIONS)) {
+                handle.write(LuaValues.encode("hello"));
+
+                var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (Files.size(file) == 0 && System.nanoTime() < deadline) Thread.sleep(1);
+                assertEquals("hello", Files.readString(file));
+            }
+        }
+    }
+
+    @Test
+    public void Flush_writes_file() throws Exception {
+        var access = createAccess();
+        var file = access.root().resolve("file.txt");
+
+        try (var handle = access.mount().openFile("file.txt", MountConstants.WRITE_OPTIONS)) {
+            handle.write(LuaValues.encode("hello"));
+            ((Flushable) handle).flush();
+
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (Files.size(file) == 0 && System.nanoTime() < deadline) Thread.sleep(1);
+            assertEquals("hello", Files.readString(file));
+        }
+    }
+
+    @Test
+    public void Writes_wait_for_slow_disk() throws Exception {
+        var access = createAccess();
+        var count = WriteBehindChannel.MAX_PENDING_WRITES * 4;
+
+        // Block the I/O thread, so no writes can finish.
+        var blocked = new CountDownLatch(1);
+        writer.executor().submit(() -> {
+            blocked.await();
+            return null;
+        });
+
+        try (var handle = access.mount().openFile("file.txt", MountConstants.WRITE_OPTIONS)) {
+            var written = new AtomicInteger();
+            var thread = new Thread(() -> {
+                try {
+                    // Seek before every write, so each one needs its own buffer.
+                    for (var i = 0; i < count; i++) {
+                        handle.position(i * 2L);
+                        handle.write(LuaValues.encode("a"));
+                        written.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            thread.start();
+
+            try {
+                var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) Thread.sleep(1);
+                assertEquals(Thread.State.WAITING, thread.getState(), "Writer should wait for the disk");
+                assertTrue(written.get() <= WriteBehindChannel.MAX_PENDING_WRITES + 1, "Wrote " + written.get() + " times");
+            } finally {
+                blocked.countDown();
+            }
+
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+            assertEquals(count, written.get());
+        }
+
+        var contents = Files.readAllBytes(access.root().resolve("file.txt"));
+        assertEquals(count * 2 - 1, contents.length);
+        for (var i = 0; i < contents.length; i++) assertEquals(i % 2 == 0 ? 'a' : 0, contents[i], "Byte " + i);
+    }
+
+    @Test
+    public void Writes_synchronously_after_close() throws IOException {
+        var access = createAccess();
+        writer.close();
+
+        try (var handle = access.mount().openFile("file.txt", MountConstants.WRITE_OPTIONS)) {
+            handle.write(LuaValues.encode("hello"));
+            assertEquals("hello", Files.readString(access.root().resolve("file.txt")));
+        }
+    }
+
+    private MountAccessImpl createAccess() throws IOException {
+        return (MountAccessImpl) createExisting(CAPACITY);
+    }
+
+    private static final class MountAccessImpl implements MountAccess {
+        private final Path root;
+        private final long capacity;
+        private final AsyncFileWriter writer;
+        private final WritableMount mount;
+
+        private MountAccessImpl(Path root, long capacity, AsyncFileWriter writer) {
+            this.root = root;
+            this.capacity = capacity;
+            this.writer = writer;
+            mount = new WritableFileMount(root.toFile(), capacity, writer);
+        }
+
+        Path root() {
+            return root;
+        }
+
+        @Override
+        public WritableMount mount() {
+            return mount;
+        }
+
+        @Override
+        public void makeReadOnly(String path) {
+            Assumptions.assumeTrue(root.resolve(path).toFile().setReadOnly(), "Change file to read-only");
+        }
+
+        @Override
+        public void ensuresExist() throws IOException {
+            Files.createDirectories(root);
+        }
+
+        @Override
+        public long computeRemainingSpace() {
+            // Files may still be open, so write their contents before measuring the disk.
+            writer.flush();
+            return new WritableFileMount(root.toFile(), capacity).getRemainingSpace();
+        }
+    }
+}
@@ -7,15 +7,18 @@
 import com.google.common.io.MoreFiles;
 import com.google.common.io.RecursiveDeleteOption;
 import dan200.computercraft.api.filesystem.Mount;
+import dan200.computercraft.core.apis.handles.ByteBufferChannel;
 import dan200.computercraft.test.core.filesystem.MountContract;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -48,6 +51,28 @@ public void cleanup() throws IOException {
         for (var mount : cleanup) MoreFiles.deleteRecursively(mount, RecursiveDeleteOption.ALLOW_INSECURE);
     }
 
+    @Test
+    public void testMapsLargeFiles() throws IOException {
+        var path = Files.createTempDirectory("cctweaked-test");
+        cleanup.add(path);
+
+        var contents = new byte[256 * 1024];
+        new Random(0).nextBytes(contents);
+        Files.write(path.resolve("large.bin"), contents);
+
+        try (var stream = new FileMount(path, true).openForRead("large.bin")) {
+            var channel = assertInstanceOf(ByteBufferChannel.class, stream, "Large files are mapped");
+            assertEquals(ByteBuffer.wrap(contents), channel.readRemaining());
+        }
+
+        try (var stream = new FileMount(path).openForRead("large.bin")) {
+            assertFalse(stream instanceof ByteBufferChannel, "Files are not mapped by default");
+            var buffer = ByteBuffer.allocate(contents.length);
+            while (buffer.hasRemaining() && stream.read(buffer) > 0) ;
+            assertEquals(ByteBuffer.wrap(contents), buffer.flip());
+        }
+    }
+
     @Test
     public void testRootExistsWhenEmpty() throws IOException {
         var mount = createEmpty();
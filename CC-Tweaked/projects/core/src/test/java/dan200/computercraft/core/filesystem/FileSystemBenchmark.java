@@ -0,0 +1,78 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.filesystem;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of metadata queries ({@link FileSystem#exists(String)}, {@link FileSystem#getSize(String)}
+ * and {@link FileSystem#list(String)}) on a filesystem with several mounts, both from a single thread and from several
+ * threads at once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class FileSystemBenchmark {
+    public static void main(String[] args) throws RunnerException {
+        var opts = new OptionsBuilder()
+            .include(FileSystemBenchmark.class.getName() + "\\..*")
+            .forks(1)
+            .build();
+        new Runner(opts).run();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean existsUncontended(Filesystem fs) throws FileSystemException {
+        return fs.fs.exists("disk3/programs/file.lua");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean existsContended(Filesystem fs) throws FileSystemException {
+        return fs.fs.exists("disk3/programs/file.lua");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long getSizeContended(Filesystem fs) throws FileSystemException {
+        return fs.fs.getSize("rom/apis/file.lua");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<String> listContended(Filesystem fs) throws FileSystemException {
+        return fs.fs.list("");
+    }
+
+    /**
+     * A filesystem with a root mount, a read-only "rom" mount, and several disk mounts.
+     */
+    @State(Scope.Benchmark)
+    public static class Filesystem {
+        FileSystem fs;
+
+        @Setup(Level.Trial)
+        public void setup() throws FileSystemException {
+            fs = new FileSystem("hdd", new MemoryMount().addFile("startup.lua", "print('Hello')"));
+            fs.mount("rom", "rom", new MemoryMount().addFile("apis/file.lua", "return {}"));
+            for (var i = 0; i < 8; i++) {
+                fs.mountWritable("disk", "disk" + i, new MemoryMount().addFile("programs/file.lua", "print('Hello')"));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            fs.close();
+        }
+    }
+}
@@ -18,6 +18,7 @@
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -77,6 +78,26 @@ public void testUnmountCloses() throws FileSystemException {
         assertEquals("attempt to use a closed file", err.getMessage());
     }
 
+    @Test
+    public void testNestedMounts() throws FileSystemException {
+        var fs = new FileSystem("hdd", new MemoryMount().addFile("root.txt", "root"));
+        fs.mount("outer", "a", new MemoryMount().addFile("outer.txt", "outer"));
+        fs.mount("inner", "a/b/c", new MemoryMount().addFile("inner.txt", "inner"));
+
+        assertEquals("hdd", fs.getMountLabel("x"));
+        assertEquals("outer", fs.getMountLabel("a/outer.txt"));
+        assertEquals("outer", fs.getMountLabel("a/b"));
+        assertEquals("inner", fs.getMountLabel("A/B/C/inner.txt"));
+        assertEquals(List.of("a", "root.txt"), fs.list(""));
+        assertEquals(List.of("outer.txt"), fs.list("a"));
+        assertEquals(List.of("inner.txt"), fs.list("a/b/c"));
+        assertThrows(FileSystemException.class, () -> fs.exists(".."));
+
+        fs.unmount("a/b/c");
+        assertEquals("outer", fs.getMountLabel("a/b/c/inner.txt"));
+        assertEquals(false, fs.exists("a/b/c/inner.txt"));
+    }
+
     @ParameterizedTest(name = "{0}")
     @MethodSource("sanitiseCases")
     public void testSanitize(String input, String output) {
@@ -7,6 +7,7 @@
 import com.google.common.io.ByteStreams;
 import dan200.computercraft.api.filesystem.Mount;
 import dan200.computercraft.core.TestFiles;
+import dan200.computercraft.core.apis.handles.ByteBufferChannel;
 import dan200.computercraft.test.core.CloseScope;
 import dan200.computercraft.test.core.filesystem.MountContract;
 import org.junit.jupiter.api.AfterEach;
@@ -16,8 +17,11 @@
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -25,6 +29,11 @@
 
 public class JarMountTest implements MountContract {
     private static final File ZIP_FILE = TestFiles.get("jar-mount.zip").toFile();
+    private static final byte[] LARGE_CONTENTS = new byte[256 * 1024];
+
+    static {
+        new Random(0).nextBytes(LARGE_CONTENTS);
+    }
 
     private final CloseScope toClose = new CloseScope();
 
@@ -45,6 +54,20 @@ public static void before() throws IOException {
 
             stream.putNextEntry(new ZipEntry("root/f.lua"));
             stream.closeEntry();
+
+            stream.putNextEntry(new ZipEntry("large/"));
+            stream.closeEntry();
+
+            var crc = new CRC32();
+            crc.update(LARGE_CONTENTS);
+            var large = new ZipEntry("large/large.bin");
+            large.setMethod(ZipEntry.STORED);
+            large.setSize(LARGE_CONTENTS.length);
+            large.setCompressedSize(LARGE_CONTENTS.length);
+            large.setCrc(crc.getValue());
+            stream.putNextEntry(large);
+            stream.write(LARGE_CONTENTS);
+            stream.closeEntry();
         }
     }
 
@@ -87,6 +110,16 @@ public void opensFileFromFile() throws IOException {
         assertEquals(new String(contents, StandardCharsets.UTF_8), "print('testing')");
     }
 
+    @Test
+    public void mapsLargeStoredFile() throws IOException {
+        var mount = toClose.add(new JarMount(ZIP_FILE, "large"));
+        try (var stream = mount.openForRead("large.bin")) {
+            var channel = assertInstanceOf(ByteBufferChannel.class, stream, "Large files are mapped");
+            var contents = channel.readRemaining();
+            assertEquals(ByteBuffer.wrap(LARGE_CONTENTS), contents);
+        }
+    }
+
     @Test
     public void opensFileFromDir() throws IOException {
         var mount = createMount("dir");
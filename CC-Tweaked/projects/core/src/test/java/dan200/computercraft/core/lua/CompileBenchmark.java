@@ -0,0 +1,84 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.lua;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.squiddev.cobalt.LuaError;
+import org.squiddev.cobalt.LuaState;
+import org.squiddev.cobalt.LuaString;
+import org.squiddev.cobalt.compiler.CompileException;
+import org.squiddev.cobalt.compiler.LuaC;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how quickly we can compile the whole of the BIOS and ROM, comparing compiling from a string (as done by
+ * {@code load}) against compiling from a stream. Each operation compiles every file once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class CompileBenchmark {
+    private static final Path ROOT = new File("src/main/resources/data/computercraft/lua").toPath();
+
+    public static void main(String[] args) throws RunnerException {
+        var opts = new OptionsBuilder()
+            .include(CompileBenchmark.class.getName() + "\\..*")
+            .forks(1)
+            .build();
+        new Runner(opts).run();
+    }
+
+    @Benchmark
+    public void compile(Rom rom, Blackhole blackhole) throws CompileException, LuaError {
+        var fromString = rom.source.equals("string");
+        for (var file : rom.files) {
+            blackhole.consume(fromString
+                ? LuaC.compile(rom.state, file.contents(), file.name())
+                : LuaC.compile(rom.state, file.contents().toInputStream(), file.name())
+            );
+        }
+    }
+
+    /**
+     * The contents of every Lua file in the BIOS and ROM.
+     */
+    @State(Scope.Thread)
+    public static class Rom {
+        @Param({ "string", "stream" })
+        String source;
+
+        LuaState state;
+        final List<RomFile> files = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            state = new LuaState();
+
+            try (var paths = Files.walk(ROOT)) {
+                for (var path : (Iterable<Path>) paths.filter(x -> x.toString().endsWith(".lua")).sorted()::iterator) {
+                    var name = LuaString.valueOf("@/" + ROOT.relativize(path).toString().replace('\\', '/'));
+                    files.add(new RomFile(name, LuaString.valueOf(Files.readAllBytes(path))));
+                }
+            }
+
+            if (files.isEmpty()) throw new IllegalStateException("Cannot find any files in " + ROOT.toAbsolutePath());
+        }
+    }
+
+    private record RomFile(LuaString name, LuaString contents) {
+    }
+}
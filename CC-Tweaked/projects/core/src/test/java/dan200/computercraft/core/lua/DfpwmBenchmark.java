@@ -0,0 +1,121 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.lua;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.squiddev.cobalt.*;
+import org.squiddev.cobalt.compiler.CompileException;
+import org.squiddev.cobalt.compiler.LoadState;
+import org.squiddev.cobalt.function.LuaFunction;
+import org.squiddev.cobalt.function.RegisteredFunction;
+import org.squiddev.cobalt.lib.Bit32Lib;
+import org.squiddev.cobalt.lib.CoreLibraries;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of {@code cc.audio.dfpwm} when backed by the native codec ({@link DfpwmLib}) and by the
+ * fallback Lua implementation. Each operation encodes or decodes a 16KiB chunk of DFPWM audio, the size typically
+ * passed to {@code speaker.playAudio}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class DfpwmBenchmark {
+    private static final String ROM = "data/computercraft/lua/rom/modules/main/";
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    public static void main(String[] args) throws RunnerException {
+        var opts = new OptionsBuilder()
+            .include(DfpwmBenchmark.class.getName() + "\\..*")
+            .forks(1)
+            .build();
+        new Runner(opts).run();
+    }
+
+    @Benchmark
+    public Varargs encode(Codec codec) throws LuaError {
+        return LuaThread.runMain(codec.state, codec.encode, codec.samples);
+    }
+
+    @Benchmark
+    public Varargs decode(Codec codec) throws LuaError {
+        return LuaThread.runMain(codec.state, codec.decode, codec.encoded);
+    }
+
+    /**
+     * An instance of the {@code cc.audio.dfpwm} module, and some audio to encode and decode.
+     */
+    @State(Scope.Thread)
+    public static class Codec {
+        @Param({ "native", "lua" })
+        String implementation;
+
+        LuaState state;
+        LuaFunction encode;
+        LuaFunction decode;
+        LuaTable samples;
+        LuaString encoded;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException, CompileException, LuaError {
+            state = new LuaState();
+            CoreLibraries.standardGlobals(state);
+            Bit32Lib.add(state, state.globals());
+            DfpwmLib.add(state);
+
+            var dfpwm = (LuaTable) loadModule(state, implementation.equals("native"));
+            encode = (LuaFunction) LuaThread.runMain(state, (LuaFunction) dfpwm.rawget("make_encoder")).first();
+            decode = (LuaFunction) LuaThread.runMain(state, (LuaFunction) dfpwm.rawget("make_decoder")).first();
+
+            // A sine wave with some noise, so both the predictor and the low-pass filter have some work to do.
+            var random = new Random(0);
+            samples = new LuaTable(CHUNK_SIZE * 8, 0);
+            for (var i = 1; i <= CHUNK_SIZE * 8; i++) {
+                var sample = Math.sin(i / 20.0) * 100 + random.nextGaussian() * 10;
+                samples.rawset(i, ValueFactory.valueOf((int) Math.max(-128, Math.min(127, sample))));
+            }
+
+            var encoder = (LuaFunction) LuaThread.runMain(state, (LuaFunction) dfpwm.rawget("make_encoder")).first();
+            encoded = (LuaString) LuaThread.runMain(state, encoder, samples).first();
+        }
+
+        /**
+         * Load the {@code cc.audio.dfpwm} module, with a minimal {@code require} function.
+         *
+         * @param state     The Lua state to load the module in.
+         * @param useNative Whether the native codec should be available to the module.
+         * @return The loaded module.
+         */
+        private static LuaValue loadModule(LuaState state, boolean useNative) throws IOException, CompileException, LuaError {
+            var loaded = new LuaTable();
+            loaded.rawset("cc.expect", LuaThread.runMain(state, load(state, "cc/expect.lua")).first());
+            if (useNative) {
+                loaded.rawset(DfpwmLib.MODULE_NAME, state.registry().getSubTable(Constants.LOADED).rawget(DfpwmLib.MODULE_NAME));
+            }
+
+            state.globals().rawset("require", RegisteredFunction.of("require", (s, name) -> {
+                var module = loaded.rawget(name);
+                if (module.isNil()) throw new LuaError("module '" + name + "' not found");
+                return module;
+            }).create());
+
+            return LuaThread.runMain(state, load(state, "cc/audio/dfpwm.lua")).first();
+        }
+
+        private static LuaFunction load(LuaState state, String path) throws IOException, CompileException, LuaError {
+            try (var stream = Objects.requireNonNull(DfpwmBenchmark.class.getClassLoader().getResourceAsStream(ROM + path), path)) {
+                return LoadState.load(state, stream, "@" + path, state.globals());
+            }
+        }
+    }
+}
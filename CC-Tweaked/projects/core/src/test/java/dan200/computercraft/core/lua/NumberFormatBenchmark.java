@@ -0,0 +1,69 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.lua;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.squiddev.cobalt.*;
+import org.squiddev.cobalt.lib.FormatDesc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how quickly we can convert numbers to strings, comparing formatting via {@code "%.14g"} (the previous
+ * implementation of {@code tostring}), formatting directly to a byte array, and the per-state cache of recent
+ * conversions. Each operation converts a small set of numbers, as a serialiser or UI would.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class NumberFormatBenchmark {
+    private static final FormatDesc NUMBER_FORMAT = FormatDesc.ofUnsafe(".14g");
+
+    public static void main(String[] args) throws RunnerException {
+        var opts = new OptionsBuilder()
+            .include(NumberFormatBenchmark.class.getName() + "\\..*")
+            .forks(1)
+            .build();
+        new Runner(opts).run();
+    }
+
+    @Benchmark
+    public void format(Numbers numbers, Blackhole blackhole) {
+        for (var number : numbers.values) {
+            var buffer = new Buffer(16);
+            NUMBER_FORMAT.format(buffer, number.toDouble());
+            blackhole.consume(buffer.toLuaString());
+        }
+    }
+
+    @Benchmark
+    public void direct(Numbers numbers, Blackhole blackhole) throws LuaError {
+        for (var number : numbers.values) blackhole.consume(number.checkLuaString());
+    }
+
+    @Benchmark
+    public void cached(Numbers numbers, Blackhole blackhole) throws LuaError {
+        for (var number : numbers.values) blackhole.consume(OperationHelper.checkLuaString(numbers.state, number));
+    }
+
+    /**
+     * A set of fractional numbers, such as coordinates or percentages.
+     */
+    @State(Scope.Thread)
+    public static class Numbers {
+        final LuaState state = new LuaState();
+        final LuaValue[] values = new LuaValue[64];
+
+        @Setup(Level.Trial)
+        public void setup() {
+            for (var i = 0; i < values.length; i++) values[i] = ValueFactory.valueOf(i * 0.1 + 0.05);
+        }
+    }
+}
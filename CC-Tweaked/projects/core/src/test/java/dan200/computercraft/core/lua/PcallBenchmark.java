@@ -0,0 +1,72 @@
+// SPDX-FileCopyrightText: 2026 The CC: Tweaked Developers
+//
+// SPDX-License-Identifier: MPL-2.0
+
+package dan200.computercraft.core.lua;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.squiddev.cobalt.*;
+import org.squiddev.cobalt.compiler.CompileException;
+import org.squiddev.cobalt.compiler.LoadState;
+import org.squiddev.cobalt.function.LuaFunction;
+import org.squiddev.cobalt.lib.CoreLibraries;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of throwing and catching errors with {@code pcall}, at various stack depths. Each operation
+ * throws and catches 1000 errors.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class PcallBenchmark {
+    private static final String PROGRAM = """
+        local depth = ...
+        local function nest(n, f, ...)
+            if n == 0 then return f(...) end
+            return (nest(n - 1, f, ...))
+        end
+
+        return function()
+            for _ = 1, 1000 do
+                nest(depth, pcall, error, "oh no")
+                nest(depth, pcall, string.rep)
+            end
+        end
+        """;
+
+    public static void main(String[] args) throws RunnerException {
+        var opts = new OptionsBuilder()
+            .include(PcallBenchmark.class.getName() + "\\..*")
+            .forks(1)
+            .build();
+        new Runner(opts).run();
+    }
+
+    @Benchmark
+    public void pcall(Program program) throws LuaError {
+        LuaThread.runMain(program.state, program.function);
+    }
+
+    @State(Scope.Thread)
+    public static class Program {
+        @Param({ "1", "50" })
+        int depth;
+
+        LuaState state;
+        LuaFunction function;
+
+        @Setup(Level.Trial)
+        public void setup() throws CompileException, LuaError {
+            state = new LuaState();
+            var globals = CoreLibraries.standardGlobals(state);
+            var main = LoadState.load(state, LuaString.valueOf(PROGRAM), LuaString.valueOf("=pcall"), globals);
+            function = LuaThread.runMain(state, main, ValueFactory.valueOf(depth)).first().checkFunction();
+        }
+    }
+}
@@ -6,15 +6,13 @@
 
 import dan200.computercraft.api.lua.LuaException;
 import org.junit.jupiter.api.Test;
-import org.squiddev.cobalt.Constants;
-import org.squiddev.cobalt.LuaError;
-import org.squiddev.cobalt.LuaTable;
-import org.squiddev.cobalt.ValueFactory;
+import org.squiddev.cobalt.*;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 
 class VarargArgumentsTest {
     private static LuaTable tableWithCustomType() {
@@ -57,6 +55,55 @@ public void testGetAfterEscapeDrop() throws LuaException {
         assertEquals("some type", args.drop(1).getType(0));
     }
 
+    @Test
+    public void testGetBuffer() {
+        var buffer = LuaBuffer.allocate(LuaState.builder().build(), 4);
+        var args = VarargArguments.of(buffer);
+
+        // Buffers are passed as a view, so writes are visible from Lua.
+        var view = assertInstanceOf(ByteBuffer.class, args.get(0));
+        view.put(0, (byte) 1);
+        assertEquals(1, buffer.getByte(0));
+    }
+
+    @Test
+    public void testGetBufferAfterEscape() throws LuaException {
+        var buffer = LuaBuffer.allocate(LuaState.builder().build(), 4);
+        var args = VarargArguments.of(buffer);
+        args.escapes();
+        args.close();
+
+        // Once escaped, buffers are copied, so later changes from Lua are not visible.
+        buffer.putByte(0, (byte) 1);
+        var copy = assertInstanceOf(ByteBuffer.class, args.get(0));
+        assertTrue(copy.isReadOnly());
+        assertEquals(0, copy.get(0));
+        assertEquals(0, args.getBytes(0).get(0));
+    }
+
+    @Test
+    public void testPrimitiveGetters() throws LuaException {
+        var args = VarargArguments.of(ValueFactory.varargsOf(
+            ValueFactory.valueOf("hello"), Constants.TRUE, ValueFactory.valueOf(2.5), Constants.NIL
+        ));
+
+        assertEquals("hello", args.getString(0));
+        assertEquals(true, args.getBoolean(1));
+        assertEquals(Optional.of(2.5), args.optDouble(2));
+        assertEquals(Optional.of(2L), args.optLong(2));
+        assertEquals(Optional.empty(), args.optString(3));
+        assertEquals(Optional.empty(), args.optBoolean(3));
+    }
+
+    @Test
+    public void testPrimitiveGettersUseCustomType() {
+        var args = VarargArguments.of(tableWithCustomType());
+
+        var error = assertThrows(LuaException.class, () -> args.getString(0));
+        assertEquals("bad argument #1 (string expected, got some type)", error.getMessage());
+        assertThrows(LuaException.class, () -> args.optBoolean(0));
+    }
+
     @Test
     public void testGetAfterClose() {
         var args = VarargArguments.of(tableWithCustomType());
@@ -64,6 +111,7 @@ public void testGetAfterClose() {
 
         assertThrows(IllegalStateException.class, () -> args.get(0));
         assertThrows(IllegalStateException.class, () -> args.getType(0));
+        assertThrows(IllegalStateException.class, () -> args.getString(0));
     }
 
     @Test
@@ -17,6 +17,7 @@
 import dan200.computercraft.core.apis.http.options.Action
 import dan200.computercraft.core.apis.http.options.AddressRule
 import dan200.computercraft.core.apis.http.request.HttpResponseHandle
+import dan200.computercraft.core.apis.http.request.HttpStreamHandle
 import dan200.computercraft.core.apis.http.websocket.WebsocketHandle
 import dan200.computercraft.test.core.computer.LuaTaskRunner
 import org.hamcrest.MatcherAssert.assertThat
@@ -65,6 +66,30 @@ fun after() {
         }
     }
 
+    @Test
+    fun `Streams a HTTP response`() {
+        runServer {
+            LuaTaskRunner.runTest {
+                val httpApi = addApi(HTTPAPI(environment))
+                assertThat(
+                    "http.request succeeded",
+                    httpApi.request(ObjectArguments(mapOf("url" to URL, "stream" to true))),
+                    array(equalTo(true)),
+                )
+
+                val result = pullEvent("http_success")
+                assertThat(result, array(equalTo("http_success"), equalTo(URL), isA(HttpResponseHandle::class.java)))
+
+                val handle = result[2] as HttpResponseHandle
+                val reader = handle.extra.iterator().next() as HttpStreamHandle
+                assertThat(reader.read(Optional.of(5)).await(), array(equalTo("Hello".toByteArray())))
+                assertThat(reader.readAll().await(), array(equalTo(", world!".toByteArray())))
+                assertThat(reader.read(Optional.of(5)).await(), array(equalTo(null)))
+                reader.close()
+            }
+        }
+    }
+
     @Test
     fun `Connects to websocket`() {
         runServer {
@@ -10,11 +10,6 @@ local skip = {
     "n_number_neg_int_starting_with_zero",
     "n_number_real_without_fractional_part",
     "n_number_with_leading_zero",
-
-    -- Should pass, but fail.
-    -- These two are due to stack overflows within the parser.
-    "n_structure_open_array_object",
-    "n_structure_100000_opening_arrays",
 }
 
 for _, k in pairs(skip) do skip[k] = true end
@@ -271,6 +271,21 @@ describe("The fs library", function()
                 handle.close()
             end)
 
+            it("reads into a buffer", function()
+                local file = create_test_file "an example file"
+
+                local handle = fs.open(file, mode)
+                local buf = buffer.create(10)
+                expect(handle.read(buf:slice(3, 5))):eq(5)
+                expect(buf:tostring()):eq("\0\0an ex\0\0\0")
+
+                expect(handle.read(buf)):eq(10)
+                expect(buf:tostring()):eq("ample file")
+
+                expect(handle.read(buf)):eq(nil)
+                handle.close()
+            end)
+
             it("can read a line of text", function()
                 local file = create_test_file "some\nfile\r\ncontents\n\n"
 
@@ -396,6 +411,16 @@ describe("The fs library", function()
                 handle.close()
             end)
 
+            it("can write buffers", function()
+                local handle = fs.open(test_file "out.txt", "w")
+                handle.write(buffer.fromstring("hello world"):slice(1, 5))
+                handle.close()
+
+                local handle = fs.open(test_file "out.txt", "r")
+                expect(handle.readAll()):eq("hello")
+                handle.close()
+            end)
+
             it("can write lines", function()
                 local handle = fs.open(test_file "out.txt", "w")
                 handle.writeLine("First line!")
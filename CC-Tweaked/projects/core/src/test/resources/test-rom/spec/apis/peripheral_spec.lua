@@ -127,6 +127,18 @@ describe("The peripheral library", function()
         end)
     end)
 
+    describe("peripheral.batch", function()
+        it("validates arguments", function()
+            expect.error(peripheral.batch, nil):eq("bad argument #1 (table expected, got nil)")
+            expect.error(peripheral.batch, { "top" }):eq("bad argument #1 (call #1 is a string, not a table)")
+            expect.error(peripheral.batch, { { "top" } }):str_match("bad call #1 %(method expected, got nil%)$")
+        end)
+
+        it("returns an empty list when given no calls", function()
+            expect(peripheral.batch({})):same {}
+        end)
+    end)
+
     describe("peripheral.wrap", function()
         it("validates arguments", function()
             peripheral.wrap("")
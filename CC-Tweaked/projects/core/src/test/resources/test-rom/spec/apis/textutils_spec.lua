@@ -177,6 +177,11 @@ describe("The textutils library", function()
             expect(textutils.serializeJSON({ nil, nil, nil, nil, "text" })):eq('[null,null,null,null,"text"]')
         end)
 
+        it("serializes tables with metatables", function()
+            local tbl = setmetatable({ 1, 2 }, { __index = function(_, k) if k == 3 then return 3 end end })
+            expect(textutils.serializeJSON(tbl)):eq('[1,2]')
+        end)
+
         it("serializes NBT style", function()
             expect(textutils.serializeJSON({ test = 2 }, { nbt_style = true })):eq('{test:2}')
             expect(textutils.serializeJSON({ test = 2 }, true)):eq('{test:2}') -- old style
@@ -27,4 +27,146 @@ describe("cc.audio.dfpwm", function()
             for i = 1, #encoded do expect(encoded:byte(i)):describe("Item at #" .. i):eq(output[i] % 256) end
         end)
     end)
+
+    describe("native implementation", function()
+        -- Load the Lua implementation of the module, without access to the native codec.
+        local lua_dfpwm
+        do
+            local env = setmetatable({
+                require = function(name)
+                    if name == "cc.internal.dfpwm" then error("module '" .. name .. "' not found", 2) end
+                    return require(name)
+                end,
+            }, { __index = _ENV })
+            lua_dfpwm = loadfile("/rom/modules/main/cc/audio/dfpwm.lua", nil, env)()
+        end
+
+        -- A small LCG, so the generated streams are the same on every run.
+        local function make_random(seed)
+            return function(lo, hi)
+                seed = (seed * 1103515245 + 12345) % 2147483648
+                return lo + seed % (hi - lo + 1)
+            end
+        end
+
+        local function repeated(value, n)
+            local out = {}
+            for i = 1, n do out[i] = value end
+            return out
+        end
+
+        local random = make_random(1234)
+        local random_samples = {}
+        for i = 1, 4099 do random_samples[i] = random(-128, 127) end
+
+        local walk_samples, level = {}, 0
+        for i = 1, 4096 do
+            level = math.max(-128, math.min(127, level + random(-8, 8)))
+            walk_samples[i] = level
+        end
+
+        local fractional_samples = {}
+        for i = 1, 1024 do fractional_samples[i] = random(-12800, 12799) / 100 end
+
+        local alternating_samples = {}
+        for i = 1, 1024 do alternating_samples[i] = i % 2 == 0 and 127 or -128 end
+
+        local sample_streams = {
+            { "empty", {} },
+            { "short", { 1, 2, 3 } },
+            { "partial byte", { -128, 127, 0, 5, -5, 64, -64, 127, 127, 12, -1 } },
+            { "silence", repeated(0, 1024) },
+            { "maximum", repeated(127, 1024) },
+            { "minimum", repeated(-128, 1024) },
+            { "alternating", alternating_samples },
+            { "fractional", fractional_samples },
+            { "random walk", walk_samples },
+            { "random", random_samples },
+        }
+
+        local random_bytes = {}
+        for i = 1, 4099 do random_bytes[i] = string.char(random(0, 255)) end
+        random_bytes = table.concat(random_bytes)
+
+        local byte_streams = {
+            { "empty", "" },
+            { "single byte", "\1" },
+            { "zeros", ("\0"):rep(1024) },
+            { "ones", ("\255"):rep(1024) },
+            { "alternating", ("\85\170"):rep(512) },
+            { "random", random_bytes },
+        }
+
+        -- Split a stream into chunks of the given sizes, cycling through them until the stream is consumed.
+        local function chunks(length, sizes)
+            local out, start, i = {}, 1, 1
+            while start <= length do
+                local finish = math.min(length, start + sizes[i] - 1)
+                out[#out + 1] = { start, finish }
+                start, i = finish + 1, i % #sizes + 1
+            end
+            return out
+        end
+
+        it("is available", function()
+            expect(require "cc.internal.dfpwm"):type("table")
+        end)
+
+        describe("encodes the same as the Lua implementation", function()
+            for _, stream in ipairs(sample_streams) do
+                local name, input = stream[1], stream[2]
+                it(name, function()
+                    expect(dfpwm.encode(input)):describe("Encoding " .. name):eq(lua_dfpwm.encode(input))
+                end)
+
+                it(name .. " in chunks", function()
+                    local native, lua = dfpwm.make_encoder(), lua_dfpwm.make_encoder()
+                    for _, chunk in ipairs(chunks(#input, { 8, 1, 13, 256 })) do
+                        local part = {}
+                        for i = chunk[1], chunk[2] do part[#part + 1] = input[i] end
+                        expect(native(part)):describe(("Encoding %s[%d..%d]"):format(name, chunk[1], chunk[2]))
+                            :eq(lua(part))
+                    end
+                end)
+            end
+        end)
+
+        describe("decodes the same as the Lua implementation", function()
+            for _, stream in ipairs(byte_streams) do
+                local name, input = stream[1], stream[2]
+                it(name, function()
+                    expect(dfpwm.decode(input)):describe("Decoding " .. name):same(lua_dfpwm.decode(input))
+                end)
+
+                it(name .. " in chunks", function()
+                    local native, lua = dfpwm.make_decoder(), lua_dfpwm.make_decoder()
+                    for _, chunk in ipairs(chunks(#input, { 1, 7, 64, 1000 })) do
+                        local part = input:sub(chunk[1], chunk[2])
+                        expect(native(part)):describe(("Decoding %s[%d..%d]"):format(name, chunk[1], chunk[2]))
+                            :same(lua(part))
+                    end
+                end)
+            end
+        end)
+
+        it("round trips the same as the Lua implementation", function()
+            expect(dfpwm.decode(dfpwm.encode(walk_samples))):same(lua_dfpwm.decode(lua_dfpwm.encode(walk_samples)))
+        end)
+
+        it("rejects the same amplitudes as the Lua implementation", function()
+            for _, value in ipairs({ 128, -129, 128.5, 1e10, -1e10 }) do
+                local input = { 0, 0, value }
+                local ok_native, err_native = pcall(dfpwm.encode, input)
+                local ok_lua, err_lua = pcall(lua_dfpwm.encode, input)
+
+                expect(ok_native):describe("Native encoding " .. value):eq(false)
+                expect(ok_lua):describe("Lua encoding " .. value):eq(false)
+
+                local message = ("Amplitude at position 3 was %d, but should be between -128 and 127"):format(math.floor(value))
+                local pattern = message:gsub("%p", "%%%0")
+                expect(err_native):str_match(pattern)
+                expect(err_lua):str_match(pattern)
+            end
+        end)
+    end)
 end)
@@ -45,6 +45,11 @@ public WorkMonitor getMainThreadMonitor() {
         throw new IllegalStateException("Main thread monitor not available");
     }
 
+    @Override
+    public boolean queueMainThread(Runnable task) {
+        throw new IllegalStateException("Main thread not available");
+    }
+
     @Override
     public Terminal getTerminal() {
         throw new IllegalStateException("Terminal not available");
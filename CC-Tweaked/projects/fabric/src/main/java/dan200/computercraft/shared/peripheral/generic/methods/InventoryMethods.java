@@ -4,11 +4,11 @@
 
 package dan200.computercraft.shared.peripheral.generic.methods;
 
-import dan200.computercraft.api.detail.VanillaDetailRegistries;
 import dan200.computercraft.api.lua.LuaException;
 import dan200.computercraft.api.lua.LuaFunction;
 import dan200.computercraft.api.peripheral.IComputerAccess;
 import dan200.computercraft.api.peripheral.IPeripheral;
+import dan200.computercraft.shared.peripheral.generic.InventorySnapshots;
 import dan200.computercraft.shared.platform.FabricContainerTransfer;
 import net.fabricmc.fabric.api.transfer.v1.item.ItemStorage;
 import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
@@ -24,7 +24,6 @@
 import net.minecraft.world.level.block.state.BlockState;
 
 import javax.annotation.Nullable;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -82,26 +81,19 @@ public int size(StorageWrapper inventory) {
 
     @Override
     @LuaFunction(mainThread = true)
-    public Map<Integer, Map<String, ?>> list(StorageWrapper inventory) {
-        Map<Integer, Map<String, ?>> result = new HashMap<>();
+    public Map<Integer, Map<String, ?>> list(StorageWrapper inventory, IComputerAccess computer) {
         var slots = inventory.storage().getSlots();
-        var size = slots.size();
-        for (var i = 0; i < size; i++) {
-            var stack = toStack(slots.get(i));
-            if (!stack.isEmpty()) result.put(i + 1, VanillaDetailRegistries.ITEM_STACK.getBasicDetails(stack));
-        }
-
-        return result;
+        return InventorySnapshots.list(computer, inventory, slots.size(), i -> toStack(slots.get(i)));
     }
 
     @Override
     @Nullable
     @LuaFunction(mainThread = true)
-    public Map<String, ?> getItemDetail(StorageWrapper inventory, int slot) throws LuaException {
-        assertBetween(slot, 1, inventory.storage().getSlotCount(), "Slot out of range (%s)");
+    public Map<String, ?> getItemDetail(StorageWrapper inventory, IComputerAccess computer, int slot) throws LuaException {
+        var size = inventory.storage().getSlotCount();
+        assertBetween(slot, 1, size, "Slot out of range (%s)");
 
-        var stack = toStack(inventory.storage().getSlot(slot - 1));
-        return stack.isEmpty() ? null : VanillaDetailRegistries.ITEM_STACK.getDetails(stack);
+        return InventorySnapshots.getDetail(computer, inventory, size, slot - 1, toStack(inventory.storage().getSlot(slot - 1)));
     }
 
     @Override
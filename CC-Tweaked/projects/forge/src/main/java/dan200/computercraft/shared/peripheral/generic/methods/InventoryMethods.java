@@ -4,11 +4,11 @@
 
 package dan200.computercraft.shared.peripheral.generic.methods;
 
-import dan200.computercraft.api.detail.VanillaDetailRegistries;
 import dan200.computercraft.api.lua.LuaException;
 import dan200.computercraft.api.lua.LuaFunction;
 import dan200.computercraft.api.peripheral.IComputerAccess;
 import dan200.computercraft.api.peripheral.IPeripheral;
+import dan200.computercraft.shared.peripheral.generic.InventorySnapshots;
 import dan200.computercraft.shared.platform.ForgeContainerTransfer;
 import dan200.computercraft.shared.util.CapabilityUtil;
 import net.minecraft.world.Container;
@@ -19,7 +19,6 @@
 import net.minecraftforge.items.wrapper.InvWrapper;
 
 import javax.annotation.Nullable;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -37,25 +36,18 @@ public int size(IItemHandler inventory) {
 
     @Override
     @LuaFunction(mainThread = true)
-    public Map<Integer, Map<String, ?>> list(IItemHandler inventory) {
-        Map<Integer, Map<String, ?>> result = new HashMap<>();
-        var size = inventory.getSlots();
-        for (var i = 0; i < size; i++) {
-            var stack = inventory.getStackInSlot(i);
-            if (!stack.isEmpty()) result.put(i + 1, VanillaDetailRegistries.ITEM_STACK.getBasicDetails(stack));
-        }
-
-        return result;
+    public Map<Integer, Map<String, ?>> list(IItemHandler inventory, IComputerAccess computer) {
+        return InventorySnapshots.list(computer, inventory, inventory.getSlots(), inventory::getStackInSlot);
     }
 
     @Override
     @Nullable
     @LuaFunction(mainThread = true)
-    public Map<String, ?> getItemDetail(IItemHandler inventory, int slot) throws LuaException {
-        assertBetween(slot, 1, inventory.getSlots(), "Slot out of range (%s)");
+    public Map<String, ?> getItemDetail(IItemHandler inventory, IComputerAccess computer, int slot) throws LuaException {
+        var size = inventory.getSlots();
+        assertBetween(slot, 1, size, "Slot out of range (%s)");
 
-        var stack = inventory.getStackInSlot(slot - 1);
-        return stack.isEmpty() ? null : VanillaDetailRegistries.ITEM_STACK.getDetails(stack);
+        return InventorySnapshots.getDetail(computer, inventory, size, slot - 1, inventory.getStackInSlot(slot - 1));
     }
 
     @Override
@@ -48,8 +48,10 @@ public class THttpRequest extends Resource<THttpRequest> {
 
     public THttpRequest(
         ResourceGroup<THttpRequest> limiter, IAPIEnvironment environment, String address, @Nullable ByteBuffer postBody,
-        HttpHeaders headers, boolean binary, boolean followRedirects, int timeout
+        HttpHeaders headers, boolean binary, boolean followRedirects, boolean stream, int timeout
     ) {
+        // XMLHttpRequest only gives us the body once it has been downloaded, so stream is ignored and we always
+        // return a fully buffered response.
         super(limiter);
         this.environment = environment;
         this.address = address;
@@ -50,6 +50,11 @@ public abstract class EmuConfig extends Config {
 		.setName("Maximum files open per computer")
 		.setDescription("Set how many files a computer can have open at the same time. Set to 0 for unlimited.");
 
+	@Nonnull
+	public ConfigProperty<Boolean> asyncFileWrites = property("asyncFileWrites", boolean.class, false)
+		.setName("Write files in the background")
+		.setDescription("Buffer writes to computers' files and write them on a separate thread, so programs which write a lot do not stall. Files are always fully written when they are closed.");
+
 	@Nonnull
 	public ConfigProperty<Boolean> httpEnabled = property("httpEnable", boolean.class, true)
 		.setName("Enable HTTP API")
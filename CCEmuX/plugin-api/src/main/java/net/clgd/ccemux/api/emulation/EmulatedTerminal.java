@@ -39,6 +39,12 @@ public class EmulatedTerminal extends Terminal {
 		default void clear() {}
 
 		default void clearLine() {}
+
+		/**
+		 * Called when the terminal is reset to its initial state, such as when the computer reboots. This resets
+		 * the cursor, colours and palette, and clears the terminal.
+		 */
+		default void reset() {}
 	}
 
 	private final EmulatedPalette palette;
@@ -60,6 +66,14 @@ public class EmulatedTerminal extends Terminal {
 		return changed.getAndSet(false);
 	}
 
+	@Override
+	public void reset() {
+		super.reset();
+		for (Listener listener : listeners) {
+			listener.reset();
+		}
+	}
+
 	@Override
 	public void resize(int width, int height) {
 		super.resize(width, height);
@@ -0,0 +1,416 @@
+package net.clgd.ccemux.emulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.google.common.io.ByteStreams;
+import dan200.computercraft.api.lua.ILuaAPI;
+import dan200.computercraft.api.lua.LuaFunction;
+import dan200.computercraft.core.filesystem.WritableFileMount;
+import net.clgd.ccemux.api.emulation.EmulatedComputer;
+import net.clgd.ccemux.api.emulation.filesystem.VirtualDirectory;
+import net.clgd.ccemux.api.emulation.filesystem.VirtualFile;
+import net.clgd.ccemux.api.rendering.Renderer;
+import net.clgd.ccemux.api.rendering.RendererFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a set of Lua test files without any user interface, each on its own computer.
+ * <p>
+ * Every computer's root is the same directory (usually the current working directory), and runs a single test file
+ * from it. Tests report their results through the {@code batch} Lua API:
+ * <ul>
+ * <li>{@code batch.getFile()}: Get the path of the test file this computer is running.</li>
+ * <li>{@code batch.report(name, ok[, message[, time]])}: Record the result of an individual test case.</li>
+ * <li>{@code batch.exit([code[, message]])}: Finish running this test. The computer is shut down on the next tick. A
+ * non-zero exit code marks the test file as failed.</li>
+ * </ul>
+ * <p>
+ * A ROM autorun program loads and runs the test file, calling {@code batch.exit} once it finishes or errors. Test files
+ * which call {@code os.shutdown()} instead are treated as having succeeded.
+ * <p>
+ * All computers share a single {@link dan200.computercraft.core.ComputerContext}, with one computer thread per
+ * available core. At most that many tests run at once, with the next test started as soon as one finishes.
+ */
+public class BatchRunner {
+	private static final Logger log = LoggerFactory.getLogger(BatchRunner.class);
+
+	private final Path root;
+	private final long timeout;
+	private final int threads;
+
+	private final List<TestFile> tests;
+	private final Deque<TestFile> pending;
+
+	@Nullable
+	private CCEmuX emu;
+
+	/**
+	 * Create a new batch runner.
+	 *
+	 * @param root    The directory used as each computer's root. All test files must be within this directory.
+	 * @param files   The test files to run.
+	 * @param timeout The maximum time each test may run for, in milliseconds.
+	 * @param threads The number of computer threads to use, and so the number of tests to run at once.
+	 * @throws IllegalArgumentException If a test file is not within the root directory.
+	 */
+	public BatchRunner(Path root, List<Path> files, long timeout, int threads) {
+		this.root = root.toAbsolutePath().normalize();
+		this.timeout = timeout;
+		this.threads = threads;
+
+		tests = new ArrayList<>(files.size());
+		for (Path file : files) {
+			Path path = file.toAbsolutePath().normalize();
+			if (!path.startsWith(this.root)) {
+				throw new IllegalArgumentException("Test file " + file + " is not within " + this.root);
+			}
+
+			tests.add(new TestFile(this.root.relativize(path).toString().replace('\\', '/')));
+		}
+		pending = new ArrayDeque<>(tests);
+	}
+
+	/**
+	 * Find all test files from a list of paths. Files are included as-is, and directories are searched recursively for
+	 * {@code .lua} files.
+	 *
+	 * @param paths The files and directories to search.
+	 * @return All test files, in a stable order.
+	 * @throws IOException If a directory could not be searched.
+	 */
+	public static List<Path> findTests(List<Path> paths) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for (Path path : paths) {
+			if (!Files.isDirectory(path)) {
+				files.add(path);
+				continue;
+			}
+
+			try (Stream<Path> children = Files.walk(path)) {
+				files.addAll(children
+					.filter(x -> Files.isRegularFile(x) && x.getFileName().toString().endsWith(".lua"))
+					.sorted()
+					.collect(Collectors.toList()));
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * A {@link RendererFactory} which does not display computers at all.
+	 *
+	 * @return The headless renderer factory.
+	 */
+	public static RendererFactory<?> rendererFactory() {
+		return (computer, cfg) -> new HeadlessRenderer();
+	}
+
+	/**
+	 * Get the status CCEmuX should exit with after running tests.
+	 *
+	 * @param tests The result of each test.
+	 * @return 0 if every test succeeded, or 1 if any failed or timed out.
+	 */
+	public static int exitStatus(List<TestFile> tests) {
+		return tests.stream().allMatch(TestFile::isSuccess) ? 0 : 1;
+	}
+
+	int threads() {
+		return threads;
+	}
+
+	void addRomEntries(VirtualDirectory.Builder romBuilder) {
+		try {
+			romBuilder.addEntry("autorun/batch.lua", new VirtualFile(
+				ByteStreams.toByteArray(BatchRunner.class.getResourceAsStream("/rom/batch_autorun.lua"))));
+		} catch (IOException e) {
+			log.error("Failed to register ROM entries", e);
+		}
+	}
+
+	/**
+	 * Run every test, blocking until they have all finished.
+	 *
+	 * @param emu The emulator to run tests in. This should have been created with this runner.
+	 * @return The result of each test, in the order they were given.
+	 */
+	public List<TestFile> run(CCEmuX emu) {
+		if (this.emu != null) throw new IllegalStateException("Tests have already been run");
+		this.emu = emu;
+
+		if (tests.isEmpty()) {
+			log.warn("No tests to run");
+			return tests;
+		}
+
+		log.info("Running {} tests on {} threads", tests.size(), threads);
+		for (int i = 0; i < threads; i++) startNext();
+		emu.run();
+
+		return tests;
+	}
+
+	private void startNext() {
+		TestFile test = pending.poll();
+		if (test == null) return;
+
+		CCEmuX emu = Objects.requireNonNull(this.emu);
+		EmulatedComputer computer = emu.createComputer(b -> b
+			.label(test.name)
+			.rootMount(() -> new WritableFileMount(root.toFile(), emu.getConfig().getMaxComputerCapacity(), emu.getFileWriter()))
+		);
+		test.start(computer);
+		computer.addApi(new API(test));
+		computer.addListener(dt -> {
+			if (test.poll()) finish(test);
+		});
+	}
+
+	private void finish(TestFile test) {
+		EmulatedComputer computer = Objects.requireNonNull(test.computer);
+		computer.shutdown();
+
+		if (test.isSuccess()) {
+			log.info("PASS {} ({} ms)", test.name, test.getTime());
+		} else if (test.getMessage() != null) {
+			log.error("FAIL {} ({} ms): {}", test.name, test.getTime(), test.getMessage());
+		} else if (test.getExitCode() != null && test.getExitCode() != 0) {
+			log.error("FAIL {} ({} ms): Exited with code {}", test.name, test.getTime(), test.getExitCode());
+		} else {
+			long failed = test.getCases().stream().filter(x -> !x.ok()).count();
+			log.error("FAIL {} ({} ms): {} test cases failed", test.name, test.getTime(), failed);
+		}
+
+		// Start the next test before removing this computer, as the emulator stops once there are no computers left.
+		startNext();
+		Objects.requireNonNull(emu).removeComputer(computer);
+	}
+
+	/**
+	 * A single test case reported with {@code batch.report}.
+	 *
+	 * @param name    The name of this test case.
+	 * @param ok      Whether this test case passed.
+	 * @param message The reason this test case failed, if available.
+	 * @param time    The time this test case took, in seconds.
+	 */
+	public record TestCase(String name, boolean ok, @Nullable String message, double time) {
+	}
+
+	/**
+	 * The state of a single test file.
+	 */
+	public final class TestFile {
+		private final String name;
+		private final List<TestCase> cases = new ArrayList<>();
+
+		@Nullable
+		private EmulatedComputer computer;
+		private long started;
+		private long time;
+		private boolean hasTurnedOn;
+		private boolean done;
+
+		@Nullable
+		private Integer exitCode;
+		@Nullable
+		private String message;
+		private boolean timedOut;
+		private String output = "";
+
+		private TestFile(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Get the path of this test file, relative to the root directory.
+		 *
+		 * @return This test's path.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		public synchronized List<TestCase> getCases() {
+			return Collections.unmodifiableList(new ArrayList<>(cases));
+		}
+
+		/**
+		 * Get the exit code of this test.
+		 *
+		 * @return The exit code passed to {@code batch.exit}, or {@code null} if this test timed out.
+		 */
+		@Nullable
+		public synchronized Integer getExitCode() {
+			return exitCode;
+		}
+
+		/**
+		 * Get why this test failed.
+		 *
+		 * @return The error message of this test, or {@code null} if not available.
+		 */
+		@Nullable
+		public synchronized String getMessage() {
+			return message;
+		}
+
+		public synchronized boolean isTimedOut() {
+			return timedOut;
+		}
+
+		/**
+		 * Get the contents of the computer's terminal when the test finished.
+		 *
+		 * @return The terminal's contents, with trailing whitespace removed.
+		 */
+		public synchronized String getOutput() {
+			return output;
+		}
+
+		/**
+		 * Get how long this test took to run.
+		 *
+		 * @return The test's duration, in milliseconds.
+		 */
+		public synchronized long getTime() {
+			return time;
+		}
+
+		/**
+		 * Determine whether this test succeeded: namely it exited with a code of 0 and all test cases passed.
+		 *
+		 * @return Whether this test succeeded.
+		 */
+		public synchronized boolean isSuccess() {
+			if (exitCode == null || exitCode != 0) return false;
+			for (TestCase testCase : cases) {
+				if (!testCase.ok()) return false;
+			}
+			return true;
+		}
+
+		private synchronized void start(EmulatedComputer computer) {
+			this.computer = computer;
+			started = System.nanoTime();
+		}
+
+		private synchronized void report(TestCase testCase) {
+			if (!done) cases.add(testCase);
+		}
+
+		private synchronized void exit(int code, @Nullable String message) {
+			if (exitCode != null || done) return;
+			exitCode = code;
+			this.message = message;
+		}
+
+		/**
+		 * Check whether this test has finished, called every tick.
+		 *
+		 * @return Whether this test has just finished.
+		 */
+		private synchronized boolean poll() {
+			if (done) return false;
+
+			EmulatedComputer computer = Objects.requireNonNull(this.computer);
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+			if (computer.isOn()) hasTurnedOn = true;
+
+			if (exitCode == null) {
+				if (hasTurnedOn && !computer.isOn()) {
+					// The test shut the computer down without calling batch.exit. We assume this was intentional.
+					exitCode = 0;
+				} else if (elapsed >= timeout) {
+					timedOut = true;
+					message = "Timed out after " + timeout + " ms";
+				} else {
+					return false;
+				}
+			}
+
+			done = true;
+			time = elapsed;
+			output = readTerminal(computer);
+			return true;
+		}
+	}
+
+	private static String readTerminal(EmulatedComputer computer) {
+		StringBuilder output = new StringBuilder();
+		synchronized (computer.terminal) {
+			for (int y = 0; y < computer.terminal.getHeight(); y++) {
+				output.append(computer.terminal.getLine(y).toString().replaceAll("\\s+$", "")).append('\n');
+			}
+		}
+
+		return output.toString().replaceAll("\\s+$", "");
+	}
+
+	/**
+	 * The {@code batch} Lua API, added to each computer running a test.
+	 */
+	public static class API implements ILuaAPI {
+		private final TestFile test;
+
+		API(TestFile test) {
+			this.test = test;
+		}
+
+		@Override
+		public String[] getNames() {
+			return new String[] { "batch" };
+		}
+
+		@LuaFunction
+		public final String getFile() {
+			return test.name;
+		}
+
+		@LuaFunction
+		public final void report(String name, boolean ok, Optional<String> message, Optional<Double> time) {
+			test.report(new TestCase(name, ok, message.orElse(null), time.orElse(0.0)));
+		}
+
+		@LuaFunction
+		public final void exit(Optional<Integer> code, Optional<String> message) {
+			test.exit(code.orElse(0), message.orElse(null));
+		}
+	}
+
+	private static class HeadlessRenderer implements Renderer {
+		private boolean visible;
+
+		@Override
+		public boolean isVisible() {
+			return visible;
+		}
+
+		@Override
+		public void setVisible(boolean visible) {
+			this.visible = visible;
+		}
+
+		@Override
+		public void dispose() {
+		}
+
+		@Override
+		public void addListener(@Nonnull Listener l) {
+		}
+
+		@Override
+		public void removeListener(@Nonnull Listener l) {
+		}
+	}
+}
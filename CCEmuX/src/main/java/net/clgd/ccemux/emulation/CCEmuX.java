@@ -12,8 +12,10 @@ import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import dan200.computercraft.core.ComputerContext;
+import dan200.computercraft.core.filesystem.AsyncFileWriter;
 import net.clgd.ccemux.api.emulation.EmulatedComputer;
 import net.clgd.ccemux.api.emulation.EmulatedTerminal;
 import net.clgd.ccemux.api.emulation.Emulator;
@@ -28,12 +30,65 @@ import org.slf4j.LoggerFactory;
 public class CCEmuX implements Runnable, Emulator {
 	private static final Logger log = LoggerFactory.getLogger(CCEmuX.class);
 
-	public CCEmuX(UserConfig cfg, RendererFactory<?> rendererFactory, PluginManager pluginMgr, File ccSource, Path sessionPath) {
+	public CCEmuX(UserConfig cfg, RendererFactory<?> rendererFactory, PluginManager pluginMgr, File ccSource, Path sessionPath, Options options) {
 		this.cfg = cfg;
 		this.rendererFactory = rendererFactory;
 		this.pluginMgr = pluginMgr;
 		this.ccSource = ccSource;
 		this.sessionPath = sessionPath;
+		this.coverage = options.coverage;
+		this.batch = options.batch;
+		this.metrics = options.metrics;
+		this.fileWriter = cfg.asyncFileWrites.get() ? new AsyncFileWriter() : null;
+
+		ComputerContext.Builder context = ComputerContext.builder(new GlobalEnvironmentImpl(this));
+		if (batch != null) context.computerThreads(batch.threads());
+		this.context = context.build();
+	}
+
+	/**
+	 * Optional features to enable on an emulator. All of these are disabled by default.
+	 */
+	public static final class Options {
+		@Nullable
+		private CoverageCollector coverage;
+		@Nullable
+		private BatchRunner batch;
+		@Nullable
+		private MetricsCollector metrics;
+
+		/**
+		 * Record the coverage of each computer's Lua code.
+		 *
+		 * @param coverage The collector to record coverage to, or {@code null} to disable coverage.
+		 * @return These options, for chaining.
+		 */
+		public Options coverage(@Nullable CoverageCollector coverage) {
+			this.coverage = coverage;
+			return this;
+		}
+
+		/**
+		 * Run the emulator in batch mode, running tests on headless computers.
+		 *
+		 * @param batch The tests to run, or {@code null} to run normally.
+		 * @return These options, for chaining.
+		 */
+		public Options batch(@Nullable BatchRunner batch) {
+			this.batch = batch;
+			return this;
+		}
+
+		/**
+		 * Record each computer's metrics.
+		 *
+		 * @param metrics The collector to record metrics to, or {@code null} to disable metrics.
+		 * @return These options, for chaining.
+		 */
+		public Options metrics(@Nullable MetricsCollector metrics) {
+			this.metrics = metrics;
+			return this;
+		}
 	}
 
 	private static String getVersionProperty(String name) {
@@ -71,7 +126,19 @@ public class CCEmuX implements Runnable, Emulator {
 	private long started = -1;
 	private boolean running;
 
-	private final ComputerContext context = ComputerContext.builder(new GlobalEnvironmentImpl(this)).build();
+	@Nullable
+	private final CoverageCollector coverage;
+
+	@Nullable
+	private final BatchRunner batch;
+
+	@Nullable
+	private final MetricsCollector metrics;
+
+	private final ComputerContext context;
+
+	@Nullable
+	private final AsyncFileWriter fileWriter;
 
 	@Nonnull
 	@Override
@@ -177,7 +244,8 @@ public class CCEmuX implements Runnable, Emulator {
 	}
 
 	void sessionStateChanged() {
-		if (cfg.restoreSession.get() && running) {
+		// Computers started in batch mode are temporary, so should never be persisted.
+		if (cfg.restoreSession.get() && running && batch == null) {
 			new SessionState(
 				computers.keySet().stream()
 					.map(x -> new SessionState.ComputerState(x.getID(), x.getLabel()))
@@ -246,6 +314,22 @@ public class CCEmuX implements Runnable, Emulator {
 		running = false;
 	}
 
+	/**
+	 * The writer computers' files should be written with, or {@code null} if files are written synchronously.
+	 */
+	@Nullable
+	public AsyncFileWriter getFileWriter() {
+		return fileWriter;
+	}
+
+	/**
+	 * Write any files which are still buffered. This should be called once the emulator has finished, as any files
+	 * written after this point are written synchronously.
+	 */
+	public void flushFiles() {
+		if (fileWriter != null) fileWriter.close();
+	}
+
 	public long getTicksSinceStart() {
 		return (System.currentTimeMillis() - started) / 50;
 	}
@@ -257,4 +341,19 @@ public class CCEmuX implements Runnable, Emulator {
 	ComputerContext context() {
 		return context;
 	}
+
+	@Nullable
+	CoverageCollector coverage() {
+		return coverage;
+	}
+
+	@Nullable
+	BatchRunner batch() {
+		return batch;
+	}
+
+	@Nullable
+	MetricsCollector metrics() {
+		return metrics;
+	}
 }
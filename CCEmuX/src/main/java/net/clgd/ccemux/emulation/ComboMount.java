@@ -3,68 +3,161 @@ package net.clgd.ccemux.emulation;
 import java.io.IOException;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+
+import javax.annotation.Nullable;
 
 import dan200.computercraft.api.filesystem.FileOperationException;
 import dan200.computercraft.api.filesystem.Mount;
 
+/**
+ * Overlays several read-only mounts, with earlier mounts taking priority over later ones.
+ * <p>
+ * Rather than probing every mount on each call, the first call builds an index of every path in the combined mount,
+ * recording which mount each path comes from. Later calls are then a single lookup, and only reading a file touches
+ * the underlying mount.
+ * <p>
+ * The mounts are assumed not to change, unless a {@link DirectoryWatcher} is given, in which case the index is
+ * rebuilt after any files are created or removed.
+ */
 public class ComboMount implements Mount {
 	private final Mount[] mounts;
+	@Nullable
+	private final DirectoryWatcher watcher;
+
+	@Nullable
+	private volatile Index index;
 
-	public ComboMount(Mount[] mounts) {this.mounts = mounts;}
+	public ComboMount(Mount[] mounts) {
+		this(mounts, null);
+	}
+
+	/**
+	 * Create a new mount.
+	 *
+	 * @param mounts  The mounts to combine, in order of priority.
+	 * @param watcher Watches for changes to any of the mounts' files, or {@code null} if they never change.
+	 */
+	public ComboMount(Mount[] mounts, @Nullable DirectoryWatcher watcher) {
+		this.mounts = mounts;
+		this.watcher = watcher;
+	}
 
 	@Override
 	public boolean exists(String path) throws IOException {
-		for (var mount : mounts) {
-			if (mount.exists(path)) return true;
-		}
-		return false;
+		return index().entries.containsKey(path);
 	}
 
 	@Override
 	public boolean isDirectory(String path) throws IOException {
-		for (var mount : mounts) {
-			if (mount.isDirectory(path)) return true;
-		}
-		return false;
+		Entry entry = index().entries.get(path);
+		return entry != null && entry.children != null;
 	}
 
 	@Override
 	public void list(String path, List<String> contents) throws IOException {
-		List<String> foundFiles = null;
-		for (var mount : mounts) {
-			if (!mount.isDirectory(path)) continue;
-
-			if (foundFiles == null) foundFiles = new ArrayList<>();
-			mount.list(path, foundFiles);
-		}
-
-		if (foundFiles == null) throw new FileOperationException(path, "Not a directory");
-		foundFiles.stream().distinct().forEach(contents::add);
+		Entry entry = index().entries.get(path);
+		if (entry == null || entry.children == null) throw new FileOperationException(path, "Not a directory");
+		contents.addAll(entry.children);
 	}
 
 	@Override
 	public long getSize(String path) throws IOException {
-		for (var mount : mounts) {
-			if (mount.exists(path)) return mount.getSize(path);
-		}
-		throw new FileOperationException(path, "No such file");
+		return owner(path).getSize(path);
 	}
 
 	@Override
 	public SeekableByteChannel openForRead(String path) throws IOException {
-		for (var mount : mounts) {
-			if (mount.exists(path)) return mount.openForRead(path);
-		}
-		throw new FileOperationException(path, "No such file");
+		return owner(path).openForRead(path);
 	}
 
 	@Override
 	public BasicFileAttributes getAttributes(String path) throws IOException {
-		for (var mount : mounts) {
-			if (mount.exists(path)) return mount.getAttributes(path);
+		return owner(path).getAttributes(path);
+	}
+
+	private Mount owner(String path) throws IOException {
+		Entry entry = index().entries.get(path);
+		if (entry == null) throw new FileOperationException(path, "No such file");
+		return mounts[entry.owner];
+	}
+
+	private Index index() throws IOException {
+		long version = watcher == null ? 0 : watcher.getVersion();
+		Index index = this.index;
+		if (index != null && index.version == version) return index;
+
+		synchronized (this) {
+			index = this.index;
+			if (index != null && index.version == version) return index;
+
+			return this.index = buildIndex(version);
+		}
+	}
+
+	private Index buildIndex(long version) throws IOException {
+		Map<String, Entry> entries = new HashMap<>();
+		Deque<String> queue = new ArrayDeque<>();
+		queue.add("");
+
+		while (!queue.isEmpty()) {
+			String path = queue.remove();
+
+			// A path belongs to the first mount it exists in, but is a directory if it is one in any mount.
+			int owner = -1;
+			Set<String> children = null;
+			for (int i = 0; i < mounts.length; i++) {
+				Mount mount = mounts[i];
+				if (!mount.exists(path)) continue;
+				if (owner < 0) owner = i;
+
+				if (mount.isDirectory(path)) {
+					List<String> found = new ArrayList<>();
+					mount.list(path, found);
+					if (children == null) children = new LinkedHashSet<>();
+					children.addAll(found);
+				}
+			}
+
+			if (owner < 0) continue;
+
+			List<String> childList = null;
+			if (children != null) {
+				childList = Collections.unmodifiableList(new ArrayList<>(children));
+				for (String child : childList) queue.add(path.isEmpty() ? child : path + "/" + child);
+			}
+
+			entries.put(path, new Entry(owner, childList));
+		}
+
+		return new Index(version, entries);
+	}
+
+	private static final class Index {
+		final long version;
+		final Map<String, Entry> entries;
+
+		Index(long version, Map<String, Entry> entries) {
+			this.version = version;
+			this.entries = entries;
+		}
+	}
+
+	private static final class Entry {
+		/**
+		 * The index of the first mount this path exists in.
+		 */
+		final int owner;
+
+		/**
+		 * The names of this directory's children across all mounts, or {@code null} if this is not a directory.
+		 */
+		@Nullable
+		final List<String> children;
+
+		Entry(int owner, @Nullable List<String> children) {
+			this.owner = owner;
+			this.children = children;
 		}
-		throw new FileOperationException(path, "No such file");
 	}
 }
@@ -3,21 +3,56 @@ package net.clgd.ccemux.emulation;
 import java.util.Optional;
 import java.util.function.Supplier;
 
+import javax.annotation.Nullable;
+
 import dan200.computercraft.api.filesystem.WritableMount;
 import dan200.computercraft.core.computer.ComputerEnvironment;
 import dan200.computercraft.core.filesystem.WritableFileMount;
 import dan200.computercraft.core.metrics.Metric;
 import dan200.computercraft.core.metrics.MetricsObserver;
+import org.squiddev.cobalt.debug.Coverage;
 
 class ComputerEnvironmentImpl implements ComputerEnvironment, MetricsObserver {
 	private final CCEmuX emu;
 	private final int id;
 	private final Supplier<WritableMount> mount;
+	@Nullable
+	private final Coverage coverage;
+	private final MetricsObserver metrics;
+
+	@Nullable
+	private volatile WritableMount rootMount;
 
 	ComputerEnvironmentImpl(CCEmuX emu, int id, Supplier<WritableMount> mount) {
 		this.emu = emu;
 		this.id = id;
 		this.mount = mount;
+
+		CoverageCollector collector = emu.coverage();
+		coverage = collector == null ? null : collector.register(this);
+
+		MetricsCollector metricsCollector = emu.metrics();
+		metrics = metricsCollector == null ? MetricsObserver.discard() : metricsCollector.observer(id);
+	}
+
+	int getId() {
+		return id;
+	}
+
+	@Nullable
+	@Override
+	public Coverage getCoverage() {
+		return coverage;
+	}
+
+	/**
+	 * Get the root mount most recently created for this computer.
+	 *
+	 * @return The computer's root mount, or {@code null} if it has not been created yet.
+	 */
+	@Nullable
+	WritableMount getRootMount() {
+		return rootMount;
 	}
 
 	@Override
@@ -27,11 +62,12 @@ class ComputerEnvironmentImpl implements ComputerEnvironment, MetricsObserver {
 
 	@Override
 	public WritableMount createRootMount() {
-		return Optional.ofNullable(mount)
+		return rootMount = Optional.ofNullable(mount)
 			.map(Supplier::get)
 			.orElseGet(() -> new WritableFileMount(
 				emu.getConfig().getComputerDir().resolve(Integer.toString(id)).toFile(),
-				emu.getConfig().maxComputerCapacity.get()
+				emu.getConfig().maxComputerCapacity.get(),
+				emu.getFileWriter()
 			));
 	}
 
@@ -47,9 +83,11 @@ class ComputerEnvironmentImpl implements ComputerEnvironment, MetricsObserver {
 
 	@Override
 	public void observe(Metric.Counter counter) {
+		metrics.observe(counter);
 	}
 
 	@Override
 	public void observe(Metric.Event event, long value) {
+		metrics.observe(event, value);
 	}
 }
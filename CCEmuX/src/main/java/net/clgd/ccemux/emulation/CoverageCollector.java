@@ -0,0 +1,126 @@
+package net.clgd.ccemux.emulation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.annotation.Nullable;
+
+import dan200.computercraft.api.filesystem.Mount;
+import dan200.computercraft.core.filesystem.FileMount;
+import dan200.computercraft.core.filesystem.FileSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.squiddev.cobalt.LuaString;
+import org.squiddev.cobalt.debug.Coverage;
+import org.squiddev.cobalt.debug.SourceCoverage;
+
+/**
+ * Records line and branch coverage of the Lua code run by every computer, and writes it as a report once emulation has
+ * finished.
+ * <p>
+ * Each computer records to its own {@link Coverage}. When collecting coverage, chunk names (such as
+ * {@code @/startup.lua}) are mapped back to files on the host through that computer's mounts. Code which does not come
+ * from a file on the host (for instance, ROM files inside the CC jar, or strings passed to {@code load}) is not
+ * included in the report.
+ */
+public class CoverageCollector {
+	private static final Logger log = LoggerFactory.getLogger(CoverageCollector.class);
+
+	private final FileMount resources;
+
+	private final List<ComputerEnvironmentImpl> computers = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Create a new coverage collector.
+	 *
+	 * @param assetDir The asset directory, used to find the BIOS and ROM. This should match
+	 *                 {@link net.clgd.ccemux.init.UserConfig#getAssetDir()}.
+	 */
+	public CoverageCollector(Path assetDir) {
+		resources = new FileMount(assetDir.resolve(Paths.get("computercraft", "lua")));
+	}
+
+	Coverage register(ComputerEnvironmentImpl computer) {
+		computers.add(computer);
+		return new Coverage();
+	}
+
+	/**
+	 * Collect the coverage recorded by all computers so far, grouping it by file on the host.
+	 *
+	 * @return The coverage of each file.
+	 */
+	public Map<Path, SourceCoverage> collect() {
+		Map<Path, SourceCoverage> files = new HashMap<>();
+		for (ComputerEnvironmentImpl computer : computers) {
+			Coverage coverage = computer.getCoverage();
+			if (coverage == null) continue;
+
+			for (Map.Entry<LuaString, SourceCoverage> chunk : coverage.collect().entrySet()) {
+				Path file = resolve(computer, chunk.getKey().toString());
+				if (file == null) {
+					log.debug("Cannot find file for chunk {} on computer {}, skipping", chunk.getKey(), computer.getId());
+					continue;
+				}
+
+				files.computeIfAbsent(file, x -> new SourceCoverage()).merge(chunk.getValue());
+			}
+		}
+
+		return files;
+	}
+
+	/**
+	 * Write a coverage report. Files ending in {@code .xml} are written as Cobertura reports, and all other files are
+	 * written as lcov tracefiles.
+	 *
+	 * @param output The file to write to.
+	 * @throws IOException If the report could not be written.
+	 */
+	public void write(Path output) throws IOException {
+		Map<Path, SourceCoverage> coverage = collect();
+
+		Path parent = output.toAbsolutePath().getParent();
+		if (parent != null) Files.createDirectories(parent);
+
+		try (Writer writer = Files.newBufferedWriter(output)) {
+			if (output.getFileName().toString().endsWith(".xml")) {
+				CoverageReport.writeCobertura(coverage, Paths.get("").toAbsolutePath(), writer);
+			} else {
+				CoverageReport.writeLcov(coverage, writer);
+			}
+		}
+
+		log.info("Wrote coverage of {} files to {}", coverage.size(), output);
+	}
+
+	@Nullable
+	private Path resolve(ComputerEnvironmentImpl computer, String chunkName) {
+		// The BIOS is loaded as a resource rather than from the ROM, so has no leading slash.
+		if (chunkName.equals("@bios.lua")) return resolve(resources, "bios.lua");
+
+		// Files loaded by the BIOS and shell are named "@/" followed by their absolute path.
+		if (!chunkName.startsWith("@/")) return null;
+
+		String path = FileSystem.sanitizePath(chunkName.substring(2), false);
+		return path.startsWith("rom/") ? resolve(resources, path) : resolve(computer.getRootMount(), path);
+	}
+
+	@Nullable
+	private static Path resolve(@Nullable Mount mount, String path) {
+		try {
+			if (!(mount instanceof FileMount) || !mount.exists(path) || mount.isDirectory(path)) return null;
+			return ((FileMount) mount).resolvePath(path).toAbsolutePath().normalize();
+		} catch (IOException e) {
+			log.warn("Failed to resolve file {}", path, e);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,218 @@
+package net.clgd.ccemux.emulation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.*;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.squiddev.cobalt.debug.SourceCoverage;
+
+/**
+ * Writes the coverage collected by a {@link CoverageCollector} as an lcov tracefile or a Cobertura XML report.
+ */
+public final class CoverageReport {
+	private CoverageReport() {
+	}
+
+	/**
+	 * Write coverage in lcov's tracefile format.
+	 *
+	 * @param files  The coverage of each file.
+	 * @param writer The writer to write the report to.
+	 * @throws IOException If the report could not be written.
+	 */
+	public static void writeLcov(Map<Path, SourceCoverage> files, Writer writer) throws IOException {
+		for (Map.Entry<Path, SourceCoverage> file : sorted(files)) {
+			SourceCoverage coverage = file.getValue();
+
+			writer.write("TN:\n");
+			writer.write("SF:" + file.getKey() + "\n");
+
+			int branchesFound = 0, branchesHit = 0;
+			for (Conditional conditional : conditionals(coverage)) {
+				long[] taken = conditional.taken();
+				for (int branch = 0; branch < taken.length; branch++) {
+					branchesFound++;
+					if (taken[branch] > 0) branchesHit++;
+
+					String count = conditional.executed() ? Long.toString(taken[branch]) : "-";
+					writer.write("BRDA:" + conditional.line() + "," + conditional.block() + "," + branch + "," + count + "\n");
+				}
+			}
+			writer.write("BRF:" + branchesFound + "\n");
+			writer.write("BRH:" + branchesHit + "\n");
+
+			for (Map.Entry<Integer, Long> line : coverage.lines().entrySet()) {
+				writer.write("DA:" + line.getKey() + "," + line.getValue() + "\n");
+			}
+			writer.write("LF:" + coverage.lines().size() + "\n");
+			writer.write("LH:" + linesHit(coverage) + "\n");
+			writer.write("end_of_record\n");
+		}
+	}
+
+	/**
+	 * Write coverage as a Cobertura XML report. Each directory is written as a package, and each file as a class.
+	 *
+	 * @param files  The coverage of each file.
+	 * @param root   The directory file names should be relative to.
+	 * @param writer The writer to write the report to.
+	 * @throws IOException If the report could not be written.
+	 */
+	public static void writeCobertura(Map<Path, SourceCoverage> files, Path root, Writer writer) throws IOException {
+		Map<String, Map<Path, SourceCoverage>> packages = new TreeMap<>();
+		for (Map.Entry<Path, SourceCoverage> file : files.entrySet()) {
+			Path parent = relativise(root, file.getKey()).getParent();
+			packages.computeIfAbsent(parent == null ? "." : parent.toString().replace('\\', '/'), x -> new HashMap<>())
+				.put(file.getKey(), file.getValue());
+		}
+
+		try {
+			XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+			xml.writeStartDocument("UTF-8", "1.0");
+			xml.writeCharacters("\n");
+
+			xml.writeStartElement("coverage");
+			writeRates(xml, files.values(), true);
+			xml.writeAttribute("version", CCEmuX.getVersion());
+			xml.writeAttribute("timestamp", Long.toString(System.currentTimeMillis() / 1000));
+
+			xml.writeStartElement("sources");
+			xml.writeStartElement("source");
+			xml.writeCharacters(root.toString());
+			xml.writeEndElement();
+			xml.writeEndElement();
+
+			xml.writeStartElement("packages");
+			for (Map.Entry<String, Map<Path, SourceCoverage>> pkg : packages.entrySet()) {
+				xml.writeStartElement("package");
+				xml.writeAttribute("name", pkg.getKey());
+				writeRates(xml, pkg.getValue().values(), false);
+
+				xml.writeStartElement("classes");
+				for (Map.Entry<Path, SourceCoverage> file : sorted(pkg.getValue())) {
+					String name = relativise(root, file.getKey()).toString().replace('\\', '/');
+					xml.writeStartElement("class");
+					xml.writeAttribute("name", name);
+					xml.writeAttribute("filename", name);
+					writeRates(xml, Collections.singleton(file.getValue()), false);
+					xml.writeEmptyElement("methods");
+					writeLines(xml, file.getValue());
+					xml.writeEndElement();
+				}
+				xml.writeEndElement();
+
+				xml.writeEndElement();
+			}
+			xml.writeEndElement();
+
+			xml.writeEndElement();
+			xml.writeEndDocument();
+			xml.flush();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static void writeLines(XMLStreamWriter xml, SourceCoverage coverage) throws XMLStreamException {
+		Map<Integer, List<Conditional>> conditionals = new HashMap<>();
+		for (Conditional conditional : conditionals(coverage)) {
+			conditionals.computeIfAbsent(conditional.line(), x -> new ArrayList<>()).add(conditional);
+		}
+
+		xml.writeStartElement("lines");
+		for (Map.Entry<Integer, Long> line : coverage.lines().entrySet()) {
+			xml.writeEmptyElement("line");
+			xml.writeAttribute("number", Integer.toString(line.getKey()));
+			xml.writeAttribute("hits", Long.toString(line.getValue()));
+
+			List<Conditional> lineConditionals = conditionals.get(line.getKey());
+			if (lineConditionals == null) {
+				xml.writeAttribute("branch", "false");
+			} else {
+				int found = 0, hit = 0;
+				for (Conditional conditional : lineConditionals) {
+					for (long taken : conditional.taken()) {
+						found++;
+						if (taken > 0) hit++;
+					}
+				}
+
+				xml.writeAttribute("branch", "true");
+				xml.writeAttribute("condition-coverage", (hit * 100 / found) + "% (" + hit + "/" + found + ")");
+			}
+		}
+		xml.writeEndElement();
+	}
+
+	private static void writeRates(XMLStreamWriter xml, Collection<SourceCoverage> files, boolean totals) throws XMLStreamException {
+		long linesFound = 0, linesHit = 0, branchesFound = 0, branchesHit = 0;
+		for (SourceCoverage coverage : files) {
+			linesFound += coverage.lines().size();
+			linesHit += linesHit(coverage);
+			for (Map.Entry<SourceCoverage.Branch, Long> branch : coverage.branches().entrySet()) {
+				branchesFound++;
+				if (branch.getValue() > 0) branchesHit++;
+			}
+		}
+
+		xml.writeAttribute("line-rate", rate(linesHit, linesFound));
+		xml.writeAttribute("branch-rate", rate(branchesHit, branchesFound));
+		if (totals) {
+			xml.writeAttribute("lines-covered", Long.toString(linesHit));
+			xml.writeAttribute("lines-valid", Long.toString(linesFound));
+			xml.writeAttribute("branches-covered", Long.toString(branchesHit));
+			xml.writeAttribute("branches-valid", Long.toString(branchesFound));
+		}
+		xml.writeAttribute("complexity", "0");
+	}
+
+	private static String rate(long hit, long found) {
+		return found == 0 ? "1" : Double.toString((double) hit / found);
+	}
+
+	private static long linesHit(SourceCoverage coverage) {
+		return coverage.lines().values().stream().filter(x -> x > 0).count();
+	}
+
+	private static Path relativise(Path root, Path path) {
+		return path.startsWith(root) ? root.relativize(path) : path;
+	}
+
+	private static List<Map.Entry<Path, SourceCoverage>> sorted(Map<Path, SourceCoverage> files) {
+		List<Map.Entry<Path, SourceCoverage>> entries = new ArrayList<>(files.entrySet());
+		entries.sort(Map.Entry.comparingByKey());
+		return entries;
+	}
+
+	/**
+	 * Group the branches of a file by the conditional they belong to.
+	 */
+	private static List<Conditional> conditionals(SourceCoverage coverage) {
+		Map<SourceCoverage.Branch, long[]> conditionals = new TreeMap<>();
+		for (Map.Entry<SourceCoverage.Branch, Long> branch : coverage.branches().entrySet()) {
+			SourceCoverage.Branch key = branch.getKey();
+			long[] taken = conditionals.computeIfAbsent(new SourceCoverage.Branch(key.line(), key.block(), 0), x -> new long[2]);
+			taken[key.branch()] = branch.getValue();
+		}
+
+		List<Conditional> result = new ArrayList<>(conditionals.size());
+		for (Map.Entry<SourceCoverage.Branch, long[]> conditional : conditionals.entrySet()) {
+			result.add(new Conditional(conditional.getKey().line(), conditional.getKey().block(), conditional.getValue()));
+		}
+		return result;
+	}
+
+	private record Conditional(int line, int block, long[] taken) {
+		boolean executed() {
+			for (long count : taken) {
+				if (count > 0) return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package net.clgd.ccemux.emulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks whether files have been created or deleted within a directory, so caches of its contents can be discarded.
+ * <p>
+ * Rather than running a background thread, pending events are drained whenever the {@linkplain #getVersion()
+ * version} is checked. This is a cheap, in-memory operation. As file events are delivered asynchronously, a change may
+ * not be seen for a short while after it happens.
+ */
+public final class DirectoryWatcher {
+	private static final Logger log = LoggerFactory.getLogger(DirectoryWatcher.class);
+
+	private final Path root;
+	@Nullable
+	private final WatchService service;
+	private long version = 0;
+
+	/**
+	 * Start watching a directory and all its subdirectories. If the directory does not exist yet, its closest existing
+	 * parent is watched instead, until it is created.
+	 *
+	 * @param root The directory to watch.
+	 */
+	public DirectoryWatcher(@Nonnull Path root) {
+		this.root = root.toAbsolutePath().normalize();
+
+		WatchService service = null;
+		try {
+			service = this.root.getFileSystem().newWatchService();
+			register(service);
+		} catch (IOException | UncheckedIOException | UnsupportedOperationException e) {
+			log.warn("Cannot watch {} for changes. Changes will not be seen until computers are rebooted.", root, e);
+		}
+		this.service = service;
+	}
+
+	/**
+	 * Get the current version of the directory. This changes whenever a file is created or removed.
+	 *
+	 * @return The directory's version.
+	 */
+	public synchronized long getVersion() {
+		WatchService service = this.service;
+		if (service == null) return version;
+
+		boolean changed = false;
+		WatchKey key;
+		while ((key = service.poll()) != null) {
+			// We don't care what the events are, only that something changed.
+			key.pollEvents();
+			key.reset();
+			changed = true;
+		}
+
+		if (changed) {
+			version++;
+
+			// Any new directories must also be watched.
+			try {
+				register(service);
+			} catch (IOException | UncheckedIOException e) {
+				log.warn("Cannot watch {} for changes", root, e);
+			}
+		}
+
+		return version;
+	}
+
+	private void register(WatchService service) throws IOException {
+		Path watched = root;
+		while (watched != null && !Files.isDirectory(watched)) watched = watched.getParent();
+		if (watched == null) return;
+
+		if (!watched.equals(root)) {
+			watch(service, watched);
+			return;
+		}
+
+		try (Stream<Path> directories = Files.walk(root)) {
+			for (Path directory : (Iterable<Path>) directories.filter(Files::isDirectory)::iterator) {
+				watch(service, directory);
+			}
+		}
+	}
+
+	private static void watch(WatchService service, Path directory) throws IOException {
+		// Registering a directory which is already watched just returns the existing key, so this is safe to repeat.
+		directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+	}
+}
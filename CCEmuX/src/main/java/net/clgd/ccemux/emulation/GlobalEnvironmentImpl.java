@@ -5,7 +5,10 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import dan200.computercraft.api.filesystem.Mount;
 import dan200.computercraft.core.computer.GlobalEnvironment;
@@ -21,6 +24,12 @@ class GlobalEnvironmentImpl implements GlobalEnvironment {
 
 	private final CCEmuX emu;
 
+	/**
+	 * Watchers for each resource directory. These are shared between computers, as the ROM is mounted again every time
+	 * a computer boots.
+	 */
+	private final Map<Path, DirectoryWatcher> watchers = new ConcurrentHashMap<>();
+
 	GlobalEnvironmentImpl(CCEmuX emu) {
 		this.emu = emu;
 	}
@@ -49,15 +58,19 @@ class GlobalEnvironmentImpl implements GlobalEnvironment {
 
 		VirtualDirectory.Builder romBuilder = new VirtualDirectory.Builder();
 		emu.getPluginMgr().onCreatingROM(emu, romBuilder);
+		BatchRunner batch = emu.batch();
+		if (batch != null) batch.addRomEntries(romBuilder);
 
+		// Only the data directory may change, the other mounts are fixed once created.
+		Path assetDir = emu.getConfig().getAssetDir().resolve(Paths.get(domain, subPath));
 		return new ComboMount(new Mount[]{
 			// From data directory
-			new FileMount(emu.getConfig().getAssetDir().resolve(Paths.get(domain, subPath))),
+			new FileMount(assetDir),
 			// From plugin files
 			new VirtualMount(romBuilder.build()),
 			// From ComputerCraft JAR
 			jarMount,
-		});
+		}, watchers.computeIfAbsent(assetDir, DirectoryWatcher::new));
 	}
 
 	@Override
@@ -0,0 +1,150 @@
+package net.clgd.ccemux.emulation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes the results of a {@link BatchRunner} as a JUnit XML report, as understood by most CI systems.
+ * <p>
+ * Each test file is written as a test suite. Test cases reported with {@code batch.report} are written as test cases
+ * within that suite. If the file did not report any test cases, or did not exit successfully, an additional test case
+ * with the same name as the file is written, which records how it exited.
+ */
+public final class JUnitReport {
+	private JUnitReport() {
+	}
+
+	/**
+	 * Write a JUnit XML report.
+	 *
+	 * @param tests  The test files which were run.
+	 * @param writer The writer to write the report to.
+	 * @throws IOException If the report could not be written.
+	 */
+	public static void write(List<BatchRunner.TestFile> tests, Writer writer) throws IOException {
+		int total = 0, failures = 0, errors = 0;
+		long time = 0;
+		for (BatchRunner.TestFile test : tests) {
+			total += count(test);
+			failures += failures(test);
+			if (test.isTimedOut()) errors++;
+			time += test.getTime();
+		}
+
+		try {
+			XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+			xml.writeStartDocument("UTF-8", "1.0");
+			xml.writeCharacters("\n");
+
+			xml.writeStartElement("testsuites");
+			xml.writeAttribute("name", "CCEmuX");
+			writeCounts(xml, total, failures, errors, time / 1000.0);
+
+			for (BatchRunner.TestFile test : tests) {
+				xml.writeStartElement("testsuite");
+				xml.writeAttribute("name", sanitise(test.getName()));
+				writeCounts(xml, count(test), failures(test), test.isTimedOut() ? 1 : 0, test.getTime() / 1000.0);
+
+				for (BatchRunner.TestCase testCase : test.getCases()) {
+					writeCase(xml, test.getName(), testCase.name(), testCase.time(), testCase.ok() ? null : "failure", testCase.message());
+				}
+
+				if (hasExitCase(test)) {
+					String kind = test.isTimedOut() ? "error" : test.getExitCode() != 0 ? "failure" : null;
+					String message = test.getMessage();
+					if (message == null && kind != null) message = "Exited with code " + test.getExitCode();
+					writeCase(xml, test.getName(), test.getName(), test.getTime() / 1000.0, kind, message);
+				}
+
+				xml.writeStartElement("system-out");
+				writeCData(xml, test.getOutput());
+				xml.writeEndElement();
+
+				xml.writeEndElement();
+			}
+
+			xml.writeEndElement();
+			xml.writeEndDocument();
+			xml.flush();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static void writeCase(XMLStreamWriter xml, String className, String name, double time, @Nullable String kind, @Nullable String message) throws XMLStreamException {
+		xml.writeStartElement("testcase");
+		xml.writeAttribute("classname", sanitise(className));
+		xml.writeAttribute("name", sanitise(name));
+		xml.writeAttribute("time", Double.toString(time));
+		if (kind != null) {
+			xml.writeStartElement(kind);
+			if (message != null) {
+				message = sanitise(message);
+				xml.writeAttribute("message", message.lines().findFirst().orElse(""));
+				xml.writeCharacters(message);
+			}
+			xml.writeEndElement();
+		}
+		xml.writeEndElement();
+	}
+
+	/**
+	 * Write a CDATA section. As CDATA cannot contain {@code ]]>}, this is split across several sections where needed.
+	 */
+	private static void writeCData(XMLStreamWriter xml, String text) throws XMLStreamException {
+		text = sanitise(text);
+		int start = 0, end;
+		while ((end = text.indexOf("]]>", start)) >= 0) {
+			xml.writeCData(text.substring(start, end + 2));
+			start = end + 2;
+		}
+		xml.writeCData(text.substring(start));
+	}
+
+	/**
+	 * Remove any characters which cannot appear in an XML 1.0 document, such as most control characters. These cannot
+	 * be escaped, so would otherwise produce a report which fails to parse.
+	 */
+	private static String sanitise(String text) {
+		if (text.codePoints().allMatch(JUnitReport::isValid)) return text;
+
+		StringBuilder out = new StringBuilder(text.length());
+		text.codePoints().filter(JUnitReport::isValid).forEach(out::appendCodePoint);
+		return out.toString();
+	}
+
+	private static boolean isValid(int c) {
+		return c == '\t' || c == '\n' || c == '\r'
+			|| (c >= 0x20 && c <= 0xD7FF) || (c >= 0xE000 && c <= 0xFFFD) || (c >= 0x10000 && c <= 0x10FFFF);
+	}
+
+	private static void writeCounts(XMLStreamWriter xml, int tests, int failures, int errors, double time) throws XMLStreamException {
+		xml.writeAttribute("tests", Integer.toString(tests));
+		xml.writeAttribute("failures", Integer.toString(failures));
+		xml.writeAttribute("errors", Integer.toString(errors));
+		xml.writeAttribute("time", Double.toString(time));
+	}
+
+	private static boolean hasExitCase(BatchRunner.TestFile test) {
+		return test.getCases().isEmpty() || test.isTimedOut() || test.getExitCode() != 0;
+	}
+
+	private static int count(BatchRunner.TestFile test) {
+		return test.getCases().size() + (hasExitCase(test) ? 1 : 0);
+	}
+
+	private static int failures(BatchRunner.TestFile test) {
+		int failures = 0;
+		for (BatchRunner.TestCase testCase : test.getCases()) {
+			if (!testCase.ok()) failures++;
+		}
+		if (!test.isTimedOut() && test.getExitCode() != 0) failures++;
+		return failures;
+	}
+}
@@ -0,0 +1,321 @@
+package net.clgd.ccemux.emulation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dan200.computercraft.core.metrics.Metric;
+import dan200.computercraft.core.metrics.MetricsObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregates the {@linkplain dan200.computercraft.core.metrics.Metrics metrics} reported by every computer, so they
+ * can be exported to other tools.
+ * <p>
+ * Counters are recorded as a simple total. Events are sorted into a histogram, whose buckets depend on the event's
+ * unit. Metrics are kept per computer ID, so rebooting or recreating a computer adds to its existing metrics.
+ * <p>
+ * Metrics may either be served over HTTP in Prometheus' text format (see {@link #serve(int)}), or written as JSON once
+ * emulation has finished (see {@link #write(Path)}).
+ */
+public class MetricsCollector {
+	private static final Logger log = LoggerFactory.getLogger(MetricsCollector.class);
+
+	private static final String PREFIX = "ccemux_";
+
+	/**
+	 * Bucket bounds for events measured in nanoseconds, from 10 microseconds up to the time a computer may run before it is
+	 * terminated.
+	 */
+	private static final long[] TIME_BUCKETS = {
+		10_000L, 100_000L, 1_000_000L, 5_000_000L, 10_000_000L, 50_000_000L, 100_000_000L, 500_000_000L,
+		1_000_000_000L, 5_000_000_000L, 10_000_000_000L,
+	};
+
+	private static final long[] BYTE_BUCKETS = {
+		256, 1024, 4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024, 4 * 1024 * 1024, 16 * 1024 * 1024,
+	};
+
+	private static final long[] DEFAULT_BUCKETS = { 1, 10, 100, 1_000, 10_000, 100_000, 1_000_000 };
+
+	private final Map<Integer, ComputerMetrics> computers = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Get the observer which records metrics for a computer.
+	 *
+	 * @param id The computer's ID.
+	 * @return The observer for this computer. This is shared by all computers with the same ID.
+	 */
+	public MetricsObserver observer(int id) {
+		return computers.computeIfAbsent(id, x -> new ComputerMetrics());
+	}
+
+	/**
+	 * Write all metrics recorded so far in Prometheus' text exposition format.
+	 * <p>
+	 * Each metric is labelled with the ID of the computer which reported it. Times are converted into seconds, to
+	 * follow Prometheus' conventions.
+	 *
+	 * @param writer The writer to write to.
+	 * @throws IOException If the metrics could not be written.
+	 */
+	public void writePrometheus(Writer writer) throws IOException {
+		for (Metric metric : sortedMetrics()) {
+			String name = PREFIX + metric.name();
+			// Values are divided by this to convert them into Prometheus' base unit.
+			double scale = 1;
+			switch (metric.unit()) {
+				case "":
+					break;
+				case "ns":
+					name += "_seconds";
+					scale = 1e9;
+					break;
+				default:
+					name += "_" + metric.unit();
+					break;
+			}
+
+			boolean isCounter = metric instanceof Metric.Counter;
+			if (isCounter) name += "_total";
+
+			boolean wroteHeader = false;
+			for (Map.Entry<Integer, ComputerMetrics> computer : computers.entrySet()) {
+				String label = "computer=\"" + computer.getKey() + "\"";
+
+				if (isCounter) {
+					AtomicLong counter = computer.getValue().counters.get(metric);
+					if (counter == null) continue;
+
+					if (!wroteHeader) writeHeader(writer, name, "counter", metric);
+					wroteHeader = true;
+					writer.write(name + "{" + label + "} " + counter.get() + "\n");
+				} else {
+					Histogram histogram = computer.getValue().events.get(metric);
+					if (histogram == null) continue;
+
+					if (!wroteHeader) writeHeader(writer, name, "histogram", metric);
+					wroteHeader = true;
+
+					// The count is derived from the buckets rather than tracked separately, so the two always agree.
+					long cumulative = 0;
+					for (int i = 0; i < histogram.bounds.length; i++) {
+						cumulative += histogram.buckets.get(i);
+						writer.write(name + "_bucket{" + label + ",le=\"" + formatDouble(histogram.bounds[i] / scale) + "\"} " + cumulative + "\n");
+					}
+					cumulative += histogram.buckets.get(histogram.bounds.length);
+					writer.write(name + "_bucket{" + label + ",le=\"+Inf\"} " + cumulative + "\n");
+					writer.write(name + "_sum{" + label + "} " + formatDouble(histogram.sum.get() / scale) + "\n");
+					writer.write(name + "_count{" + label + "} " + cumulative + "\n");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write all metrics recorded so far as JSON. Unlike {@link #writePrometheus(Writer)}, values are written in the
+	 * metric's original unit.
+	 *
+	 * @param writer The writer to write to.
+	 * @throws IOException If the metrics could not be written.
+	 */
+	public void writeJson(Writer writer) throws IOException {
+		List<Metric> metrics = sortedMetrics();
+
+		JsonWriter json = new JsonWriter(writer);
+		json.setIndent("  ");
+		json.beginObject().name("computers").beginArray();
+		for (Map.Entry<Integer, ComputerMetrics> computer : computers.entrySet()) {
+			json.beginObject().name("id").value(computer.getKey());
+
+			json.name("counters").beginObject();
+			for (Metric metric : metrics) {
+				AtomicLong counter = computer.getValue().counters.get(metric);
+				if (counter != null) json.name(metric.name()).value(counter.get());
+			}
+			json.endObject();
+
+			json.name("events").beginObject();
+			for (Metric metric : metrics) {
+				Histogram histogram = computer.getValue().events.get(metric);
+				if (histogram == null) continue;
+
+				json.name(metric.name()).beginObject();
+				json.name("unit").value(metric.unit());
+
+				long count = 0;
+				json.name("buckets").beginArray();
+				for (int i = 0; i <= histogram.bounds.length; i++) {
+					long bucket = histogram.buckets.get(i);
+					count += bucket;
+
+					json.beginObject();
+					if (i < histogram.bounds.length) json.name("le").value(histogram.bounds[i]);
+					json.name("count").value(bucket).endObject();
+				}
+				json.endArray();
+
+				json.name("count").value(count);
+				json.name("sum").value(histogram.sum.get());
+				json.name("max").value(histogram.max.get());
+				json.endObject();
+			}
+			json.endObject();
+
+			json.endObject();
+		}
+		json.endArray().endObject();
+		json.flush();
+	}
+
+	/**
+	 * Write all metrics recorded so far to a JSON file.
+	 *
+	 * @param output The file to write to.
+	 * @throws IOException If the metrics could not be written.
+	 * @see #writeJson(Writer)
+	 */
+	public void write(Path output) throws IOException {
+		Path parent = output.toAbsolutePath().getParent();
+		if (parent != null) Files.createDirectories(parent);
+
+		try (Writer writer = Files.newBufferedWriter(output)) {
+			writeJson(writer);
+		}
+
+		log.info("Wrote metrics of {} computers to {}", computers.size(), output);
+	}
+
+	/**
+	 * Start a HTTP server which serves metrics on {@code /metrics}, in Prometheus' text format. The server only listens
+	 * on the loopback address.
+	 *
+	 * @param port The port to listen on.
+	 * @return The started server. This should be {@linkplain HttpServer#stop(int) stopped} once emulation has finished.
+	 * @throws IOException If the server could not be started.
+	 */
+	public HttpServer serve(int port) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/metrics", this::handle);
+		server.start();
+
+		log.info("Serving metrics on http://{}:{}/metrics", server.getAddress().getHostString(), server.getAddress().getPort());
+		return server;
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+
+			StringWriter writer = new StringWriter();
+			writePrometheus(writer);
+			byte[] body = writer.toString().getBytes(StandardCharsets.UTF_8);
+
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			if (exchange.getRequestMethod().equals("HEAD")) {
+				exchange.sendResponseHeaders(200, -1);
+			} else {
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream output = exchange.getResponseBody()) {
+					output.write(body);
+				}
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static List<Metric> sortedMetrics() {
+		return Metric.metrics().values().stream()
+			.sorted(Comparator.comparing(Metric::name))
+			.collect(Collectors.toList());
+	}
+
+	private static void writeHeader(Writer writer, String name, String type, Metric metric) throws IOException {
+		writer.write("# HELP " + name + " The " + metric.name() + " metric reported by each computer.\n");
+		writer.write("# TYPE " + name + " " + type + "\n");
+	}
+
+	private static String formatDouble(double value) {
+		return value == (long) value ? Long.toString((long) value) : Double.toString(value);
+	}
+
+	private static long[] bucketsFor(Metric metric) {
+		switch (metric.unit()) {
+			case "ns":
+				return TIME_BUCKETS;
+			case "bytes":
+				return BYTE_BUCKETS;
+			default:
+				return DEFAULT_BUCKETS;
+		}
+	}
+
+	/**
+	 * The metrics recorded for a single computer.
+	 */
+	private static final class ComputerMetrics implements MetricsObserver {
+		final Map<Metric, AtomicLong> counters = new ConcurrentHashMap<>();
+		final Map<Metric, Histogram> events = new ConcurrentHashMap<>();
+
+		@Override
+		public void observe(Metric.Counter counter) {
+			counters.computeIfAbsent(counter, x -> new AtomicLong()).incrementAndGet();
+		}
+
+		@Override
+		public void observe(Metric.Event event, long value) {
+			events.computeIfAbsent(event, x -> new Histogram(bucketsFor(x))).observe(value);
+		}
+	}
+
+	/**
+	 * A histogram of an event's values.
+	 */
+	private static final class Histogram {
+		final long[] bounds;
+
+		/**
+		 * The number of values in each bucket. This is not cumulative, and the last bucket contains all values larger
+		 * than the last bound.
+		 */
+		final AtomicLongArray buckets;
+		final AtomicLong sum = new AtomicLong();
+		final AtomicLong max = new AtomicLong();
+
+		Histogram(long[] bounds) {
+			this.bounds = bounds;
+			buckets = new AtomicLongArray(bounds.length + 1);
+		}
+
+		void observe(long value) {
+			int bucket = 0;
+			while (bucket < bounds.length && value > bounds[bucket]) bucket++;
+
+			buckets.incrementAndGet(bucket);
+			sum.addAndGet(value);
+			max.accumulateAndGet(value, Math::max);
+		}
+	}
+}
@@ -7,17 +7,20 @@ import java.awt.GraphicsEnvironment;
 import java.awt.SplashScreen;
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.net.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import javax.swing.*;
 
+import com.sun.net.httpserver.HttpServer;
 import dan200.computercraft.core.ComputerContext;
 import dan200.computercraft.core.filesystem.WritableFileMount;
 import org.apache.commons.cli.*;
@@ -27,7 +30,11 @@ import org.slf4j.LoggerFactory;
 import net.clgd.ccemux.api.OperatingSystem;
 import net.clgd.ccemux.api.rendering.RendererFactory;
 import net.clgd.ccemux.api.rendering.TerminalFont;
+import net.clgd.ccemux.emulation.BatchRunner;
 import net.clgd.ccemux.emulation.CCEmuX;
+import net.clgd.ccemux.emulation.CoverageCollector;
+import net.clgd.ccemux.emulation.JUnitReport;
+import net.clgd.ccemux.emulation.MetricsCollector;
 import net.clgd.ccemux.emulation.SessionState;
 import net.clgd.ccemux.plugins.PluginManager;
 
@@ -63,6 +70,28 @@ public class Launcher {
 			.desc("Sets the renderer to use. Run without a value to list all available renderers.").hasArg()
 			.optionalArg(true).argName("renderer").build());
 
+		opts.addOption(builder().longOpt("coverage").desc(
+			"Record line and branch coverage of Lua code, writing a report to this file once CCEmuX exits. Files ending in .xml are written in Cobertura format, and any others in lcov format.")
+			.hasArg().argName("file").build());
+
+		opts.addOption(builder().longOpt("metrics").desc(
+			"Record each computer's metrics (such as CPU time, and the time spent in peripheral and filesystem calls), writing them as JSON to this file once CCEmuX exits.")
+			.hasArg().argName("file").build());
+
+		opts.addOption(builder().longOpt("metrics-port").desc(
+			"Record each computer's metrics, serving them in Prometheus' text format from http://localhost:[port]/metrics while CCEmuX is running.")
+			.hasArg().argName("port").build());
+
+		opts.addOption(builder().longOpt("test").desc(
+			"Run in batch mode, running this Lua test file on its own headless computer and exiting once all tests have finished. Directories are searched for .lua files. Each computer's root is the current directory.")
+			.hasArg().argName("path").build());
+
+		opts.addOption(builder().longOpt("test-report").desc("Write the results of --test as a JUnit XML report to this file.")
+			.hasArg().argName("file").build());
+
+		opts.addOption(builder().longOpt("test-timeout").desc("The maximum time each --test file may run for, in seconds. Defaults to 60.")
+			.hasArg().argName("seconds").build());
+
 		opts.addOption(builder().longOpt("plugin").desc(
 			"Used to load additional plugins not present in the default plugin directory. Value should be a path to a .jar file.")
 			.hasArg().argName("file").build());
@@ -114,8 +143,46 @@ public class Launcher {
 
 		String termSize = cli.getOptionValue("term-size");
 
-		new Launcher(dataDir, assetDir, computerDir, startIn, listRenderers, renderer, termSize, plugins).launch();
-		System.exit(0);
+		List<Path> coverageReports = cli.hasOption("coverage")
+			? Arrays.stream(cli.getOptionValues("coverage")).map(Paths::get).collect(Collectors.toList())
+			: Collections.emptyList();
+
+		List<Path> tests = cli.hasOption("test")
+			? Arrays.stream(cli.getOptionValues("test")).map(Paths::get).collect(Collectors.toList())
+			: Collections.emptyList();
+		Path testReport = cli.hasOption("test-report") ? Paths.get(cli.getOptionValue("test-report")) : null;
+
+		long testTimeout;
+		try {
+			testTimeout = TimeUnit.SECONDS.toMillis(Long.parseLong(cli.getOptionValue("test-timeout", "60")));
+		} catch (NumberFormatException e) {
+			System.err.println("Cannot parse test timeout '" + cli.getOptionValue("test-timeout") + "'");
+			System.exit(1);
+			return;
+		}
+
+		Path metricsReport = cli.hasOption("metrics") ? Paths.get(cli.getOptionValue("metrics")) : null;
+
+		int metricsPort;
+		try {
+			metricsPort = cli.hasOption("metrics-port") ? Integer.parseInt(cli.getOptionValue("metrics-port")) : -1;
+		} catch (NumberFormatException e) {
+			System.err.println("Cannot parse metrics port '" + cli.getOptionValue("metrics-port") + "'");
+			System.exit(1);
+			return;
+		}
+
+		int status = new Launcher(new LaunchOptions(dataDir, assetDir, computerDir)
+			.startDirs(startIn)
+			.listRenderers(listRenderers)
+			.renderer(renderer)
+			.termSize(termSize)
+			.plugins(plugins)
+			.coverageReports(coverageReports)
+			.tests(tests, testReport, testTimeout)
+			.metrics(metricsReport, metricsPort)
+		).launch();
+		System.exit(status);
 	}
 
 	private final Path dataDir;
@@ -126,16 +193,100 @@ public class Launcher {
 	private final String renderer;
 	private final String termSize;
 	private final List<Path> plugins;
+	private final List<Path> coverageReports;
+	private final List<Path> tests;
+	private final Path testReport;
+	private final long testTimeout;
+	private final Path metricsReport;
+	private final int metricsPort;
+
+	public Launcher(LaunchOptions options) {
+		this.dataDir = options.dataDir;
+		this.assetDir = options.assetDir;
+		this.computerDir = options.computerDir;
+		this.startDirs = options.startDirs;
+		this.listRenderers = options.listRenderers;
+		this.renderer = options.renderer;
+		this.termSize = options.termSize;
+		this.plugins = options.plugins;
+		this.coverageReports = options.coverageReports;
+		this.tests = options.tests;
+		this.testReport = options.testReport;
+		this.testTimeout = options.testTimeout;
+		this.metricsReport = options.metricsReport;
+		this.metricsPort = options.metricsPort;
+	}
+
+	/**
+	 * The options to launch CCEmuX with, usually parsed from the command line.
+	 * <p>
+	 * Only the data, asset and computer directories are required. Every other option defaults to the behaviour when
+	 * its command line flag is not given.
+	 */
+	public static final class LaunchOptions {
+		private final Path dataDir;
+		private final Path assetDir;
+		private final Path computerDir;
+		private List<Path> startDirs = Collections.emptyList();
+		private boolean listRenderers;
+		private String renderer;
+		private String termSize;
+		private List<Path> plugins = Collections.emptyList();
+		private List<Path> coverageReports = Collections.emptyList();
+		private List<Path> tests = Collections.emptyList();
+		private Path testReport;
+		private long testTimeout = TimeUnit.SECONDS.toMillis(60);
+		private Path metricsReport;
+		private int metricsPort = -1;
+
+		public LaunchOptions(Path dataDir, Path assetDir, Path computerDir) {
+			this.dataDir = dataDir;
+			this.assetDir = assetDir;
+			this.computerDir = computerDir;
+		}
+
+		public LaunchOptions startDirs(List<Path> startDirs) {
+			this.startDirs = startDirs;
+			return this;
+		}
+
+		public LaunchOptions listRenderers(boolean listRenderers) {
+			this.listRenderers = listRenderers;
+			return this;
+		}
 
-	public Launcher(Path dataDir, Path assetDir, Path computerDir, List<Path> startDirs, boolean listRenderers, String renderer, String termSize, List<Path> plugins) {
-		this.dataDir = dataDir;
-		this.assetDir = assetDir;
-		this.computerDir = computerDir;
-		this.startDirs = startDirs;
-		this.listRenderers = listRenderers;
-		this.renderer = renderer;
-		this.termSize = termSize;
-		this.plugins = plugins;
+		public LaunchOptions renderer(String renderer) {
+			this.renderer = renderer;
+			return this;
+		}
+
+		public LaunchOptions termSize(String termSize) {
+			this.termSize = termSize;
+			return this;
+		}
+
+		public LaunchOptions plugins(List<Path> plugins) {
+			this.plugins = plugins;
+			return this;
+		}
+
+		public LaunchOptions coverageReports(List<Path> coverageReports) {
+			this.coverageReports = coverageReports;
+			return this;
+		}
+
+		public LaunchOptions tests(List<Path> tests, Path testReport, long testTimeout) {
+			this.tests = tests;
+			this.testReport = testReport;
+			this.testTimeout = testTimeout;
+			return this;
+		}
+
+		public LaunchOptions metrics(Path metricsReport, int metricsPort) {
+			this.metricsReport = metricsReport;
+			this.metricsPort = metricsPort;
+			return this;
+		}
 	}
 
 	private void crashMessage(Throwable e) {
@@ -219,7 +370,26 @@ public class Launcher {
 		return new File(source);
 	}
 
-	private void launch() {
+	private boolean writeTestReport(List<BatchRunner.TestFile> results) {
+		try {
+			Path parent = testReport.toAbsolutePath().getParent();
+			if (parent != null) Files.createDirectories(parent);
+			try (Writer writer = Files.newBufferedWriter(testReport)) {
+				JUnitReport.write(results, writer);
+			}
+			return true;
+		} catch (IOException e) {
+			log.error("Failed to write test report to {}", testReport, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Run the emulator.
+	 *
+	 * @return The status code to exit with. This is non-zero if CCEmuX crashed, or if any tests failed.
+	 */
+	private int launch() {
 		log.info("Data directory is {}", dataDir);
 		log.info("Loading assets from {}", assetDir);
 		log.info("Loading computers from {}", computerDir);
@@ -240,6 +410,18 @@ public class Launcher {
 			}
 			log.debug("Config: {}", cfg);
 
+			BatchRunner batch = null;
+			if (!tests.isEmpty()) {
+				List<Path> testFiles = BatchRunner.findTests(tests);
+				int threads = Runtime.getRuntime().availableProcessors();
+				try {
+					batch = new BatchRunner(Paths.get(""), testFiles, testTimeout, threads);
+				} catch (IllegalArgumentException e) {
+					log.error("{}. Test files must be inside the current directory.", e.getMessage());
+					return 1;
+				}
+			}
+
 			if (cfg.termScale.get() != cfg.termScale.get().intValue()) {
 				log.warn("Terminal scale is not an integer - stuff might look bad! Don't blame us!");
 			}
@@ -262,14 +444,16 @@ public class Launcher {
 				log.info("Available rendering methods:");
 				pluginMgr.getRenderers().keySet().forEach(k -> log.info(" {}", k));
 				System.exit(0);
-				return;
+				return 0;
 			} else if (this.renderer != null) {
 				renderer = this.renderer;
 			} else {
 				renderer = cfg.renderer.get();
 			}
 
-			RendererFactory<?> renderFactory = pluginMgr.getRenderers().get(renderer);
+			// Tests are not displayed unless a renderer is explicitly requested (such as the headless renderer, to record them).
+			RendererFactory<?> renderFactory = batch != null && this.renderer == null
+				? BatchRunner.rendererFactory() : pluginMgr.getRenderers().get(renderer);
 			if (renderFactory == null) {
 				log.error("Specified renderer '{}' does not exist - are you missing a plugin?", renderer);
 
@@ -313,33 +497,71 @@ public class Launcher {
 			TerminalFont.loadImplicitFonts(getClass().getClassLoader());
 
 			Path sessionPath = dataDir.resolve("session.json");
-			CCEmuX emu = new CCEmuX(cfg, renderFactory, pluginMgr, getCCSource(), sessionPath);
-
-			// Either load the requested computers, restore the session or add a new computer
-			if (startDirs.size() > 0) {
-				for (Path dir : startDirs) {
-					emu.createComputer(b -> b
-						.rootMount(() -> new WritableFileMount(dir.toFile(), emu.getConfig().getMaxComputerCapacity()))
-						.termSize(termWidth, termHeight)
-					);
-				}
+			CoverageCollector coverage = coverageReports.isEmpty() ? null : new CoverageCollector(cfg.getAssetDir());
+			MetricsCollector metrics = metricsReport == null && metricsPort < 0 ? null : new MetricsCollector();
+			HttpServer metricsServer = metrics != null && metricsPort >= 0 ? metrics.serve(metricsPort) : null;
+			CCEmuX emu = new CCEmuX(cfg, renderFactory, pluginMgr, getCCSource(), sessionPath, new CCEmuX.Options()
+				.coverage(coverage).batch(batch).metrics(metrics));
+
+			int status = 0;
+			if (batch != null) {
+				// In batch mode, we only run the test computers.
+				List<BatchRunner.TestFile> results = batch.run(emu);
+				long failed = results.stream().filter(x -> !x.isSuccess()).count();
+				log.info("{} tests, {} passed, {} failed", results.size(), results.size() - failed, failed);
+				status = BatchRunner.exitStatus(results);
+
+				if (testReport != null && !writeTestReport(results)) status = 1;
 			} else {
-				SessionState session = cfg.restoreSession.get() ? SessionState.load(sessionPath) : null;
-				if (session == null || session.computers.isEmpty()) {
-					emu.createComputer(b -> b.termSize(termWidth, termHeight));
+				// Either load the requested computers, restore the session or add a new computer
+				if (startDirs.size() > 0) {
+					for (Path dir : startDirs) {
+						emu.createComputer(b -> b
+							.rootMount(() -> new WritableFileMount(dir.toFile(), emu.getConfig().getMaxComputerCapacity(), emu.getFileWriter()))
+							.termSize(termWidth, termHeight)
+						);
+					}
 				} else {
-					for (SessionState.ComputerState computer : session.computers) {
-						emu.createComputer(b -> b.id(computer.id).label(computer.label).termSize(termWidth, termHeight));
+					SessionState session = cfg.restoreSession.get() ? SessionState.load(sessionPath) : null;
+					if (session == null || session.computers.isEmpty()) {
+						emu.createComputer(b -> b.termSize(termWidth, termHeight));
+					} else {
+						for (SessionState.ComputerState computer : session.computers) {
+							emu.createComputer(b -> b.id(computer.id).label(computer.label).termSize(termWidth, termHeight));
+						}
 					}
 				}
-			}
 
-			emu.run();
+				emu.run();
+			}
 
 			pluginMgr.onClosing(emu);
+			emu.flushFiles();
+
+			if (coverage != null) {
+				for (Path report : coverageReports) {
+					try {
+						coverage.write(report);
+					} catch (IOException e) {
+						log.error("Failed to write coverage report to {}", report, e);
+					}
+				}
+			}
+
+			if (metricsServer != null) metricsServer.stop(0);
+			if (metrics != null && metricsReport != null) {
+				try {
+					metrics.write(metricsReport);
+				} catch (IOException e) {
+					log.error("Failed to write metrics to {}", metricsReport, e);
+				}
+			}
+
 			log.info("Emulation complete, goodbye!");
+			return status;
 		} catch (Throwable e) {
 			crashMessage(e);
+			return 1;
 		}
 	}
 }
@@ -0,0 +1,129 @@
+package net.clgd.ccemux.plugins.builtin;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.auto.service.AutoService;
+import net.clgd.ccemux.api.config.ConfigProperty;
+import net.clgd.ccemux.api.config.Group;
+import net.clgd.ccemux.api.plugins.Plugin;
+import net.clgd.ccemux.api.plugins.PluginManager;
+import net.clgd.ccemux.api.plugins.hooks.Closing;
+import net.clgd.ccemux.rendering.headless.FrameRecorder;
+import net.clgd.ccemux.rendering.headless.FramebufferRenderer;
+import net.clgd.ccemux.rendering.headless.HeadlessTerminalFont;
+
+@AutoService(Plugin.class)
+public class HeadlessPlugin extends Plugin {
+	private static final Logger log = LoggerFactory.getLogger(HeadlessPlugin.class);
+	private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd-HH_mm_ss");
+
+	private ConfigProperty<String> directory;
+	private ConfigProperty<Boolean> record;
+	private ConfigProperty<Double> snapshotInterval;
+
+	/**
+	 * Renderers which have not been disposed yet. Computers are not removed when the emulator stops, so these are
+	 * disposed when closing to finish their recordings.
+	 */
+	private final Set<FramebufferRenderer> renderers = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+	/**
+	 * Recording directories which have already been used, as they are only created once something is recorded.
+	 */
+	private final Set<Path> directories = new HashSet<>();
+
+	@Nonnull
+	@Override
+	public String getName() {
+		return "Headless Renderer";
+	}
+
+	@Nonnull
+	@Override
+	public String getDescription() {
+		return "A renderer which displays nothing, instead recording each computer to PNG snapshots and an animated PNG.";
+	}
+
+	@Nonnull
+	@Override
+	public Optional<String> getVersion() {
+		return Optional.empty();
+	}
+
+	@Nonnull
+	@Override
+	public Collection<String> getAuthors() {
+		return Collections.singleton("CLGD");
+	}
+
+	@Nonnull
+	@Override
+	public Optional<String> getWebsite() {
+		return Optional.empty();
+	}
+
+	@Override
+	public void configSetup(@Nonnull Group group) {
+		directory = group.property("directory", String.class, "recordings")
+			.setName("Recording directory")
+			.setDescription("The directory to save recordings to, relative to the data directory.");
+		record = group.property("record", Boolean.class, true)
+			.setName("Record animation")
+			.setDescription("Record every frame of each computer to an animated PNG.");
+		snapshotInterval = group.property("snapshotInterval", Double.class, 0.0)
+			.setName("Snapshot interval")
+			.setDescription("The time between PNG snapshots of each computer, in seconds. Set to 0 to only save the "
+				+ "final frame.");
+	}
+
+	@Override
+	public void setup(@Nonnull PluginManager manager) {
+		manager.addRenderer("Headless", (computer, cfg) -> {
+			String name = String.format("computer-%d-%s", computer.getID(), TIMESTAMP.format(LocalDateTime.now()));
+			Path dir = uniqueDirectory(cfg.getDataDir().resolve(directory.get()), name);
+
+			FramebufferRenderer renderer = new FramebufferRenderer(computer, HeadlessTerminalFont.getBestFont(),
+				new FrameRecorder(dir, record.get()), snapshotInterval.get());
+			renderers.add(renderer);
+			return renderer;
+		});
+
+		registerHook((Closing) emu -> {
+			List<FramebufferRenderer> remaining;
+			synchronized (renderers) {
+				remaining = new ArrayList<>(renderers);
+				renderers.clear();
+			}
+			remaining.forEach(FramebufferRenderer::dispose);
+
+			try {
+				if (!FrameRecorder.awaitAll(30, TimeUnit.SECONDS)) log.warn("Timed out waiting for recordings to be written");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+	}
+
+	private synchronized Path uniqueDirectory(Path parent, String name) {
+		Path dir = parent.resolve(name);
+		for (int i = 1; !directories.add(dir) || Files.exists(dir); i++) dir = parent.resolve(name + "-" + i);
+		return dir;
+	}
+}
@@ -21,9 +21,14 @@ public class JFXPlugin extends Plugin {
 		.setDescription("Uses utility window decoration instead of regular decoration. "
 			+ "May fix problems with certain window managers.");
 
+	/**
+	 * @deprecated The terminal is now drawn at the font's native resolution and scaled without smoothing, so is never
+	 * blurry. This is kept so existing configs still load.
+	 */
+	@Deprecated
 	public static final ConfigProperty<Boolean> doubleFontScale = new ConfigProperty<>("doubleFontScale", Boolean.class,
 		OperatingSystem.get().equals(OperatingSystem.MacOSX)).setName("Double font resolution").setDescription(
-		"Scales fonts by a factor of two before rendering. " + "May fix blurriness on high DPI displays.");
+		"No longer has any effect, as the terminal is always drawn at the font's full resolution.");
 
 	@Nonnull
 	@Override
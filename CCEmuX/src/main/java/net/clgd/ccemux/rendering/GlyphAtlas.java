@@ -0,0 +1,203 @@
+package net.clgd.ccemux.rendering;
+
+import java.awt.Rectangle;
+import java.nio.IntBuffer;
+
+import javax.annotation.Nonnull;
+
+import net.clgd.ccemux.api.rendering.PaletteAdapter;
+import net.clgd.ccemux.api.rendering.TerminalFont;
+
+/**
+ * Draws terminal cells into an ARGB framebuffer at the font's native resolution.
+ * <p>
+ * Glyphs are tinted with each palette colour the first time they are drawn, and then cached until that colour
+ * changes. Drawing a cell is then just a matter of blending the tinted glyph over its background, which avoids any
+ * per-frame image allocation or scaling.
+ * <p>
+ * This class does not depend on any UI toolkit, so may be shared between renderers. It is not thread-safe.
+ */
+public final class GlyphAtlas {
+	private static final int CHARACTERS = TerminalFont.COLUMNS * TerminalFont.ROWS;
+
+	private final TerminalFont font;
+	private final int[] fontPixels;
+	private final int fontWidth;
+
+	private final int[] colours = new int[16];
+
+	/**
+	 * The tinted glyphs for each palette colour, indexed by colour and then character. Each glyph is stored as
+	 * premultiplied ARGB.
+	 */
+	private final int[][][] glyphs = new int[16][][];
+
+	/**
+	 * Create a new glyph atlas.
+	 *
+	 * @param font       The font to draw with.
+	 * @param fontPixels The pixels of the font's image, as non-premultiplied ARGB.
+	 * @param fontWidth  The width of the font's image.
+	 */
+	public GlyphAtlas(@Nonnull TerminalFont font, @Nonnull int[] fontPixels, int fontWidth) {
+		this.font = font;
+		this.fontPixels = fontPixels;
+		this.fontWidth = fontWidth;
+	}
+
+	@Nonnull
+	public TerminalFont getFont() {
+		return font;
+	}
+
+	/**
+	 * Set a palette colour, discarding any glyphs tinted with its previous value.
+	 *
+	 * @param index The colour's index, as used by the terminal's colour buffers.
+	 * @param rgb   The new colour, as RGB. The alpha channel is ignored.
+	 * @return Whether the colour changed.
+	 */
+	public boolean setColour(int index, int rgb) {
+		rgb |= 0xFF000000;
+		if (colours[index] == rgb) return false;
+
+		colours[index] = rgb;
+		glyphs[index] = null;
+		return true;
+	}
+
+	/**
+	 * Set every palette colour.
+	 *
+	 * @param palette The palette to read colours from.
+	 * @return Whether any colour changed.
+	 */
+	public boolean setColours(@Nonnull PaletteAdapter<Integer> palette) {
+		boolean changed = false;
+		for (int i = 0; i < 16; i++) changed |= setColour(i, palette.getColor(i));
+		return changed;
+	}
+
+	/**
+	 * Get the current value of a palette colour.
+	 *
+	 * @param index The colour's index.
+	 * @return The colour, as opaque ARGB.
+	 */
+	public int getColour(int index) {
+		return colours[index];
+	}
+
+	/**
+	 * Fill a rectangle of the framebuffer with a palette colour.
+	 *
+	 * @param target The framebuffer to draw to.
+	 * @param stride The width of the framebuffer.
+	 * @param x      The left edge of the rectangle.
+	 * @param y      The top edge of the rectangle.
+	 * @param width  The width of the rectangle.
+	 * @param height The height of the rectangle.
+	 * @param colour The index of the colour to fill with.
+	 */
+	public void fill(@Nonnull IntBuffer target, int stride, int x, int y, int width, int height, int colour) {
+		int argb = colours[colour];
+		for (int row = y; row < y + height; row++) {
+			int offset = row * stride + x;
+			for (int i = 0; i < width; i++) target.put(offset + i, argb);
+		}
+	}
+
+	/**
+	 * Blend a glyph over a cell of the framebuffer.
+	 *
+	 * @param target The framebuffer to draw to.
+	 * @param stride The width of the framebuffer.
+	 * @param x      The left edge of the cell.
+	 * @param y      The top edge of the cell.
+	 * @param c      The character to draw.
+	 * @param colour The index of the colour to draw the character in.
+	 */
+	public void drawGlyph(@Nonnull IntBuffer target, int stride, int x, int y, char c, int colour) {
+		int[] glyph = getGlyph(c, colour);
+		int width = font.getCharWidth(), height = font.getCharHeight();
+
+		for (int row = 0; row < height; row++) {
+			int offset = (y + row) * stride + x;
+			for (int i = 0; i < width; i++) {
+				int src = glyph[row * width + i];
+				int alpha = src >>> 24;
+				if (alpha == 0) continue;
+				if (alpha == 0xFF) {
+					target.put(offset + i, src);
+					continue;
+				}
+
+				int dst = target.get(offset + i);
+				int inverse = 0xFF - alpha;
+				int r = ((src >> 16) & 0xFF) + ((dst >> 16) & 0xFF) * inverse / 0xFF;
+				int g = ((src >> 8) & 0xFF) + ((dst >> 8) & 0xFF) * inverse / 0xFF;
+				int b = (src & 0xFF) + (dst & 0xFF) * inverse / 0xFF;
+				target.put(offset + i, 0xFF000000 | r << 16 | g << 8 | b);
+			}
+		}
+	}
+
+	private int[] getGlyph(char c, int colour) {
+		int[][] tinted = glyphs[colour];
+		if (tinted == null) tinted = glyphs[colour] = new int[CHARACTERS][];
+
+		int index = c < CHARACTERS ? c : '?';
+		int[] glyph = tinted[index];
+		if (glyph == null) tinted[index] = glyph = tint((char) index, colours[colour]);
+		return glyph;
+	}
+
+	private int[] tint(char c, int colour) {
+		Rectangle coords = font.getCharCoords(c);
+		int width = font.getCharWidth(), height = font.getCharHeight();
+		int tr = (colour >> 16) & 0xFF, tg = (colour >> 8) & 0xFF, tb = colour & 0xFF;
+
+		int[] glyph = new int[width * height];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int pixel = fontPixels[(coords.y + y) * fontWidth + coords.x + x];
+				int alpha = pixel >>> 24;
+
+				// Multiply the font's colour by the tint, and then by the alpha to premultiply it.
+				int r = ((pixel >> 16) & 0xFF) * tr * alpha / (0xFF * 0xFF);
+				int g = ((pixel >> 8) & 0xFF) * tg * alpha / (0xFF * 0xFF);
+				int b = (pixel & 0xFF) * tb * alpha / (0xFF * 0xFF);
+				glyph[y * width + x] = alpha << 24 | r << 16 | g << 8 | b;
+			}
+		}
+
+		return glyph;
+	}
+
+	/**
+	 * Convert a character from one of the terminal's colour buffers into a colour index.
+	 *
+	 * @param c   The hexadecimal colour character.
+	 * @param def The colour to use if {@code c} is not a valid colour.
+	 * @return The colour's index.
+	 */
+	public static int colourIndex(char c, int def) {
+		if (c >= '0' && c <= '9') return c - '0';
+		if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+		if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+		return def;
+	}
+
+	/**
+	 * Convert a colour, with components between 0 and 1, into RGB. This may be used as a
+	 * {@link PaletteAdapter.ColorAdapter}.
+	 *
+	 * @param r The red component.
+	 * @param g The green component.
+	 * @param b The blue component.
+	 * @return The packed colour.
+	 */
+	public static Integer toRgb(double r, double g, double b) {
+		return (int) Math.round(r * 255) << 16 | (int) Math.round(g * 255) << 8 | (int) Math.round(b * 255);
+	}
+}
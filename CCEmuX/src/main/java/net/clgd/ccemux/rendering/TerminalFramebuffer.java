@@ -0,0 +1,308 @@
+package net.clgd.ccemux.rendering;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.BitSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import dan200.computercraft.core.terminal.TextBuffer;
+import net.clgd.ccemux.api.emulation.EmulatedTerminal;
+import net.clgd.ccemux.api.rendering.PaletteAdapter;
+import net.clgd.ccemux.api.rendering.TerminalFont;
+
+/**
+ * An ARGB image of a terminal, at its font's native resolution.
+ * <p>
+ * The framebuffer listens to its terminal, and marks any rows which may have changed. When {@linkplain #draw(boolean)
+ * drawn}, only cells in those rows which differ from what was last drawn are updated. This makes redrawing a mostly
+ * static terminal very cheap, no matter how often it is done.
+ * <p>
+ * Listener callbacks may occur on any thread. All other methods should be called while holding the terminal's lock,
+ * and from a single thread.
+ */
+public final class TerminalFramebuffer implements EmulatedTerminal.Listener {
+	/**
+	 * A rectangular region of the framebuffer, in pixels.
+	 */
+	public static final class Region {
+		private final int x, y, width, height;
+
+		Region(int x, int y, int width, int height) {
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+
+		public int getX() {
+			return x;
+		}
+
+		public int getY() {
+			return y;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+	}
+
+	private final EmulatedTerminal terminal;
+	private final GlyphAtlas atlas;
+	private final PaletteAdapter<Integer> palette;
+
+	/**
+	 * The dimensions of a cell and the terminal's margin, in the font's native resolution.
+	 */
+	private final int cellWidth, cellHeight, border;
+
+	private int width = -1, height = -1;
+	private int pixelWidth, pixelHeight;
+	private IntBuffer pixels;
+
+	/**
+	 * The contents of the terminal when it was last drawn, used to find which cells actually need redrawing.
+	 */
+	private char[][] drawnText, drawnForeground, drawnBackground;
+
+	/**
+	 * The position and colour of the cursor when it was last drawn, or {@code -1} if it was not drawn.
+	 */
+	private int drawnCursorX = -1, drawnCursorY = -1, drawnCursorColour = -1;
+
+	/**
+	 * Rows which may have changed since the terminal was last drawn. This is written to by the terminal's listeners,
+	 * and so should be synchronised on.
+	 */
+	private final BitSet dirtyRows = new BitSet();
+	private boolean dirtyAll = true;
+
+	/**
+	 * Create a new framebuffer and start listening to the terminal. The framebuffer will not contain anything until it
+	 * is first {@linkplain #draw(boolean) drawn}.
+	 *
+	 * @param terminal The terminal to draw.
+	 * @param atlas    The atlas to draw glyphs with. This should not be shared with other terminals.
+	 */
+	public TerminalFramebuffer(@Nonnull EmulatedTerminal terminal, @Nonnull GlyphAtlas atlas) {
+		this.terminal = terminal;
+		this.atlas = atlas;
+		this.palette = new PaletteAdapter<>(terminal.getPalette(), GlyphAtlas::toRgb);
+
+		TerminalFont font = atlas.getFont();
+		cellWidth = font.getCharWidth();
+		cellHeight = font.getCharHeight();
+		border = font.getMargin();
+
+		resize();
+		terminal.addListener(this);
+	}
+
+	/**
+	 * Stop listening to the terminal.
+	 */
+	public void dispose() {
+		terminal.removeListener(this);
+	}
+
+	/**
+	 * Reallocate the framebuffer if the terminal has been resized since it was last drawn.
+	 *
+	 * @return Whether the framebuffer was reallocated. If so, any references to the previous {@linkplain #getPixels()
+	 * pixels} should be discarded.
+	 */
+	public boolean resize() {
+		int width = terminal.getWidth(), height = terminal.getHeight();
+		if (width == this.width && height == this.height) return false;
+
+		this.width = width;
+		this.height = height;
+		pixelWidth = border * 2 + cellWidth * width;
+		pixelHeight = border * 2 + cellHeight * height;
+		pixels = IntBuffer.allocate(pixelWidth * pixelHeight);
+
+		drawnText = new char[height][width];
+		drawnForeground = new char[height][width];
+		drawnBackground = new char[height][width];
+		drawnCursorX = drawnCursorY = drawnCursorColour = -1;
+		markAllDirty();
+		return true;
+	}
+
+	/**
+	 * The framebuffer's pixels, as opaque ARGB. These are stored row by row, with no padding.
+	 *
+	 * @return The framebuffer's pixels.
+	 */
+	@Nonnull
+	public IntBuffer getPixels() {
+		return pixels;
+	}
+
+	public int getPixelWidth() {
+		return pixelWidth;
+	}
+
+	public int getPixelHeight() {
+		return pixelHeight;
+	}
+
+	/**
+	 * Whether any rows have been marked as changed since the framebuffer was last drawn.
+	 *
+	 * @return Whether the framebuffer may need redrawing.
+	 */
+	public boolean isDirty() {
+		synchronized (dirtyRows) {
+			return dirtyAll || !dirtyRows.isEmpty();
+		}
+	}
+
+	/**
+	 * Mark the whole terminal as changed, so it is redrawn in full.
+	 */
+	public void markAllDirty() {
+		synchronized (dirtyRows) {
+			dirtyAll = true;
+		}
+	}
+
+	private void markDirty(int row) {
+		synchronized (dirtyRows) {
+			if (row >= 0) dirtyRows.set(row);
+		}
+	}
+
+	/**
+	 * Redraw any cells which have changed since the framebuffer was last drawn. The framebuffer should be
+	 * {@linkplain #resize() resized} first.
+	 *
+	 * @param cursor Whether the cursor should be drawn, if the terminal's cursor is visible.
+	 * @return The region which was redrawn, or {@code null} if nothing changed.
+	 */
+	@Nullable
+	public Region draw(boolean cursor) {
+		boolean all;
+		BitSet rows;
+		synchronized (dirtyRows) {
+			all = dirtyAll;
+			rows = (BitSet) dirtyRows.clone();
+			dirtyAll = false;
+			dirtyRows.clear();
+		}
+
+		if (atlas.setColours(palette)) all = true;
+		if (all) rows.set(0, height);
+
+		int cursorX = -1, cursorY = -1, cursorColour = -1;
+		if (cursor && terminal.getCursorBlink() && terminal.getCursorX() >= 0 && terminal.getCursorX() < width
+			&& terminal.getCursorY() >= 0 && terminal.getCursorY() < height) {
+			cursorX = terminal.getCursorX();
+			cursorY = terminal.getCursorY();
+			cursorColour = terminal.getTextColour();
+		}
+
+		Bounds bounds = new Bounds();
+		for (int y = rows.nextSetBit(0); y >= 0 && y < height; y = rows.nextSetBit(y + 1)) {
+			TextBuffer text = terminal.getLine(y), fg = terminal.getTextColourLine(y), bg = terminal.getBackgroundColourLine(y);
+			char[] drawnLine = drawnText[y], drawnFg = drawnForeground[y], drawnBg = drawnBackground[y];
+
+			for (int x = 0; x < width; x++) {
+				char c = text.charAt(x), f = fg.charAt(x), k = bg.charAt(x);
+				if (!all && drawnLine[x] == c && drawnFg[x] == f && drawnBg[x] == k) continue;
+
+				drawnLine[x] = c;
+				drawnFg[x] = f;
+				drawnBg[x] = k;
+				drawCell(bounds, x, y);
+			}
+		}
+
+		if (cursorX != drawnCursorX || cursorY != drawnCursorY || cursorColour != drawnCursorColour) {
+			if (drawnCursorX >= 0) drawCell(bounds, drawnCursorX, drawnCursorY);
+			if (cursorX >= 0) drawCell(bounds, cursorX, cursorY);
+		}
+
+		// Draw the cursor over its cell. This is done whenever the cell is redrawn, not just when the cursor moves.
+		if (cursorX >= 0 && bounds.cells.get(cursorY * width + cursorX)) {
+			atlas.drawGlyph(pixels, pixelWidth, border + cursorX * cellWidth, border + cursorY * cellHeight, '_', cursorColour);
+		}
+
+		drawnCursorX = cursorX;
+		drawnCursorY = cursorY;
+		drawnCursorColour = cursorColour;
+
+		return bounds.minX >= bounds.maxX || bounds.minY >= bounds.maxY ? null
+			: new Region(bounds.minX, bounds.minY, bounds.maxX - bounds.minX, bounds.maxY - bounds.minY);
+	}
+
+	/**
+	 * Draw a single cell from the {@linkplain #drawnText last drawn contents}, including the terminal's margin if the
+	 * cell is on the edge of the terminal.
+	 */
+	private void drawCell(Bounds bounds, int x, int y) {
+		int left = border + x * cellWidth, top = border + y * cellHeight;
+		int fillLeft = x == 0 ? 0 : left, fillRight = left + cellWidth + (x == width - 1 ? border : 0);
+		int fillTop = y == 0 ? 0 : top, fillBottom = top + cellHeight + (y == height - 1 ? border : 0);
+
+		atlas.fill(pixels, pixelWidth, fillLeft, fillTop, fillRight - fillLeft, fillBottom - fillTop,
+			GlyphAtlas.colourIndex(drawnBackground[y][x], PaletteAdapter.DEFAULT_BACKGROUND));
+		atlas.drawGlyph(pixels, pixelWidth, left, top, drawnText[y][x],
+			GlyphAtlas.colourIndex(drawnForeground[y][x], PaletteAdapter.DEFAULT_FOREGROUND));
+
+		bounds.cells.set(y * width + x);
+		bounds.minX = Math.min(bounds.minX, fillLeft);
+		bounds.minY = Math.min(bounds.minY, fillTop);
+		bounds.maxX = Math.max(bounds.maxX, fillRight);
+		bounds.maxY = Math.max(bounds.maxY, fillBottom);
+	}
+
+	/**
+	 * The cells and pixels drawn in a single call to {@link #draw(boolean)}.
+	 */
+	private static final class Bounds {
+		final BitSet cells = new BitSet();
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX, maxY;
+	}
+
+	@Override
+	public void resize(int width, int height) {
+		markAllDirty();
+	}
+
+	@Override
+	public void blit(@Nonnull ByteBuffer text, @Nonnull ByteBuffer textColour, @Nonnull ByteBuffer backgroundColour) {
+		markDirty(terminal.getCursorY());
+	}
+
+	@Override
+	public void write(@Nonnull String text) {
+		markDirty(terminal.getCursorY());
+	}
+
+	@Override
+	public void scroll(int yDiff) {
+		markAllDirty();
+	}
+
+	@Override
+	public void clear() {
+		markAllDirty();
+	}
+
+	@Override
+	public void clearLine() {
+		markDirty(terminal.getCursorY());
+	}
+
+	@Override
+	public void reset() {
+		markAllDirty();
+	}
+}
@@ -0,0 +1,152 @@
+package net.clgd.ccemux.rendering.headless;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Writes an animated PNG, one frame at a time.
+ * <p>
+ * The first frame always covers the whole image. Later frames only cover the region which changed, and are drawn
+ * over the previous frame. The number of frames isn't known until the animation is {@linkplain #close() closed}, so
+ * it is filled in then.
+ *
+ * @see <a href="https://wiki.mozilla.org/APNG_Specification">The APNG specification</a>
+ */
+public final class ApngWriter implements Closeable {
+	/**
+	 * The largest delay a single frame may have, in milliseconds.
+	 */
+	private static final int MAX_DELAY = 0xFFFF;
+
+	/**
+	 * The offset of the {@code acTL} chunk, directly after the signature and {@code IHDR} chunk.
+	 */
+	private static final long ANIMATION_CONTROL_OFFSET = PngEncoder.SIGNATURE.length + 12 + 13;
+
+	private static final byte DISPOSE_NONE = 0;
+	private static final byte BLEND_SOURCE = 0;
+
+	private final FileChannel channel;
+	private final PngEncoder encoder;
+	private final int width, height;
+
+	private int frames = 0;
+	private int sequence = 0;
+
+	/**
+	 * Create a new animation, overwriting the file if it already exists.
+	 *
+	 * @param file    The file to write to.
+	 * @param encoder The encoder to compress frames with.
+	 * @param width   The width of every frame.
+	 * @param height  The height of every frame.
+	 * @throws IOException If the file could not be opened.
+	 */
+	public ApngWriter(@Nonnull Path file, @Nonnull PngEncoder encoder, int width, int height) throws IOException {
+		this.encoder = encoder;
+		this.width = width;
+		this.height = height;
+
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+			StandardOpenOption.WRITE);
+		write(PngEncoder.SIGNATURE);
+		write(encoder.chunk("IHDR", PngEncoder.header(width, height)));
+		write(animationControl());
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * The number of frames written so far.
+	 *
+	 * @return The number of frames.
+	 */
+	public int getFrames() {
+		return frames;
+	}
+
+	/**
+	 * Write a frame of the animation.
+	 *
+	 * @param pixels The contents of the whole image, as ARGB.
+	 * @param x      The left edge of the region which changed since the last frame.
+	 * @param y      The top edge of the changed region.
+	 * @param width  The width of the changed region.
+	 * @param height The height of the changed region.
+	 * @param delay  How long this frame should be shown for, in milliseconds.
+	 * @throws IOException If the frame could not be written.
+	 */
+	public void writeFrame(@Nonnull int[] pixels, int x, int y, int width, int height, long delay) throws IOException {
+		if (frames == 0) {
+			// The first frame is also the default image, and so must cover the whole canvas.
+			x = y = 0;
+			width = this.width;
+			height = this.height;
+		}
+
+		writeFrame(pixels, x, y, width, height, (int) Math.min(delay, MAX_DELAY), frames == 0);
+
+		// Long pauses are written as single-pixel frames which don't change anything.
+		for (delay -= MAX_DELAY; delay > 0; delay -= MAX_DELAY) {
+			writeFrame(pixels, 0, 0, 1, 1, (int) Math.min(delay, MAX_DELAY), false);
+		}
+	}
+
+	private void writeFrame(int[] pixels, int x, int y, int width, int height, int delay, boolean first) throws IOException {
+		write(encoder.chunk("fcTL", ByteBuffer.allocate(26)
+			.putInt(sequence++)
+			.putInt(width).putInt(height).putInt(x).putInt(y)
+			.putShort((short) delay).putShort((short) 1000)
+			.put(DISPOSE_NONE).put(BLEND_SOURCE)
+			.array()));
+
+		byte[] data = encoder.compress(pixels, this.width, x, y, width, height);
+		if (first) {
+			write(encoder.chunk("IDAT", data));
+		} else {
+			write(encoder.chunk("fdAT", ByteBuffer.allocate(4 + data.length).putInt(sequence++).put(data).array()));
+		}
+
+		frames++;
+	}
+
+	/**
+	 * Finish the animation and close the file. If no frames have been written, this will not be a valid image.
+	 *
+	 * @throws IOException If the file could not be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			write(encoder.chunk("IEND", new byte[0]));
+
+			ByteBuffer control = ByteBuffer.wrap(animationControl());
+			long position = ANIMATION_CONTROL_OFFSET;
+			while (control.hasRemaining()) position += channel.write(control, position);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private byte[] animationControl() {
+		// The number of frames, followed by the number of times to play (0 to loop forever).
+		return encoder.chunk("acTL", ByteBuffer.allocate(8).putInt(frames).putInt(0).array());
+	}
+
+	private void write(byte[] bytes) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) channel.write(buffer);
+	}
+}
@@ -0,0 +1,232 @@
+package net.clgd.ccemux.rendering.headless;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.clgd.ccemux.Utils;
+import net.clgd.ccemux.rendering.TerminalFramebuffer;
+
+/**
+ * Records the frames of a terminal to a directory, as an animated PNG and periodic snapshots.
+ * <p>
+ * Frames are submitted from the emulator thread, but compared and encoded on a background thread so recording never
+ * slows down the emulator. Only the region of the framebuffer which was redrawn is copied when submitting a frame.
+ * The background thread then finds which pixels actually changed, so frames identical to the previous one are merged
+ * into it, and others only store the changed region.
+ * <p>
+ * Each frame is shown until the next frame which differs from it, so frames are written one behind the latest
+ * frame. If the terminal is resized, a new animation is started.
+ */
+public final class FrameRecorder {
+	private static final Logger log = LoggerFactory.getLogger(FrameRecorder.class);
+
+	/**
+	 * Recorders which may still have frames to write.
+	 */
+	private static final Set<FrameRecorder> active = ConcurrentHashMap.newKeySet();
+
+	private final Path directory;
+	private final boolean animate;
+	private final ExecutorService executor;
+	private boolean finished = false;
+
+	// The following fields are only accessed from the executor.
+	private final PngEncoder encoder = new PngEncoder();
+	private boolean failed = false;
+	private int width, height;
+	private int[] canvas = new int[0];
+	@Nullable
+	private ApngWriter animation;
+
+	/**
+	 * The region and time of the latest frame, which is yet to be written to the animation.
+	 */
+	private boolean pending = false;
+	private int pendingX, pendingY, pendingWidth, pendingHeight;
+	private long pendingTime;
+
+	/**
+	 * Create a new recorder. The directory is created when the first frame is written.
+	 *
+	 * @param directory The directory to write files to.
+	 * @param animate   Whether to record an animation of every frame, or only write snapshots.
+	 */
+	public FrameRecorder(@Nonnull Path directory, boolean animate) {
+		this.directory = directory;
+		this.animate = animate;
+		this.executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+			.setNameFormat("ccemux-recorder-%d")
+			.build());
+		active.add(this);
+	}
+
+	@Nonnull
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Submit a frame to be recorded.
+	 *
+	 * @param time        The time of this frame, in milliseconds since recording started.
+	 * @param framebuffer The framebuffer, which has just been drawn.
+	 * @param region      The region which was redrawn.
+	 */
+	public synchronized void frame(long time, @Nonnull TerminalFramebuffer framebuffer, @Nonnull TerminalFramebuffer.Region region) {
+		if (finished) return;
+
+		int width = framebuffer.getPixelWidth(), height = framebuffer.getPixelHeight();
+		int x = region.getX(), y = region.getY(), w = region.getWidth(), h = region.getHeight();
+
+		IntBuffer pixels = framebuffer.getPixels();
+		int[] copy = new int[w * h];
+		for (int row = 0; row < h; row++) pixels.get((y + row) * width + x, copy, row * w, w);
+
+		executor.execute(() -> run(() -> onFrame(time, width, height, copy, x, y, w, h)));
+	}
+
+	/**
+	 * Save the most recent frame as a PNG.
+	 *
+	 * @param time The current time, in milliseconds since recording started.
+	 */
+	public synchronized void snapshot(long time) {
+		if (finished) return;
+		executor.execute(() -> run(() -> writeImage(String.format("snapshot-%08d", time))));
+	}
+
+	/**
+	 * Write any remaining frames and stop recording. Files will continue to be written in the background, use
+	 * {@link #awaitAll(long, TimeUnit)} to wait for them to finish.
+	 *
+	 * @param time The current time, in milliseconds since recording started.
+	 */
+	public synchronized void finish(long time) {
+		if (finished) return;
+		finished = true;
+
+		executor.execute(() -> {
+			run(() -> {
+				writeImage("final");
+				closeAnimation(time);
+			});
+			encoder.close();
+			active.remove(this);
+		});
+		executor.shutdown();
+	}
+
+	/**
+	 * Wait for every finished recorder to write its files.
+	 *
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of {@code timeout}.
+	 * @return Whether all recorders finished writing in time.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public static boolean awaitAll(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (FrameRecorder recorder : active) {
+			if (!recorder.executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) return false;
+		}
+		return true;
+	}
+
+	private void onFrame(long time, int width, int height, int[] pixels, int x, int y, int w, int h) throws IOException {
+		if (width != this.width || height != this.height) {
+			closeAnimation(time);
+			this.width = width;
+			this.height = height;
+			canvas = new int[width * height];
+		}
+
+		// Find the pixels which actually differ from the current frame, and skip this frame if there are none.
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+		for (int row = 0; row < h; row++) {
+			int offset = (y + row) * width + x;
+			for (int i = 0; i < w; i++) {
+				if (canvas[offset + i] == pixels[row * w + i]) continue;
+				minX = Math.min(minX, i);
+				maxX = Math.max(maxX, i);
+				minY = Math.min(minY, row);
+				maxY = row;
+			}
+		}
+		if (maxX < 0) return;
+
+		// The canvas still holds the pending frame, so write that out before drawing over it.
+		writePending(time);
+
+		for (int row = 0; row < h; row++) System.arraycopy(pixels, row * w, canvas, (y + row) * width + x, w);
+
+		pending = true;
+		pendingX = x + minX;
+		pendingY = y + minY;
+		pendingWidth = maxX - minX + 1;
+		pendingHeight = maxY - minY + 1;
+		pendingTime = time;
+	}
+
+	private void writePending(long time) throws IOException {
+		if (!pending || !animate) return;
+		pending = false;
+
+		if (animation == null) {
+			Files.createDirectories(directory);
+			Path file = Utils.createUniqueFile(directory.toFile(), "recording", ".apng").toPath();
+			animation = new ApngWriter(file, encoder, width, height);
+		}
+
+		animation.writeFrame(canvas, pendingX, pendingY, pendingWidth, pendingHeight, Math.max(1, time - pendingTime));
+	}
+
+	private void closeAnimation(long time) throws IOException {
+		writePending(time);
+		pending = false;
+
+		ApngWriter animation = this.animation;
+		if (animation == null) return;
+		this.animation = null;
+		animation.close();
+	}
+
+	private void writeImage(String name) throws IOException {
+		if (width == 0) return;
+
+		Files.createDirectories(directory);
+		Path file = Utils.createUniqueFile(directory.toFile(), name, ".png").toPath();
+		try (OutputStream stream = Files.newOutputStream(file)) {
+			encoder.write(stream, canvas, width, height);
+		}
+	}
+
+	private void run(IOAction action) {
+		if (failed) return;
+		try {
+			action.run();
+		} catch (IOException | RuntimeException e) {
+			failed = true;
+			log.error("Failed to record terminal to {}, stopping recording", directory, e);
+		}
+	}
+
+	@FunctionalInterface
+	private interface IOAction {
+		void run() throws IOException;
+	}
+}
@@ -0,0 +1,112 @@
+package net.clgd.ccemux.rendering.headless;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+import net.clgd.ccemux.api.Utils;
+import net.clgd.ccemux.api.emulation.EmulatedComputer;
+import net.clgd.ccemux.api.rendering.Renderer;
+import net.clgd.ccemux.rendering.TerminalFramebuffer;
+
+/**
+ * A renderer which never displays anything, instead drawing the terminal to an in-memory framebuffer and recording it
+ * with a {@link FrameRecorder}.
+ * <p>
+ * The framebuffer is redrawn every tick, but only cells which changed are drawn and submitted to the recorder. All
+ * encoding happens on the recorder's thread.
+ */
+public class FramebufferRenderer implements Renderer {
+	private final EmulatedComputer computer;
+	private final TerminalFramebuffer framebuffer;
+	private final FrameRecorder recorder;
+
+	/**
+	 * The time between snapshots in milliseconds, or {@code 0} if snapshots are disabled.
+	 */
+	private final long snapshotInterval;
+
+	private final Set<Listener> listeners = ConcurrentHashMap.newKeySet();
+
+	private double elapsed = 0;
+	private long nextSnapshot;
+	private boolean visible = false;
+	private boolean disposed = false;
+
+	/**
+	 * Create a new renderer.
+	 *
+	 * @param computer         The computer to draw.
+	 * @param font             The font to draw the terminal with.
+	 * @param recorder         The recorder to submit frames to.
+	 * @param snapshotInterval The time between snapshots, in seconds, or {@code 0} to disable them.
+	 */
+	public FramebufferRenderer(@Nonnull EmulatedComputer computer, @Nonnull HeadlessTerminalFont font,
+							   @Nonnull FrameRecorder recorder, double snapshotInterval) {
+		this.computer = computer;
+		this.framebuffer = new TerminalFramebuffer(computer.terminal, font.createAtlas());
+		this.recorder = recorder;
+		this.snapshotInterval = Math.max(0, Math.round(snapshotInterval * 1000));
+		this.nextSnapshot = this.snapshotInterval;
+	}
+
+	@Nonnull
+	public FrameRecorder getRecorder() {
+		return recorder;
+	}
+
+	private long time() {
+		return Math.round(elapsed * 1000);
+	}
+
+	@Override
+	public synchronized void onAdvance(double dt) {
+		if (disposed) return;
+		elapsed += dt;
+		long time = time();
+
+		synchronized (computer.terminal) {
+			framebuffer.resize();
+			TerminalFramebuffer.Region region = framebuffer.draw(Utils.getGlobalCursorBlink());
+			if (region != null) recorder.frame(time, framebuffer, region);
+		}
+
+		if (snapshotInterval > 0 && time >= nextSnapshot) {
+			recorder.snapshot(time);
+			nextSnapshot = time + snapshotInterval;
+		}
+	}
+
+	@Override
+	public boolean isVisible() {
+		return visible;
+	}
+
+	@Override
+	public void setVisible(boolean visible) {
+		this.visible = visible;
+	}
+
+	/**
+	 * Stop drawing the terminal, and finish the recording.
+	 */
+	@Override
+	public synchronized void dispose() {
+		if (disposed) return;
+		disposed = true;
+
+		framebuffer.dispose();
+		recorder.finish(time());
+	}
+
+	@Override
+	public void addListener(@Nonnull Listener l) {
+		listeners.add(l);
+	}
+
+	@Override
+	public void removeListener(@Nonnull Listener l) {
+		listeners.remove(l);
+	}
+}
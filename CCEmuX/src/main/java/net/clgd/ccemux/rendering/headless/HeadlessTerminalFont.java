@@ -0,0 +1,44 @@
+package net.clgd.ccemux.rendering.headless;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+
+import javax.imageio.ImageIO;
+
+import net.clgd.ccemux.api.rendering.TerminalFont;
+import net.clgd.ccemux.rendering.GlyphAtlas;
+
+/**
+ * A terminal font which only reads the font's pixels, and so does not need a display or UI toolkit.
+ */
+public class HeadlessTerminalFont extends TerminalFont {
+	private static HeadlessTerminalFont bestFont;
+
+	public static synchronized HeadlessTerminalFont getBestFont() {
+		HeadlessTerminalFont font = bestFont;
+		return font != null ? font : (bestFont = TerminalFont.getBest(HeadlessTerminalFont::new));
+	}
+
+	private final int width;
+	private final int[] pixels;
+
+	public HeadlessTerminalFont(BufferedImage base) {
+		super(base.getWidth(), base.getHeight());
+		width = base.getWidth();
+		pixels = base.getRGB(0, 0, width, base.getHeight(), null, 0, width);
+	}
+
+	public HeadlessTerminalFont(URL url) throws IOException {
+		this(ImageIO.read(url));
+	}
+
+	/**
+	 * Create a new glyph atlas for this font. Each terminal should have its own atlas.
+	 *
+	 * @return The new atlas.
+	 */
+	public GlyphAtlas createAtlas() {
+		return new GlyphAtlas(this, pixels, width);
+	}
+}
@@ -0,0 +1,131 @@
+package net.clgd.ccemux.rendering.headless;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A minimal PNG encoder, writing 8-bit RGB images.
+ * <p>
+ * This exists so terminals can be saved straight from a framebuffer, without copying them into one of AWT's images
+ * first. It also exposes the individual chunks, so {@link ApngWriter} can build animations from it.
+ * <p>
+ * Encoders are not thread-safe.
+ */
+public final class PngEncoder implements AutoCloseable {
+	static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+	private static final byte COLOUR_TYPE_RGB = 2;
+
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private final CRC32 crc = new CRC32();
+	private byte[] scanlines = new byte[0];
+	private byte[] compressed = new byte[0];
+
+	/**
+	 * Write a complete PNG image.
+	 *
+	 * @param out    The stream to write to.
+	 * @param pixels The image's pixels, as ARGB. The alpha channel is ignored.
+	 * @param width  The width of the image.
+	 * @param height The height of the image.
+	 * @throws IOException If the image could not be written.
+	 */
+	public void write(@Nonnull OutputStream out, @Nonnull int[] pixels, int width, int height) throws IOException {
+		out.write(SIGNATURE);
+		out.write(chunk("IHDR", header(width, height)));
+		out.write(chunk("IDAT", compress(pixels, width, 0, 0, width, height)));
+		out.write(chunk("IEND", new byte[0]));
+	}
+
+	/**
+	 * The contents of an {@code IHDR} chunk.
+	 */
+	static byte[] header(int width, int height) {
+		return ByteBuffer.allocate(13)
+			.putInt(width).putInt(height)
+			.put((byte) 8).put(COLOUR_TYPE_RGB)
+			.put((byte) 0).put((byte) 0).put((byte) 0)
+			.array();
+	}
+
+	/**
+	 * Compress a rectangle of an image into PNG's image data format.
+	 *
+	 * @param pixels The image's pixels, as ARGB.
+	 * @param stride The width of the image.
+	 * @param x      The left edge of the rectangle.
+	 * @param y      The top edge of the rectangle.
+	 * @param width  The width of the rectangle.
+	 * @param height The height of the rectangle.
+	 * @return The compressed data.
+	 */
+	byte[] compress(int[] pixels, int stride, int x, int y, int width, int height) {
+		int rowLength = 1 + width * 3;
+		int length = rowLength * height;
+		if (scanlines.length < length) scanlines = new byte[length];
+
+		byte[] scanlines = this.scanlines;
+		int offset = 0;
+		for (int row = y; row < y + height; row++) {
+			// Each row starts with its filter type. We don't filter, as terminals compress well enough without it.
+			scanlines[offset++] = 0;
+			int start = row * stride + x;
+			for (int i = start; i < start + width; i++) {
+				int pixel = pixels[i];
+				scanlines[offset++] = (byte) (pixel >> 16);
+				scanlines[offset++] = (byte) (pixel >> 8);
+				scanlines[offset++] = (byte) pixel;
+			}
+		}
+
+		deflater.reset();
+		deflater.setInput(scanlines, 0, length);
+		deflater.finish();
+
+		int size = 0;
+		while (!deflater.finished()) {
+			if (size == compressed.length) {
+				byte[] grown = new byte[Math.max(1024, compressed.length * 2)];
+				System.arraycopy(compressed, 0, grown, 0, size);
+				compressed = grown;
+			}
+			size += deflater.deflate(compressed, size, compressed.length - size);
+		}
+
+		byte[] result = new byte[size];
+		System.arraycopy(compressed, 0, result, 0, size);
+		return result;
+	}
+
+	/**
+	 * Build a chunk, including its length and checksum.
+	 *
+	 * @param type The chunk's type.
+	 * @param data The chunk's contents.
+	 * @return The encoded chunk.
+	 */
+	byte[] chunk(String type, byte[] data) {
+		byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+		crc.reset();
+		crc.update(name);
+		crc.update(data);
+
+		return ByteBuffer.allocate(12 + data.length)
+			.putInt(data.length).put(name).put(data).putInt((int) crc.getValue())
+			.array();
+	}
+
+	/**
+	 * Free the native resources used by this encoder.
+	 */
+	@Override
+	public void close() {
+		deflater.end();
+	}
+}
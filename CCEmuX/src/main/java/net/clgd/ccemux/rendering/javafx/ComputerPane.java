@@ -5,31 +5,32 @@ import static net.clgd.ccemux.api.rendering.TerminalFont.*;
 
 import java.awt.Point;
 import java.io.IOException;
+import java.nio.IntBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import dan200.computercraft.core.terminal.TextBuffer;
 import javafx.application.Platform;
 import javafx.beans.Observable;
 import javafx.beans.binding.DoubleExpression;
 import javafx.beans.property.ReadOnlyDoubleProperty;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
-import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.*;
 import javafx.scene.layout.Pane;
-import javafx.scene.paint.Color;
 import javafx.stage.StageStyle;
 import net.clgd.ccemux.api.OperatingSystem;
 import net.clgd.ccemux.api.Utils;
 import net.clgd.ccemux.api.emulation.EmulatedComputer;
-import net.clgd.ccemux.api.rendering.PaletteAdapter;
-import net.clgd.ccemux.plugins.builtin.JFXPlugin;
+import net.clgd.ccemux.rendering.TerminalFramebuffer;
 
 public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 	private static final Logger log = LoggerFactory.getLogger(ComputerPane.class);
@@ -40,11 +41,9 @@ public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 	 */
 	public static final long COMBO_TIME = 500;
 
-	private final Canvas canvas;
+	private final ImageView view;
 	private final EmulatedComputer computer;
-	private final JFXTerminalFont font;
-	private final PaletteAdapter<Color> paletteAdapter;
-	private final ReadOnlyDoubleProperty termScale;
+	private final TerminalFramebuffer framebuffer;
 
 	private final DoubleExpression margin;
 	private final DoubleExpression charWidth;
@@ -52,6 +51,14 @@ public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 	private final DoubleExpression totalWidth;
 	private final DoubleExpression totalHeight;
 
+	/**
+	 * The terminal's image, at the font's native resolution. This is scaled up to the terminal scale by the
+	 * {@link ImageView}, and so by the GPU.
+	 */
+	private PixelBuffer<IntBuffer> buffer;
+
+	private final AtomicBoolean redrawQueued = new AtomicBoolean();
+
 	private boolean lastBlink = false;
 	private double blinkLockedTime = 0;
 
@@ -80,9 +87,7 @@ public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 
 	public ComputerPane(EmulatedComputer computer, JFXTerminalFont font, ReadOnlyDoubleProperty termScale) {
 		this.computer = computer;
-		this.font = font;
-		this.paletteAdapter = new PaletteAdapter<>(computer.terminal.getPalette(), Color::color);
-		this.termScale = termScale;
+		this.framebuffer = new TerminalFramebuffer(computer.terminal, font.createAtlas());
 
 		this.margin = termScale.multiply(BASE_MARGIN);
 		this.charWidth = termScale.multiply(BASE_CHAR_WIDTH);
@@ -93,12 +98,11 @@ public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 		this.prefWidthProperty().bind(totalWidth);
 		this.prefHeightProperty().bind(totalHeight);
 
-		this.canvas = new Canvas(totalWidth.get(), totalHeight.get());
-		canvas.widthProperty().bind(this.widthProperty());
-		canvas.heightProperty().bind(this.heightProperty());
-
-		canvas.widthProperty().addListener(o -> this.redraw());
-		canvas.heightProperty().addListener(o -> this.redraw());
+		this.view = new ImageView();
+		view.setSmooth(false);
+		view.fitWidthProperty().bind(this.widthProperty());
+		view.fitHeightProperty().bind(this.heightProperty());
+		createBuffer();
 
 		// setup event listeners
 		setOnKeyPressed(this::keyPressed);
@@ -117,11 +121,21 @@ public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 		focusedProperty().addListener(this::focusChanged);
 
 		this.setFocusTraversable(false);
-		canvas.setFocusTraversable(false);
+		view.setFocusTraversable(false);
 
-		this.getChildren().add(canvas);
+		this.getChildren().add(view);
 
 		computer.addListener(this);
+		queueRedraw();
+	}
+
+	/**
+	 * Stop listening to the computer and its terminal. This must be called on the JavaFX thread, once this pane is no
+	 * longer displayed.
+	 */
+	public void dispose() {
+		computer.removeListener(this);
+		framebuffer.dispose();
 	}
 
 	@Override
@@ -131,67 +145,32 @@ public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 		return false;
 	}
 
-	private void redraw() {
-		if (!Platform.isFxApplicationThread()) {
-			// only draw on the JavaFX thread
-			Platform.runLater(this::redraw);
-			return;
-		}
-
-		synchronized (computer.terminal) {
-			GraphicsContext g = canvas.getGraphicsContext2D();
-
-			// cache some important values as primitives
-			double fontScale = termScale.get();
-			if (JFXPlugin.doubleFontScale.get()) fontScale *= 2;
-
-			double m = margin.get();
-			double cw = charWidth.get(), ch = charHeight.get();
-			int tw = computer.terminal.getWidth(), th = computer.terminal.getHeight();
-
-			// current position offsets
-			double ox = 0, oy = 0;
-
-			// height/width of current position
-			double height, width;
-
-			TextBuffer bg, fg, text;
-
-			Image charImg;
-
-			for (int y = 0; y < th; y++) {
-				height = ch + ((y == 0 || y == th - 1) ? m : 0);
-
-				bg = computer.terminal.getBackgroundColourLine(y);
-				fg = computer.terminal.getTextColourLine(y);
-				text = computer.terminal.getLine(y);
-
-				for (int x = 0; x < tw; x++) {
-					width = cw + ((x == 0 || x == tw - 1) ? m : 0);
-
-					// draw background
-					g.setFill(paletteAdapter.getColor(bg.charAt(x), PaletteAdapter.DEFAULT_BACKGROUND));
-					g.fillRect(ox, oy, width, height);
-
-					// draw character
-					charImg = font.getCharImage(text.charAt(x), paletteAdapter.getColor(fg.charAt(x), PaletteAdapter.DEFAULT_FOREGROUND), fontScale);
-					g.drawImage(charImg, ox + (x == 0 ? m : 0), oy + (y == 0 ? m : 0), cw, ch);
-
-					ox += width;
-				}
+	private void createBuffer() {
+		buffer = new PixelBuffer<>(framebuffer.getPixelWidth(), framebuffer.getPixelHeight(), framebuffer.getPixels(),
+			PixelFormat.getIntArgbPreInstance());
+		view.setImage(new WritableImage(buffer));
+	}
 
-				ox = 0;
-				oy += height;
-			}
+	private void queueRedraw() {
+		if (redrawQueued.compareAndSet(false, true)) Platform.runLater(this::redraw);
+	}
 
-			// draw cursor
-			if (cursorBlink()) {
-				g.drawImage(
-					font.getCharImage('_', paletteAdapter.getColor(computer.terminal.getTextColour(), PaletteAdapter.DEFAULT_FOREGROUND), fontScale),
-					m + (cw * computer.terminal.getCursorX()), m + (ch * computer.terminal.getCursorY()), cw, ch);
-			}
+	/**
+	 * Redraw any cells which have changed since the last redraw. This must be called on the JavaFX thread.
+	 */
+	private void redraw() {
+		redrawQueued.set(false);
 
-			lastBlink = cursorBlink();
+		synchronized (computer.terminal) {
+			if (framebuffer.resize()) createBuffer();
+
+			boolean blink = cursorBlink();
+			buffer.updateBuffer(b -> {
+				TerminalFramebuffer.Region region = framebuffer.draw(blink);
+				return region == null ? Rectangle2D.EMPTY
+					: new Rectangle2D(region.getX(), region.getY(), region.getWidth(), region.getHeight());
+			});
+			lastBlink = blink;
 		}
 	}
 
@@ -202,14 +181,16 @@ public class ComputerPane extends Pane implements EmulatedComputer.Listener {
 		boolean repaint = lastBlink != cursorBlink();
 		repaint |= computer.terminal.getAndClearChanged();
 
+		// Listeners are fired after the terminal's changed flag is set, so also check for any rows marked since the
+		// last redraw.
+		repaint |= framebuffer.isDirty();
+
 		if (computer.terminal.getPalette().isChanged()) {
 			repaint = true;
 			computer.terminal.getPalette().setChanged(false);
 		}
 
-		if (repaint) {
-			this.redraw();
-		}
+		if (repaint) queueRedraw();
 	}
 
 	/**
@@ -79,7 +79,10 @@ public final class JFXRenderer implements Renderer {
 
 	@Override
 	public void dispose() {
-		Platform.runLater(stage::close);
+		Platform.runLater(() -> {
+			stage.close();
+			pane.dispose();
+		});
 	}
 
 	private final Set<Listener> listeners = ConcurrentHashMap.newKeySet();
@@ -0,0 +1,22 @@
+-- Run this computer's test file when CCEmuX is running in batch mode, reporting whether it succeeded.
+if not batch then return end
+
+local file = batch.getFile()
+
+local env = setmetatable({ shell = shell, multishell = multishell }, { __index = _ENV })
+env.require, env.package = require("cc.require").make(env, fs.getDir(file))
+
+local fn, err = loadfile(file, nil, env)
+if not fn then
+    batch.exit(1, err)
+else
+    local ok, err = xpcall(fn, debug.traceback)
+    if ok then
+        batch.exit(0)
+    else
+        batch.exit(1, tostring(err))
+    end
+end
+
+-- Wait for the computer to shut down, rather than continuing to run startup files.
+while true do os.pullEventRaw() end
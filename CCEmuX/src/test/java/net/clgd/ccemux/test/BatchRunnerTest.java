@@ -0,0 +1,177 @@
+package net.clgd.ccemux.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import dan200.computercraft.core.ComputerContext;
+import net.clgd.ccemux.emulation.BatchRunner;
+import net.clgd.ccemux.emulation.CCEmuX;
+import net.clgd.ccemux.emulation.JUnitReport;
+import net.clgd.ccemux.init.UserConfig;
+import net.clgd.ccemux.plugins.PluginManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(60)
+public class BatchRunnerTest {
+	private static final long TIMEOUT = 2000;
+
+	@TempDir
+	static Path dir;
+
+	private static List<BatchRunner.TestFile> results;
+
+	@BeforeAll
+	public static void runTests() throws Exception {
+		Path root = Files.createDirectories(dir.resolve("root"));
+		Files.writeString(root.resolve("pass.lua"), String.join("\n",
+			"batch.report(\"adds\", 1 + 1 == 2, nil, 0.5)",
+			// Neither of these can be written to a CDATA section as-is.
+			"print(\"a ]]> b \\1 c\")"
+		), StandardCharsets.UTF_8);
+		Files.writeString(root.resolve("fail.lua"), String.join("\n",
+			"batch.report(\"passes\", true)",
+			"batch.report(\"fails\", false, \"Expected failure\")",
+			"error(\"Oh no\", 0)"
+		), StandardCharsets.UTF_8);
+		Files.writeString(root.resolve("timeout.lua"), "while true do os.pullEvent() end", StandardCharsets.UTF_8);
+
+		results = run(root, Arrays.asList(root.resolve("pass.lua"), root.resolve("fail.lua"), root.resolve("timeout.lua")));
+	}
+
+	private static List<BatchRunner.TestFile> run(Path root, List<Path> files) throws Exception {
+		UserConfig cfg = new UserConfig(dir.resolve("data"), dir.resolve("assets"), dir.resolve("computers"));
+		File ccSource = new File(ComputerContext.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+		BatchRunner batch = new BatchRunner(root, files, TIMEOUT, 2);
+		CCEmuX emu = new CCEmuX(cfg, BatchRunner.rendererFactory(), new PluginManager(cfg), ccSource,
+			dir.resolve("session.json"), new CCEmuX.Options().batch(batch));
+		return batch.run(emu);
+	}
+
+	private static BatchRunner.TestFile result(String name) {
+		return results.stream().filter(x -> x.getName().equals(name)).findFirst().orElseThrow();
+	}
+
+	@Test
+	public void testPassing() {
+		BatchRunner.TestFile test = result("pass.lua");
+		assertTrue(test.isSuccess());
+		assertFalse(test.isTimedOut());
+		assertEquals(0, test.getExitCode());
+		assertEquals(Collections.singletonList(new BatchRunner.TestCase("adds", true, null, 0.5)), test.getCases());
+		assertTrue(test.getOutput().contains("a ]]> b \u0001 c"), test.getOutput());
+	}
+
+	@Test
+	public void testFailing() {
+		BatchRunner.TestFile test = result("fail.lua");
+		assertFalse(test.isSuccess());
+		assertFalse(test.isTimedOut());
+		assertEquals(1, test.getExitCode());
+		assertNotNull(test.getMessage());
+		assertTrue(test.getMessage().contains("Oh no"), test.getMessage());
+		assertEquals(Arrays.asList(
+			new BatchRunner.TestCase("passes", true, null, 0),
+			new BatchRunner.TestCase("fails", false, "Expected failure", 0)
+		), test.getCases());
+	}
+
+	@Test
+	public void testTimeout() {
+		BatchRunner.TestFile test = result("timeout.lua");
+		assertFalse(test.isSuccess());
+		assertTrue(test.isTimedOut());
+		assertNull(test.getExitCode());
+		assertEquals("Timed out after " + TIMEOUT + " ms", test.getMessage());
+		assertTrue(test.getTime() >= TIMEOUT, "Took " + test.getTime() + " ms");
+	}
+
+	@Test
+	public void testExitStatus() {
+		assertEquals(1, BatchRunner.exitStatus(results));
+		assertEquals(0, BatchRunner.exitStatus(Collections.singletonList(result("pass.lua"))));
+		assertEquals(1, BatchRunner.exitStatus(Collections.singletonList(result("fail.lua"))));
+		assertEquals(1, BatchRunner.exitStatus(Collections.singletonList(result("timeout.lua"))));
+		assertEquals(0, BatchRunner.exitStatus(Collections.emptyList()));
+	}
+
+	@Test
+	public void testReport() throws Exception {
+		Document document = report();
+
+		Element suites = document.getDocumentElement();
+		assertEquals("testsuites", suites.getTagName());
+		// pass.lua has one case, fail.lua has two cases and its exit, and timeout.lua only has its exit.
+		assertEquals("5", suites.getAttribute("tests"));
+		assertEquals("2", suites.getAttribute("failures"));
+		assertEquals("1", suites.getAttribute("errors"));
+
+		Element pass = suite(document, "pass.lua");
+		assertEquals("1", pass.getAttribute("tests"));
+		assertEquals("0", pass.getAttribute("failures"));
+		Element adds = testCase(pass, "adds");
+		assertEquals("0.5", adds.getAttribute("time"));
+		assertEquals(0, adds.getChildNodes().getLength());
+		// The control character is removed, but the rest of the output is kept.
+		String output = pass.getElementsByTagName("system-out").item(0).getTextContent();
+		assertTrue(output.contains("a ]]> b  c"), output);
+
+		Element fail = suite(document, "fail.lua");
+		assertEquals("3", fail.getAttribute("tests"));
+		assertEquals("2", fail.getAttribute("failures"));
+		assertEquals(0, testCase(fail, "passes").getChildNodes().getLength());
+		Element failure = (Element) testCase(fail, "fails").getElementsByTagName("failure").item(0);
+		assertEquals("Expected failure", failure.getAttribute("message"));
+		Element exit = (Element) testCase(fail, "fail.lua").getElementsByTagName("failure").item(0);
+		assertTrue(exit.getTextContent().contains("Oh no"), exit.getTextContent());
+
+		Element timeout = suite(document, "timeout.lua");
+		assertEquals("1", timeout.getAttribute("tests"));
+		assertEquals("0", timeout.getAttribute("failures"));
+		assertEquals("1", timeout.getAttribute("errors"));
+		Element error = (Element) testCase(timeout, "timeout.lua").getElementsByTagName("error").item(0);
+		assertEquals("Timed out after " + TIMEOUT + " ms", error.getAttribute("message"));
+	}
+
+	private static Document report() throws Exception {
+		StringWriter writer = new StringWriter();
+		JUnitReport.write(results, writer);
+		return DocumentBuilderFactory.newInstance().newDocumentBuilder()
+			.parse(new InputSource(new StringReader(writer.toString())));
+	}
+
+	private static Element suite(Document document, String name) {
+		return named(document.getElementsByTagName("testsuite"), name);
+	}
+
+	private static Element testCase(Element suite, String name) {
+		return named(suite.getElementsByTagName("testcase"), name);
+	}
+
+	private static Element named(NodeList nodes, String name) {
+		for (int i = 0; i < nodes.getLength(); i++) {
+			Element element = (Element) nodes.item(i);
+			if (element.getAttribute("name").equals(name)) return element;
+		}
+		throw new AssertionError("Cannot find " + name);
+	}
+}
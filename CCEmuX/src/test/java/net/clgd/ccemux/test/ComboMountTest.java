@@ -0,0 +1,90 @@
+package net.clgd.ccemux.test;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.io.CharStreams;
+import dan200.computercraft.api.filesystem.FileOperationException;
+import dan200.computercraft.api.filesystem.Mount;
+import dan200.computercraft.core.filesystem.FileMount;
+import net.clgd.ccemux.api.emulation.filesystem.VirtualDirectory;
+import net.clgd.ccemux.api.emulation.filesystem.VirtualFile;
+import net.clgd.ccemux.api.emulation.filesystem.VirtualMount;
+import net.clgd.ccemux.emulation.ComboMount;
+import net.clgd.ccemux.emulation.DirectoryWatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ComboMountTest {
+	@TempDir
+	Path dir;
+
+	private ComboMount mount;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		Files.createDirectories(dir.resolve("programs"));
+		Files.writeString(dir.resolve("programs/hello.lua"), "from files");
+
+		VirtualDirectory.Builder builder = new VirtualDirectory.Builder();
+		builder.addEntry("programs/hello.lua", new VirtualFile("from plugin"));
+		builder.addEntry("programs/edit.lua", new VirtualFile("edit"));
+		builder.addEntry("startup.lua", new VirtualFile("startup"));
+
+		mount = new ComboMount(new Mount[]{
+			new FileMount(dir),
+			new VirtualMount(builder.build()),
+		}, new DirectoryWatcher(dir));
+	}
+
+	private static List<String> list(Mount mount, String path) throws IOException {
+		List<String> contents = new ArrayList<>();
+		mount.list(path, contents);
+		contents.sort(null);
+		return contents;
+	}
+
+	private static String read(Mount mount, String path) throws IOException {
+		return CharStreams.toString(Channels.newReader(mount.openForRead(path), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testOverlay() throws IOException {
+		assertTrue(mount.exists("startup.lua"));
+		assertTrue(mount.isDirectory("programs"));
+		assertFalse(mount.exists("missing.lua"));
+
+		assertEquals(List.of("programs", "startup.lua"), list(mount, ""));
+		assertEquals(List.of("edit.lua", "hello.lua"), list(mount, "programs"));
+
+		assertEquals("from files", read(mount, "programs/hello.lua"));
+		assertEquals("edit", read(mount, "programs/edit.lua"));
+		assertEquals("from files".length(), mount.getSize("programs/hello.lua"));
+
+		assertThrows(FileOperationException.class, () -> mount.getSize("missing.lua"));
+		assertThrows(FileOperationException.class, () -> list(mount, "startup.lua"));
+	}
+
+	@Test
+	public void testSeesNewFiles() throws Exception {
+		assertFalse(mount.exists("programs/new.lua"));
+
+		Files.writeString(dir.resolve("startup.lua"), "overridden");
+		Files.writeString(dir.resolve("programs/new.lua"), "new");
+
+		// File events are delivered asynchronously, so give them a moment to arrive.
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!mount.exists("programs/new.lua") && System.currentTimeMillis() < deadline) Thread.sleep(10);
+
+		assertTrue(mount.exists("programs/new.lua"));
+		assertEquals("overridden", read(mount, "startup.lua"));
+	}
+}
@@ -0,0 +1,91 @@
+package net.clgd.ccemux.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import net.clgd.ccemux.emulation.CoverageReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.squiddev.cobalt.LuaState;
+import org.squiddev.cobalt.LuaThread;
+import org.squiddev.cobalt.compiler.LoadState;
+import org.squiddev.cobalt.debug.Coverage;
+import org.squiddev.cobalt.debug.SourceCoverage;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoverageReportTest {
+	private static final Path ROOT = Paths.get("project").toAbsolutePath();
+	private static final Path FILE = ROOT.resolve("src").resolve("startup.lua");
+
+	private Map<Path, SourceCoverage> coverage;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		Coverage recorder = new Coverage();
+		LuaState state = LuaState.builder().coverage(recorder).build();
+
+		String contents = "local function f(x)\n  if x then return 1 end\nend\nf(false)\nf(false)\n";
+		LuaThread.runMain(state, LoadState.load(state, new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)), "@/startup.lua", state.globals()));
+
+		coverage = Collections.singletonMap(FILE, recorder.collect().values().iterator().next());
+	}
+
+	@Test
+	public void testLcov() throws IOException {
+		StringWriter writer = new StringWriter();
+		CoverageReport.writeLcov(coverage, writer);
+
+		assertEquals(
+			"TN:\n" +
+				"SF:" + FILE + "\n" +
+				"BRDA:2,0,0,2\n" +
+				"BRDA:2,0,1,0\n" +
+				"BRF:2\n" +
+				"BRH:1\n" +
+				"DA:2,2\n" +
+				"DA:3,2\n" +
+				"DA:4,1\n" +
+				"DA:5,1\n" +
+				"LF:4\n" +
+				"LH:4\n" +
+				"end_of_record\n",
+			writer.toString()
+		);
+	}
+
+	@Test
+	public void testCobertura() throws Exception {
+		StringWriter writer = new StringWriter();
+		CoverageReport.writeCobertura(coverage, ROOT, writer);
+
+		Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+			.parse(new ByteArrayInputStream(writer.toString().getBytes(StandardCharsets.UTF_8)));
+
+		Element root = document.getDocumentElement();
+		assertEquals("coverage", root.getTagName());
+		assertEquals("4", root.getAttribute("lines-valid"));
+		assertEquals("0.5", root.getAttribute("branch-rate"));
+
+		Element pkg = (Element) root.getElementsByTagName("package").item(0);
+		assertEquals("src", pkg.getAttribute("name"));
+
+		Element cls = (Element) pkg.getElementsByTagName("class").item(0);
+		assertEquals("src/startup.lua", cls.getAttribute("filename"));
+
+		Element line = (Element) cls.getElementsByTagName("line").item(0);
+		assertEquals("2", line.getAttribute("number"));
+		assertEquals("true", line.getAttribute("branch"));
+		assertEquals("50% (1/2)", line.getAttribute("condition-coverage"));
+	}
+}
@@ -0,0 +1,152 @@
+package net.clgd.ccemux.test;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import net.clgd.ccemux.api.emulation.EmulatedTerminal;
+import net.clgd.ccemux.api.rendering.TerminalFont;
+import net.clgd.ccemux.rendering.GlyphAtlas;
+import net.clgd.ccemux.rendering.TerminalFramebuffer;
+import net.clgd.ccemux.rendering.headless.FrameRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameRecorderTest {
+	private static final int BLACK = 15, WHITE = 0;
+
+	@TempDir
+	Path dir;
+
+	private EmulatedTerminal terminal;
+	private GlyphAtlas atlas;
+	private TerminalFramebuffer framebuffer;
+	private FrameRecorder recorder;
+
+	@BeforeEach
+	public void setUp() {
+		TerminalFont font = new TerminalFont(TerminalFont.BASE_WIDTH, TerminalFont.BASE_HEIGHT) {
+		};
+
+		// A font where 'A' is a solid block.
+		int[] pixels = new int[TerminalFont.BASE_WIDTH * TerminalFont.BASE_HEIGHT];
+		Rectangle coords = font.getCharCoords('A');
+		for (int y = 0; y < coords.height; y++) {
+			for (int x = 0; x < coords.width; x++) pixels[(coords.y + y) * TerminalFont.BASE_WIDTH + coords.x + x] = 0xFFFFFFFF;
+		}
+
+		terminal = new EmulatedTerminal(2, 1);
+		atlas = new GlyphAtlas(font, pixels, TerminalFont.BASE_WIDTH);
+		framebuffer = new TerminalFramebuffer(terminal, atlas);
+		recorder = new FrameRecorder(dir, true);
+	}
+
+	private void draw(long time) {
+		framebuffer.resize();
+		TerminalFramebuffer.Region region = framebuffer.draw(false);
+		if (region != null) recorder.frame(time, framebuffer, region);
+	}
+
+	private void finish(long time) throws InterruptedException {
+		recorder.finish(time);
+		assertTrue(FrameRecorder.awaitAll(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testRecordsFrames() throws Exception {
+		draw(0);
+
+		terminal.setCursorPos(1, 0);
+		terminal.write("A");
+		draw(100);
+
+		// Redrawing the same contents should just extend the previous frame.
+		framebuffer.markAllDirty();
+		draw(150);
+
+		finish(300);
+
+		Path animation = dir.resolve("recording.apng");
+		List<Chunk> chunks = readChunks(animation);
+		List<Integer> delays = new ArrayList<>();
+		int frames = -1;
+		for (Chunk chunk : chunks) {
+			if (chunk.type.equals("acTL")) frames = chunk.data.getInt(0);
+			if (chunk.type.equals("fcTL")) delays.add((int) chunk.data.getShort(20));
+		}
+
+		assertEquals(2, frames);
+		assertEquals(List.of(100, 200), delays);
+		// The second frame should only cover the changed cell.
+		assertEquals("fcTL", chunks.get(chunks.size() - 3).type);
+		assertEquals(framebuffer.getPixelWidth() - TerminalFont.BASE_CHAR_WIDTH - TerminalFont.BASE_MARGIN,
+			chunks.get(chunks.size() - 3).data.getInt(12));
+
+		// Readers which don't support APNG should see the first frame.
+		BufferedImage first = ImageIO.read(animation.toFile());
+		assertEquals(framebuffer.getPixelWidth(), first.getWidth());
+		assertEquals(atlas.getColour(BLACK), first.getRGB(framebuffer.getPixelWidth() - 2, 2));
+	}
+
+	@Test
+	public void testFinalImage() throws Exception {
+		terminal.write("A");
+		draw(0);
+		finish(50);
+
+		BufferedImage image = ImageIO.read(dir.resolve("final.png").toFile());
+		assertEquals(framebuffer.getPixelWidth(), image.getWidth());
+		assertEquals(framebuffer.getPixelHeight(), image.getHeight());
+		assertEquals(atlas.getColour(WHITE), image.getRGB(TerminalFont.BASE_MARGIN, TerminalFont.BASE_MARGIN));
+		assertEquals(atlas.getColour(BLACK), image.getRGB(framebuffer.getPixelWidth() - 2, 2));
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+		draw(0);
+		recorder.snapshot(1000);
+		finish(1000);
+
+		assertTrue(Files.exists(dir.resolve("snapshot-00001000.png")));
+		assertNotNull(ImageIO.read(dir.resolve("snapshot-00001000.png").toFile()));
+	}
+
+	private static final class Chunk {
+		final String type;
+		final ByteBuffer data;
+
+		Chunk(String type, ByteBuffer data) {
+			this.type = type;
+			this.data = data;
+		}
+	}
+
+	private static List<Chunk> readChunks(Path file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+		buffer.position(8);
+
+		List<Chunk> chunks = new ArrayList<>();
+		while (buffer.hasRemaining()) {
+			int length = buffer.getInt();
+			byte[] type = new byte[4];
+			buffer.get(type);
+			ByteBuffer data = buffer.slice();
+			data.limit(length);
+			buffer.position(buffer.position() + length + 4);
+			chunks.add(new Chunk(new String(type, StandardCharsets.US_ASCII), data));
+		}
+		return chunks;
+	}
+}
@@ -0,0 +1,76 @@
+package net.clgd.ccemux.test;
+
+import java.awt.Rectangle;
+import java.nio.IntBuffer;
+
+import net.clgd.ccemux.api.rendering.TerminalFont;
+import net.clgd.ccemux.rendering.GlyphAtlas;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlyphAtlasTest {
+	private static final int WHITE = 0, RED = 14, BLACK = 15;
+
+	private TerminalFont font;
+	private GlyphAtlas atlas;
+	private IntBuffer target;
+
+	@BeforeEach
+	public void setUp() {
+		font = new TerminalFont(TerminalFont.BASE_WIDTH, TerminalFont.BASE_HEIGHT) {
+		};
+
+		// A font where 'A' has an opaque top-left pixel and a half-transparent one next to it.
+		int[] pixels = new int[TerminalFont.BASE_WIDTH * TerminalFont.BASE_HEIGHT];
+		Rectangle coords = font.getCharCoords('A');
+		pixels[coords.y * TerminalFont.BASE_WIDTH + coords.x] = 0xFFFFFFFF;
+		pixels[coords.y * TerminalFont.BASE_WIDTH + coords.x + 1] = 0x80FFFFFF;
+
+		atlas = new GlyphAtlas(font, pixels, TerminalFont.BASE_WIDTH);
+		atlas.setColour(WHITE, 0xFFFFFF);
+		atlas.setColour(RED, 0xFF0000);
+		atlas.setColour(BLACK, 0x000000);
+
+		target = IntBuffer.allocate(font.getCharWidth() * font.getCharHeight());
+	}
+
+	private void drawCell(char c, int foreground) {
+		atlas.fill(target, font.getCharWidth(), 0, 0, font.getCharWidth(), font.getCharHeight(), BLACK);
+		atlas.drawGlyph(target, font.getCharWidth(), 0, 0, c, foreground);
+	}
+
+	@Test
+	public void testDrawGlyph() {
+		drawCell('A', RED);
+		assertEquals(0xFFFF0000, target.get(0));
+		assertEquals(0xFF800000, target.get(1));
+		assertEquals(0xFF000000, target.get(2));
+	}
+
+	@Test
+	public void testBlendsOverBackground() {
+		atlas.fill(target, font.getCharWidth(), 0, 0, font.getCharWidth(), font.getCharHeight(), WHITE);
+		atlas.drawGlyph(target, font.getCharWidth(), 0, 0, 'A', RED);
+		assertEquals(0xFFFF7F7F, target.get(1));
+	}
+
+	@Test
+	public void testSetColour() {
+		drawCell('A', RED);
+		assertFalse(atlas.setColour(RED, 0xFF0000));
+		assertTrue(atlas.setColour(RED, 0x00FF00));
+
+		drawCell('A', RED);
+		assertEquals(0xFF00FF00, target.get(0));
+	}
+
+	@Test
+	public void testColourIndex() {
+		assertEquals(0, GlyphAtlas.colourIndex('0', 15));
+		assertEquals(10, GlyphAtlas.colourIndex('a', 15));
+		assertEquals(15, GlyphAtlas.colourIndex('F', 0));
+		assertEquals(15, GlyphAtlas.colourIndex(' ', 15));
+	}
+}
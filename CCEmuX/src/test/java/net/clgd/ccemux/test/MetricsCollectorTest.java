@@ -0,0 +1,100 @@
+package net.clgd.ccemux.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+import dan200.computercraft.core.metrics.Metrics;
+import dan200.computercraft.core.metrics.MetricsObserver;
+import net.clgd.ccemux.emulation.MetricsCollector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsCollectorTest {
+	private MetricsCollector metrics;
+
+	@BeforeEach
+	public void setUp() {
+		metrics = new MetricsCollector();
+
+		MetricsObserver computer = metrics.observer(0);
+		computer.observe(Metrics.COMPUTER_TASKS, 2_000_000);
+		computer.observe(Metrics.COMPUTER_TASKS, 20_000_000_000L);
+		computer.observe(Metrics.HTTP_REQUESTS);
+		computer.observe(Metrics.HTTP_REQUESTS);
+
+		metrics.observer(3).observe(Metrics.FS_OPS, 50_000);
+	}
+
+	private String prometheus() throws IOException {
+		StringWriter writer = new StringWriter();
+		metrics.writePrometheus(writer);
+		return writer.toString();
+	}
+
+	@Test
+	public void testPrometheusCounter() throws IOException {
+		String output = prometheus();
+		assertTrue(output.contains("# TYPE ccemux_http_requests_total counter\n"), output);
+		assertTrue(output.contains("ccemux_http_requests_total{computer=\"0\"} 2\n"), output);
+	}
+
+	@Test
+	public void testPrometheusHistogram() throws IOException {
+		String output = prometheus();
+		assertTrue(output.contains("# TYPE ccemux_computer_tasks_seconds histogram\n"), output);
+		assertTrue(output.contains("ccemux_computer_tasks_seconds_bucket{computer=\"0\",le=\"0.001\"} 0\n"), output);
+		assertTrue(output.contains("ccemux_computer_tasks_seconds_bucket{computer=\"0\",le=\"0.005\"} 1\n"), output);
+		assertTrue(output.contains("ccemux_computer_tasks_seconds_bucket{computer=\"0\",le=\"10\"} 1\n"), output);
+		assertTrue(output.contains("ccemux_computer_tasks_seconds_bucket{computer=\"0\",le=\"+Inf\"} 2\n"), output);
+		assertTrue(output.contains("ccemux_computer_tasks_seconds_sum{computer=\"0\"} 20.002\n"), output);
+		assertTrue(output.contains("ccemux_computer_tasks_seconds_count{computer=\"0\"} 2\n"), output);
+
+		assertTrue(output.contains("ccemux_fs_seconds_count{computer=\"3\"} 1\n"), output);
+		assertFalse(output.contains("ccemux_fs_seconds_count{computer=\"0\"}"), output);
+	}
+
+	@Test
+	public void testJson() throws IOException {
+		StringWriter writer = new StringWriter();
+		metrics.writeJson(writer);
+
+		JsonObject computer = JsonParser.parseString(writer.toString()).getAsJsonObject()
+			.getAsJsonArray("computers").get(0).getAsJsonObject();
+		assertEquals(0, computer.get("id").getAsInt());
+		assertEquals(2, computer.getAsJsonObject("counters").get("http_requests").getAsLong());
+
+		JsonObject tasks = computer.getAsJsonObject("events").getAsJsonObject("computer_tasks");
+		assertEquals("ns", tasks.get("unit").getAsString());
+		assertEquals(2, tasks.get("count").getAsLong());
+		assertEquals(20_002_000_000L, tasks.get("sum").getAsLong());
+		assertEquals(20_000_000_000L, tasks.get("max").getAsLong());
+	}
+
+	@Test
+	public void testServe() throws IOException {
+		HttpServer server = metrics.serve(0);
+		try {
+			URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/metrics");
+			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+			assertEquals(200, connection.getResponseCode());
+			assertTrue(connection.getContentType().startsWith("text/plain"));
+
+			String body;
+			try (InputStream stream = connection.getInputStream()) {
+				body = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+			}
+			assertEquals(prometheus(), body);
+		} finally {
+			server.stop(0);
+		}
+	}
+}
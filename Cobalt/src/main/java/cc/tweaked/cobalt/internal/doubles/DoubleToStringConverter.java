@@ -554,6 +554,98 @@ public final class DoubleToStringConverter {
 		}
 	}
 
+	/**
+	 * Get the maximum number of bytes {@link #toPrecision(double, int, byte[], int)} may write.
+	 *
+	 * @param precision The precision to format numbers with.
+	 * @return The maximum length of a formatted number.
+	 */
+	public static int maxPrecisionLength(int precision) {
+		// "-d." followed by the remaining digits and "e-ddd". Decimal representations are at most "-0.000" followed by
+		// the digits, so are always shorter.
+		return Math.max(precision, MIN_PRECISION_DIGITS) + 7;
+	}
+
+	/**
+	 * Format a number in the same way as {@link #toPrecision(double, int, FormatOptions, Buffer)} with no padding or
+	 * flags (equivalent to {@code "%.<precision>g"}), writing it directly to a byte array.
+	 * <p>
+	 * This avoids the intermediate buffers and option objects needed by the more general method, and so is suitable
+	 * for converting numbers to strings.
+	 *
+	 * @param value     The value to format.
+	 * @param precision The number of significant digits.
+	 * @param result    The array to write to. This must have at least {@link #maxPrecisionLength(int)} bytes
+	 *                  available after {@code offset}.
+	 * @param offset    The position in {@code result} to start writing at.
+	 * @return The number of bytes written.
+	 * @throws IllegalArgumentException when <code>precision < MIN_PRECISION_DIGITS</code> or
+	 *                                  <code>precision > MAX_PRECISION_DIGITS</code>
+	 */
+	public static int toPrecision(double value, int precision, byte[] result, int offset) {
+		int pos = offset;
+		if (Doubles.isSpecial(value)) {
+			if (value < 0.0) result[pos++] = '-';
+			String symbol = Double.isNaN(value) ? "nan" : "inf";
+			for (int i = 0; i < symbol.length(); i++) result[pos++] = (byte) symbol.charAt(i);
+			return pos - offset;
+		}
+
+		if (precision < MIN_PRECISION_DIGITS || precision > MAX_PRECISION_DIGITS) {
+			throw new IllegalArgumentException(String.format("argument precision must be in range (%d,%d)", MIN_PRECISION_DIGITS, MAX_PRECISION_DIGITS));
+		}
+
+		DecimalRepBuf decimalRep = new DecimalRepBuf(precision + 1);
+		doubleToAscii(value, DtoaMode.PRECISION, precision, decimalRep);
+
+		int decimalPoint = decimalRep.getPointPosition();
+		boolean asExponential = (-decimalPoint + 1 > MAX_LEADING_ZEROS) || (decimalPoint - precision > MAX_TRAILING_ZEROS);
+		decimalRep.truncateZeros(asExponential);
+
+		char[] digits = decimalRep.getBuffer();
+		int length = decimalRep.length();
+
+		if (shouldEmitMinus(value)) result[pos++] = '-';
+
+		if (asExponential) {
+			result[pos++] = (byte) digits[0];
+			if (length > 1) {
+				result[pos++] = '.';
+				for (int i = 1; i < length; i++) result[pos++] = (byte) digits[i];
+			}
+
+			result[pos++] = 'e';
+			int exponent = decimalPoint - 1;
+			if (exponent < 0) {
+				result[pos++] = '-';
+				exponent = -exponent;
+			} else {
+				result[pos++] = '+';
+			}
+
+			if (exponent >= 100) result[pos++] = (byte) (ASCII_ZERO + exponent / 100);
+			result[pos++] = (byte) (ASCII_ZERO + exponent / 10 % 10);
+			result[pos++] = (byte) (ASCII_ZERO + exponent % 10);
+		} else if (decimalPoint <= 0) {
+			// "0.000digits"
+			result[pos++] = '0';
+			result[pos++] = '.';
+			for (int i = decimalPoint; i < 0; i++) result[pos++] = '0';
+			for (int i = 0; i < length; i++) result[pos++] = (byte) digits[i];
+		} else if (decimalPoint >= length) {
+			// "digits000"
+			for (int i = 0; i < length; i++) result[pos++] = (byte) digits[i];
+			for (int i = length; i < decimalPoint; i++) result[pos++] = '0';
+		} else {
+			// "digi.ts"
+			for (int i = 0; i < decimalPoint; i++) result[pos++] = (byte) digits[i];
+			result[pos++] = '.';
+			for (int i = decimalPoint; i < length; i++) result[pos++] = (byte) digits[i];
+		}
+
+		return pos - offset;
+	}
+
 	/**
 	 * Computes a representation in hexadecimal exponential format with <code>requestedDigits</code> after the decimal
 	 * point. The last emitted digit is rounded.
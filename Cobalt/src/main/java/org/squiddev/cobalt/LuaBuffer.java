@@ -0,0 +1,174 @@
+package org.squiddev.cobalt;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A fixed-size, mutable block of bytes.
+ * <p>
+ * Unlike {@link LuaString}, a buffer can be modified in place, so binary data can be built up or decoded without
+ * allocating a new string for every change. Slices of a buffer share their contents with the original buffer.
+ * <p>
+ * Offsets are zero-based and are not bounds-checked: callers should use {@link #checkRange(int, long, long)} first.
+ * Multi-byte values are stored in little-endian order.
+ *
+ * @see org.squiddev.cobalt.lib.BufferLib
+ */
+public final class LuaBuffer extends LuaUserdata {
+	private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle FLOAT = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle DOUBLE = MethodHandles.byteArrayViewVarHandle(double[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private final byte[] bytes;
+	private final int offset;
+	private final int length;
+
+	private LuaBuffer(byte[] bytes, int offset, int length, LuaTable metatable) {
+		super(bytes, metatable);
+		this.bytes = bytes;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * Create a new buffer filled with zeros.
+	 *
+	 * @param state  The current Lua state, used to find the buffer metatable.
+	 * @param length The length of this buffer.
+	 * @return The new buffer.
+	 */
+	public static LuaBuffer allocate(LuaState state, int length) {
+		return new LuaBuffer(new byte[length], 0, length, state.bufferMetatable);
+	}
+
+	/**
+	 * Create a new buffer containing a copy of some bytes.
+	 *
+	 * @param state  The current Lua state, used to find the buffer metatable.
+	 * @param bytes  The bytes to copy.
+	 * @param offset The offset into {@code bytes} to start copying from.
+	 * @param length The number of bytes to copy.
+	 * @return The new buffer.
+	 */
+	public static LuaBuffer copyOf(LuaState state, byte[] bytes, int offset, int length) {
+		byte[] copy = new byte[length];
+		System.arraycopy(bytes, offset, copy, 0, length);
+		return new LuaBuffer(copy, 0, length, state.bufferMetatable);
+	}
+
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Check a range of this buffer is in bounds.
+	 *
+	 * @param arg    The argument the offset was passed in, used for error messages.
+	 * @param offset The zero-based offset of the range.
+	 * @param count  The length of the range.
+	 * @throws LuaError If the range is out of bounds.
+	 */
+	public void checkRange(int arg, long offset, long count) throws LuaError {
+		if (offset < 0 || count < 0 || offset > length - count) throw ErrorFactory.argError(arg, "out of bounds");
+	}
+
+	/**
+	 * Create a view of part of this buffer. Changes to the slice are visible in this buffer, and vice versa.
+	 *
+	 * @param offset The zero-based offset of the slice.
+	 * @param length The length of the slice.
+	 * @return The new slice.
+	 */
+	public LuaBuffer slice(int offset, int length) {
+		return new LuaBuffer(bytes, this.offset + offset, length, metatable);
+	}
+
+	/**
+	 * Get a {@link ByteBuffer} which shares its contents with this buffer. Its position is zero and its limit is the
+	 * length of this buffer.
+	 *
+	 * @return A view of this buffer.
+	 */
+	public ByteBuffer toBuffer() {
+		return ByteBuffer.wrap(bytes, offset, length).slice();
+	}
+
+	/**
+	 * Copy part of this buffer into a new string.
+	 *
+	 * @param offset The zero-based offset to start copying from.
+	 * @param length The number of bytes to copy.
+	 * @return The new string.
+	 */
+	public LuaString toLuaString(int offset, int length) {
+		return LuaString.valueOf(Arrays.copyOfRange(bytes, this.offset + offset, this.offset + offset + length));
+	}
+
+	public void copyFrom(int offset, LuaString source, int sourceOffset, int length) {
+		source.copyTo(sourceOffset, bytes, this.offset + offset, length);
+	}
+
+	public void copyFrom(int offset, LuaBuffer source, int sourceOffset, int length) {
+		// System.arraycopy handles overlapping ranges, so copying within a buffer (or between slices) is safe.
+		System.arraycopy(source.bytes, source.offset + sourceOffset, bytes, this.offset + offset, length);
+	}
+
+	public void fill(int offset, int length, byte value) {
+		Arrays.fill(bytes, this.offset + offset, this.offset + offset + length, value);
+	}
+
+	public byte getByte(int offset) {
+		return bytes[this.offset + offset];
+	}
+
+	public void putByte(int offset, byte value) {
+		bytes[this.offset + offset] = value;
+	}
+
+	public short getShort(int offset) {
+		return (short) SHORT.get(bytes, this.offset + offset);
+	}
+
+	public void putShort(int offset, short value) {
+		SHORT.set(bytes, this.offset + offset, value);
+	}
+
+	public int getInt(int offset) {
+		return (int) INT.get(bytes, this.offset + offset);
+	}
+
+	public void putInt(int offset, int value) {
+		INT.set(bytes, this.offset + offset, value);
+	}
+
+	public float getFloat(int offset) {
+		return (float) FLOAT.get(bytes, this.offset + offset);
+	}
+
+	public void putFloat(int offset, float value) {
+		FLOAT.set(bytes, this.offset + offset, value);
+	}
+
+	public double getDouble(int offset) {
+		return (double) DOUBLE.get(bytes, this.offset + offset);
+	}
+
+	public void putDouble(int offset, double value) {
+		DOUBLE.set(bytes, this.offset + offset, value);
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(this);
+	}
+
+	@Override
+	public boolean equals(Object val) {
+		// Buffers are mutable, so (like tables) are only ever equal to themselves.
+		return this == val;
+	}
+}
@@ -24,7 +24,9 @@
  */
 package org.squiddev.cobalt;
 
-import org.squiddev.cobalt.lib.FormatDesc;
+import cc.tweaked.cobalt.internal.doubles.DoubleToStringConverter;
+
+import java.nio.charset.StandardCharsets;
 
 /**
  * Extension of {@link LuaNumber} which can hold a Java double as its value.
@@ -81,7 +83,11 @@ public final class LuaDouble extends LuaNumber {
 	private static final LuaString STR_NAN = ValueFactory.valueOf(JSTR_NAN);
 	private static final LuaString STR_POSINF = ValueFactory.valueOf(JSTR_POSINF);
 	private static final LuaString STR_NEGINF = ValueFactory.valueOf(JSTR_NEGINF);
-	private static final FormatDesc NUMBER_FORMAT = FormatDesc.ofUnsafe(".14g");
+	/**
+	 * The precision numbers are converted to strings with, equivalent to {@code "%.14g"}.
+	 */
+	private static final int PRECISION = 14;
+	private static final int MAX_LENGTH = DoubleToStringConverter.maxPrecisionLength(PRECISION);
 
 	/**
 	 * The value being held by this instance.
@@ -129,9 +135,9 @@ public final class LuaDouble extends LuaNumber {
 		if (Double.isNaN(v)) return JSTR_NAN;
 		if (Double.isInfinite(v)) return v < 0 ? JSTR_NEGINF : JSTR_POSINF;
 
-		Buffer buffer = new Buffer(16);
-		NUMBER_FORMAT.format(buffer, v);
-		return buffer.toString();
+		byte[] bytes = new byte[MAX_LENGTH];
+		int length = DoubleToStringConverter.toPrecision(v, PRECISION, bytes, 0);
+		return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
 	}
 
 	@Override
@@ -139,9 +145,9 @@ public final class LuaDouble extends LuaNumber {
 		if (Double.isNaN(v)) return STR_NAN;
 		if (Double.isInfinite(v)) return v < 0 ? STR_NEGINF : STR_POSINF;
 
-		Buffer buffer = new Buffer(16);
-		NUMBER_FORMAT.format(buffer, v);
-		return buffer.toLuaString();
+		byte[] bytes = new byte[MAX_LENGTH];
+		int length = DoubleToStringConverter.toPrecision(v, PRECISION, bytes, 0);
+		return LuaString.valueOf(bytes, 0, length);
 	}
 
 	@Override
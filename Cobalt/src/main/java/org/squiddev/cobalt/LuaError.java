@@ -24,7 +24,9 @@
  */
 package org.squiddev.cobalt;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.squiddev.cobalt.debug.DebugHelpers;
+import org.squiddev.cobalt.debug.Traceback;
 
 import java.io.Serial;
 
@@ -38,6 +40,11 @@ import java.io.Serial;
  * Java method signatures do notdeclare this exception, althoug it can
  * be thrown on almost any luaj Java operation.
  * This is analagous to the fact that any lua script can throw a lua error at any time.
+ * <p>
+ * Lua errors are frequently used for control flow (for instance {@code pcall(error, ...)}), so they do not capture a
+ * Java stack trace when constructed. Instead, {@link #fillTraceback(LuaState)} captures the Lua stack, which is only
+ * formatted when the message is requested. Hosts which log errors may use {@link #captureStackTrace()} to record the
+ * Java stack at that point.
  */
 public final class LuaError extends Exception {
 	@Serial
@@ -46,9 +53,14 @@ public final class LuaError extends Exception {
 	private LuaValue value;
 
 	/**
-	 * The traceback for this error message
+	 * The Lua stack when this error was thrown, set by {@link #fillTraceback(LuaState)}.
+	 */
+	private @Nullable Traceback stack;
+
+	/**
+	 * The traceback for this error message, computed from {@link #stack} when first needed.
 	 */
-	private String traceback;
+	private @Nullable String traceback;
 
 	/**
 	 * The error to raise at
@@ -138,7 +150,25 @@ public final class LuaError extends Exception {
 
 	@Override
 	public String getMessage() {
-		return traceback != null ? traceback : rawToString(value);
+		if (traceback != null) return traceback;
+		if (stack != null) return traceback = rawToString(value) + "\n" + stack;
+		return rawToString(value);
+	}
+
+	@Override
+	public Throwable fillInStackTrace() {
+		return this;
+	}
+
+	/**
+	 * Capture the current Java stack trace. This is not done when the error is constructed, and so should be called
+	 * before logging this error if the Java stack is needed.
+	 *
+	 * @return This error.
+	 */
+	public LuaError captureStackTrace() {
+		if (getStackTrace().length == 0) super.fillInStackTrace();
+		return this;
 	}
 
 	/**
@@ -151,7 +181,7 @@ public final class LuaError extends Exception {
 	public void fillTraceback(LuaState state) {
 		// TODO: Split this into two methods: one which adds the context, and one which computes the traceback.
 
-		if (traceback != null) return;
+		if (stack != null) return;
 		if (getCause() != null) state.reportInternalError(getCause(), () -> "Uncaught Java exception");
 
 		LuaThread thread = state.getCurrentThread();
@@ -165,7 +195,7 @@ public final class LuaError extends Exception {
 			if (fileLine != null) value = ValueFactory.valueOf(fileLine + ": " + value.toString());
 		}
 
-		traceback = getMessage() + "\n" + DebugHelpers.traceback(thread, level);
+		stack = Traceback.capture(thread, level);
 	}
 
 	private static String rawToString(LuaValue value) {
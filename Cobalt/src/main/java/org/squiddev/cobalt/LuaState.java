@@ -28,6 +28,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import org.squiddev.cobalt.compiler.BytecodeFormat;
 import org.squiddev.cobalt.compiler.LoadState;
 import org.squiddev.cobalt.compiler.LuaC;
+import org.squiddev.cobalt.debug.Coverage;
 import org.squiddev.cobalt.debug.DebugFrame;
 import org.squiddev.cobalt.interrupt.InterruptAction;
 import org.squiddev.cobalt.interrupt.InterruptHandler;
@@ -69,6 +70,11 @@ public final class LuaState {
 	 */
 	public LuaTable threadMetatable;
 
+	/**
+	 * The metatable for all {@linkplain LuaBuffer buffers}
+	 */
+	public LuaTable bufferMetatable;
+
 	/**
 	 * The recorded program trace
 	 */
@@ -83,6 +89,8 @@ public final class LuaState {
 
 	private final @Nullable BytecodeFormat bytecodeFormat;
 
+	private final @Nullable Coverage coverage;
+
 	private volatile boolean interrupted;
 	private final InterruptHandler interruptHandler;
 
@@ -105,6 +113,11 @@ public final class LuaState {
 
 	private final GlobalRegistry registry = new GlobalRegistry();
 
+	/**
+	 * Recent conversions of numbers to strings.
+	 */
+	final NumberStringCache numberStrings = new NumberStringCache();
+
 	public LuaState() {
 		this(new LuaState.Builder());
 	}
@@ -114,6 +127,7 @@ public final class LuaState {
 		interruptHandler = builder.interruptHandler;
 		reportError = builder.reportError;
 		bytecodeFormat = builder.bytecodeFormat;
+		coverage = builder.coverage;
 
 		mainThread = currentThread = new LuaThread(this);
 	}
@@ -165,6 +179,15 @@ public final class LuaState {
 		return bytecodeFormat;
 	}
 
+	/**
+	 * Get the coverage recorder for this Lua state.
+	 *
+	 * @return The current coverage recorder, or {@code null} if coverage is not being recorded.
+	 */
+	public @Nullable Coverage getCoverage() {
+		return coverage;
+	}
+
 	/**
 	 * Interrupt the execution of the current runtime.
 	 * <p>
@@ -254,6 +277,7 @@ public final class LuaState {
 		private @Nullable InterruptHandler interruptHandler;
 		private @Nullable ErrorReporter reportError;
 		private @Nullable BytecodeFormat bytecodeFormat;
+		private @Nullable Coverage coverage;
 
 		/**
 		 * Build a Lua state from this builder
@@ -313,6 +337,18 @@ public final class LuaState {
 			this.bytecodeFormat = bytecodeFormat;
 			return this;
 		}
+
+		/**
+		 * Record line and branch coverage of all Lua code executed by this Lua state.
+		 *
+		 * @param coverage The coverage recorder to record to.
+		 * @return This builder
+		 */
+		public Builder coverage(Coverage coverage) {
+			Objects.requireNonNull(coverage, "coverage cannot be null");
+			this.coverage = coverage;
+			return this;
+		}
 	}
 
 	/**
@@ -26,7 +26,10 @@ package org.squiddev.cobalt;
 
 import cc.tweaked.cobalt.internal.string.NumberParser;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.framework.qual.DefaultQualifier;
+import org.squiddev.cobalt.compiler.ArrayInputReader;
+import org.squiddev.cobalt.compiler.InputReader;
 
 import java.io.*;
 import java.nio.ByteBuffer;
@@ -470,6 +473,16 @@ public final class LuaString extends LuaValue implements Comparable<LuaString> {
 		return new ByteArrayInputStream(bytes(), offset, length);
 	}
 
+	/**
+	 * Convert value to an {@link InputReader}, suitable for passing to the compiler.
+	 *
+	 * @param state The current Lua state, used to check for interrupts while reading. This may be {@code null}.
+	 * @return {@link InputReader} whose data matches the bytes in this {@link LuaString}
+	 */
+	public InputReader toReader(@Nullable LuaState state) {
+		return new ArrayInputReader(state, bytes(), offset, length);
+	}
+
 	/**
 	 * Convert this string to a {@link ByteBuffer}.
 	 *
@@ -26,6 +26,8 @@ package org.squiddev.cobalt;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Map;
@@ -83,9 +85,22 @@ public final class LuaTable extends LuaValue {
 
 	private int lastFree = 0;
 
+	/**
+	 * The node returned by the last call to {@link #next(LuaValue)}. This allows traversals to continue without
+	 * searching for the previous key again.
+	 */
+	private int lastNext;
+
 	private boolean weakKeys;
 	private boolean weakValues;
 
+	/**
+	 * The queue weak keys and values are registered with, or {@code null} if this table is not weak.
+	 *
+	 * @see #purgeWeak()
+	 */
+	private @Nullable ReferenceQueue<Object> weakQueue;
+
 	private int metatableFlags;
 	private LuaTable metatable;
 
@@ -148,6 +163,11 @@ public final class LuaTable extends LuaValue {
 		if (newWeakKeys != weakKeys || newWeakValues != weakValues) {
 			weakKeys = newWeakKeys;
 			weakValues = newWeakValues;
+			if (!newWeakKeys && !newWeakValues) {
+				weakQueue = null;
+			} else if (weakQueue == null) {
+				weakQueue = new ReferenceQueue<>();
+			}
 			rehash(null, true);
 		}
 	}
@@ -247,6 +267,8 @@ public final class LuaTable extends LuaValue {
 	 * @see #length()
 	 */
 	public int size() {
+		purgeWeak();
+
 		int n = 0;
 		for (var k : array) if (!strengthen(k).isNil()) n++;
 		for (int i = 0; i < keys.length; i++) {
@@ -282,6 +304,8 @@ public final class LuaTable extends LuaValue {
 	 * @see #isNil()
 	 */
 	public Varargs next(LuaValue key) throws LuaError {
+		purgeWeak();
+
 		int i = findIndex(key);
 		if (i < 0) throw new LuaError("invalid key to 'next'");
 
@@ -294,12 +318,61 @@ public final class LuaTable extends LuaValue {
 		for (; i < keys.length; i++) {
 			LuaValue thisKey = key(i);
 			LuaValue thisValue = value(i);
-			if (!thisKey.isNil() && !thisValue.isNil()) return varargsOf(thisKey, thisValue);
+			if (!thisKey.isNil() && !thisValue.isNil()) {
+				lastNext = i;
+				return varargsOf(thisKey, thisValue);
+			}
 		}
 
 		return NIL;
 	}
 
+	/**
+	 * Find the next key-value pair, as with {@link #next(LuaValue)}, but write them into an array rather than
+	 * returning a new {@link Varargs}.
+	 *
+	 * @param key    The key to start from, or {@link Constants#NIL} to start at the beginning.
+	 * @param out    The array to write to.
+	 * @param offset The index to write the key to. The value is written after it.
+	 * @param count  The number of slots to write. If greater than 2, the remaining slots are set to nil. If there are
+	 *               no more entries, all slots are set to nil.
+	 * @return Whether {@code key} was found. If not, the array is left unchanged.
+	 */
+	public boolean next(LuaValue key, LuaValue[] out, int offset, int count) {
+		purgeWeak();
+
+		int i = findIndex(key);
+		if (i < 0) return false;
+
+		LuaValue thisKey = NIL, thisValue = NIL;
+		for (; i < array.length; i++) {
+			LuaValue value = strengthen(array[i]);
+			if (!value.isNil()) {
+				thisKey = valueOf(i + 1);
+				thisValue = value;
+				break;
+			}
+		}
+
+		if (thisKey == NIL) {
+			for (i -= array.length; i < keys.length; i++) {
+				LuaValue nodeKey = key(i);
+				LuaValue nodeValue = value(i);
+				if (!nodeKey.isNil() && !nodeValue.isNil()) {
+					lastNext = i;
+					thisKey = nodeKey;
+					thisValue = nodeValue;
+					break;
+				}
+			}
+		}
+
+		for (int j = count - 1; j >= 2; j--) out[offset + j] = NIL;
+		if (count >= 2) out[offset + 1] = thisValue;
+		if (count >= 1) out[offset] = thisKey;
+		return true;
+	}
+
 	/**
 	 * Returns the index of this key for table traversals + 1.
 	 *
@@ -315,6 +388,10 @@ public final class LuaTable extends LuaValue {
 		if (arrayIndex > 0 && arrayIndex <= array.length) return arrayIndex;
 		if (keys.length == 0) return -1;
 
+		// We're most likely continuing a traversal, so check the last node we returned.
+		int last = lastNext;
+		if (last < keys.length && keys[last] == key) return last + array.length + 1;
+
 		// Must be in the main part so try to find it in the chain.
 		int idx = hashSlot(key);
 		while (true) {
@@ -374,13 +451,6 @@ public final class LuaTable extends LuaValue {
 		return hashSlot(key, keys.length - 1);
 	}
 
-	private void dropWeakArrayValues() {
-		for (int i = 0; i < array.length; ++i) {
-			Object x = array[i];
-			if (x != NIL && strengthen(x).isNil()) array[i] = NIL;
-		}
-	}
-
 	// Compute ceil(log2(x))
 	private static int log2(int x) {
 		return 32 - Integer.numberOfLeadingZeros(x - 1);
@@ -391,13 +461,13 @@ public final class LuaTable extends LuaValue {
 	/**
 	 * Resize the table
 	 */
-	private static Object[] setArrayVector(Object[] oldArray, int n, boolean metaChange, boolean weakValues) {
+	private Object[] setArrayVector(Object[] oldArray, int n, boolean metaChange) {
 		Object[] newArray = new Object[n];
 		int len = Math.min(n, oldArray.length);
 		if (metaChange) {
 			for (int i = 0; i < len; i++) {
 				LuaValue value = strengthen(oldArray[i]);
-				newArray[i] = weakValues ? weaken(value) : value;
+				newArray[i] = weakValues ? weaken(value, ~i) : value;
 			}
 		} else {
 			System.arraycopy(oldArray, 0, newArray, 0, Math.min(n, oldArray.length));
@@ -478,7 +548,7 @@ public final class LuaTable extends LuaValue {
 
 		// Array part must grow
 		if (newArraySize > oldArraySize) {
-			array = setArrayVector(array, newArraySize, modeChange, weakValues);
+			array = setArrayVector(array, newArraySize, modeChange);
 		}
 
 		Object[] oldKeys = keys;
@@ -487,7 +557,7 @@ public final class LuaTable extends LuaValue {
 
 		if (newArraySize < oldArraySize) {
 			Object[] oldArray = array;
-			array = setArrayVector(oldArray, newArraySize, modeChange, weakValues);
+			array = setArrayVector(oldArray, newArraySize, modeChange);
 
 			// Copy values out of array part into the hash
 			for (int i = newArraySize; i < oldArraySize; i++) {
@@ -499,20 +569,51 @@ public final class LuaTable extends LuaValue {
 			Object[] values = array;
 			for (int i = 0; i < oldArraySize; i++) {
 				LuaValue value = strengthen(values[i]);
-				values[i] = weakValues ? weaken(value) : value;
+				values[i] = weakValues ? weaken(value, ~i) : value;
 			}
 		}
 
-		// Re-insert elements from hash part
+		// Re-insert elements from hash part. If the table's mode hasn't changed, we can reuse the existing (possibly weak)
+		// keys and values, rather than allocating new ones.
 		for (int i = oldHashSize - 1; i >= 0; i--) {
 			LuaValue key = key(oldKeys, oldValues, i, true);
 			LuaValue value = value(oldValues, i, true);
-			if (!key.isNil() && !value.isNil()) rawsetImpl(key, value);
+			if (key.isNil() || value.isNil()) continue;
+
+			if (modeChange) {
+				rawsetImpl(key, value);
+			} else {
+				reinsert(key, oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	/**
+	 * Insert an existing entry into the table after resizing it.
+	 *
+	 * @param key      The entry's key. This must not already be present in the table.
+	 * @param rawKey   The key, as stored in the old table.
+	 * @param rawValue The value, as stored in the old table.
+	 */
+	private void reinsert(LuaValue key, Object rawKey, Object rawValue) {
+		int index = arraySlot(key);
+		if (index > 0 && index <= array.length) {
+			array[index - 1] = rawValue;
+			moveEntry(rawValue, ~(index - 1));
+			return;
+		}
+
+		int node;
+		while ((node = newKey(key, rawKey)) == -1) {
+			// newKey will have rehashed the table, so try again.
 		}
+
+		values[node] = rawValue;
+		moveEntry(rawValue, node);
 	}
 
 	private void rehash(LuaValue extraKey, boolean mode) {
-		if (weakValues) dropWeakArrayValues();
+		purgeWeak();
 
 		int[] nums = new int[32]; // Counts for various functions
 		int arraySize = 0; // Optimal size for array part
@@ -630,7 +731,7 @@ public final class LuaTable extends LuaValue {
 	 * @param value The new value.
 	 */
 	private void setNodeValue(int slot, LuaValue value) {
-		values[slot] = weakValues ? weaken(value) : value;
+		values[slot] = weakValues ? weaken(value, slot) : value;
 		metatableFlags = 0;
 	}
 
@@ -641,10 +742,13 @@ public final class LuaTable extends LuaValue {
 	 * or not. If it is not, move colliding node to an empty place and put new key in its main position, otherwise the
 	 * colliding node is in its main position and the new key goes to an empty position.
 	 *
-	 * @param key The key to set
+	 * @param key    The key to set
+	 * @param rawKey The key to store in the table. This is either {@code key} or a {@linkplain #weaken(LuaValue, int) weak
+	 *               reference} to it.
+	 * @return The slot the key was inserted into, or {@code -1} if the table was rehashed.
 	 * @throws IllegalArgumentException If this key cannot be used.
 	 */
-	private int newKey(LuaValue key) {
+	private int newKey(LuaValue key, Object rawKey) {
 		if (key.isNil()) throw new IllegalArgumentException("table index is nil");
 
 		// Rehash and let the rawgetter handle it
@@ -679,6 +783,8 @@ public final class LuaTable extends LuaValue {
 				keys[freeNode] = keys[mainNode];
 				values[freeNode] = values[mainNode];
 				next[freeNode] = next[mainNode];
+				moveEntry(keys[freeNode], freeNode);
+				moveEntry(values[freeNode], freeNode);
 
 				// Clear main node
 				next[mainNode] = -1;
@@ -702,7 +808,8 @@ public final class LuaTable extends LuaValue {
 			}
 		}
 
-		keys[mainNode] = weakKeys ? weaken(key) : key;
+		keys[mainNode] = rawKey;
+		moveEntry(rawKey, mainNode);
 
 		return mainNode;
 	}
@@ -738,6 +845,8 @@ public final class LuaTable extends LuaValue {
 	}
 
 	public LuaValue rawget(int search) {
+		purgeWeak();
+
 		if (search > 0 && search <= array.length) {
 			return strengthen(array[search - 1]);
 		} else if (keys.length == 0) {
@@ -751,6 +860,7 @@ public final class LuaTable extends LuaValue {
 	public LuaValue rawget(LuaValue search) {
 		if (search instanceof LuaInteger i) return rawget(i.intValue());
 
+		purgeWeak();
 		int node = getNode(search);
 		return node == -1 ? NIL : value(node);
 	}
@@ -792,10 +902,12 @@ public final class LuaTable extends LuaValue {
 	}
 
 	private boolean trySet(int key, LuaValue value, LuaValue keyValue) {
+		purgeWeak();
+
 		if (key > 0 && key <= array.length) {
 			// If value is absent and we've got a __newindex method, don't insert.
 			if (strengthen(array[key - 1]) == NIL && hasNewIndex()) return false;
-			array[key - 1] = weakValues ? weaken(value) : value;
+			array[key - 1] = weakValues ? weaken(value, ~(key - 1)) : value;
 			return true;
 		}
 
@@ -824,6 +936,7 @@ public final class LuaTable extends LuaValue {
 	boolean trySet(LuaValue key, LuaValue value) throws LuaError {
 		if (key instanceof LuaInteger keyI) return trySet(keyI.intValue(), value, key);
 
+		purgeWeak();
 		int node = getNode(key);
 		if (node == -1) {
 			if (hasNewIndex()) return false;
@@ -843,16 +956,18 @@ public final class LuaTable extends LuaValue {
 	}
 
 	private void rawset(int key, LuaValue value, LuaValue valueOf) {
+		purgeWeak();
+
 		do {
 			if (key > 0 && key <= array.length) {
-				array[key - 1] = weakValues ? weaken(value) : value;
+				array[key - 1] = weakValues ? weaken(value, ~(key - 1)) : value;
 				return;
 			}
 
 			int node = getNode(key);
 			if (node == -1) {
 				if (valueOf == null) valueOf = valueOf(key);
-				node = newKey(valueOf);
+				node = newKey(valueOf, valueOf);
 			}
 
 			// newKey will have handled this otherwise
@@ -875,9 +990,15 @@ public final class LuaTable extends LuaValue {
 			return;
 		}
 
+		purgeWeak();
+
+		Object rawKey = null;
 		do {
 			int node = getNode(key);
-			if (node == -1) node = newKey(key);
+			if (node == -1) {
+				if (rawKey == null) rawKey = weakKeys ? weaken(key, -1) : key;
+				node = newKey(key, rawKey);
+			}
 
 			// newKey will have handled this otherwise
 			if (node != -1) {
@@ -891,64 +1012,116 @@ public final class LuaTable extends LuaValue {
 	//region Weak references
 
 	/**
-	 * Self-sent message to convert a value to its weak counterpart
+	 * Clear any entries whose weak key or value has been garbage collected.
+	 * <p>
+	 * Weak keys and values are registered with this table's {@link #weakQueue}, and record the slot they are stored in.
+	 * This allows us to clear dead entries incrementally as the table is accessed, rather than scanning the whole table.
+	 * As in PUC Lua, dead keys are left in the hash part (with a nil value) until the table is next rehashed.
+	 */
+	private void purgeWeak() {
+		ReferenceQueue<Object> queue = weakQueue;
+		if (queue == null) return;
+
+		Reference<?> ref;
+		while ((ref = queue.poll()) != null) {
+			int slot = ((WeakEntry) ref).slot;
+			if (slot < 0) {
+				int index = ~slot;
+				if (index < array.length && array[index] == ref) array[index] = NIL;
+			} else if (slot < keys.length && (keys[slot] == ref || values[slot] == ref)) {
+				values[slot] = NIL;
+			}
+		}
+	}
+
+	/**
+	 * Convert a value to its weak counterpart.
 	 *
 	 * @param value value to convert
+	 * @param slot  The slot this value will be stored in. See {@link WeakEntry#slot}.
 	 * @return {@link LuaValue} that is a strong or weak reference, depending on type of {@code value}
 	 */
-	private static Object weaken(LuaValue value) {
+	private Object weaken(LuaValue value, int slot) {
 		return switch (value.type()) {
-			case TFUNCTION, TTHREAD, TTABLE -> new WeakReference<>(value);
-			case TUSERDATA -> new WeakUserdata((LuaUserdata) value);
+			case TFUNCTION, TTHREAD, TTABLE -> new WeakEntry(value, weakQueue, slot);
+			case TUSERDATA -> new WeakUserdataEntry((LuaUserdata) value, weakQueue, slot);
 			default -> value;
 		};
 	}
 
 	/**
-	 * Unwrap a LuaValue from a WeakReference and/or WeakUserdata.
+	 * Update the slot of a key or value after it has been moved.
+	 *
+	 * @param entry The raw key or value.
+	 * @param slot  The new slot. See {@link WeakEntry#slot}.
+	 */
+	private static void moveEntry(Object entry, int slot) {
+		if (entry instanceof WeakEntry weak) weak.slot = slot;
+	}
+
+	/**
+	 * Unwrap a LuaValue from a {@link WeakEntry}.
 	 *
 	 * @param ref reference to convert
-	 * @return LuaValue or null
-	 * @see #weaken(LuaValue)
+	 * @return LuaValue or nil
+	 * @see #weaken(LuaValue, int)
 	 */
-	@SuppressWarnings("unchecked")
 	static LuaValue strengthen(Object ref) {
-		if (ref instanceof WeakReference) {
-			LuaValue value = ((WeakReference<LuaValue>) ref).get();
-			return value == null ? NIL : value;
-		} else if (ref instanceof WeakUserdata) {
-			return ((WeakUserdata) ref).strongValue();
-		} else {
-			return (LuaValue) ref;
-		}
+		return ref instanceof WeakEntry entry ? entry.strongValue() : (LuaValue) ref;
 	}
 
 	/**
-	 * Internal class to implement weak userdata values.
+	 * A weak key or value.
 	 */
-	private static final class WeakUserdata {
-		private WeakReference<LuaValue> ref;
-		private final WeakReference<Object> ob;
-		private final LuaTable mt;
+	private static class WeakEntry extends WeakReference<Object> {
+		/**
+		 * The slot this entry is stored in. This is either an index into {@link #keys} and {@link #values}, or the
+		 * bitwise complement of an index into {@link #array}.
+		 * <p>
+		 * This is only used to find the entry when it is collected, and so may be out-of-date if the entry has been
+		 * removed from the table.
+		 */
+		int slot;
 
-		private WeakUserdata(LuaUserdata value) {
-			ref = new WeakReference<>(value);
-			ob = new WeakReference<>(value.instance);
-			mt = value.metatable;
+		WeakEntry(Object referent, @Nullable ReferenceQueue<Object> queue, int slot) {
+			super(referent, queue);
+			this.slot = slot;
 		}
 
 		LuaValue strongValue() {
-			LuaValue u = ref.get();
-			if (u != null) return u;
-
-			Object o = ob.get();
-			if (o != null) {
-				LuaValue ud = userdataOf(o, mt);
-				ref = new WeakReference<>(ud);
-				return ud;
-			} else {
-				return NIL;
-			}
+			Object value = get();
+			return value == null ? NIL : (LuaValue) value;
+		}
+	}
+
+	/**
+	 * A weak reference to a userdata value.
+	 * <p>
+	 * Userdata are compared by their instance and metatable, so the same value may be wrapped multiple times. We hold a
+	 * weak reference to the instance, so the entry is only cleared once that has been collected. The most recent wrapper
+	 * is cached, and recreated if needed.
+	 */
+	private static final class WeakUserdataEntry extends WeakEntry {
+		private final @Nullable LuaTable metatable;
+		private WeakReference<LuaUserdata> userdata;
+
+		WeakUserdataEntry(LuaUserdata value, @Nullable ReferenceQueue<Object> queue, int slot) {
+			super(value.instance, queue, slot);
+			metatable = value.metatable;
+			userdata = new WeakReference<>(value);
+		}
+
+		@Override
+		LuaValue strongValue() {
+			LuaUserdata value = userdata.get();
+			if (value != null) return value;
+
+			Object instance = get();
+			if (instance == null) return NIL;
+
+			value = userdataOf(instance, metatable);
+			userdata = new WeakReference<>(value);
+			return value;
 		}
 	}
 	//endregion
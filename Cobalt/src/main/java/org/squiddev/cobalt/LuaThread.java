@@ -24,10 +24,12 @@
  */
 package org.squiddev.cobalt;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.squiddev.cobalt.debug.DebugFrame;
 import org.squiddev.cobalt.debug.DebugState;
 import org.squiddev.cobalt.function.Dispatch;
 import org.squiddev.cobalt.function.LuaFunction;
+import org.squiddev.cobalt.function.TransferFunction;
 import org.squiddev.cobalt.lib.CoroutineLib;
 
 import java.util.Objects;
@@ -87,6 +89,16 @@ public final class LuaThread extends LuaValue {
 		}
 	}
 
+	/**
+	 * A sentinel value returned by the interpreter (rather than throwing an {@link UnwindThrowable}) when the current
+	 * coroutine should transfer control to another.
+	 *
+	 * @see TransferFunction
+	 * @see #prepareYield(LuaState, Varargs)
+	 * @see #prepareResume(LuaState, LuaThread, Varargs)
+	 */
+	public static final Varargs UNWIND = new Unwind();
+
 	/**
 	 * The state that this thread lives in
 	 */
@@ -117,6 +129,16 @@ public final class LuaThread extends LuaValue {
 	 */
 	private LuaThread previousThread;
 
+	/**
+	 * The thread to resume after {@link #UNWIND} is returned, or {@code null} to yield to {@link #previousThread}.
+	 */
+	private @Nullable LuaThread transferTarget;
+
+	/**
+	 * The arguments to transfer control with after {@link #UNWIND} is returned.
+	 */
+	private @Nullable Varargs transferArgs;
+
 	/**
 	 * Constructor for main thread only
 	 *
@@ -244,14 +266,37 @@ public final class LuaThread extends LuaValue {
 	 */
 	public static <T> T yield(LuaState state, Varargs args) throws LuaError, UnwindThrowable {
 		Objects.requireNonNull(args, "args cannot be null");
+		checkYield(state.currentThread);
+		throw UnwindThrowable.yield(args);
+	}
+
+	/**
+	 * Prepare to yield the current thread, without throwing an {@link UnwindThrowable}.
+	 * <p>
+	 * The returned value must be passed back to the thread's scheduler unchanged, either by returning it directly from
+	 * the interpreter (see {@link TransferFunction}), or by converting it into an exception with
+	 * {@link #unwind(LuaState, Varargs)}.
+	 *
+	 * @param state The current lua state
+	 * @param args  The arguments to send as return values to {@link #resume(LuaState, LuaThread, Varargs)}
+	 * @return Always {@link #UNWIND}.
+	 * @throws LuaError If attempting to yield the main thread.
+	 */
+	public static Varargs prepareYield(LuaState state, Varargs args) throws LuaError {
+		Objects.requireNonNull(args, "args cannot be null");
 
 		LuaThread thread = state.currentThread;
+		checkYield(thread);
+		thread.transferTarget = null;
+		thread.transferArgs = args;
+		return UNWIND;
+	}
+
+	private static void checkYield(LuaThread thread) throws LuaError {
 		if (thread.status != Status.RUNNING) {
 			throw new LuaError("cannot yield a " + thread.status.getDisplayName() + " thread");
 		}
 		if (thread.isMainThread()) throw new LuaError("cannot yield main thread");
-
-		throw UnwindThrowable.yield(args);
 	}
 
 	/**
@@ -265,7 +310,29 @@ public final class LuaThread extends LuaValue {
 	 * @throws UnwindThrowable If we can yield this stack with an exception
 	 */
 	public static <T> T resume(LuaState state, LuaThread thread, Varargs args) throws LuaError, UnwindThrowable {
+		checkResume(state.currentThread, thread);
+		throw UnwindThrowable.resume(thread, args);
+	}
+
+	/**
+	 * Prepare to resume a thread, without throwing an {@link UnwindThrowable}.
+	 *
+	 * @param state  The current lua state
+	 * @param thread The thread to resume
+	 * @param args   The arguments to resume with
+	 * @return Always {@link #UNWIND}.
+	 * @throws LuaError If this coroutine cannot resume another.
+	 * @see #prepareYield(LuaState, Varargs)
+	 */
+	public static Varargs prepareResume(LuaState state, LuaThread thread, Varargs args) throws LuaError {
 		LuaThread current = state.currentThread;
+		checkResume(current, thread);
+		current.transferTarget = thread;
+		current.transferArgs = args;
+		return UNWIND;
+	}
+
+	private static void checkResume(LuaThread current, LuaThread thread) throws LuaError {
 		if (current.status != Status.RUNNING) {
 			throw new LuaError("cannot resume from a " + current.status.getDisplayName() + " thread");
 		}
@@ -273,8 +340,26 @@ public final class LuaThread extends LuaValue {
 		if (thread.status.ordinal() > Status.SUSPENDED.ordinal()) {
 			throw new LuaError("cannot resume " + thread.status.getDisplayName() + " coroutine");
 		}
+	}
 
-		throw UnwindThrowable.resume(thread, args);
+	/**
+	 * Convert the result of {@link #prepareYield(LuaState, Varargs)} or {@link #prepareResume(LuaState, LuaThread, Varargs)}
+	 * into an {@link UnwindThrowable}, for when it cannot be returned to the scheduler directly.
+	 *
+	 * @param state  The current lua state
+	 * @param result The value to check.
+	 * @return The original value, if it is not {@link #UNWIND}.
+	 * @throws UnwindThrowable If the value is {@link #UNWIND}.
+	 */
+	public static Varargs unwind(LuaState state, Varargs result) throws UnwindThrowable {
+		if (result != UNWIND) return result;
+
+		LuaThread thread = state.currentThread;
+		LuaThread target = thread.transferTarget;
+		Varargs args = Objects.requireNonNull(thread.transferArgs);
+		thread.transferTarget = null;
+		thread.transferArgs = null;
+		throw target == null ? UnwindThrowable.yield(args) : UnwindThrowable.resume(target, args);
 	}
 
 	public static Varargs runMain(LuaState state, LuaFunction function) throws LuaError {
@@ -317,7 +402,7 @@ public final class LuaThread extends LuaValue {
 					function = null;
 
 					try {
-						args = Dispatch.invoke(state, toExecute, args);
+						args = Dispatch.invokeCoroutine(state, toExecute, args);
 					} catch (Exception | VirtualMachineError e) {
 						args = null;
 						le = LuaError.wrap(e);
@@ -340,6 +425,8 @@ public final class LuaThread extends LuaValue {
 							}
 
 							while (true) {
+								if (args == UNWIND) break outer;
+
 								DebugFrame frame = ds.getStack();
 								if (frame == null) break outer;
 
@@ -359,6 +446,17 @@ public final class LuaThread extends LuaValue {
 					}
 				}
 
+				if (args == UNWIND) {
+					// We've transferred control without throwing. Note le must be null here, as we'd not have
+					// continued execution otherwise.
+					LuaThread target = thread.transferTarget;
+					args = Objects.requireNonNull(thread.transferArgs);
+					thread.transferTarget = null;
+					thread.transferArgs = null;
+					thread = transfer(thread, target);
+					continue;
+				}
+
 				// We've died, yield into the parent coroutine
 				thread.status = Status.DEAD;
 				LuaThread previous = thread.previousThread;
@@ -376,19 +474,8 @@ public final class LuaThread extends LuaValue {
 				if (e.isSuspend()) {
 					thread.status = Status.SUSPENDED;
 					return null;
-				} else if (e.isYield()) {
-					// Yield into the parent coroutine
-					thread.status = Status.SUSPENDED;
-					LuaThread previous = thread.previousThread;
-					thread.previousThread = null;
-					thread = previous;
-					args = e.getArgs();
 				} else {
-					// Resume into the next coroutine
-					thread.status = Status.NORMAL;
-					LuaThread next = e.getThread();
-					next.previousThread = state.currentThread;
-					thread = next;
+					thread = transfer(thread, e.isYield() ? null : e.getThread());
 					args = e.getArgs();
 				}
 			}
@@ -398,10 +485,61 @@ public final class LuaThread extends LuaValue {
 		return args;
 	}
 
+	/**
+	 * Suspend the current thread, either yielding into the parent coroutine or resuming another.
+	 *
+	 * @param thread The currently running thread.
+	 * @param target The thread to resume, or {@code null} to yield.
+	 * @return The thread to run next.
+	 */
+	private static LuaThread transfer(LuaThread thread, @Nullable LuaThread target) {
+		if (target == null) {
+			// Yield into the parent coroutine
+			thread.status = Status.SUSPENDED;
+			LuaThread previous = thread.previousThread;
+			thread.previousThread = null;
+			return previous;
+		} else {
+			// Resume into the next coroutine
+			thread.status = Status.NORMAL;
+			target.previousThread = thread;
+			return target;
+		}
+	}
+
 	private static DebugFrame findErrorHandler(DebugState ds) {
 		for (int i = 0; ; i++) {
 			DebugFrame frame = ds.getFrame(i);
 			if (frame == null || (frame.flags & FLAG_YPCALL) != 0) return frame;
 		}
 	}
+
+	/**
+	 * The type of {@link #UNWIND}. This behaves as an empty {@link Varargs}, though should never be observed by Lua code.
+	 */
+	private static final class Unwind extends Varargs {
+		@Override
+		public LuaValue arg(int i) {
+			return Constants.NIL;
+		}
+
+		@Override
+		public int count() {
+			return 0;
+		}
+
+		@Override
+		public LuaValue first() {
+			return Constants.NIL;
+		}
+
+		@Override
+		public void fill(LuaValue[] array, int offset) {
+		}
+
+		@Override
+		public String toString() {
+			return "unwind";
+		}
+	}
 }
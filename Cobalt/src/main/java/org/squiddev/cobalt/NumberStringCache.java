@@ -0,0 +1,46 @@
+package org.squiddev.cobalt;
+
+/**
+ * A small cache of recently converted numbers and their string representations.
+ * <p>
+ * Programs often convert the same small set of numbers to strings (such as when serialising values or drawing a UI),
+ * so we keep a bounded, two-way set-associative table of the most recent conversions for each {@link LuaState}.
+ * <p>
+ * Entries are immutable and replaced wholesale, so it is safe (though not useful) to access the cache from multiple
+ * threads.
+ *
+ * @see OperationHelper#checkLuaString(LuaState, LuaValue)
+ */
+final class NumberStringCache {
+	private static final int SET_BITS = 8;
+	private static final int SIZE = 2 << SET_BITS;
+
+	private final Entry[] entries = new Entry[SIZE];
+
+	/**
+	 * Convert a number to a string, reusing a previous conversion if possible.
+	 *
+	 * @param number The number to convert.
+	 * @return The number's string representation.
+	 */
+	LuaString get(LuaNumber number) {
+		long bits = Double.doubleToRawLongBits(number.toDouble());
+		// Fibonacci hashing, as the low bits of most doubles are all zero. Each number may be stored in one of two
+		// slots, with the most recently used entry kept first.
+		int index = (int) ((bits * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - SET_BITS)) << 1;
+
+		Entry first = entries[index];
+		if (first != null && first.bits() == bits) return first.string();
+
+		Entry second = entries[index + 1];
+		if (second != null && second.bits() == bits) return second.string();
+
+		LuaString string = (LuaString) number.toLuaString();
+		entries[index + 1] = first;
+		entries[index] = new Entry(bits, string);
+		return string;
+	}
+
+	private record Entry(long bits, LuaString string) {
+	}
+}
@@ -484,7 +484,20 @@ public final class OperationHelper {
 
 	public static LuaValue toString(LuaState state, LuaValue value) throws LuaError, UnwindThrowable {
 		LuaValue h = value.metatag(state, Constants.TOSTRING);
-		return h.isNil() ? toStringDirect(value) : Dispatch.call(state, h, value);
+		return h.isNil() ? toStringDirect(state, value) : Dispatch.call(state, h, value);
+	}
+
+	/**
+	 * Convert a string or number to a string. This is equivalent to {@link LuaValue#checkLuaString()}, but reuses
+	 * recent conversions of numbers.
+	 *
+	 * @param state The current Lua state.
+	 * @param value The value to convert.
+	 * @return This value as a string.
+	 * @throws LuaError If this value is not a string or number.
+	 */
+	public static LuaString checkLuaString(LuaState state, LuaValue value) throws LuaError {
+		return value instanceof LuaNumber number ? state.numberStrings.get(number) : value.checkLuaString();
 	}
 
 	public static LuaString checkToString(LuaValue value) throws LuaError {
@@ -507,4 +520,15 @@ public final class OperationHelper {
 		LuaValue v = value.toLuaString();
 		return v.isNil() ? LuaString.valueOf(value.toString()) : (LuaString) v;
 	}
+
+	/**
+	 * A version of {@link #toStringDirect(LuaValue)} which reuses recent conversions of numbers.
+	 *
+	 * @param state The current Lua state.
+	 * @param value The value to convert to a string.
+	 * @return This value as a string.
+	 */
+	public static LuaString toStringDirect(LuaState state, LuaValue value) {
+		return value instanceof LuaNumber number ? state.numberStrings.get(number) : toStringDirect(value);
+	}
 }
@@ -27,6 +27,7 @@ package org.squiddev.cobalt;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.squiddev.cobalt.function.LocalVariable;
 import org.squiddev.cobalt.function.LuaInterpretedFunction;
+import org.squiddev.cobalt.function.NumericRegisters;
 
 /**
  * Prototype representing compiled lua code.
@@ -75,6 +76,22 @@ public final class Prototype {
 	 */
 	public final LocalVariable[] locals;
 
+	/**
+	 * The number of times each instruction has been executed, or {@code null} if coverage is not being recorded.
+	 * <p>
+	 * This is volatile as {@link org.squiddev.cobalt.debug.Coverage#counts(Prototype)} reads it outside of a lock.
+	 *
+	 * @see org.squiddev.cobalt.debug.Coverage
+	 */
+	public volatile int @Nullable [] coverage;
+
+	/**
+	 * The registers of this function which the interpreter stores unboxed, or {@code null} if not yet computed.
+	 *
+	 * @see NumericRegisters
+	 */
+	public @Nullable NumericRegisters numericRegisters;
+
 	public Prototype(
 		LuaString source, LuaString shortSource,
 		LuaValue[] constants, int[] code, Prototype[] children, int parameters, boolean isVarArg, int maxStackSize, UpvalueInfo[] upvalues,
@@ -0,0 +1,55 @@
+package org.squiddev.cobalt.compiler;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.squiddev.cobalt.LuaError;
+import org.squiddev.cobalt.LuaState;
+import org.squiddev.cobalt.UnwindThrowable;
+import org.squiddev.cobalt.Varargs;
+
+import java.util.Objects;
+
+/**
+ * An {@link InputReader} over a block of memory, such as the contents of a {@link org.squiddev.cobalt.LuaString}.
+ * <p>
+ * The lexer recognises this reader, and scans the underlying array directly rather than reading it a byte at a time.
+ *
+ * @see org.squiddev.cobalt.LuaString#toReader(LuaState)
+ */
+public final class ArrayInputReader extends InputReader {
+	private final @Nullable LuaState state;
+	final byte[] bytes;
+	final int limit;
+	int position;
+
+	/**
+	 * Create a new reader.
+	 *
+	 * @param state  The current Lua state, used to check for interrupts while reading. This may be {@code null} if
+	 *               reading should not be interrupted.
+	 * @param bytes  The array to read from. This must not be modified while it is being read.
+	 * @param offset The offset into this array.
+	 * @param length The number of bytes to read.
+	 */
+	public ArrayInputReader(@Nullable LuaState state, byte[] bytes, int offset, int length) {
+		Objects.checkFromIndexSize(offset, length, bytes.length);
+		this.state = state;
+		this.bytes = bytes;
+		this.position = offset;
+		this.limit = offset + length;
+	}
+
+	public ArrayInputReader(@Nullable LuaState state, byte[] bytes) {
+		this(state, bytes, 0, bytes.length);
+	}
+
+	@Override
+	public int read() throws LuaError, UnwindThrowable {
+		if (state != null && state.isInterrupted()) state.handleInterrupt();
+		return position < limit ? bytes[position++] & 0xFF : -1;
+	}
+
+	@Override
+	public int resume(Varargs varargs) throws LuaError, UnwindThrowable {
+		return read();
+	}
+}
@@ -3,6 +3,7 @@ package org.squiddev.cobalt.compiler;
 import cc.tweaked.cobalt.internal.string.CharProperties;
 import cc.tweaked.cobalt.internal.string.NumberParser;
 import cc.tweaked.cobalt.internal.unwind.AutoUnwind;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.squiddev.cobalt.*;
 import org.squiddev.cobalt.lib.Utf8Lib;
 
@@ -15,10 +16,17 @@ import java.util.Map;
  * A Lexer for Lua code.
  * <p>
  * This largely follows the structure and implementation of llex.c.
+ * <p>
+ * When reading from an {@link ArrayInputReader}, we read directly from the underlying array rather than calling
+ * {@link InputReader#read()} for every byte, and skip over runs of "boring" characters (such as the body of an
+ * identifier, comment or string) in bulk. We only go through the reader once every {@link #WINDOW} bytes, which allows
+ * it to check for interrupts.
  */
 @AutoUnwind
 final class Lex {
 	private static final int EOZ = -1;
+	private static final int WINDOW = 4096;
+	private static final byte[] EMPTY = new byte[0];
 	static final int MAX_INT = Integer.MAX_VALUE - 2;
 
 	private static final int POSITION_SHIFT = 32;
@@ -116,6 +124,27 @@ final class Lex {
 	 */
 	private final InputReader z;
 
+	/**
+	 * The reader we're reading from, if it is backed by an array.
+	 */
+	private final @Nullable ArrayInputReader array;
+
+	/**
+	 * The array we're reading from, or an empty array if reading byte-by-byte from {@link #z}.
+	 */
+	private final byte[] input;
+
+	/**
+	 * The position of the next byte to read in {@link #input}. When not at the end of the input, {@link #current} is
+	 * the byte at {@code position - 1}.
+	 */
+	private int position;
+
+	/**
+	 * The end of the region of {@link #input} which can be read without going through {@link #z}.
+	 */
+	private int window;
+
 	/**
 	 * Input line counter
 	 */
@@ -142,15 +171,66 @@ final class Lex {
 		this.z = z;
 		this.current = current;
 
+		if (z instanceof ArrayInputReader array) {
+			this.array = array;
+			input = array.bytes;
+			position = window = array.position;
+		} else {
+			array = null;
+			input = EMPTY;
+		}
+
 		token.token = 0;
 		lookahead.token = TK_EOS;
 	}
 
 	private void next() throws CompileException, LuaError, UnwindThrowable {
-		current = z.read();
+		if (position < window) {
+			current = input[position++] & 0xFF;
+		} else if (array != null) {
+			array.position = position;
+			current = z.read();
+			position = array.position;
+			window = Math.min(array.limit, position + WINDOW);
+		} else {
+			current = z.read();
+		}
 		columnNumber++;
 	}
 
+	/**
+	 * Skip the current character and all characters up to (but not including) {@code end}.
+	 * <p>
+	 * This is used to skip a run of characters which have already been scanned in {@link #input}. When reading from an
+	 * {@link InputReader}, {@code end} will always be {@link #position}, and so this is equivalent to {@link #next()}.
+	 *
+	 * @param end The index of the next character to read.
+	 */
+	private void skipUntil(int end) throws CompileException, LuaError, UnwindThrowable {
+		columnNumber += end - position;
+		position = end;
+		next();
+	}
+
+	/**
+	 * Save the current character and all characters up to (but not including) {@code end}.
+	 *
+	 * @param end The index of the next character to read.
+	 * @see #skipUntil(int)
+	 */
+	private void saveUntil(int end) throws CompileException, LuaError, UnwindThrowable {
+		if (end == position) {
+			saveAndNext();
+			return;
+		}
+
+		int start = position - 1, length = end - start;
+		if (bufferSize + length > buff.length) buff = LuaC.realloc(buff, Math.max(bufferSize * 2 + 1, bufferSize + length));
+		System.arraycopy(input, start, buff, bufferSize, length);
+		bufferSize += length;
+		skipUntil(end);
+	}
+
 	private void save(int toSave) {
 		if (buff == null || bufferSize + 1 > buff.length) buff = LuaC.realloc(buff, bufferSize * 2 + 1);
 		buff[bufferSize++] = (byte) toSave;
@@ -277,7 +357,13 @@ final class Lex {
 			if (checkNext(exp1, exp2)) checkNext('+', '-');
 
 			if (CharProperties.isHex(current) || current == '.') {
-				saveAndNext();
+				int end = position;
+				while (end < window) {
+					int c = input[end] & 0xFF;
+					if (!(CharProperties.isHex(c) || c == '.') || c == exp1 || c == exp2) break;
+					end++;
+				}
+				saveUntil(end);
 			} else {
 				break;
 			}
@@ -336,10 +422,17 @@ final class Lex {
 					if (token == null) bufferSize = 0; // avoid wasting space
 				}
 				default -> {
+					int end = position;
+					while (end < window) {
+						int c = input[end] & 0xFF;
+						if (c == '[' || c == ']' || c == '\n' || c == '\r') break;
+						end++;
+					}
+
 					if (token != null) {
-						saveAndNext();
+						saveUntil(end);
 					} else {
-						next();
+						skipUntil(end);
 					}
 				}
 			}
@@ -471,7 +564,15 @@ final class Lex {
 						}
 					}
 				}
-				default -> saveAndNext();
+				default -> {
+					int end = position;
+					while (end < window) {
+						int c = input[end] & 0xFF;
+						if (c == del || c == '\\' || c == '\n' || c == '\r') break;
+						end++;
+					}
+					saveUntil(end);
+				}
 			}
 		}
 
@@ -513,7 +614,7 @@ final class Lex {
 					}
 
 					// Consume a line comment
-					while (!currIsNewline() && current != EOZ) next();
+					skipLine();
 					continue;
 				}
 				case '[' -> {
@@ -571,7 +672,13 @@ final class Lex {
 				}
 				default -> {
 					if (CharProperties.isSpace(current)) {
-						next();
+						int end = position;
+						while (end < window) {
+							int c = input[end] & 0xFF;
+							if (!CharProperties.isSpace(c) || c == '\n' || c == '\r') break;
+							end++;
+						}
+						skipUntil(end);
 						continue;
 					}
 
@@ -583,7 +690,9 @@ final class Lex {
 					if (CharProperties.isAlpha(current) || current == '_') {
 						/* identifier or reserved word */
 						do {
-							saveAndNext();
+							int end = position;
+							while (end < window && CharProperties.isAlphaNum(input[end] & 0xFF)) end++;
+							saveUntil(end);
 						} while (CharProperties.isAlphaNum(current) || current == '_');
 						Integer reservedIdx = RESERVED.get(ByteBuffer.wrap(buff, 0, bufferSize));
 						if (reservedIdx != null) {
@@ -607,8 +716,17 @@ final class Lex {
 	}
 
 	void skipShebang() throws CompileException, LuaError, UnwindThrowable {
-		if (current == '#') {
-			while (!currIsNewline() && current != EOZ) next();
+		if (current == '#') skipLine();
+	}
+
+	/**
+	 * Skip to the end of the current line, stopping before the newline.
+	 */
+	private void skipLine() throws CompileException, LuaError, UnwindThrowable {
+		while (!currIsNewline() && current != EOZ) {
+			int end = position;
+			while (end < window && input[end] != '\n' && input[end] != '\r') end++;
+			skipUntil(end);
 		}
 	}
 
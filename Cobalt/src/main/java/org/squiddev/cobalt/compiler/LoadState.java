@@ -106,6 +106,20 @@ public final class LoadState {
 		return state.compiler.load(LuaC.compile(state, stream, name), env);
 	}
 
+	/**
+	 * Load lua in either binary or text form from a string.
+	 *
+	 * @param state    The current lua state
+	 * @param contents The code to load
+	 * @param name     Name to apply to the loaded chunk
+	 * @param env      Environment to load into
+	 * @return {@link Prototype} that was loaded
+	 * @throws CompileException If the string cannot be loaded.
+	 */
+	public static LuaClosure load(LuaState state, LuaString contents, LuaString name, LuaValue env) throws CompileException, LuaError {
+		return state.compiler.load(LuaC.compile(state, contents, name), env);
+	}
+
 	private static final int NAME_LENGTH = 30;
 	private static final int FILE_LENGTH = NAME_LENGTH - " '...' ".length() - 1;
 	private static final int STRING_LENGTH = NAME_LENGTH - " [string \"...\"] ".length() - 1;
@@ -150,9 +150,29 @@ public class LuaC {
 	}
 
 	public static Prototype compile(LuaState state, InputStream stream, LuaString name) throws CompileException, LuaError {
+		return compile(state, new InputStreamReader(stream), name);
+	}
+
+	/**
+	 * Compile a prototype or load as a binary chunk from a string.
+	 * <p>
+	 * This is preferred to {@link #compile(LuaState, InputStream, LuaString)} when the code is already in memory, as
+	 * the lexer can read the string directly.
+	 *
+	 * @param state    The current Lua state.
+	 * @param contents The code to compile
+	 * @param name     Name of the chunk
+	 * @return The compiled code
+	 * @throws CompileException If there is a syntax error.
+	 */
+	public static Prototype compile(LuaState state, LuaString contents, LuaString name) throws CompileException, LuaError {
+		return compile(state, contents.toReader(null), name);
+	}
+
+	private static Prototype compile(LuaState state, InputReader reader, LuaString name) throws CompileException, LuaError {
 		Object result = SuspendedAction.noYield(() -> {
 			try {
-				return compile(state, new InputStreamReader(stream), name, null);
+				return compile(state, reader, name, null);
 			} catch (CompileException e) {
 				return e;
 			}
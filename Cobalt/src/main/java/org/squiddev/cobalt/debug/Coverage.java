@@ -0,0 +1,107 @@
+package org.squiddev.cobalt.debug;
+
+import org.squiddev.cobalt.LuaState;
+import org.squiddev.cobalt.LuaString;
+import org.squiddev.cobalt.Prototype;
+
+import java.util.*;
+
+import static org.squiddev.cobalt.Lua.*;
+
+/**
+ * Records line and branch coverage of Lua code, without the overhead of a {@link DebugHook}.
+ * <p>
+ * When a {@link LuaState} is {@linkplain LuaState.Builder#coverage(Coverage) built with a coverage recorder}, the
+ * interpreter counts how many times each instruction in a {@link Prototype} is executed. These counts are stored on
+ * the {@linkplain Prototype#coverage prototype itself}, so recording them is a single array increment. When a
+ * conditional instruction succeeds, the count of the jump following it is also incremented, which allows us to
+ * determine which branches were taken.
+ * <p>
+ * A recorder may be shared by several Lua states (for instance, when a computer is restarted). However, a
+ * {@link Prototype} will only ever record to the first {@link Coverage} which executes it.
+ */
+public final class Coverage {
+	private final List<Prototype> functions = new ArrayList<>();
+
+	/**
+	 * Get the execution counts for a function, registering it (and any nested functions) if needed.
+	 * <p>
+	 * This is called by the interpreter when entering a function, and should not need to be called directly.
+	 *
+	 * @param prototype The function being executed.
+	 * @return The execution count for each instruction in this function.
+	 */
+	public int[] counts(Prototype prototype) {
+		var counts = prototype.coverage;
+		return counts != null ? counts : register(prototype);
+	}
+
+	private synchronized int[] register(Prototype prototype) {
+		var counts = prototype.coverage;
+		if (counts != null) return counts;
+
+		functions.add(prototype);
+		return allocate(prototype);
+	}
+
+	private static int[] allocate(Prototype prototype) {
+		var counts = prototype.coverage;
+		if (counts == null) prototype.coverage = counts = new int[prototype.code.length];
+		for (var child : prototype.children) allocate(child);
+		return counts;
+	}
+
+	/**
+	 * Collect the coverage recorded so far, grouping functions by the chunk they were defined in.
+	 * <p>
+	 * All functions within an executed chunk are included, even if they were never called themselves. Chunks which
+	 * were loaded but never executed are not included.
+	 *
+	 * @return The coverage of each chunk, keyed by its name (for instance {@code @/rom/programs/shell.lua}).
+	 */
+	public synchronized Map<LuaString, SourceCoverage> collect() {
+		Map<LuaString, SourceCoverage> sources = new HashMap<>();
+		Set<Prototype> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (var function : functions) {
+			if (seen.contains(function)) continue;
+
+			// Several instructions (or functions) may share a line. We take the maximum count of any of them rather
+			// than the sum, so that a line is counted once each time it is run.
+			Map<Integer, Integer> lines = new HashMap<>();
+			var source = sources.computeIfAbsent(function.source, x -> new SourceCoverage());
+			collect(source, function, lines, new HashMap<>(), seen);
+			for (var line : lines.entrySet()) source.addLine(line.getKey(), line.getValue());
+		}
+		return sources;
+	}
+
+	private static void collect(SourceCoverage source, Prototype prototype, Map<Integer, Integer> lines, Map<Integer, Integer> blocks, Set<Prototype> seen) {
+		if (!seen.add(prototype)) return;
+
+		var counts = prototype.coverage;
+		if (counts == null) return;
+
+		var code = prototype.code;
+		for (int pc = 0; pc < code.length; pc++) {
+			int line = prototype.lineAt(pc);
+			if (line < 0) continue;
+			lines.merge(line, counts[pc], Math::max);
+
+			if (isConditional(GET_OPCODE(code[pc])) && pc + 1 < code.length && GET_OPCODE(code[pc + 1]) == OP_JMP) {
+				int block = blocks.merge(line, 1, Integer::sum) - 1;
+				int taken = counts[pc + 1];
+				source.addBranch(new SourceCoverage.Branch(line, block, 0), taken);
+				source.addBranch(new SourceCoverage.Branch(line, block, 1), Math.max(0, counts[pc] - taken));
+			}
+		}
+
+		for (var child : prototype.children) collect(source, child, lines, blocks, seen);
+	}
+
+	private static boolean isConditional(int opcode) {
+		return switch (opcode) {
+			case OP_EQ, OP_LT, OP_LE, OP_TEST, OP_TESTSET -> true;
+			default -> false;
+		};
+	}
+}
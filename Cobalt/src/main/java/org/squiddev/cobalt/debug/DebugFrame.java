@@ -28,6 +28,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import org.squiddev.cobalt.*;
 import org.squiddev.cobalt.function.LuaClosure;
 import org.squiddev.cobalt.function.LuaFunction;
+import org.squiddev.cobalt.function.NumericRegisters;
 
 /**
  * Each thread will get a DebugState attached to it by the debug library
@@ -142,6 +143,12 @@ public final class DebugFrame {
 	 */
 	public LuaValue[] stack;
 
+	/**
+	 * The values of this function's {@linkplain NumericRegisters numeric registers}, or {@code null} if all values are
+	 * stored in {@link #stack}.
+	 */
+	public double @Nullable [] numbers;
+
 	/**
 	 * The last item in the upvalue linked list.
 	 */
@@ -171,6 +178,7 @@ public final class DebugFrame {
 		func = null;
 		closure = null;
 		stack = null;
+		numbers = null;
 		lastUpvalue = null;
 		state = null;
 		varargs = extras = null;
@@ -178,6 +186,20 @@ public final class DebugFrame {
 		oldPc = pc = top = -1;
 	}
 
+	/**
+	 * Copy any unboxed {@link #numbers} into {@link #stack}. The function will then continue to run with all values
+	 * boxed. This should be called before accessing the stack of a function other than the one currently running.
+	 */
+	public void boxNumbers() {
+		double[] numbers = this.numbers;
+		if (numbers == null) return;
+
+		NumericRegisters registers = closure.getPrototype().numericRegisters;
+		assert registers != null : "Frame has numbers but no numeric registers";
+		registers.box(stack, numbers, pc);
+		this.numbers = null;
+	}
+
 	public void closeUpvalues(int until) {
 		Upvalue upvalue = lastUpvalue;
 		while (upvalue != null && upvalue.getIndex() >= until) upvalue = upvalue.close();
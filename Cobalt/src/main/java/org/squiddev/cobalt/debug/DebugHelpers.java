@@ -40,7 +40,7 @@ import static org.squiddev.cobalt.debug.DebugFrame.FLAG_TAIL;
  * Helper methods for the debug library
  */
 public final class DebugHelpers {
-	private static final LuaString GLOBAL = valueOf("global");
+	static final LuaString GLOBAL = valueOf("global");
 	private static final LuaString LOCAL = valueOf("local");
 	private static final LuaString METHOD = valueOf("method");
 	private static final LuaString UPVALUE = valueOf("upvalue");
@@ -49,18 +49,8 @@ public final class DebugHelpers {
 	private static final LuaString HOOK = valueOf("hook");
 	private static final LuaString METAMETHOD = valueOf("metamethod");
 
-	private static final LuaString FUNCTION = valueOf("function");
-	private static final LuaString C = valueOf("[C]");
-
-	/**
-	 * Size of the first part of the stack
-	 */
-	private static final int LEVELS1 = 10;
-
-	/**
-	 * Size of the second part of the stack
-	 */
-	private static final int LEVELS2 = 11;
+	static final LuaString FUNCTION = valueOf("function");
+	static final LuaString C = valueOf("[C]");
 
 	private DebugHelpers() {
 	}
@@ -84,41 +74,7 @@ public final class DebugHelpers {
 	 * @param level  0-based level to start reporting on
 	 */
 	public static Buffer traceback(Buffer sb, LuaThread thread, int level) {
-		sb.append("stack traceback:");
-
-		DebugState state = thread.getDebugState();
-		int n1 = state.top - level > LEVELS1 + LEVELS2 ? LEVELS1 : -1;
-		for (DebugFrame di; (di = state.getFrame(level++)) != null; ) {
-			if (n1-- == 0) {
-				sb.append("\n\t...");
-				level = state.top - LEVELS2 + 1;
-				continue;
-			}
-
-			sb.append("\n\t");
-			sb.append(di.closure == null ? C : di.closure.getPrototype().shortSource());
-			sb.append(':');
-			if (di.currentLine() > 0) sb.append(Integer.toString(di.currentLine())).append(":");
-			sb.append(" in ");
-
-			ObjectName kind = di.getFuncKind();
-
-			if (kind != null) {
-				// Strictly speaking we should search the global table for this term - see Lua 5.3's pushglobalfuncname/
-				// pushfuncname. However, I'm somewhat reluctant to do that, so we just check it's a global.
-				sb.append(kind.what() == GLOBAL ? FUNCTION : kind.what()).append(" '").append(kind.name()).append('\'');
-			} else if (di.func instanceof LuaClosure closure && closure.getPrototype().lineDefined == 0) {
-				sb.append("main chunk");
-			} else if (di.func instanceof LuaClosure) {
-				sb.append("function <").append(di.func.debugName()).append(">");
-			} else {
-				sb.append('?');
-			}
-
-			if ((di.flags & FLAG_TAIL) != 0) sb.append("\n\t(...tail calls...)");
-		}
-
-		return sb;
+		return Traceback.capture(thread, level).append(sb);
 	}
 
 	/**
@@ -151,14 +107,25 @@ public final class DebugHelpers {
 	}
 
 	public static @Nullable ObjectName getFuncName(DebugFrame di, int stackpos) {
-		if (di.closure == null) return null;
-		if ((di.flags & FLAG_ANY_HOOK) != 0) return new ObjectName(QUESTION, HOOK);
+		return getFuncName(di.closure, di.pc, di.flags);
+	}
 
-		Prototype p = di.closure.getPrototype();
-		int pc = di.pc; // currentpc(L, ci);
+	/**
+	 * Get the name of the function being called by an instruction.
+	 *
+	 * @param closure The closure which is calling the function.
+	 * @param pc      The program counter of the calling instruction.
+	 * @param flags   The {@linkplain DebugFrame#flags flags} of the calling frame.
+	 * @return The name of the called function, or {@code null} if not known.
+	 */
+	static @Nullable ObjectName getFuncName(@Nullable LuaClosure closure, int pc, int flags) {
+		if (closure == null) return null;
+		if ((flags & FLAG_ANY_HOOK) != 0) return new ObjectName(QUESTION, HOOK);
+
+		Prototype p = closure.getPrototype();
 		int i = p.code[pc];
 		return switch (GET_OPCODE(i)) {
-			case OP_CALL, OP_TAILCALL -> getObjectName(di, GETARG_A(i));
+			case OP_CALL, OP_TAILCALL -> getObjectName(p, pc, GETARG_A(i));
 			case OP_SELF, OP_GETTABLE -> fromMetamethod("index");
 			case OP_SETTABLE -> fromMetamethod("newindex");
 			case OP_ADD -> fromMetamethod("add");
@@ -182,14 +149,16 @@ public final class DebugHelpers {
 		if (di.closure == null) return null;
 		if ((di.flags & FLAG_ANY_HOOK) != 0) return new ObjectName(QUESTION, HOOK);
 
-		Prototype p = di.closure.getPrototype();
-		int pc = di.pc; // currentpc(L, ci);
-		LuaString name = p.getLocalName(stackpos + 1, pc);
+		return getObjectName(di.closure.getPrototype(), di.pc, stackpos);
+	}
+
+	private static @Nullable ObjectName getObjectName(Prototype p, int lastPc, int stackpos) {
+		LuaString name = p.getLocalName(stackpos + 1, lastPc);
 
 		// is a local?
 		if (name != null) return new ObjectName(name, LOCAL);
 
-		pc = findSetReg(p, pc, stackpos); /* try symbolic execution */
+		int pc = findSetReg(p, lastPc, stackpos); /* try symbolic execution */
 		if (pc == -1) return null;
 
 		int i = p.code[pc];
@@ -197,7 +166,7 @@ public final class DebugHelpers {
 			case OP_MOVE -> {
 				int a = GETARG_A(i);
 				int b = GETARG_B(i); /* move from `b' to `a' */
-				if (b < a) return getObjectName(di, b); /* get name for `b' */
+				if (b < a) return getObjectName(p, lastPc, b); /* get name for `b' */
 			}
 			case OP_GETTABUP, OP_GETTABLE -> {
 				int t = GETARG_B(i);
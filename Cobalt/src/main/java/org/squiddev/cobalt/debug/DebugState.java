@@ -27,6 +27,7 @@ package org.squiddev.cobalt.debug;
 import org.squiddev.cobalt.Buffer;
 import org.squiddev.cobalt.LuaError;
 import org.squiddev.cobalt.LuaState;
+import org.squiddev.cobalt.LuaThread;
 import org.squiddev.cobalt.NonResumableException;
 import org.squiddev.cobalt.Prototype;
 import org.squiddev.cobalt.Resumable;
@@ -478,7 +479,8 @@ public final class DebugState {
 			throw new NonResumableException(frame.func == null ? "null" : frame.func.debugName());
 		} else {
 			Varargs result = ((Resumable<Object>) frame.func).resume(state, frame.state, args);
-			onReturn(getStackUnsafe(), result);
+			// If the function has suspended in place, then it remains on the stack.
+			if (result != LuaThread.UNWIND) onReturn(getStackUnsafe(), result);
 			return result;
 		}
 	}
@@ -0,0 +1,71 @@
+package org.squiddev.cobalt.debug;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The line and branch coverage of a single Lua chunk.
+ *
+ * @see Coverage#collect()
+ */
+public final class SourceCoverage {
+	private final SortedMap<Integer, Long> lines = new TreeMap<>();
+	private final SortedMap<Branch, Long> branches = new TreeMap<>();
+
+	/**
+	 * Get the number of times each executable line in this chunk was run.
+	 *
+	 * @return A map of line numbers to execution counts. Lines which contain no code are not included.
+	 */
+	public SortedMap<Integer, Long> lines() {
+		return Collections.unmodifiableSortedMap(lines);
+	}
+
+	/**
+	 * Get the number of times each branch in this chunk was taken.
+	 *
+	 * @return A map of branches to the number of times they were taken.
+	 */
+	public SortedMap<Branch, Long> branches() {
+		return Collections.unmodifiableSortedMap(branches);
+	}
+
+	void addLine(int line, long count) {
+		lines.merge(line, count, Long::sum);
+	}
+
+	void addBranch(Branch branch, long count) {
+		branches.merge(branch, count, Long::sum);
+	}
+
+	/**
+	 * Add the coverage of another chunk to this one. This is used to combine the coverage from several Lua states
+	 * which load the same file.
+	 *
+	 * @param other The coverage to merge into this one.
+	 */
+	public void merge(SourceCoverage other) {
+		for (var line : other.lines.entrySet()) addLine(line.getKey(), line.getValue());
+		for (var branch : other.branches.entrySet()) addBranch(branch.getKey(), branch.getValue());
+	}
+
+	/**
+	 * A single outcome of a conditional.
+	 *
+	 * @param line   The line the conditional is on.
+	 * @param block  The index of this conditional within its line.
+	 * @param branch The outcome of this conditional, {@code 0} if the conditional jumped and {@code 1} if it fell through.
+	 */
+	public record Branch(int line, int block, int branch) implements Comparable<Branch> {
+		private static final Comparator<Branch> COMPARATOR = Comparator.comparingInt(Branch::line)
+			.thenComparingInt(Branch::block)
+			.thenComparingInt(Branch::branch);
+
+		@Override
+		public int compareTo(Branch other) {
+			return COMPARATOR.compare(this, other);
+		}
+	}
+}
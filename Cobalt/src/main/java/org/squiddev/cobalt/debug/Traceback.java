@@ -0,0 +1,147 @@
+package org.squiddev.cobalt.debug;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.squiddev.cobalt.Buffer;
+import org.squiddev.cobalt.LuaThread;
+import org.squiddev.cobalt.function.LuaClosure;
+import org.squiddev.cobalt.function.LuaFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.squiddev.cobalt.debug.DebugFrame.FLAG_TAIL;
+
+/**
+ * A snapshot of a thread's call stack, which can be formatted as a traceback later.
+ * <p>
+ * Capturing a traceback only copies the handful of fields needed to describe each frame. Finding function names and
+ * formatting the traceback is deferred until {@link #append(Buffer)} is called, so errors which are caught and
+ * discarded (such as with {@code pcall}) stay cheap.
+ *
+ * @see DebugHelpers#traceback(LuaThread, int)
+ */
+public final class Traceback {
+	/**
+	 * Size of the first part of the stack
+	 */
+	private static final int LEVELS1 = 10;
+
+	/**
+	 * Size of the second part of the stack
+	 */
+	private static final int LEVELS2 = 11;
+
+	/**
+	 * The captured frames, with {@code null} marking where frames were skipped.
+	 */
+	private final @Nullable Frame[] frames;
+
+	private Traceback(@Nullable Frame[] frames) {
+		this.frames = frames;
+	}
+
+	/**
+	 * Capture the current call stack of a thread.
+	 *
+	 * @param thread LuaThread to capture the stack of
+	 * @param level  0-based level to start capturing from
+	 * @return The captured stack.
+	 */
+	public static Traceback capture(LuaThread thread, int level) {
+		DebugState state = thread.getDebugState();
+		List<@Nullable Frame> frames = new ArrayList<>(Math.min(Math.max(state.top - level + 1, 0), LEVELS1 + LEVELS2 + 1));
+
+		int n1 = state.top - level > LEVELS1 + LEVELS2 ? LEVELS1 : -1;
+		for (DebugFrame di; (di = state.getFrame(level++)) != null; ) {
+			if (n1-- == 0) {
+				frames.add(null);
+				level = state.top - LEVELS2 + 1;
+				continue;
+			}
+
+			DebugFrame previous = di.previous;
+			frames.add(previous == null || (di.flags & FLAG_TAIL) != 0
+				? new Frame(di.func, di.closure, di.pc, di.flags, null, -1, 0)
+				: new Frame(di.func, di.closure, di.pc, di.flags, previous.closure, previous.pc, previous.flags));
+		}
+
+		return new Traceback(frames.toArray(new Frame[0]));
+	}
+
+	/**
+	 * Format this traceback.
+	 *
+	 * @param sb The builder to append to
+	 * @return The provided builder.
+	 */
+	public Buffer append(Buffer sb) {
+		sb.append("stack traceback:");
+
+		for (Frame frame : frames) {
+			if (frame == null) {
+				sb.append("\n\t...");
+				continue;
+			}
+
+			sb.append("\n\t");
+			sb.append(frame.closure == null ? DebugHelpers.C : frame.closure.getPrototype().shortSource());
+			sb.append(':');
+			int currentLine = frame.currentLine();
+			if (currentLine > 0) sb.append(Integer.toString(currentLine)).append(":");
+			sb.append(" in ");
+
+			ObjectName kind = frame.getFuncKind();
+
+			if (kind != null) {
+				// Strictly speaking we should search the global table for this term - see Lua 5.3's pushglobalfuncname/
+				// pushfuncname. However, I'm somewhat reluctant to do that, so we just check it's a global.
+				sb.append(kind.what() == DebugHelpers.GLOBAL ? DebugHelpers.FUNCTION : kind.what()).append(" '").append(kind.name()).append('\'');
+			} else if (frame.func instanceof LuaClosure closure && closure.getPrototype().lineDefined == 0) {
+				sb.append("main chunk");
+			} else if (frame.func instanceof LuaClosure) {
+				sb.append("function <").append(frame.func.debugName()).append(">");
+			} else {
+				sb.append('?');
+			}
+
+			if ((frame.flags & FLAG_TAIL) != 0) sb.append("\n\t(...tail calls...)");
+		}
+
+		return sb;
+	}
+
+	@Override
+	public String toString() {
+		return append(new Buffer()).toString();
+	}
+
+	/**
+	 * A single captured frame.
+	 *
+	 * @param func          The function being executed.
+	 * @param closure       The closure being executed, if this is a Lua function.
+	 * @param pc            The current program counter.
+	 * @param flags         The frame's {@linkplain DebugFrame#flags flags}.
+	 * @param callerClosure The closure which called this function, if known.
+	 * @param callerPc      The program counter of the calling instruction.
+	 * @param callerFlags   The calling frame's flags.
+	 * @see DebugFrame#currentLine()
+	 * @see DebugFrame#getFuncKind()
+	 */
+	private record Frame(
+		@Nullable LuaFunction func, @Nullable LuaClosure closure, int pc, int flags,
+		@Nullable LuaClosure callerClosure, int callerPc, int callerFlags
+	) {
+		int currentLine() {
+			if (closure == null) return -1;
+			int[] li = closure.getPrototype().lineInfo;
+			return li == null || pc < 0 || pc >= li.length ? -1 : li[pc];
+		}
+
+		@Nullable
+		ObjectName getFuncKind() {
+			if (callerClosure == null || callerPc < 0) return null;
+			return DebugHelpers.getFuncName(callerClosure, callerPc, callerFlags);
+		}
+	}
+}
@@ -179,6 +179,31 @@ public final class Dispatch {
 		return result;
 	}
 
+	/**
+	 * Invoke the main function of a coroutine.
+	 * <p>
+	 * Unlike {@link #invoke(LuaState, LuaValue, Varargs)}, as there are no Java frames between the coroutine's scheduler
+	 * and this function, Lua functions may suspend the coroutine by returning {@link LuaThread#UNWIND}.
+	 *
+	 * @param state    The current Lua state.
+	 * @param function The function to invoke.
+	 * @param args     The arguments to invoke the function with.
+	 * @return The result of the function, or {@link LuaThread#UNWIND}.
+	 * @throws LuaError        If the function errored.
+	 * @throws UnwindThrowable If the function transferred control to another coroutine.
+	 * @see TransferFunction
+	 */
+	public static Varargs invokeCoroutine(LuaState state, LuaFunction function, Varargs args) throws UnwindThrowable, LuaError {
+		if (!(function instanceof LuaInterpretedFunction closure)) return invokeImpl(state, function, args);
+
+		DebugState ds = DebugState.get(state);
+		DebugFrame di = ds.pushJavaInfo();
+		LuaInterpreter.setupCall(ds, di, closure, args, FLAG_FRESH);
+		Varargs result = LuaInterpreter.execute(state, di, closure, true);
+		if (result != LuaThread.UNWIND) ds.onReturn(di, result);
+		return result;
+	}
+
 	public static Varargs invokeFrame(LuaState state, DebugFrame frame) throws UnwindThrowable, LuaError {
 		var function = frame.func;
 		return function instanceof LuaInterpretedFunction c
@@ -0,0 +1,30 @@
+package org.squiddev.cobalt.function;
+
+import org.squiddev.cobalt.LuaState;
+import org.squiddev.cobalt.LuaValue;
+
+/**
+ * A function which is commonly used as the iterator of a generic {@code for} loop, such as {@code next}.
+ * <p>
+ * Calling the iterator would normally allocate a {@link org.squiddev.cobalt.Varargs} for both its arguments and
+ * results. Instead, the interpreter calls {@link #iterate(LuaState, LuaValue, LuaValue, LuaValue[], int, int)}, which
+ * writes the results directly into the loop's registers.
+ */
+public interface IteratorFunction {
+	/**
+	 * Advance a generic {@code for} loop, equivalent to calling this function with {@code object} and {@code control}.
+	 * <p>
+	 * This is only an optimisation, and so implementations may return {@code false} for any input they do not handle
+	 * cheaply (for instance, values with metamethods). In this case the function will be called as normal. This
+	 * should also be done if this function would error, so the error is reported by the function itself.
+	 *
+	 * @param state   The current Lua state.
+	 * @param object  The loop's invariant state, such as the table being iterated over.
+	 * @param control The loop's control variable.
+	 * @param out     The stack to write results to.
+	 * @param offset  The index of the first result.
+	 * @param count   The number of results to write.
+	 * @return Whether the results were written to {@code out}.
+	 */
+	boolean iterate(LuaState state, LuaValue object, LuaValue control, LuaValue[] out, int offset, int count);
+}
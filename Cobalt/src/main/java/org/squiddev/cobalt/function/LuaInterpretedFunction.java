@@ -152,6 +152,7 @@ public final class LuaInterpretedFunction extends LuaClosure implements Resumabl
 			LuaInterpreter.resume(state, frame, this, value);
 		}
 
-		return execute(state, frame, this);
+		// We're only resumed by the coroutine scheduler, so can suspend in place.
+		return execute(state, frame, this, true);
 	}
 }
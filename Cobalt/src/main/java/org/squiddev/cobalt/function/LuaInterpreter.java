@@ -24,7 +24,9 @@
  */
 package org.squiddev.cobalt.function;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.squiddev.cobalt.*;
+import org.squiddev.cobalt.debug.Coverage;
 import org.squiddev.cobalt.debug.DebugFrame;
 import org.squiddev.cobalt.debug.DebugState;
 import org.squiddev.cobalt.debug.Upvalue;
@@ -33,6 +35,7 @@ import static org.squiddev.cobalt.Constants.*;
 import static org.squiddev.cobalt.Lua.*;
 import static org.squiddev.cobalt.LuaDouble.valueOf;
 import static org.squiddev.cobalt.debug.DebugFrame.*;
+import static org.squiddev.cobalt.function.NumericRegisters.*;
 
 /**
  * The main interpreter for {@link LuaInterpretedFunction}s.
@@ -136,6 +139,8 @@ final class LuaInterpreter {
 		di.closure = function;
 		di.varargs = varargs;
 		di.stack = stack;
+		NumericRegisters numeric = NumericRegisters.get(function.getPrototype());
+		di.numbers = numeric == null ? null : new double[stack.length];
 		di.flags |= flags;
 		di.extras = NONE;
 		di.top = di.pc = 0;
@@ -154,21 +159,44 @@ final class LuaInterpreter {
 		else return ((x & 7) + 8) << (e - 1);
 	}
 
-	static Varargs execute(final LuaState state, DebugFrame di, LuaInterpretedFunction function) throws LuaError, UnwindThrowable {
+	static Varargs execute(LuaState state, DebugFrame di, LuaInterpretedFunction function) throws LuaError, UnwindThrowable {
+		return execute(state, di, function, false);
+	}
+
+	/**
+	 * Execute a function, continuing until a {@link DebugFrame#FLAG_FRESH} frame returns.
+	 *
+	 * @param state     The current Lua state.
+	 * @param di        The frame to execute.
+	 * @param function  The function to execute.
+	 * @param yieldable Whether this function was called directly by the coroutine scheduler. If so, calls to a
+	 *                  {@link TransferFunction} suspend the current frame in place and return {@link LuaThread#UNWIND},
+	 *                  rather than throwing an {@link UnwindThrowable}.
+	 * @return The function's return values, or {@link LuaThread#UNWIND}.
+	 * @throws LuaError        If the function errored.
+	 * @throws UnwindThrowable If the function yielded.
+	 */
+	static Varargs execute(final LuaState state, DebugFrame di, LuaInterpretedFunction function, boolean yieldable) throws LuaError, UnwindThrowable {
 		final DebugState ds = DebugState.get(state);
+		final @Nullable Coverage coverage = state.getCoverage();
 
 		newFrame:
 		while (true) {
 			// Fetch all info from the function
 			final Prototype p = function.p;
 			final Upvalue[] upvalues = function.upvalues;
-			final int[] code = p.code;
 			final LuaValue[] k = p.constants;
+			final int @Nullable [] counts = coverage == null ? null : coverage.counts(p);
 
 			// And from the debug info
 			final LuaValue[] stack = di.stack;
 			final Varargs varargs = di.varargs;
 
+			// If this function has numeric registers, run the specialised bytecode instead.
+			double @Nullable [] numbers = di.numbers;
+			final @Nullable NumericRegisters numeric = numbers == null ? null : p.numericRegisters;
+			int[] code = numeric == null ? p.code : numeric.code;
+
 			int pc = di.pc;
 
 			// process instructions
@@ -176,6 +204,18 @@ final class LuaInterpreter {
 				di.pc = pc;
 				if (state.isInterrupted()) state.handleInterrupt();
 				ds.onInstruction(di, pc);
+				if (counts != null) counts[pc]++;
+
+				if (numbers != null) {
+					if (di.numbers == null) {
+						// Our numbers were boxed by the debug library, so switch back to the original bytecode.
+						numbers = null;
+						code = p.code;
+					} else {
+						int[] box = numeric.box[pc];
+						if (box != null) NumericRegisters.box(stack, numbers, box);
+					}
+				}
 
 				// pull out instruction
 				int i = code[pc++];
@@ -338,6 +378,7 @@ final class LuaInterpreter {
 						int c = GETARG_C(i);
 						if (OperationHelper.eq(state, getRK(stack, k, b), getRK(stack, k, c)) == (a != 0)) {
 							// We assume the next instruction is a jump and read the branch from there.
+							if (counts != null) counts[pc]++;
 							pc += doJump(di, code[pc], 1);
 						} else {
 							pc++;
@@ -349,6 +390,7 @@ final class LuaInterpreter {
 						int b = GETARG_B(i);
 						int c = GETARG_C(i);
 						if (OperationHelper.lt(state, getRK(stack, k, b), getRK(stack, k, c)) == (a != 0)) {
+							if (counts != null) counts[pc]++;
 							pc += doJump(di, code[pc], 1);
 						} else {
 							pc++;
@@ -360,6 +402,7 @@ final class LuaInterpreter {
 						int b = GETARG_B(i);
 						int c = GETARG_C(i);
 						if (OperationHelper.le(state, getRK(stack, k, b), getRK(stack, k, c)) == (a != 0)) {
+							if (counts != null) counts[pc]++;
 							pc += doJump(di, code[pc], 1);
 						} else {
 							pc++;
@@ -369,6 +412,7 @@ final class LuaInterpreter {
 
 					case OP_TEST: { // A C: if not (R(A) <=> C) then pc++
 						if (stack[a].toBoolean() == ((GETARG_C(i)) != 0)) {
+							if (counts != null) counts[pc]++;
 							pc += doJump(di, code[pc], 1);
 						} else {
 							pc++;
@@ -383,6 +427,7 @@ final class LuaInterpreter {
 						LuaValue val = stack[b];
 						if (val.toBoolean() == (c != 0)) {
 							stack[a] = val;
+							if (counts != null) counts[pc]++;
 							pc += doJump(di, code[pc], 1);
 						} else {
 							pc++;
@@ -408,6 +453,19 @@ final class LuaInterpreter {
 							di = newFrame;
 
 							continue newFrame;
+						} else if (yieldable && val instanceof TransferFunction) {
+							Varargs args = b > 0
+								? ValueFactory.varargsOfCopy(stack, a + 1, b - 1)
+								: ValueFactory.varargsOfCopy(stack, a + 1, di.top - di.extras.count() - (a + 1), di.extras);
+							Varargs v = invoke(state, ds, true, val, args, a);
+							if (v == LuaThread.UNWIND) return v;
+
+							if (c > 0) {
+								while (--c > 0) stack[a + c - 1] = v.arg(c);
+							} else {
+								di.top = a + v.count();
+								di.extras = v;
+							}
 						} else {
 							nativeCall(state, di, stack, val, i, a, b, c);
 						}
@@ -451,7 +509,9 @@ final class LuaInterpreter {
 							setupCall(ds, di, function, args, (flags & FLAG_FRESH) | FLAG_TAIL);
 							continue newFrame;
 						} else {
-							Varargs v = Dispatch.invoke(state, functionVal, args);
+							Varargs v = invoke(state, ds, yieldable, functionVal, args, -1);
+							if (v == LuaThread.UNWIND) return v;
+
 							di.top = a + v.count();
 							di.extras = v;
 							break;
@@ -505,9 +565,17 @@ final class LuaInterpreter {
 					}
 
 					case OP_TFORCALL: {
-						Varargs result = Dispatch.invoke(state, stack[a], ValueFactory.varargsOf(stack[a + 1], stack[a + 2]), a);
-						for (int c = GETARG_C(i); c >= 1; --c) stack[a + 2 + c] = result.arg(c);
+						// Built-in iterators (next, inext) may write their results directly to the stack.
+						LuaValue iterator = stack[a];
+						if (!(iterator instanceof IteratorFunction fn) || ds.hasCallHook()
+							|| !fn.iterate(state, stack[a + 1], stack[a + 2], stack, a + 3, GETARG_C(i))) {
+							Varargs result = invoke(state, ds, yieldable, iterator, ValueFactory.varargsOf(stack[a + 1], stack[a + 2]), a);
+							if (result == LuaThread.UNWIND) return result;
+
+							for (int c = GETARG_C(i); c >= 1; --c) stack[a + 2 + c] = result.arg(c);
+						}
 
+						if (counts != null) counts[pc]++;
 						i = code[pc++];
 						a = GETARG_A(i);
 						assert GET_OPCODE(i) == OP_TFORLOOP;
@@ -569,6 +637,125 @@ final class LuaInterpreter {
 						break;
 					}
 
+					case OP_MOVEN: // A B: R(A):= R(B)
+						numbers[a] = numbers[GETARG_B(i)];
+						break;
+
+					case OP_LOADKN: // A Bx: R(A):= Kst(Bx)
+						numbers[a] = numeric.constants[GETARG_Bx(i)];
+						break;
+
+					case OP_ADDN: // A B C: R(A):= RK(B) + RK(C)
+						numbers[a] = numeric.get(numbers, GETARG_B(i)) + numeric.get(numbers, GETARG_C(i));
+						break;
+
+					case OP_SUBN: // A B C: R(A):= RK(B) - RK(C)
+						numbers[a] = numeric.get(numbers, GETARG_B(i)) - numeric.get(numbers, GETARG_C(i));
+						break;
+
+					case OP_MULN: // A B C: R(A):= RK(B) * RK(C)
+						numbers[a] = NumericRegisters.normalise(numeric.get(numbers, GETARG_B(i)) * numeric.get(numbers, GETARG_C(i)));
+						break;
+
+					case OP_DIVN: // A B C: R(A):= RK(B) / RK(C)
+						numbers[a] = NumericRegisters.normalise(OperationHelper.div(numeric.get(numbers, GETARG_B(i)), numeric.get(numbers, GETARG_C(i))));
+						break;
+
+					case OP_MODN: // A B C: R(A):= RK(B) % RK(C)
+						numbers[a] = NumericRegisters.normalise(OperationHelper.mod(numeric.get(numbers, GETARG_B(i)), numeric.get(numbers, GETARG_C(i))));
+						break;
+
+					case OP_POWN: // A B C: R(A):= RK(B) ^ RK(C)
+						numbers[a] = NumericRegisters.normalise(Math.pow(numeric.get(numbers, GETARG_B(i)), numeric.get(numbers, GETARG_C(i))));
+						break;
+
+					case OP_UNMN: // A B: R(A):= -R(B)
+						numbers[a] = NumericRegisters.normalise(-numbers[GETARG_B(i)]);
+						break;
+
+					case OP_EQN: case OP_LTN: case OP_LEQN: { // A B C: if ((RK(B) op RK(C)) ~= A) then pc++
+						double left = numeric.get(numbers, GETARG_B(i)), right = numeric.get(numbers, GETARG_C(i));
+						int op = GET_OPCODE(i);
+						if ((op == OP_EQN ? left == right : op == OP_LTN ? left < right : left <= right) == (a != 0)) {
+							if (counts != null) counts[pc]++;
+							pc += doJump(di, code[pc], 1);
+						} else {
+							pc++;
+						}
+						break;
+					}
+
+					case OP_ARITHS: { // A B C: R(A):= RK(B) op RK(C), where RK(B) or RK(C) is boxed.
+						int b = GETARG_B(i);
+						int c = GETARG_C(i);
+						int op = GET_OPCODE(p.code[pc - 1]);
+						if (numeric.isNumber(stack, b) && (op == OP_UNM || numeric.isNumber(stack, c))) {
+							numbers[a] = NumericRegisters.arith(op, numeric.get(stack, numbers, b), op == OP_UNM ? 0 : numeric.get(stack, numbers, c));
+						} else {
+							numeric.deoptimise();
+							di.boxNumbers();
+							numbers = null;
+							code = p.code;
+							stack[a] = arith(state, op, getRK(stack, k, b), getRK(stack, k, c));
+						}
+						break;
+					}
+
+					case OP_CMPS: { // A B C: if ((RK(B) op RK(C)) ~= A) then pc++, where RK(B) or RK(C) is boxed.
+						int b = GETARG_B(i);
+						int c = GETARG_C(i);
+						int op = GET_OPCODE(p.code[pc - 1]);
+
+						boolean result;
+						if (numeric.isNumber(stack, b) && numeric.isNumber(stack, c)) {
+							double left = numeric.get(stack, numbers, b), right = numeric.get(stack, numbers, c);
+							result = op == OP_EQ ? left == right : op == OP_LT ? left < right : left <= right;
+						} else if (op == OP_EQ) {
+							// One side is a number and the other isn't, so they can never be equal.
+							result = false;
+						} else {
+							// This will always error, but let the original implementation handle that.
+							numeric.deoptimise();
+							di.boxNumbers();
+							numbers = null;
+							code = p.code;
+							result = op == OP_LT
+								? OperationHelper.lt(state, getRK(stack, k, b), getRK(stack, k, c))
+								: OperationHelper.le(state, getRK(stack, k, b), getRK(stack, k, c));
+						}
+
+						if (result == (a != 0)) {
+							if (counts != null) counts[pc]++;
+							pc += doJump(di, code[pc], 1);
+						} else {
+							pc++;
+						}
+						break;
+					}
+
+					case OP_FORPREPN: { // A sBx: R(A)-=R(A+2): pc+=sBx
+						boolean[] isNumeric = numeric.numeric;
+						double init = isNumeric[a] ? numbers[a] : stack[a].checkNumber("'for' initial value must be a number").toDouble();
+						double limit = isNumeric[a + 1] ? numbers[a + 1] : stack[a + 1].checkNumber("'for' limit must be a number").toDouble();
+						double step = isNumeric[a + 2] ? numbers[a + 2] : stack[a + 2].checkNumber("'for' step must be a number").toDouble();
+						numbers[a] = init - step;
+						numbers[a + 1] = limit;
+						numbers[a + 2] = step;
+						pc += GETARG_sBx(i);
+						break;
+					}
+
+					case OP_FORLOOPN: { // A sBx: R(A)+=R(A+2): if R(A) <?= R(A+1) then { pc+=sBx: R(A+3)=R(A) }
+						double limit = numbers[a + 1];
+						double step = numbers[a + 2];
+						double idx = step + numbers[a];
+						if (0 < step ? idx <= limit : limit <= idx) {
+							numbers[a + 3] = numbers[a] = idx;
+							pc += GETARG_sBx(i);
+						}
+						break;
+					}
+
 					default: {
 						assert false : "Unknown opcode";
 						throw new IllegalStateException("Unknown opcode");
@@ -578,6 +765,19 @@ final class LuaInterpreter {
 		}
 	}
 
+	private static LuaValue arith(LuaState state, int op, LuaValue left, LuaValue right) throws LuaError, UnwindThrowable {
+		return switch (op) {
+			case OP_ADD -> OperationHelper.add(state, left, right);
+			case OP_SUB -> OperationHelper.sub(state, left, right);
+			case OP_MUL -> OperationHelper.mul(state, left, right);
+			case OP_DIV -> OperationHelper.div(state, left, right);
+			case OP_MOD -> OperationHelper.mod(state, left, right);
+			case OP_POW -> OperationHelper.pow(state, left, right);
+			case OP_UNM -> OperationHelper.neg(state, left);
+			default -> throw new IllegalStateException("Unknown arithmetic opcode " + op);
+		};
+	}
+
 	private static LuaValue getRK(LuaValue[] stack, LuaValue[] k, int slot) {
 		return ISK(slot) ? k[INDEXK(slot)] : stack[slot];
 	}
@@ -588,6 +788,34 @@ final class LuaInterpreter {
 		return GETARG_sBx(i) + e;
 	}
 
+	/**
+	 * Invoke a function. If {@code yieldable} is set, {@link TransferFunction}s may suspend the current coroutine without
+	 * throwing, leaving their frame on the stack.
+	 *
+	 * @param state     The current Lua state.
+	 * @param ds        The current debug state.
+	 * @param yieldable Whether we're being executed directly by the coroutine scheduler.
+	 * @param function  The function to invoke.
+	 * @param args      The arguments to invoke the function with.
+	 * @param stack     The stack slot of the function.
+	 * @return The function's return values, or {@link LuaThread#UNWIND}.
+	 * @throws LuaError        If the function errored.
+	 * @throws UnwindThrowable If the function yielded.
+	 * @see Dispatch#invoke(LuaState, LuaValue, Varargs, int)
+	 */
+	private static Varargs invoke(LuaState state, DebugState ds, boolean yieldable, LuaValue function, Varargs args, int stack) throws LuaError, UnwindThrowable {
+		// Call hooks may yield, so are handled by the slow path.
+		if (!yieldable || !(function instanceof TransferFunction transfer) || ds.hasCallHook()) {
+			return Dispatch.invoke(state, function, args, stack);
+		}
+
+		DebugFrame frame = ds.pushJavaInfo();
+		frame.func = (LuaFunction) function;
+		Varargs result = transfer.transfer(state, frame, args);
+		if (result != LuaThread.UNWIND) ds.onReturn(frame, result);
+		return result;
+	}
+
 	private static void nativeCall(LuaState state, DebugFrame di, LuaValue[] stack, LuaValue val, int i, int a, int b, int c) throws UnwindThrowable, LuaError {
 		switch (i & (MASK_B | MASK_C)) {
 			case (1 << POS_B) | (0 << POS_C) -> {
@@ -635,9 +863,9 @@ final class LuaInterpreter {
 				if (!left.isString() || !right.isString()) {
 					// If one of these isn't convertible to a string then use the metamethod
 					stack[top - 2] = OperationHelper.concatNonStrings(state, left, right, top - 2, top - 1);
-				} else if ((rString = right.checkLuaString()).length() == 0) {
-					stack[top - 2] = left.checkLuaString();
-				} else if ((lString = left.checkLuaString()).length() == 0) {
+				} else if ((rString = OperationHelper.checkLuaString(state, right)).length() == 0) {
+					stack[top - 2] = OperationHelper.checkLuaString(state, left);
+				} else if ((lString = OperationHelper.checkLuaString(state, left)).length() == 0) {
 					stack[top - 2] = rString;
 				} else {
 					int length = rString.length() + lString.length();
@@ -648,7 +876,7 @@ final class LuaInterpreter {
 						LuaValue value = stack[top - n - 1];
 						if (!value.isString()) break;
 
-						LuaString string = value.checkLuaString();
+						LuaString string = OperationHelper.checkLuaString(state, value);
 
 						// Ensure we don't get a string which is too long
 						int strLen = string.length();
@@ -693,6 +921,8 @@ final class LuaInterpreter {
 
 				if (res == (GETARG_A(i) != 0)) {
 					// We assume the next instruction is a jump and read the branch from there.
+					var counts = p.coverage;
+					if (counts != null) counts[di.pc]++;
 					di.pc += GETARG_sBx(p.code[di.pc]);
 				}
 				di.pc++;
@@ -0,0 +1,507 @@
+package org.squiddev.cobalt.function;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.squiddev.cobalt.LuaNumber;
+import org.squiddev.cobalt.LuaValue;
+import org.squiddev.cobalt.OperationHelper;
+import org.squiddev.cobalt.Prototype;
+
+import java.util.Arrays;
+
+import static org.squiddev.cobalt.Lua.*;
+import static org.squiddev.cobalt.LuaDouble.valueOf;
+
+/**
+ * The registers of a {@link Prototype} which only ever hold numbers, and so can be stored as unboxed {@code double}s
+ * by the interpreter.
+ * <p>
+ * A register is numeric if every instruction which writes to it produces a number (such as arithmetic, {@code for}
+ * loops, and moves from other numeric registers), and it is never captured as an upvalue. This is computed once for
+ * each prototype, without any flow analysis, so registers reused for non-numeric temporaries are left boxed.
+ * <p>
+ * Frames running a prototype with numeric registers store them in {@link org.squiddev.cobalt.debug.DebugFrame#numbers},
+ * and execute {@link #code} rather than {@link Prototype#code}. This is a copy of the original bytecode, with
+ * instructions which only touch numeric registers replaced by specialised opcodes. Any other instruction which reads a
+ * numeric register first boxes it (see {@link #box}), so values are only allocated when they escape the register file.
+ * <p>
+ * Arithmetic writing to a numeric register may also read boxed registers. These are speculated to be numbers: if they
+ * are not (for instance, they are strings or tables with metamethods), the whole frame is
+ * {@linkplain org.squiddev.cobalt.debug.DebugFrame#boxNumbers() boxed} and continues with the original bytecode. The
+ * debug library does the same before reading or writing a frame's locals.
+ */
+public final class NumericRegisters {
+	/**
+	 * {@code A B: R(A) := R(B)}, where both registers are numeric.
+	 */
+	static final int OP_MOVEN = NUM_OPCODES;
+
+	/**
+	 * {@code A Bx: R(A) := Kst(Bx)}, where the constant is a number.
+	 */
+	static final int OP_LOADKN = NUM_OPCODES + 1;
+
+	// A B C: R(A) := RK(B) op RK(C), where all operands are numeric registers or constants.
+	static final int OP_ADDN = NUM_OPCODES + 2;
+	static final int OP_SUBN = NUM_OPCODES + 3;
+	static final int OP_MULN = NUM_OPCODES + 4;
+	static final int OP_DIVN = NUM_OPCODES + 5;
+	static final int OP_MODN = NUM_OPCODES + 6;
+	static final int OP_POWN = NUM_OPCODES + 7;
+	static final int OP_UNMN = NUM_OPCODES + 8;
+
+	// A B C: if ((RK(B) op RK(C)) ~= A) then pc++, where both operands are numeric registers or constants.
+	static final int OP_EQN = NUM_OPCODES + 9;
+	static final int OP_LTN = NUM_OPCODES + 10;
+	static final int OP_LEQN = NUM_OPCODES + 11;
+
+	/**
+	 * A {@code for} loop whose control variables are all stored in {@link org.squiddev.cobalt.debug.DebugFrame#numbers}.
+	 */
+	static final int OP_FORPREPN = NUM_OPCODES + 12;
+	static final int OP_FORLOOPN = NUM_OPCODES + 13;
+
+	/**
+	 * Arithmetic writing to a numeric register, with at least one boxed operand. The original operation is read from
+	 * {@link Prototype#code}.
+	 */
+	static final int OP_ARITHS = NUM_OPCODES + 14;
+
+	/**
+	 * A comparison between a numeric register and a boxed value. The original operation is read from
+	 * {@link Prototype#code}.
+	 */
+	static final int OP_CMPS = NUM_OPCODES + 15;
+
+	static {
+		assert OP_CMPS <= MAX_OP;
+	}
+
+	/**
+	 * The number of times a prototype may be boxed after failed speculation, before we stop unboxing it entirely.
+	 */
+	private static final int MAX_DEOPTIMISATIONS = 16;
+
+	/**
+	 * A marker for prototypes without any numeric registers.
+	 */
+	private static final NumericRegisters NONE = new NumericRegisters(new int[0], new boolean[0], new double[0], new int[0][], new int[0]);
+
+	/**
+	 * The rewritten bytecode.
+	 */
+	final int[] code;
+
+	/**
+	 * Whether each register is numeric.
+	 */
+	final boolean[] numeric;
+
+	/**
+	 * The value of each numeric constant, or {@code NaN} for other constants. Constants which are NaN themselves are
+	 * treated as non-numeric, which is safe as any operation involving them is just left boxed.
+	 */
+	final double[] constants;
+
+	/**
+	 * The numeric registers which should be boxed before executing each instruction, or {@code null} if none are
+	 * needed.
+	 */
+	final int @Nullable [][] box;
+
+	/**
+	 * Triples of {@code A}, first pc and last pc for each unboxed {@code for} loop. The loop's control variables are
+	 * stored in {@link org.squiddev.cobalt.debug.DebugFrame#numbers} for the duration of the loop, even if they are not
+	 * numeric registers themselves.
+	 */
+	private final int[] loops;
+
+	private int deoptimisations;
+
+	private NumericRegisters(int[] code, boolean[] numeric, double[] constants, int @Nullable [][] box, int[] loops) {
+		this.code = code;
+		this.numeric = numeric;
+		this.constants = constants;
+		this.box = box;
+		this.loops = loops;
+	}
+
+	/**
+	 * Get the numeric registers for a prototype, computing them if needed.
+	 *
+	 * @param prototype The prototype to analyse.
+	 * @return The prototype's numeric registers, or {@code null} if it should not be unboxed.
+	 */
+	static @Nullable NumericRegisters get(Prototype prototype) {
+		NumericRegisters registers = prototype.numericRegisters;
+		if (registers == null) prototype.numericRegisters = registers = compute(prototype);
+		return registers == NONE || registers.deoptimisations >= MAX_DEOPTIMISATIONS ? null : registers;
+	}
+
+	/**
+	 * Record that a frame had to be boxed, due to speculating that a value was a number.
+	 */
+	void deoptimise() {
+		deoptimisations++;
+	}
+
+	/**
+	 * Copy the values of all numeric registers (and any unboxed loop variables) into a frame's stack.
+	 *
+	 * @param stack   The frame's stack.
+	 * @param numbers The frame's unboxed numbers.
+	 * @param pc      The frame's current program counter.
+	 */
+	public void box(LuaValue[] stack, double[] numbers, int pc) {
+		boolean[] numeric = this.numeric;
+		for (int i = 0; i < numeric.length; i++) {
+			if (numeric[i]) stack[i] = valueOf(numbers[i]);
+		}
+
+		int[] loops = this.loops;
+		for (int i = 0; i < loops.length; i += 3) {
+			if (pc < loops[i + 1] || pc > loops[i + 2]) continue;
+
+			int a = loops[i];
+			for (int j = a; j < a + 3; j++) stack[j] = valueOf(numbers[j]);
+		}
+	}
+
+	static void box(LuaValue[] stack, double[] numbers, int[] registers) {
+		for (int register : registers) stack[register] = valueOf(numbers[register]);
+	}
+
+	/**
+	 * Get the value of a numeric register or constant.
+	 *
+	 * @param numbers The frame's unboxed numbers.
+	 * @param x       The RK operand.
+	 * @return The operand's value.
+	 */
+	double get(double[] numbers, int x) {
+		return ISK(x) ? constants[INDEXK(x)] : numbers[x];
+	}
+
+	/**
+	 * Get the value of an operand which may be boxed. This should only be called if {@link #isNumber} is true.
+	 *
+	 * @param stack   The frame's stack.
+	 * @param numbers The frame's unboxed numbers.
+	 * @param x       The RK operand.
+	 * @return The operand's value.
+	 */
+	double get(LuaValue[] stack, double[] numbers, int x) {
+		return ISK(x) ? constants[INDEXK(x)] : numeric[x] ? numbers[x] : stack[x].toDouble();
+	}
+
+	/**
+	 * Determine whether an operand is a number, and so can be read with {@link #get(LuaValue[], double[], int)}.
+	 *
+	 * @param stack The frame's stack.
+	 * @param x     The RK operand.
+	 * @return Whether this operand is a number.
+	 */
+	boolean isNumber(LuaValue[] stack, int x) {
+		return ISK(x) ? !Double.isNaN(constants[INDEXK(x)]) : numeric[x] || stack[x] instanceof LuaNumber;
+	}
+
+	/**
+	 * Perform an arithmetic operation on two numbers.
+	 *
+	 * @param op    The original opcode.
+	 * @param left  The left operand.
+	 * @param right The right operand. This is ignored for {@link org.squiddev.cobalt.Lua#OP_UNM}.
+	 * @return The result of this operation.
+	 */
+	static double arith(int op, double left, double right) {
+		return switch (op) {
+			case OP_ADD -> left + right;
+			case OP_SUB -> left - right;
+			case OP_MUL -> normalise(left * right);
+			case OP_DIV -> normalise(OperationHelper.div(left, right));
+			case OP_MOD -> normalise(OperationHelper.mod(left, right));
+			case OP_POW -> normalise(Math.pow(left, right));
+			case OP_UNM -> normalise(-left);
+			default -> throw new IllegalStateException("Unknown opcode " + op);
+		};
+	}
+
+	/**
+	 * Convert {@code -0.0} to {@code 0.0}. {@link org.squiddev.cobalt.LuaDouble#valueOf(double)} does this when
+	 * boxing numbers, so unboxed arithmetic must do the same.
+	 *
+	 * @param value The value to normalise.
+	 * @return The normalised value.
+	 */
+	static double normalise(double value) {
+		return value + 0.0;
+	}
+
+	private static NumericRegisters compute(Prototype p) {
+		int[] code = p.code;
+		LuaValue[] k = p.constants;
+		int size = p.maxStackSize;
+
+		double[] constants = new double[k.length];
+		for (int i = 0; i < k.length; i++) constants[i] = k[i] instanceof LuaNumber ? k[i].toDouble() : Double.NaN;
+
+		// Registers written by an instruction producing a number, and those written by anything else (or which are
+		// otherwise unsuitable).
+		boolean[] written = new boolean[size];
+		boolean[] boxed = new boolean[size];
+		for (int r = 0; r < p.parameters && r < size; r++) boxed[r] = true;
+
+		// Pairs of registers, where the first is numeric only if the second is.
+		int[] moves = new int[8];
+		int moveCount = 0;
+
+		// For loops, as (A, pc of FORPREP, pc of FORLOOP).
+		int[] loops = new int[6];
+		int loopCount = 0;
+		boolean[] loopEnds = new boolean[code.length];
+
+		for (int pc = 0; pc < code.length; pc++) {
+			int i = code[pc];
+			int a = GETARG_A(i);
+			switch (GET_OPCODE(i)) {
+				case OP_MOVE -> {
+					written[a] = true;
+					if (moveCount + 2 > moves.length) moves = Arrays.copyOf(moves, moves.length * 2);
+					moves[moveCount++] = a;
+					moves[moveCount++] = GETARG_B(i);
+				}
+				case OP_LOADK -> {
+					if (Double.isNaN(constants[GETARG_Bx(i)])) boxed[a] = true;
+					written[a] = true;
+				}
+				case OP_ADD, OP_SUB, OP_MUL, OP_DIV, OP_MOD, OP_POW -> {
+					if (isNonNumberConstant(constants, GETARG_B(i)) || isNonNumberConstant(constants, GETARG_C(i))) {
+						boxed[a] = true;
+					}
+					written[a] = true;
+				}
+				case OP_UNM -> written[a] = true;
+				case OP_LOADKX, OP_SETLIST -> {
+					if (GET_OPCODE(i) == OP_LOADKX) boxed[a] = true;
+					// Skip the EXTRAARG instruction.
+					if (GET_OPCODE(i) == OP_LOADKX || GETARG_C(i) == 0) pc++;
+				}
+				case OP_LOADBOOL, OP_GETUPVAL, OP_GETTABUP, OP_GETTABLE, OP_NEWTABLE, OP_NOT, OP_LEN, OP_TESTSET,
+					 OP_CLOSURE, OP_TFORLOOP -> boxed[a] = true;
+				case OP_LOADNIL -> markBoxed(boxed, a, a + GETARG_B(i));
+				case OP_SELF -> markBoxed(boxed, a, a + 1);
+				case OP_CONCAT -> {
+					boxed[a] = true;
+					markBoxed(boxed, GETARG_B(i), GETARG_C(i));
+				}
+				// Variable numbers of results are stored in DebugFrame.extras, rather than on the stack.
+				case OP_CALL -> markBoxed(boxed, a, Math.max(a, a + GETARG_C(i) - 2));
+				case OP_VARARG -> markBoxed(boxed, a, a + GETARG_B(i) - 2);
+				case OP_TFORCALL -> markBoxed(boxed, a + 3, a + 2 + GETARG_C(i));
+				case OP_FORPREP -> {
+					int loop = pc + 1 + GETARG_sBx(i);
+					if (loop < 0 || loop >= code.length || GET_OPCODE(code[loop]) != OP_FORLOOP || GETARG_A(code[loop]) != a) {
+						markBoxed(boxed, a, a + 3);
+						continue;
+					}
+
+					if (loopCount + 3 > loops.length) loops = Arrays.copyOf(loops, loops.length * 2);
+					loops[loopCount++] = a;
+					loops[loopCount++] = pc;
+					loops[loopCount++] = loop;
+					loopEnds[loop] = true;
+					for (int r = a; r <= a + 3; r++) written[r] = true;
+				}
+				default -> {
+				}
+			}
+		}
+
+		// Compiled code always jumps from a FORPREP to its FORLOOP, but be careful of hand-written bytecode.
+		for (int pc = 0; pc < code.length; pc++) {
+			if (GET_OPCODE(code[pc]) == OP_FORLOOP && !loopEnds[pc]) markBoxed(boxed, GETARG_A(code[pc]), GETARG_A(code[pc]) + 3);
+		}
+
+		// Registers captured by closures must stay in the stack, so they can be shared with the upvalue.
+		for (Prototype child : p.children) {
+			for (int j = 0, n = child.upvalues(); j < n; j++) {
+				var upvalue = child.getUpvalue(j);
+				if (upvalue.fromLocal() && upvalue.index() < size) boxed[upvalue.index()] = true;
+			}
+		}
+
+		boolean[] numeric = new boolean[size];
+		boolean any = false;
+		for (int r = 0; r < size; r++) any |= numeric[r] = written[r] && !boxed[r];
+		if (!any) return NONE;
+
+		// Propagate boxing through moves and loops until nothing changes. A loop is only unboxed if its (visible)
+		// variable is numeric, otherwise all its control variables are boxed.
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int j = 0; j < moveCount; j += 2) {
+				if (numeric[moves[j]] && !numeric[moves[j + 1]]) {
+					numeric[moves[j]] = false;
+					changed = true;
+				}
+			}
+
+			for (int j = 0; j < loopCount; j += 3) {
+				int a = loops[j];
+				if (!numeric[a + 3] && (numeric[a] || numeric[a + 1] || numeric[a + 2])) {
+					numeric[a] = numeric[a + 1] = numeric[a + 2] = false;
+					changed = true;
+				}
+			}
+		}
+
+		any = false;
+		for (int r = 0; r < size; r++) any |= numeric[r];
+		if (!any) return NONE;
+
+		// Find instructions within a loop, by looking for backwards jumps.
+		boolean[] inLoop = new boolean[code.length];
+		for (int pc = 0; pc < code.length; pc++) {
+			int i = code[pc];
+			switch (GET_OPCODE(i)) {
+				case OP_JMP, OP_FORLOOP, OP_TFORLOOP -> {
+					int target = pc + 1 + GETARG_sBx(i);
+					if (target >= 0 && target <= pc) Arrays.fill(inLoop, target, pc + 1, true);
+				}
+				default -> {
+				}
+			}
+		}
+
+		// Finally rewrite the bytecode, and find which registers need to be boxed before each instruction.
+		int[] newCode = code.clone();
+		int @Nullable [][] box = new int[code.length][];
+		int[] unboxedLoops = new int[loopCount];
+		int unboxedLoopCount = 0;
+		boolean unboxed = false;
+		for (int j = 0; j < loopCount; j += 3) {
+			if (!numeric[loops[j] + 3]) continue;
+			unboxedLoops[unboxedLoopCount++] = loops[j];
+			unboxedLoops[unboxedLoopCount++] = loops[j + 1] + 1;
+			unboxedLoops[unboxedLoopCount++] = loops[j + 2];
+		}
+
+		for (int pc = 0; pc < code.length; pc++) {
+			int i = code[pc];
+			int a = GETARG_A(i);
+			int b = GETARG_B(i);
+			int c = GETARG_C(i);
+			int op = GET_OPCODE(i);
+			switch (op) {
+				case OP_MOVE -> {
+					if (numeric[a]) {
+						newCode[pc] = setOpcode(i, OP_MOVEN);
+					} else {
+						box[pc] = numericIn(numeric, b, b);
+					}
+				}
+				case OP_LOADK -> {
+					if (numeric[a]) newCode[pc] = setOpcode(i, OP_LOADKN);
+				}
+				case OP_ADD, OP_SUB, OP_MUL, OP_DIV, OP_MOD, OP_POW, OP_UNM -> {
+					boolean unary = op == OP_UNM;
+					if (!numeric[a]) {
+						box[pc] = numericRK(numeric, b, unary ? -1 : c);
+					} else if (isUnboxed(numeric, b) && (unary || isUnboxed(numeric, c))) {
+						newCode[pc] = setOpcode(i, op - OP_ADD + OP_ADDN);
+						unboxed = true;
+					} else {
+						newCode[pc] = setOpcode(i, OP_ARITHS);
+						// Accumulating into a numeric register within a loop (such as "sum = sum + v") is also
+						// worthwhile, as it saves allocating a new number on every iteration. Elsewhere, this is not
+						// worth allocating a register file for.
+						if (inLoop[pc]) unboxed = true;
+					}
+				}
+				case OP_EQ, OP_LT, OP_LE -> {
+					if ((ISK(b) || !numeric[b]) && (ISK(c) || !numeric[c])) {
+						// Neither operand is numeric, so leave as-is.
+					} else if (isUnboxed(numeric, b) && isUnboxed(numeric, c)
+						&& !isNonNumberConstant(constants, b) && !isNonNumberConstant(constants, c)) {
+						newCode[pc] = setOpcode(i, op - OP_EQ + OP_EQN);
+						unboxed = true;
+					} else {
+						newCode[pc] = setOpcode(i, OP_CMPS);
+					}
+				}
+				case OP_FORPREP, OP_FORLOOP -> {
+					if (numeric[a + 3]) {
+						newCode[pc] = setOpcode(i, op == OP_FORPREP ? OP_FORPREPN : OP_FORLOOPN);
+						unboxed = true;
+					} else {
+						box[pc] = numericIn(numeric, a, a + 2);
+					}
+				}
+				case OP_LOADKX -> pc++;
+				case OP_SETLIST -> {
+					box[pc] = numericIn(numeric, a, b == 0 ? size - 1 : a + b);
+					if (c == 0) pc++;
+				}
+				case OP_GETTABUP -> box[pc] = numericRK(numeric, c, -1);
+				case OP_GETTABLE, OP_SELF -> box[pc] = union(numericIn(numeric, b, b), numericRK(numeric, c, -1));
+				case OP_SETTABUP -> box[pc] = numericRK(numeric, b, c);
+				case OP_SETTABLE -> box[pc] = union(numericIn(numeric, a, a), numericRK(numeric, b, c));
+				case OP_SETUPVAL, OP_TEST -> box[pc] = numericIn(numeric, a, a);
+				case OP_NOT, OP_LEN, OP_TESTSET -> box[pc] = numericIn(numeric, b, b);
+				case OP_CONCAT -> box[pc] = numericIn(numeric, b, c);
+				case OP_CALL, OP_TAILCALL -> box[pc] = numericIn(numeric, a, b == 0 ? size - 1 : a + b - 1);
+				case OP_RETURN -> box[pc] = numericIn(numeric, a, b == 0 ? size - 1 : a + b - 2);
+				case OP_TFORCALL -> box[pc] = numericIn(numeric, a, a + 2);
+				case OP_TFORLOOP -> box[pc] = numericIn(numeric, a + 1, a + 1);
+				default -> {
+				}
+			}
+		}
+
+		// If every operation reads a boxed value, we gain nothing over the original bytecode, and just pay for
+		// allocating the register file on each call.
+		if (!unboxed) return NONE;
+
+		return new NumericRegisters(newCode, numeric, constants, box, Arrays.copyOf(unboxedLoops, unboxedLoopCount));
+	}
+
+	private static int setOpcode(int i, int op) {
+		return (i & ~MASK_OP) | (op << POS_OP);
+	}
+
+	private static void markBoxed(boolean[] boxed, int from, int to) {
+		for (int r = from; r <= to && r < boxed.length; r++) boxed[r] = true;
+	}
+
+	private static boolean isNonNumberConstant(double[] constants, int x) {
+		return ISK(x) && Double.isNaN(constants[INDEXK(x)]);
+	}
+
+	private static boolean isUnboxed(boolean[] numeric, int x) {
+		return ISK(x) || numeric[x];
+	}
+
+	private static int @Nullable [] numericIn(boolean[] numeric, int from, int to) {
+		int count = 0;
+		for (int r = from; r <= to && r < numeric.length; r++) if (numeric[r]) count++;
+		if (count == 0) return null;
+
+		int[] registers = new int[count];
+		count = 0;
+		for (int r = from; r <= to && r < numeric.length; r++) if (numeric[r]) registers[count++] = r;
+		return registers;
+	}
+
+	private static int @Nullable [] numericRK(boolean[] numeric, int x, int y) {
+		return union(x < 0 || ISK(x) ? null : numericIn(numeric, x, x), y < 0 || ISK(y) ? null : numericIn(numeric, y, y));
+	}
+
+	private static int @Nullable [] union(int @Nullable [] x, int @Nullable [] y) {
+		if (x == null) return y;
+		if (y == null || (y.length == 1 && x.length == 1 && x[0] == y[0])) return x;
+
+		int[] result = Arrays.copyOf(x, x.length + y.length);
+		System.arraycopy(y, 0, result, x.length, y.length);
+		return result;
+	}
+}
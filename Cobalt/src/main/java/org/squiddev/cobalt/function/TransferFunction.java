@@ -0,0 +1,28 @@
+package org.squiddev.cobalt.function;
+
+import org.squiddev.cobalt.*;
+import org.squiddev.cobalt.debug.DebugFrame;
+
+/**
+ * A function which transfers control to another coroutine, such as {@code coroutine.yield} or
+ * {@code coroutine.resume}.
+ * <p>
+ * Such functions would normally throw an {@link UnwindThrowable}, unwinding the Java stack back to
+ * {@link LuaThread}'s scheduler. However, when called from a Lua function which the scheduler is executing directly,
+ * there are no Java frames to unwind. In this case, the interpreter calls {@link #transfer(LuaState, DebugFrame, Varargs)}
+ * instead, and suspends the calling function in place when it returns {@link LuaThread#UNWIND}.
+ */
+public interface TransferFunction {
+	/**
+	 * Invoke this function, returning {@link LuaThread#UNWIND} rather than throwing when transferring control.
+	 *
+	 * @param state The current Lua state.
+	 * @param di    The debug frame for this function.
+	 * @param args  The arguments to this function.
+	 * @return The result of this function, or {@link LuaThread#UNWIND} if control is transferred to another coroutine.
+	 * @throws LuaError If this function errored.
+	 * @see LuaThread#prepareYield(LuaState, Varargs)
+	 * @see LuaThread#prepareResume(LuaState, LuaThread, Varargs)
+	 */
+	Varargs transfer(LuaState state, DebugFrame di, Varargs args) throws LuaError;
+}
@@ -34,7 +34,6 @@ import org.squiddev.cobalt.debug.DebugFrame;
 import org.squiddev.cobalt.function.*;
 import org.squiddev.cobalt.unwind.SuspendedTask;
 
-import java.io.InputStream;
 import java.nio.ByteBuffer;
 
 import static org.squiddev.cobalt.Constants.NIL;
@@ -81,7 +80,7 @@ public final class BaseLib {
 			RegisteredFunction.ofS("pairs", self::pairs),
 			RegisteredFunction.ofV("ipairs", self::ipairs),
 			RegisteredFunction.of("rawlen", BaseLib::rawlen),
-			RegisteredFunction.ofV("next", BaseLib::next),
+			RegisteredFunction.ofFactory("next", Next::new),
 			RegisteredFunction.ofFactory("pcall", PCall::new),
 			RegisteredFunction.ofFactory("xpcall", XpCall::new),
 			RegisteredFunction.ofFactory("load", Load::new),
@@ -89,7 +88,7 @@ public final class BaseLib {
 
 		// remember next, and inext for use in pairs and ipairs
 		self.next = env.rawget("next");
-		self.inext = RegisteredFunction.ofS("inext", BaseLib::inext).create();
+		self.inext = RegisteredFunction.ofFactory("inext", INext::new).create();
 	}
 
 	private static LuaValue error(LuaState state, LuaValue arg1, LuaValue arg2) throws LuaError {
@@ -141,8 +140,7 @@ public final class BaseLib {
 	private static Varargs loadstring(LuaState state, DebugFrame di, Varargs args) throws LuaError, UnwindThrowable {
 		// loadstring( string [,chunkname] ) -> chunk | nil, msg
 		LuaString script = args.arg(1).checkLuaString();
-		InputStream is = script.toInputStream();
-		return loadStream(state, di, is, args.arg(2).optLuaString(script), null, state.globals());
+		return loadStream(state, di, script.toReader(state), args.arg(2).optLuaString(script), null, state.globals());
 	}
 
 	private static Varargs select(LuaState state, Varargs args) throws LuaError {
@@ -244,26 +242,57 @@ public final class BaseLib {
 		};
 	}
 
-	private static Varargs next(LuaState state, Varargs args) throws LuaError {
-		// next( table, [index] ) -> next-index, next-value
-		return args.arg(1).checkTable().next(args.arg(2));
+	private static class Next extends VarArgFunction implements IteratorFunction {
+		@Override
+		protected Varargs invoke(LuaState state, Varargs args) throws LuaError {
+			// next( table, [index] ) -> next-index, next-value
+			return args.arg(1).checkTable().next(args.arg(2));
+		}
+
+		@Override
+		public boolean iterate(LuaState state, LuaValue object, LuaValue control, LuaValue[] out, int offset, int count) {
+			return object instanceof LuaTable table && table.next(control, out, offset, count);
+		}
 	}
 
-	private static Varargs inext(LuaState state, DebugFrame di, Varargs args) throws LuaError, UnwindThrowable {
-		// inext( table, [int-index] ) -> next-index, next-value
-		LuaValue table = args.arg(1);
-		int key = args.arg(2).checkInteger() + 1;
+	private static class INext extends ResumableVarArgFunction<SuspendedTask<Varargs>> implements IteratorFunction {
+		@Override
+		protected Varargs invoke(LuaState state, DebugFrame di, Varargs args) throws LuaError, UnwindThrowable {
+			// inext( table, [int-index] ) -> next-index, next-value
+			LuaValue table = args.arg(1);
+			int key = args.arg(2).checkInteger() + 1;
+
+			if (table instanceof LuaTable tbl && tbl.getMetatable(state) == null) {
+				// Fast path for simple tables.
+				LuaValue v = tbl.rawget(key);
+				return v.isNil() ? NIL : varargsOf(valueOf(key), v);
+			}
 
-		if (table instanceof LuaTable tbl && tbl.getMetatable(state) == null) {
-			// Fast path for simple tables.
-			LuaValue v = tbl.rawget(key);
-			return v.isNil() ? NIL : varargsOf(valueOf(key), v);
+			return SuspendedAction.run(di, () -> {
+				LuaValue v = OperationHelper.getTable(state, table, key);
+				return v.isNil() ? NIL : varargsOf(valueOf(key), v);
+			});
 		}
 
-		return SuspendedAction.run(di, () -> {
-			LuaValue v = OperationHelper.getTable(state, table, key);
-			return v.isNil() ? NIL : varargsOf(valueOf(key), v);
-		});
+		@Override
+		public Varargs resume(LuaState state, SuspendedTask<Varargs> object, Varargs value) throws LuaError, UnwindThrowable {
+			return object.resume(value);
+		}
+
+		@Override
+		public boolean iterate(LuaState state, LuaValue object, LuaValue control, LuaValue[] out, int offset, int count) {
+			if (!(object instanceof LuaTable table) || table.getMetatable(state) != null || !(control instanceof LuaInteger index)) {
+				return false;
+			}
+
+			int key = index.intValue() + 1;
+			LuaValue value = table.rawget(key);
+
+			for (int i = count - 1; i >= 2; i--) out[offset + i] = NIL;
+			if (count >= 2) out[offset + 1] = value;
+			if (count >= 1) out[offset] = value.isNil() ? NIL : valueOf(key);
+			return true;
+		}
 	}
 
 	// pcall(f, arg1, ...) -> status, result1, ...
@@ -323,7 +352,7 @@ public final class BaseLib {
 			// If we're a string, load as normal
 			if (scriptGen.isString()) {
 				LuaString contents = scriptGen.checkLuaString();
-				return BaseLib.loadStream(state, di, contents.toInputStream(), chunkName == null ? contents : chunkName, mode, funcEnv);
+				return BaseLib.loadStream(state, di, contents.toReader(state), chunkName == null ? contents : chunkName, mode, funcEnv);
 			}
 
 			LuaFunction function = scriptGen.checkFunction();
@@ -358,10 +387,10 @@ public final class BaseLib {
 		}
 	}
 
-	private static Varargs loadStream(LuaState state, DebugFrame frame, InputStream is, LuaString chunkName, LuaString mode, LuaValue env) throws UnwindThrowable, LuaError {
+	private static Varargs loadStream(LuaState state, DebugFrame frame, InputReader reader, LuaString chunkName, LuaString mode, LuaValue env) throws UnwindThrowable, LuaError {
 		return SuspendedAction.run(frame, () -> {
 			try {
-				return state.compiler.load(LuaC.compile(state, new LuaC.InputStreamReader(state, is), chunkName, mode), env);
+				return state.compiler.load(LuaC.compile(state, reader, chunkName, mode), env);
 			} catch (CompileException e) {
 				return varargsOf(Constants.NIL, valueOf(e.getMessage()));
 			}
@@ -0,0 +1,179 @@
+package org.squiddev.cobalt.lib;
+
+import org.squiddev.cobalt.*;
+import org.squiddev.cobalt.function.LibFunction;
+import org.squiddev.cobalt.function.RegisteredFunction;
+
+import static org.squiddev.cobalt.Constants.*;
+import static org.squiddev.cobalt.ValueFactory.tableOf;
+import static org.squiddev.cobalt.ValueFactory.valueOf;
+
+/**
+ * The {@code buffer} library, for reading and writing binary data in a mutable {@link LuaBuffer}.
+ * <p>
+ * As with the string library, offsets are one-based. All functions are also available as methods on buffers, so
+ * {@code buffer.readu8(b, 1)} may be written as {@code b:readu8(1)}.
+ */
+public final class BufferLib {
+	private BufferLib() {
+	}
+
+	public static void add(LuaState state, LuaTable env) throws LuaError {
+		LuaTable t = RegisteredFunction.bind(new RegisteredFunction[]{
+			RegisteredFunction.of("create", BufferLib::create),
+			RegisteredFunction.of("fromstring", BufferLib::fromstring),
+			RegisteredFunction.of("tostring", BufferLib::tostring),
+			RegisteredFunction.of("len", BufferLib::len),
+			RegisteredFunction.ofV("slice", BufferLib::slice),
+
+			RegisteredFunction.of("readi8", (s, b, o) -> valueOf(checkBuffer(b).getByte(checkOffset(b, o, 1)))),
+			RegisteredFunction.of("readu8", (s, b, o) -> valueOf(checkBuffer(b).getByte(checkOffset(b, o, 1)) & 0xFF)),
+			RegisteredFunction.of("readi16", (s, b, o) -> valueOf(checkBuffer(b).getShort(checkOffset(b, o, 2)))),
+			RegisteredFunction.of("readu16", (s, b, o) -> valueOf(checkBuffer(b).getShort(checkOffset(b, o, 2)) & 0xFFFF)),
+			RegisteredFunction.of("readi32", (s, b, o) -> valueOf(checkBuffer(b).getInt(checkOffset(b, o, 4)))),
+			RegisteredFunction.of("readu32", (s, b, o) -> LuaInteger.valueOf(checkBuffer(b).getInt(checkOffset(b, o, 4)) & 0xFFFFFFFFL)),
+			RegisteredFunction.of("readf32", (s, b, o) -> valueOf(checkBuffer(b).getFloat(checkOffset(b, o, 4)))),
+			RegisteredFunction.of("readf64", (s, b, o) -> valueOf(checkBuffer(b).getDouble(checkOffset(b, o, 8)))),
+
+			RegisteredFunction.of("writei8", BufferLib::write8),
+			RegisteredFunction.of("writeu8", BufferLib::write8),
+			RegisteredFunction.of("writei16", BufferLib::write16),
+			RegisteredFunction.of("writeu16", BufferLib::write16),
+			RegisteredFunction.of("writei32", BufferLib::write32),
+			RegisteredFunction.of("writeu32", BufferLib::write32),
+			RegisteredFunction.of("writef32", BufferLib::writef32),
+			RegisteredFunction.of("writef64", BufferLib::writef64),
+
+			RegisteredFunction.of("readstring", BufferLib::readstring),
+			RegisteredFunction.ofV("writestring", BufferLib::writestring),
+			RegisteredFunction.ofV("copy", BufferLib::copy),
+			RegisteredFunction.ofV("fill", BufferLib::fill),
+		});
+
+		LibFunction.setGlobalLibrary(state, env, "buffer", t);
+		state.bufferMetatable = tableOf(INDEX, t, LEN, t.rawget("len"), NAME, valueOf("buffer"));
+	}
+
+	private static LuaBuffer checkBuffer(LuaValue value) throws LuaError {
+		if (value instanceof LuaBuffer buffer) return buffer;
+		throw ErrorFactory.argError(1, "buffer expected, got " + ErrorFactory.typeName(value));
+	}
+
+	/**
+	 * Check that a value of {@code size} bytes at a one-based offset is within the buffer.
+	 *
+	 * @param buffer The buffer, which has already been checked with {@link #checkBuffer(LuaValue)}.
+	 * @param offset The one-based offset, passed as argument #2.
+	 * @param size   The number of bytes which will be accessed.
+	 * @return The zero-based offset.
+	 * @throws LuaError If the offset is not a number, or is out of bounds.
+	 */
+	private static int checkOffset(LuaValue buffer, LuaValue offset, int size) throws LuaError {
+		long index = offset.checkLong() - 1;
+		((LuaBuffer) buffer).checkRange(2, index, size);
+		return (int) index;
+	}
+
+	private static LuaValue create(LuaState state, LuaValue size) throws LuaError {
+		int length = size.checkInteger();
+		if (length < 0) throw ErrorFactory.argError(1, "size cannot be negative");
+		return LuaBuffer.allocate(state, length);
+	}
+
+	private static LuaValue fromstring(LuaState state, LuaValue value) throws LuaError {
+		LuaString string = value.checkLuaString();
+		LuaBuffer buffer = LuaBuffer.allocate(state, string.length());
+		buffer.copyFrom(0, string, 0, string.length());
+		return buffer;
+	}
+
+	private static LuaValue tostring(LuaState state, LuaValue value) throws LuaError {
+		LuaBuffer buffer = checkBuffer(value);
+		return buffer.toLuaString(0, buffer.length());
+	}
+
+	private static LuaValue len(LuaState state, LuaValue value) throws LuaError {
+		return valueOf(checkBuffer(value).length());
+	}
+
+	private static Varargs slice(LuaState state, Varargs args) throws LuaError {
+		LuaBuffer buffer = checkBuffer(args.arg(1));
+		long offset = args.arg(2).checkLong() - 1;
+		long count = args.arg(3).optLong(buffer.length() - offset);
+		buffer.checkRange(2, offset, count);
+		return buffer.slice((int) offset, (int) count);
+	}
+
+	private static LuaValue write8(LuaState state, LuaValue buffer, LuaValue offset, LuaValue value) throws LuaError {
+		checkBuffer(buffer).putByte(checkOffset(buffer, offset, 1), (byte) value.checkLong());
+		return NIL;
+	}
+
+	private static LuaValue write16(LuaState state, LuaValue buffer, LuaValue offset, LuaValue value) throws LuaError {
+		checkBuffer(buffer).putShort(checkOffset(buffer, offset, 2), (short) value.checkLong());
+		return NIL;
+	}
+
+	private static LuaValue write32(LuaState state, LuaValue buffer, LuaValue offset, LuaValue value) throws LuaError {
+		checkBuffer(buffer).putInt(checkOffset(buffer, offset, 4), (int) value.checkLong());
+		return NIL;
+	}
+
+	private static LuaValue writef32(LuaState state, LuaValue buffer, LuaValue offset, LuaValue value) throws LuaError {
+		checkBuffer(buffer).putFloat(checkOffset(buffer, offset, 4), (float) value.checkDouble());
+		return NIL;
+	}
+
+	private static LuaValue writef64(LuaState state, LuaValue buffer, LuaValue offset, LuaValue value) throws LuaError {
+		checkBuffer(buffer).putDouble(checkOffset(buffer, offset, 8), value.checkDouble());
+		return NIL;
+	}
+
+	private static LuaValue readstring(LuaState state, LuaValue buffer, LuaValue offset, LuaValue count) throws LuaError {
+		LuaBuffer b = checkBuffer(buffer);
+		long index = offset.checkLong() - 1;
+		long length = count.checkLong();
+		if (length < 0) throw ErrorFactory.argError(3, "count cannot be negative");
+		b.checkRange(2, index, length);
+		return b.toLuaString((int) index, (int) length);
+	}
+
+	private static Varargs writestring(LuaState state, Varargs args) throws LuaError {
+		LuaBuffer buffer = checkBuffer(args.arg(1));
+		LuaString string = args.arg(3).checkLuaString();
+		int length = args.arg(4).optInteger(string.length());
+		if (length < 0) throw ErrorFactory.argError(4, "count cannot be negative");
+		if (length > string.length()) throw ErrorFactory.argError(4, "string length overflow");
+
+		buffer.copyFrom(checkOffset(buffer, args.arg(2), length), string, 0, length);
+		return NONE;
+	}
+
+	private static Varargs copy(LuaState state, Varargs args) throws LuaError {
+		LuaBuffer target = checkBuffer(args.arg(1));
+		long targetOffset = args.arg(2).checkLong() - 1;
+
+		LuaValue sourceArg = args.arg(3);
+		if (!(sourceArg instanceof LuaBuffer source)) {
+			throw ErrorFactory.argError(3, "buffer expected, got " + ErrorFactory.typeName(sourceArg));
+		}
+		long sourceOffset = args.arg(4).optLong(1) - 1;
+		long count = args.arg(5).optLong(source.length() - sourceOffset);
+
+		source.checkRange(4, sourceOffset, count);
+		target.checkRange(2, targetOffset, count);
+		target.copyFrom((int) targetOffset, source, (int) sourceOffset, (int) count);
+		return NONE;
+	}
+
+	private static Varargs fill(LuaState state, Varargs args) throws LuaError {
+		LuaBuffer buffer = checkBuffer(args.arg(1));
+		long offset = args.arg(2).checkLong() - 1;
+		int value = args.arg(3).checkInteger();
+		long count = args.arg(4).optLong(buffer.length() - offset);
+
+		buffer.checkRange(2, offset, count);
+		buffer.fill((int) offset, (int) count, (byte) value);
+		return NONE;
+	}
+}
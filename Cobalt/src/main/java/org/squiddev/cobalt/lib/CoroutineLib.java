@@ -31,6 +31,7 @@ import org.squiddev.cobalt.function.LibFunction;
 import org.squiddev.cobalt.function.LuaFunction;
 import org.squiddev.cobalt.function.RegisteredFunction;
 import org.squiddev.cobalt.function.ResumableVarArgFunction;
+import org.squiddev.cobalt.function.TransferFunction;
 
 import static org.squiddev.cobalt.ValueFactory.valueOf;
 import static org.squiddev.cobalt.ValueFactory.varargsOf;
@@ -93,15 +94,19 @@ public final class CoroutineLib {
 		return new Wrapped(thread);
 	}
 
-	private static class Resume extends ResumableVarArgFunction<Void> {
+	private static class Resume extends ResumableVarArgFunction<Void> implements TransferFunction {
 		@Override
 		protected Varargs invoke(LuaState state, DebugFrame di, Varargs args) throws LuaError, UnwindThrowable {
+			return LuaThread.unwind(state, transfer(state, di, args));
+		}
+
+		@Override
+		public Varargs transfer(LuaState state, DebugFrame di, Varargs args) throws LuaError {
 			// TODO: Is this really the right way to do this?
 			di.flags |= FLAG_YPCALL;
 			LuaThread thread = args.arg(1).checkThread();
 			try {
-				Varargs result = LuaThread.resume(state, thread, args.subargs(2));
-				return varargsOf(Constants.TRUE, result);
+				return LuaThread.prepareResume(state, thread, args.subargs(2));
 			} catch (LuaError le) {
 				return varargsOf(Constants.FALSE, le.getValue());
 			}
@@ -118,19 +123,24 @@ public final class CoroutineLib {
 		}
 	}
 
-	private static class Yield extends ResumableVarArgFunction<Void> {
+	private static class Yield extends ResumableVarArgFunction<Void> implements TransferFunction {
 		@Override
 		protected Varargs invoke(LuaState state, DebugFrame di, Varargs args) throws LuaError, UnwindThrowable {
 			return LuaThread.yield(state, args);
 		}
 
+		@Override
+		public Varargs transfer(LuaState state, DebugFrame di, Varargs args) throws LuaError {
+			return LuaThread.prepareYield(state, args);
+		}
+
 		@Override
 		public Varargs resume(LuaState state, Void object, Varargs value) {
 			return value;
 		}
 	}
 
-	private static class Wrapped extends ResumableVarArgFunction<Void> {
+	private static class Wrapped extends ResumableVarArgFunction<Void> implements TransferFunction {
 		private final LuaThread thread;
 
 		private Wrapped(LuaThread thread) {
@@ -142,6 +152,11 @@ public final class CoroutineLib {
 			return LuaThread.resume(state, thread, args);
 		}
 
+		@Override
+		public Varargs transfer(LuaState state, DebugFrame di, Varargs args) throws LuaError {
+			return LuaThread.prepareResume(state, thread, args);
+		}
+
 		@Override
 		public Varargs resume(LuaState state, Void object, Varargs value) {
 			return value;
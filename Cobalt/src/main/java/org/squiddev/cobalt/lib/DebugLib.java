@@ -282,6 +282,7 @@ public final class DebugLib {
 
 			LuaString name = di.getLocalName(local);
 			if (name == null || di.stack == null) return NIL;
+			di.boxNumbers();
 			LuaValue value = di.stack[local - 1];
 			return varargsOf(name, value);
 		}
@@ -300,6 +301,7 @@ public final class DebugLib {
 		LuaString name = di.getLocalName(local);
 		if (name == null || di.stack == null) return NIL;
 
+		di.boxNumbers();
 		di.stack[local - 1] = value;
 		return name;
 	}
@@ -26,6 +26,7 @@ package org.squiddev.cobalt.lib;
 
 import cc.tweaked.cobalt.internal.doubles.DoubleToStringConverter;
 import cc.tweaked.cobalt.internal.string.CharProperties;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.squiddev.cobalt.Buffer;
 import org.squiddev.cobalt.LuaError;
 import org.squiddev.cobalt.LuaString;
@@ -51,6 +52,10 @@ public class FormatDesc {
 	private final int flags;
 	private final int width;
 	private final int precision;
+	/**
+	 * The options to format floating point numbers with, or {@code null} if this is not a floating point conversion.
+	 */
+	private final DoubleToStringConverter.@Nullable FormatOptions doubleOptions;
 
 	final int conversion;
 
@@ -115,6 +120,10 @@ public class FormatDesc {
 
 		conversion = c;
 		length = p - start;
+		doubleOptions = switch (c) {
+			case 'e', 'E', 'f', 'g', 'G', 'a', 'A' -> doubleOpts(c == 'G' || c == 'E' || c == 'A');
+			default -> null;
+		};
 	}
 
 	private boolean leftAdjust() {
@@ -254,12 +263,12 @@ public class FormatDesc {
 					case 0 -> 1;
 					default -> prec;
 				};
-				DoubleToStringConverter.toPrecision(number, computedPrecision, doubleOpts(conversion == 'G'), buf);
+				DoubleToStringConverter.toPrecision(number, computedPrecision, doubleOptions, buf);
 			}
 			case 'e', 'E' ->
-				DoubleToStringConverter.toExponential(number, prec == -1 ? 6 : prec, doubleOpts(conversion == 'E'), buf);
-			case 'a', 'A' -> DoubleToStringConverter.toHex(number, prec, doubleOpts(conversion == 'A'), buf);
-			case 'f' -> DoubleToStringConverter.toFixed(number, prec == -1 ? 6 : prec, doubleOpts(false), buf);
+				DoubleToStringConverter.toExponential(number, prec == -1 ? 6 : prec, doubleOptions, buf);
+			case 'a', 'A' -> DoubleToStringConverter.toHex(number, prec, doubleOptions, buf);
+			case 'f' -> DoubleToStringConverter.toFixed(number, prec == -1 ? 6 : prec, doubleOptions, buf);
 		}
 	}
 
@@ -0,0 +1,25 @@
+package cc.tweaked.cobalt.benchmark;
+
+import org.squiddev.cobalt.ValueFactory;
+
+/**
+ * Repeatedly resumes a coroutine, which immediately yields back.
+ */
+public class CoroutinePingPong extends LuaBenchmark {
+	public CoroutinePingPong() {
+		super("""
+			local n = ...
+			local co = coroutine.create(function(x)
+				while true do x = coroutine.yield(x + 1) end
+			end)
+
+			local x = 0
+			for _ = 1, n do
+				local _, y = coroutine.resume(co, x)
+				x = y
+			end
+			return x
+			""", state -> ValueFactory.valueOf(1000)
+		);
+	}
+}
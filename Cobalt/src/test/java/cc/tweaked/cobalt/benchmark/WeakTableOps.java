@@ -0,0 +1,110 @@
+package cc.tweaked.cobalt.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.squiddev.cobalt.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for weak-keyed ({@code __mode="k"}) and weak-valued ({@code __mode="v"}) tables.
+ * <p>
+ * These are best run with {@code -prof gc}, to measure the memory used by each entry.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class WeakTableOps {
+	@Param({"k", "v"})
+	private String mode;
+
+	@Param({"100", "1000"})
+	private int tableSize;
+
+	private LuaTable metatable;
+
+	/**
+	 * The string keys used by weak-valued tables.
+	 */
+	private LuaValue[] stringKeys;
+
+	/**
+	 * A weak table of {@link #tableSize} entries, whose keys and values are kept alive by {@link #liveKeys} and
+	 * {@link #liveValues}.
+	 */
+	private LuaTable liveTable;
+	private LuaValue[] liveKeys;
+	private LuaValue[] liveValues;
+
+	/**
+	 * A long-lived weak table, whose entries are immediately garbage.
+	 */
+	private LuaTable cacheTable;
+	private int cacheIndex;
+
+	@Setup
+	public void setup() throws LuaError {
+		metatable = new LuaTable();
+		metatable.rawset("__mode", ValueFactory.valueOf(mode));
+
+		stringKeys = new LuaValue[tableSize];
+		for (int i = 0; i < tableSize; i++) stringKeys[i] = ValueFactory.valueOf("k" + i);
+
+		liveKeys = new LuaValue[tableSize];
+		liveValues = new LuaValue[tableSize];
+		for (int i = 0; i < tableSize; i++) {
+			liveKeys[i] = key(i);
+			liveValues[i] = value();
+		}
+
+		liveTable = weakTable();
+		for (int i = 0; i < tableSize; i++) liveTable.rawset(liveKeys[i], liveValues[i]);
+
+		cacheTable = weakTable();
+	}
+
+	private LuaTable weakTable() {
+		var table = new LuaTable();
+		table.setMetatable(null, metatable);
+		return table;
+	}
+
+	private LuaValue key(int i) {
+		return mode.equals("k") ? new LuaTable() : stringKeys[i];
+	}
+
+	private LuaValue value() {
+		return mode.equals("k") ? Constants.TRUE : new LuaTable();
+	}
+
+	/**
+	 * Fill a new weak table, growing it as we go.
+	 */
+	@Benchmark
+	public LuaTable fill() throws LuaError {
+		var table = weakTable();
+		for (int i = 0; i < tableSize; i++) table.rawset(liveKeys[i], liveValues[i]);
+		return table;
+	}
+
+	/**
+	 * Fetch every entry from a weak table.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(100)
+	public void fetch(Blackhole bh) {
+		for (int i = 0; i < 100; i++) bh.consume(liveTable.rawget(liveKeys[i]));
+	}
+
+	/**
+	 * Add a short-lived entry to a weak table, as a cache would. Dead entries must be cleared out, otherwise the table
+	 * will grow forever.
+	 */
+	@Benchmark
+	public void churn() throws LuaError {
+		int i = cacheIndex = (cacheIndex + 1) % tableSize;
+		cacheTable.rawset(key(i), value());
+	}
+}
@@ -35,6 +35,9 @@ import cc.tweaked.cobalt.internal.doubles.DoubleToStringConverter.Symbols;
 import org.junit.jupiter.api.Test;
 import org.squiddev.cobalt.Buffer;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class DoubleToStringConverterTest {
@@ -153,6 +156,34 @@ class DoubleToStringConverterTest {
 		testPrec("            -1.00000", -1.0, precision, fo);
 	}
 
+	@Test
+	void toPrecisionBytes() {
+		FormatOptions fo = new FormatOptions(new Symbols("inf", "nan", 'e', 'x', 'p', 'a'), false, false, false, -1, false, false);
+
+		double[] special = {
+			0.0, -0.0, 1.0, -1.0, 0.1, 1e-5, 1e-4, 123450.0, 1e14, 1e15, 1e100, -1e-100, Double.MAX_VALUE, Double.MIN_VALUE,
+			Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+		};
+		for (double value : special) testPrecBytes(value, fo);
+
+		Random random = new Random(0);
+		for (int i = 0; i < 10_000; i++) {
+			testPrecBytes(Double.longBitsToDouble(random.nextLong()), fo);
+			testPrecBytes(random.nextInt(100_000) / 100.0, fo);
+		}
+	}
+
+	private void testPrecBytes(double value, FormatOptions fo) {
+		for (int precision : new int[]{1, 2, 6, 14, 17}) {
+			Buffer expected = new Buffer();
+			DoubleToStringConverter.toPrecision(value, precision, fo, expected);
+
+			byte[] bytes = new byte[DoubleToStringConverter.maxPrecisionLength(precision) + 2];
+			int length = DoubleToStringConverter.toPrecision(value, precision, bytes, 2);
+			assertEquals(expected.toString(), new String(bytes, 2, length, StandardCharsets.ISO_8859_1), () -> "Formatting " + value);
+		}
+	}
+
 	@Test
 	void toHex() {
 		testHex("0x0p+0", 0.0, -1, DEFAULT);
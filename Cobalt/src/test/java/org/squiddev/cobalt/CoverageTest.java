@@ -0,0 +1,97 @@
+package org.squiddev.cobalt;
+
+import org.junit.jupiter.api.Test;
+import org.squiddev.cobalt.compiler.CompileException;
+import org.squiddev.cobalt.compiler.LoadState;
+import org.squiddev.cobalt.debug.Coverage;
+import org.squiddev.cobalt.debug.SourceCoverage;
+import org.squiddev.cobalt.lib.CoreLibraries;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoverageTest {
+	private final Coverage coverage = new Coverage();
+	private final LuaState state = LuaState.builder().coverage(coverage).build();
+
+	private SourceCoverage run(String... lines) throws CompileException, LuaError {
+		CoreLibraries.standardGlobals(state);
+		var contents = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+		var function = LoadState.load(state, new ByteArrayInputStream(contents), "@test.lua", state.globals());
+		LuaThread.runMain(state, function);
+
+		var sources = coverage.collect();
+		assertEquals(List.of("@test.lua"), sources.keySet().stream().map(LuaString::toString).toList());
+		return sources.get(ValueFactory.valueOf("@test.lua"));
+	}
+
+	@Test
+	public void testLineCoverage() throws CompileException, LuaError {
+		var result = run(
+			"local function f(x)",
+			"  if x > 1 then",
+			"    return 'big'",
+			"  end",
+			"  return 'small'",
+			"end",
+			"local function unused()",
+			"  return 1",
+			"end",
+			"for i = 1, 3 do f(i) end"
+		);
+
+		var lines = result.lines();
+		assertEquals(3, lines.get(2));
+		assertEquals(2, lines.get(3));
+		assertEquals(1, lines.get(5));
+		assertEquals(0, lines.get(8), "Functions which are never called are included");
+		assertFalse(lines.containsKey(4), "Lines without code are not included");
+	}
+
+	@Test
+	public void testBranchCoverage() throws CompileException, LuaError {
+		var result = run(
+			"local function f(x)",
+			"  if x then return 1 end",
+			"  if x == 1 then return 2 end",
+			"end",
+			"f(false) f(false) f(true)"
+		);
+
+		assertEquals(Map.of(
+			new SourceCoverage.Branch(2, 0, 0), 2L,
+			new SourceCoverage.Branch(2, 0, 1), 1L,
+			new SourceCoverage.Branch(3, 0, 0), 2L,
+			new SourceCoverage.Branch(3, 0, 1), 0L
+		), result.branches());
+	}
+
+	@Test
+	public void testBranchAfterYield() throws CompileException, LuaError {
+		var result = run(
+			"local mt = { __lt = function() coroutine.yield() return false end }",
+			"local a, b = setmetatable({}, mt), setmetatable({}, mt)",
+			"local co = coroutine.create(function()",
+			"  if a < b then return 1 end",
+			"end)",
+			"coroutine.resume(co) coroutine.resume(co)"
+		);
+
+		assertEquals(Map.of(
+			new SourceCoverage.Branch(4, 0, 0), 1L,
+			new SourceCoverage.Branch(4, 0, 1), 0L
+		), result.branches());
+		assertEquals(1, result.lines().get(4));
+	}
+
+	@Test
+	public void testMergesRepeatedLoads() throws CompileException, LuaError {
+		run("local x = 1");
+		var result = run("local x = 1");
+		assertEquals(2, result.lines().get(1));
+	}
+}
@@ -9,6 +9,7 @@ import org.squiddev.cobalt.debug.DebugHelpers;
 import org.squiddev.cobalt.function.LuaFunction;
 import org.squiddev.cobalt.function.RegisteredFunction;
 import org.squiddev.cobalt.lib.Bit32Lib;
+import org.squiddev.cobalt.lib.BufferLib;
 import org.squiddev.cobalt.lib.CoreLibraries;
 import org.squiddev.cobalt.lib.system.SystemBaseLib;
 
@@ -45,6 +46,7 @@ public class LuaSpecTest {
 		CoreLibraries.debugGlobals(state);
 		new SystemBaseLib(x -> null, System.in, System.out).add(env);
 		Bit32Lib.add(state, env);
+		BufferLib.add(state, env);
 		TestLib.add(env);
 
 		// Set the "arg" global as we've have some tests which need it.
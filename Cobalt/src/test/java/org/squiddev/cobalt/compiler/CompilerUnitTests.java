@@ -28,17 +28,21 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.squiddev.cobalt.LuaError;
 import org.squiddev.cobalt.LuaState;
+import org.squiddev.cobalt.LuaString;
 import org.squiddev.cobalt.Print;
 import org.squiddev.cobalt.Prototype;
+import org.squiddev.cobalt.ValueFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Compiles Lua's test files to bytecode and asserts that it is equal to a golden file produced by luac.
@@ -81,6 +85,13 @@ public class CompilerUnitTests {
 
 		assertEquals(expectedBytecode, sourceBytecode);
 
+		// Compiling from a string should give the same result as compiling from a stream.
+		byte[] contents;
+		try (var stream = CompilerUnitTests.class.getResourceAsStream(dir + file + ".lua")) {
+			contents = stream.readAllBytes();
+		}
+		assertEquals(sourceBytecode, dumpState(LuaC.compile(state, LuaString.valueOf(contents), ValueFactory.valueOf("@" + file + ".lua"))));
+
 		// Round-trip the bytecode
 		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 		BytecodeDumper.dump(expectedPrototype, outputStream, false);
@@ -116,6 +127,28 @@ public class CompilerUnitTests {
 		assertEquals(expectedBytecode, sourceBytecode);
 	}
 
+	@ParameterizedTest(name = ParameterizedTest.ARGUMENTS_WITH_NAMES_PLACEHOLDER)
+	@ValueSource(strings = {
+		"x = 'unfinished",
+		"x = [==[ unfinished ]=]",
+		"--[[ unfinished",
+		"x = 0x1e+5 + 1e+",
+		"local function 1",
+		"x = \"\\q\" y",
+		"#!shebang\r\n\tif x then\n\n  y = \"a\\\nb\" + ",
+	})
+	public void errorsMatchStream(String contents) {
+		// Pad the input, so errors occur on either side of the lexer's window.
+		for (String padding : new String[]{ "", "-- " + "x".repeat(4090) + "\n", " ".repeat(4095) }) {
+			var bytes = (padding + contents).getBytes(StandardCharsets.UTF_8);
+			var state = LuaState.builder().build();
+
+			var fromStream = assertThrows(CompileException.class, () -> LuaC.compile(state, new ByteArrayInputStream(bytes), "=input"));
+			var fromString = assertThrows(CompileException.class, () -> LuaC.compile(state, LuaString.valueOf(bytes), ValueFactory.valueOf("=input")));
+			assertEquals(fromStream.getMessage(), fromString.getMessage());
+		}
+	}
+
 	private static String dumpState(Prototype p) {
 		StringBuilder output = new StringBuilder();
 		Print.printFunction(output, p, true, false);
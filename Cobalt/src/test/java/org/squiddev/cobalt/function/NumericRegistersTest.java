@@ -0,0 +1,81 @@
+package org.squiddev.cobalt.function;
+
+import org.junit.jupiter.api.Test;
+import org.squiddev.cobalt.*;
+import org.squiddev.cobalt.compiler.CompileException;
+import org.squiddev.cobalt.compiler.LoadState;
+import org.squiddev.cobalt.lib.CoreLibraries;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NumericRegistersTest {
+	private final LuaState state = LuaState.builder().build();
+
+	private LuaInterpretedFunction load(String... lines) throws CompileException, LuaError {
+		CoreLibraries.standardGlobals(state);
+		var contents = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+		return (LuaInterpretedFunction) LoadState.load(state, new ByteArrayInputStream(contents), "@test.lua", state.globals());
+	}
+
+	private static LuaTable values(LuaValue... values) {
+		var table = new LuaTable();
+		for (var value : values) table.rawset(table.length() + 1, value);
+		return table;
+	}
+
+	private static final String[] SUM_PAIRS = {
+		"local tbl = ...",
+		"local sum = 0",
+		"for _, v in pairs(tbl) do sum = sum + v end",
+		"return sum",
+	};
+
+	@Test
+	public void testLoopAccumulatorIsUnboxed() throws CompileException, LuaError {
+		var function = load(SUM_PAIRS);
+		var registers = NumericRegisters.get(function.getPrototype());
+		assertNotNull(registers, "Arithmetic within a loop should be unboxed");
+		// "sum" is the second local.
+		assertTrue(registers.numeric[1], "The accumulator should be numeric");
+
+		var result = LuaThread.runMain(state, function, values(ValueFactory.valueOf(1), ValueFactory.valueOf(2.5)));
+		assertEquals(ValueFactory.valueOf(3.5), result.first());
+	}
+
+	@Test
+	public void testWhileLoopAccumulatorIsUnboxed() throws CompileException, LuaError {
+		var function = load(
+			"local n, sum = ..., 0",
+			"while n > 0 do sum = sum + n n = n - 1 end",
+			"return sum"
+		);
+		assertNotNull(NumericRegisters.get(function.getPrototype()), "Arithmetic within a loop should be unboxed");
+		assertEquals(ValueFactory.valueOf(55), LuaThread.runMain(state, function, ValueFactory.valueOf(10)).first());
+	}
+
+	@Test
+	public void testArithmeticOutsideLoopIsBoxed() throws CompileException, LuaError {
+		var function = load(
+			"local x = ...",
+			"local y = x + 1",
+			"return y"
+		);
+		assertNull(NumericRegisters.get(function.getPrototype()), "Straight-line arithmetic should not be unboxed");
+		assertEquals(ValueFactory.valueOf(4), LuaThread.runMain(state, function, ValueFactory.valueOf(3)).first());
+	}
+
+	@Test
+	public void testLoopAccumulatorWithNonNumbers() throws CompileException, LuaError {
+		var function = load(SUM_PAIRS);
+
+		// Strings are coerced to numbers, after the frame is boxed.
+		var result = LuaThread.runMain(state, function, values(ValueFactory.valueOf(1), ValueFactory.valueOf("2"), ValueFactory.valueOf(3)));
+		assertEquals(ValueFactory.valueOf(6), result.first());
+
+		var error = assertThrows(LuaError.class, () -> LuaThread.runMain(state, function, values(ValueFactory.valueOf(1), new LuaTable())));
+		assertTrue(error.getMessage().contains("arithmetic"), error.getMessage());
+	}
+}
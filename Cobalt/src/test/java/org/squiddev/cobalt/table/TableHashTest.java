@@ -283,4 +283,47 @@ public class TableHashTest {
 			if (hash > 512) throw new AssertionError("Expected hash to be <=512, but is " + hash);
 		}
 	}
+
+	@Test
+	public void testWeakValuesCleared() throws LuaError {
+		var t = new LuaTable();
+
+		var mt = new LuaTable();
+		mt.rawset("__mode", ValueFactory.valueOf("v"));
+		t.setMetatable(null, mt);
+
+		var kept = new LuaTable[8];
+		for (int i = 0; i < 16; i++) {
+			var value = new LuaTable();
+			if (i % 2 == 0) kept[i / 2] = value;
+			t.rawset(i + 1, value);
+			t.rawset("key_" + i, value);
+		}
+
+		for (int i = 0; i < 10 && t.size() > 16; i++) System.gc();
+		assertEquals(16, t.size());
+
+		for (int i = 0; i < 16; i++) {
+			LuaValue expected = i % 2 == 0 ? kept[i / 2] : Constants.NIL;
+			assertEquals(expected, t.rawget(i + 1));
+			assertEquals(expected, t.rawget("key_" + i));
+		}
+	}
+
+	@Test
+	public void testWeakUserdataKeysSurviveRewrapping() throws LuaError {
+		var t = new LuaTable();
+
+		var mt = new LuaTable();
+		mt.rawset("__mode", ValueFactory.valueOf("k"));
+		t.setMetatable(null, mt);
+
+		var instance = new Object();
+		t.rawset(ValueFactory.userdataOf(instance), Constants.TRUE);
+		t.rawset(ValueFactory.userdataOf(new Object()), Constants.TRUE);
+
+		for (int i = 0; i < 10 && t.size() > 1; i++) System.gc();
+		assertEquals(1, t.size());
+		assertEquals(Constants.TRUE, t.rawget(ValueFactory.userdataOf(instance)));
+	}
 }
@@ -128,6 +128,49 @@ describe("The base library", function()
 				expect(n):eq(3)
 			end)
 		end)
+
+		it("visits every entry", function()
+			local tbl = { 1, 2, 3, a = 4, b = 5, [2.5] = 6 }
+			local seen, n = {}, 0
+			for k, v in pairs(tbl) do
+				expect(seen[k]):eq(nil)
+				expect(tbl[k]):eq(v)
+				seen[k], n = true, n + 1
+			end
+			expect(n):eq(6)
+		end)
+
+		it("allows clearing entries during traversal", function()
+			local tbl = {}
+			for i = 1, 10 do tbl[i], tbl["k" .. i] = i, i end
+
+			local n = 0
+			for k in pairs(tbl) do
+				tbl[k] = nil
+				n = n + 1
+			end
+			expect(n):eq(20)
+			expect(next(tbl)):eq(nil)
+		end)
+
+		it("supports loops with one or more than two variables", function()
+			local tbl = { "a" }
+			local keys = {}
+			for k in next, tbl do keys[#keys + 1] = k end
+			expect(keys):same { 1 }
+
+			for k, v, extra in next, tbl do
+				expect(k):eq(1)
+				expect(v):eq("a")
+				expect(extra):eq(nil)
+			end
+		end)
+
+		it("errors on invalid keys", function()
+			expect.error(function()
+				for _ in next, {}, "invalid" do end
+			end):str_match("invalid key to 'next'")
+		end)
 	end)
 
 	describe("ipairs", function()
@@ -159,6 +202,12 @@ describe("The base library", function()
 			expect(inext("hello", 0)):eq(nil)
 		end)
 
+		it("stops at the first nil", function()
+			local values = {}
+			for i, v in ipairs { 1, 2, nil, 4 } do values[i] = v end
+			expect(values):same { 1, 2 }
+		end)
+
 		it("supports yielding in __index :cobalt", function()
 			local base = { "a", "b", "c" }
 			local obj = setmetatable({}, {
@@ -0,0 +1,155 @@
+describe("The buffer library :cobalt", function()
+	describe("buffer.create", function()
+		it("creates a zeroed buffer", function()
+			local b = buffer.create(4)
+			expect(type(b)):eq("userdata")
+			expect(#b):eq(4)
+			expect(buffer.len(b)):eq(4)
+			expect(buffer.tostring(b)):eq("\0\0\0\0")
+		end)
+
+		it("rejects negative sizes", function()
+			expect.error(buffer.create, -1):str_match("size cannot be negative")
+		end)
+	end)
+
+	it("buffers can be used as methods", function()
+		local b = buffer.fromstring("hello")
+		b:writeu8(1, string.byte("j"))
+		expect(b:tostring()):eq("jello")
+	end)
+
+	it("buffers are only equal to themselves", function()
+		local a, b = buffer.fromstring("a"), buffer.fromstring("a")
+		expect(a == b):eq(false)
+
+		local t = { [a] = true }
+		expect(t[b]):eq(nil)
+	end)
+
+	describe("reading and writing numbers", function()
+		it("round-trips integers", function()
+			local b = buffer.create(8)
+			b:writei8(1, -2)
+			expect(b:readi8(1)):eq(-2)
+			expect(b:readu8(1)):eq(254)
+
+			b:writeu16(1, 0xBEEF)
+			expect(b:readu16(1)):eq(0xBEEF)
+			expect(b:readi16(1)):eq(0xBEEF - 0x10000)
+
+			b:writeu32(5, 0xDEADBEEF)
+			expect(b:readu32(5)):eq(0xDEADBEEF)
+			expect(b:readi32(5)):eq(0xDEADBEEF - 0x100000000)
+		end)
+
+		it("stores values in little-endian order", function()
+			local b = buffer.create(4)
+			b:writeu32(1, 0x04030201)
+			expect(b:tostring()):eq("\1\2\3\4")
+			expect(b:readu32(1)):eq(string.unpack("<I4", "\1\2\3\4"))
+		end)
+
+		it("wraps out of range integers", function()
+			local b = buffer.create(1)
+			b:writeu8(1, 257)
+			expect(b:readu8(1)):eq(1)
+		end)
+
+		it("round-trips floats", function()
+			local b = buffer.create(12)
+			b:writef32(1, 0.5)
+			b:writef64(5, math.pi)
+			expect(b:readf32(1)):eq(0.5)
+			expect(b:readf64(5)):eq(math.pi)
+		end)
+
+		it("checks bounds", function()
+			local b = buffer.create(4)
+			expect.error(b.readu8, b, 0):str_match("out of bounds")
+			expect.error(b.readu8, b, 5):str_match("out of bounds")
+			expect.error(b.readu32, b, 2):str_match("out of bounds")
+			expect.error(b.writef64, b, 1, 0):str_match("out of bounds")
+			expect.error(b.readu8, b, -math.huge):str_match("out of bounds")
+		end)
+
+		it("checks types", function()
+			expect.error(buffer.readu8, "abc", 1):str_match("buffer expected, got string")
+		end)
+	end)
+
+	describe("strings", function()
+		it("reads and writes strings", function()
+			local b = buffer.create(5)
+			b:writestring(2, "abc")
+			expect(b:readstring(2, 3)):eq("abc")
+			expect(b:tostring()):eq("\0abc\0")
+
+			b:writestring(1, "xyz", 1)
+			expect(b:tostring()):eq("xabc\0")
+		end)
+
+		it("does not share memory with returned strings", function()
+			local b = buffer.fromstring("abc")
+			local s = b:tostring()
+			b:writeu8(1, 0)
+			expect(s):eq("abc")
+		end)
+
+		it("checks bounds", function()
+			local b = buffer.create(2)
+			expect.error(b.writestring, b, 1, "abc"):str_match("out of bounds")
+			expect.error(b.writestring, b, 1, "a", 2):str_match("string length overflow")
+			expect.error(b.readstring, b, 2, 2):str_match("out of bounds")
+		end)
+	end)
+
+	describe("buffer.slice", function()
+		it("shares memory with the original buffer", function()
+			local b = buffer.fromstring("hello world")
+			local s = b:slice(7, 5)
+			expect(#s):eq(5)
+			expect(s:tostring()):eq("world")
+
+			s:writestring(1, "W")
+			expect(b:tostring()):eq("hello World")
+		end)
+
+		it("defaults to the rest of the buffer", function()
+			expect(buffer.fromstring("hello"):slice(3):tostring()):eq("llo")
+		end)
+
+		it("checks bounds", function()
+			local b = buffer.create(4)
+			expect.error(b.slice, b, 2, 4):str_match("out of bounds")
+			expect(#b:slice(5)):eq(0)
+		end)
+	end)
+
+	describe("buffer.copy", function()
+		it("copies between buffers", function()
+			local a, b = buffer.fromstring("abcd"), buffer.create(4)
+			buffer.copy(b, 2, a, 2, 2)
+			expect(b:tostring()):eq("\0bc\0")
+		end)
+
+		it("handles overlapping ranges", function()
+			local b = buffer.fromstring("abcdef")
+			buffer.copy(b, 2, b, 1, 5)
+			expect(b:tostring()):eq("aabcde")
+		end)
+
+		it("checks bounds", function()
+			local a, b = buffer.create(4), buffer.create(2)
+			expect.error(buffer.copy, b, 1, a):str_match("out of bounds")
+		end)
+	end)
+
+	it("buffer.fill", function()
+		local b = buffer.create(4)
+		b:fill(2, 0x41, 2)
+		expect(b:tostring()):eq("\0AA\0")
+		b:fill(1, 0x42)
+		expect(b:tostring()):eq("BBBB")
+	end)
+end)
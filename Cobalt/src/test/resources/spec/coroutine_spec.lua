@@ -15,4 +15,46 @@ describe("Coroutines", function()
 			expect(isyieldable):eq(true)
 		end)
 	end)
+
+	describe("coroutine.yield", function()
+		it("can yield from nested functions", function()
+			local function inner(x) return coroutine.yield(x) + 1 end
+			local function outer(x) return (inner(x)) * 2 end
+			local co = coroutine.wrap(function(x)
+				while true do x = outer(x) end
+			end)
+
+			expect(co(1)):eq(1)
+			expect(co(2)):eq(6)
+			expect(co(3)):eq(8)
+		end)
+
+		it("can yield from tail calls and iterators", function()
+			local gen = coroutine.wrap(function()
+				for i = 1, 3 do coroutine.yield(i) end
+			end)
+
+			local co = coroutine.create(function()
+				local total = 0
+				for x in gen do total = total + coroutine.yield(x) end
+				return total
+			end)
+
+			local results = {}
+			local _, value = coroutine.resume(co)
+			while coroutine.status(co) == "suspended" do
+				results[#results + 1] = value
+				_, value = coroutine.resume(co, value * 10)
+			end
+
+			expect(results):same { 1, 2, 3 }
+			expect(value):eq(60)
+		end)
+
+		it("keeps the yielding function on the stack", function()
+			local co = coroutine.create(function() coroutine.yield() end)
+			coroutine.resume(co)
+			expect(debug.traceback(co)):str_match("yield")
+		end)
+	end)
 end)
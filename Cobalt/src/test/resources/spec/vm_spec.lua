@@ -105,4 +105,84 @@ describe("The Lua VM", function()
 			expect(err:sub(1, #prefix)):eq(prefix)
 		end)
 	end)
+
+	describe("numeric registers", function()
+		it("does not produce negative zero", function()
+			-- Numbers are canonicalised when boxed, which loses the sign of zero. Unboxed values must behave the same.
+			local x = 0
+			local y = x * -1
+			expect(1 / y):eq(math.huge)
+			expect(1 / -x):eq(math.huge)
+		end)
+
+		it("coerces strings in arithmetic", function()
+			local x = 1
+			for i = 1, 3 do x = x + i end
+			local y = "10"
+			local z = x * 2
+			z = z + y
+			expect(z):eq(24)
+		end)
+
+		it("uses metamethods in arithmetic", function()
+			local mt = { __add = function(a, b) return "added" end }
+			local x = 1
+			local y = setmetatable({}, mt)
+			x = x + 1
+			local z = x + y
+			expect(z):eq("added")
+		end)
+
+		it("compares mixed values", function()
+			local x = 2
+			x = x * 2
+			local y = "4"
+			expect(x == y):eq(false)
+			expect(x == 4):eq(true)
+			expect(x < 5):eq(true)
+			expect.error(function() return x < y end):str_match("attempt to compare number with string")
+		end)
+
+		it("supports non-constant loop bounds", function()
+			local function sum(start, stop, step)
+				local total = 0
+				for i = start, stop, step do total = total + i end
+				return total
+			end
+
+			expect(sum(1, 10, 1)):eq(55)
+			expect(sum(10, 1, -1)):eq(55)
+			expect(sum(0.5, 2, 0.5)):eq(5)
+			expect(sum("1", "3", "1")):eq(6)
+			expect.error(sum, 1, {}, 1):str_match("'for' limit must be a number")
+		end)
+
+		it("can read and write numeric locals with the debug library", function()
+			local x = 1
+			for i = 1, 10 do
+				x = x + i
+				if i == 5 then
+					local name, value = debug.getlocal(1, 1)
+					expect(name):eq("x")
+					expect(value):eq(16)
+					debug.setlocal(1, 1, 100)
+				end
+			end
+			expect(x):eq(140)
+		end)
+
+		it("can yield within a numeric loop", function()
+			local co = coroutine.wrap(function()
+				local total = 0
+				for i = 1, 5 do
+					total = total + coroutine.yield(i)
+				end
+				return total
+			end)
+
+			local value = co()
+			for _ = 1, 5 do value = co(value * 2) end
+			expect(value):eq(30)
+		end)
+	end)
 end)